@@ -18,9 +18,9 @@ package com.igormaznitsa.ideamindmap.editor;
 import com.igormaznitsa.ideamindmap.facet.MindMapFacet;
 import com.igormaznitsa.ideamindmap.utils.IdeaUtils;
 import com.igormaznitsa.ideamindmap.utils.SelectIn;
-import com.igormaznitsa.ideamindmap.utils.SwingUtils;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.ide.commons.DnDUtils;
+import com.igormaznitsa.mindmap.ide.commons.TextDiff;
 import com.igormaznitsa.mindmap.model.*;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
@@ -44,7 +44,6 @@ import com.intellij.openapi.actionSystem.DataContext;
 import com.intellij.openapi.actionSystem.DataProvider;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.command.CommandProcessor;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.event.DocumentAdapter;
 import com.intellij.openapi.editor.event.DocumentEvent;
@@ -52,11 +51,13 @@ import com.intellij.openapi.editor.event.DocumentListener;
 import com.intellij.openapi.fileEditor.*;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.Alarm;
 import com.intellij.util.xml.ui.Committable;
 import com.intellij.util.xml.ui.UndoHelper;
 import org.jetbrains.annotations.NonNls;
@@ -77,6 +78,7 @@ import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.igormaznitsa.ideamindmap.utils.SwingUtils.safeSwing;
 import static com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute.doesContainOnlyStandardAttributes;
@@ -90,6 +92,11 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
 
   private static final String FILELINK_ATTR_OPEN_IN_SYSTEM = "useSystem"; //NOI18N
 
+  /**
+   * Delay in milliseconds to collect document changes before parsing.
+   */
+  private static final int PARSE_DELAY = 300;
+
   private final JScrollPane mainScrollPane;
   private final MindMapPanel mindMapPanel;
   private final Project project;
@@ -101,6 +108,13 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
   private boolean firstLayouting = true;
   private final DocumentListener documentListener;
 
+  private final Alarm parseAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, this);
+  private final AtomicLong parseRevision = new AtomicLong();
+  private volatile String lastSavedText;
+
+  private boolean modelLoaded;
+  private int[] pendingFocusPath;
+
   public MindMapDocumentEditor(final Project project, final VirtualFile file) {
     this.project = project;
     this.file = file;
@@ -129,7 +143,7 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
 
     this.mindMapPanel.setDropTarget(new DropTarget(this.mindMapPanel, this));
 
-    loadMindMapFromDocument();
+    loadMindMapFromDocument(0);
 
     this.undoHelper = new UndoHelper(this.project, this);
     this.undoHelper.addWatchedDocument(getDocument());
@@ -137,7 +151,7 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
     this.documentListener = new DocumentAdapter() {
       @Override
       public void documentChanged(DocumentEvent e) {
-        loadMindMapFromDocument();
+        loadMindMapFromDocument(PARSE_DELAY);
       }
     };
     this.getDocument().addDocumentListener(this.documentListener);
@@ -209,6 +223,30 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
   }
 
 
+  /**
+   * Focus topic for its position path, if the document is not loaded yet then
+   * the topic will be focused just after loading.
+   *
+   * @param positionPath position path of the topic
+   */
+  public void focusToPath(@Nonnull final int[] positionPath) {
+    assertSwingDispatchThread();
+    this.pendingFocusPath = positionPath.clone();
+    processPendingFocus();
+  }
+
+  private void processPendingFocus() {
+    final int[] path = this.pendingFocusPath;
+    if (path != null && this.modelLoaded && !this.mindMapPanel.isDisposed()) {
+      this.pendingFocusPath = null;
+      final Topic topic = this.mindMapPanel.getModel().findForPositionPath(path);
+      if (topic != null) {
+        this.mindMapPanel.focusTo(topic);
+        topicToCentre(topic);
+      }
+    }
+  }
+
   @Nullable
   public Document getDocument() {
     return this.documents[0];
@@ -222,7 +260,13 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
         IdeaUtils.executeWriteAction(getProject(), document, new Runnable() {
           @Override
           public void run() {
-            document.setText(model.packToString());
+            final String text = model.packToString();
+            lastSavedText = text;
+            // only changed region is replaced to keep PSI, lexing and undo of the rest of document
+            final TextDiff diff = TextDiff.find(document.getCharsSequence(), text);
+            if (diff != null) {
+              document.replaceString(diff.getStart(), diff.getEnd(), diff.getReplacement());
+            }
           }
         });
       }
@@ -230,61 +274,60 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
 
   }
 
-  private void loadMindMapFromDocument() {
-    final MindMapDocumentEditor editorIstance = this;
-    SwingUtils.safeSwing(new Runnable() {
+  private void loadMindMapFromDocument(final int delay) {
+    final Document document = getDocument();
+    if (document == null || this.mindMapPanel.isDisposed()) {
+      return;
+    }
+
+    // any newer request makes results of older ones stale
+    final long revision = this.parseRevision.incrementAndGet();
+    this.parseAlarm.cancelAllRequests();
+    this.parseAlarm.addRequest(new Runnable() {
       @Override
       public void run() {
-        final Document document = getDocument();
-
-        if (document != null) {
-          IdeaUtils.executeReadAction(getProject(), getDocument(), new Runnable() {
-            @Override
-            public void run() {
-              final String documentText = document.getText();
-              safeSwing(new Runnable() {
-                @Override
-                public void run() {
-                  if (!mindMapPanel.isDisposed()) {
-                    try {
-                      mindMapPanel.setModel(new MindMap(editorIstance, new StringReader(documentText)));
-                    } catch (Exception ex) {
-                      LOGGER.error("Can't parse MindMap text", ex);
-                      editorIstance.mindMapPanel.setErrorText("Can't parse mind map content");
-                    }
-                  }
-                }
-              });
-            }
-          });
-
-          CommandProcessor.getInstance().executeCommand(getProject(), new Runnable() {
-            @Override
-            public void run() {
-              ApplicationManager.getApplication().runReadAction(new Runnable() {
-                @Override
-                public void run() {
-                  final String documentText = document.getText();
-                  safeSwing(new Runnable() {
-                    @Override
-                    public void run() {
-                      if (!mindMapPanel.isDisposed()) {
-                        try {
-                          mindMapPanel.setModel(new MindMap(editorIstance, new StringReader(documentText)));
-                        } catch (Exception ex) {
-                          LOGGER.error("Can't parse MindMap text", ex);
-                          editorIstance.mindMapPanel.setErrorText("Can't parse mind map content");
-                        }
-                      }
-                    }
-                  });
-                }
-              });
-            }
-          }, null, null, document);
+        if (revision != parseRevision.get() || mindMapPanel.isDisposed()) {
+          return;
         }
+
+        final String documentText = ApplicationManager.getApplication().runReadAction(new Computable<String>() {
+          @Override
+          public String compute() {
+            return document.getText();
+          }
+        });
+
+        if (documentText.equals(lastSavedText) || revision != parseRevision.get()) {
+          // the document contains text written from the panel model or there is newer request
+          return;
+        }
+        // the text has been changed outside of the panel, for instance by undo
+        lastSavedText = null;
+
+        MindMap parsed = null;
+        try {
+          parsed = new MindMap(MindMapDocumentEditor.this, new StringReader(documentText));
+        } catch (Exception ex) {
+          LOGGER.error("Can't parse MindMap text", ex);
+        }
+
+        final MindMap model = parsed;
+        safeSwing(new Runnable() {
+          @Override
+          public void run() {
+            if (revision == parseRevision.get() && !mindMapPanel.isDisposed()) {
+              if (model == null) {
+                mindMapPanel.setErrorText("Can't parse mind map content");
+              } else {
+                mindMapPanel.setModel(model);
+                modelLoaded = true;
+                processPendingFocus();
+              }
+            }
+          }
+        });
       }
-    });
+    }, delay);
   }
 
   @Override
@@ -371,6 +414,7 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
   @Override
   public void dispose() {
     try {
+      this.parseAlarm.cancelAllRequests();
       this.mindMapPanel.dispose();
     }finally {
       this.getDocument().removeDocumentListener(this.documentListener);
@@ -623,12 +667,13 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
 
   @Override
   public void commit() {
-    loadMindMapFromDocument();
+    loadMindMapFromDocument(0);
   }
 
   @Override
   public void reset() {
-    loadMindMapFromDocument();
+    this.lastSavedText = null;
+    loadMindMapFromDocument(0);
   }
 
   @Override
@@ -44,13 +44,17 @@ public class MMLexer extends Lexer {
 
   @Override
   public void start(@Nonnull final CharSequence buffer, final int startOffset, final int endOffset, final int initialState) {
-    this.delegate.start(buffer, startOffset, endOffset, com.igormaznitsa.mindmap.model.parser.MindMapLexer.TokenType.values()[initialState]);
+    this.delegate.start(buffer, startOffset, endOffset, initialState);
     this.delegate.advance();
   }
 
+  /**
+   * State at start of the current token. Whitespace between lines of topics is reported as the initial state so
+   * that highlighter restarts lexing from the nearest such token before edited text.
+   */
   @Override
   public int getState() {
-    return this.delegate.getCurrentPosition().getState().ordinal();
+    return this.delegate.getTokenStartState();
   }
 
   @Nullable
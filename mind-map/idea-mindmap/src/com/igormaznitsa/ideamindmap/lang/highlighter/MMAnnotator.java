@@ -6,7 +6,6 @@ import com.intellij.lang.annotation.Annotation;
 import com.intellij.lang.annotation.AnnotationHolder;
 import com.intellij.lang.annotation.Annotator;
 import com.intellij.lang.annotation.HighlightSeverity;
-import com.intellij.lexer.Lexer;
 import com.intellij.openapi.editor.colors.EditorColorsManager;
 import com.intellij.openapi.editor.colors.TextAttributesKey;
 import com.intellij.openapi.editor.markup.TextAttributes;
@@ -19,28 +18,30 @@ import javax.annotation.Nonnull;
 
 public class MMAnnotator implements Annotator {
 
+  private static final MMHighlighter HIGHLIGHTER = new MMHighlighter();
+
   public void annotate(@Nonnull PsiElement element, @Nonnull AnnotationHolder holder) {
     if (!(element instanceof MMPsiElement)) return;
     final ASTNode keyNode = element.getNode();
-    highlightTokens(keyNode, holder, new MMHighlighter());
+    highlightTokens(keyNode, holder, HIGHLIGHTER);
   }
 
+  /**
+   * Tokens are taken from the PSI tree which is already made by the incremental lexer, so that the text is not lexed again.
+   * Composite children are skipped because they are annotated separately.
+   */
   private static void highlightTokens(final ASTNode node, final AnnotationHolder holder, MMHighlighter highlighter) {
-    Lexer lexer = highlighter.getHighlightingLexer();
-    final String s = node.getText();
-    lexer.start(s);
-
-    while (lexer.getTokenType() != null) {
-      IElementType elementType = lexer.getTokenType();
+    for (ASTNode token = node.getFirstChildNode(); token != null; token = token.getTreeNext()) {
+      if (token.getFirstChildNode() != null) continue;
+      IElementType elementType = token.getElementType();
       TextAttributesKey[] keys = highlighter.getTokenHighlights(elementType);
       for (TextAttributesKey key : keys) {
         final Pair<String,HighlightSeverity> pair = MMHighlighter.DISPLAY_NAMES.get(key);
+        if (pair == null) continue;
         final String displayName = pair.getFirst();
         final HighlightSeverity severity = pair.getSecond();
         if (severity != null) {
-          int start = lexer.getTokenStart() + node.getTextRange().getStartOffset();
-          int end = lexer.getTokenEnd() + node.getTextRange().getStartOffset();
-          TextRange textRange = new TextRange(start, end);
+          TextRange textRange = token.getTextRange();
           final Annotation annotation;
           if (severity == HighlightSeverity.WARNING) {
             annotation = holder.createWarningAnnotation(textRange, displayName);
@@ -55,7 +56,6 @@ public class MMAnnotator implements Annotator {
           annotation.setEnforcedTextAttributes(attributes);
         }
       }
-      lexer.advance();
     }
   }
 }
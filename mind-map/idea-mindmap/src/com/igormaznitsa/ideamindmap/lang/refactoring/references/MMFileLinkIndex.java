@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.ideamindmap.lang.refactoring.references;
+
+import com.igormaznitsa.ideamindmap.filetype.MindMapFileType;
+import com.igormaznitsa.ideamindmap.lang.MMLexer;
+import com.igormaznitsa.ideamindmap.lang.psi.PsiExtraFile;
+import com.igormaznitsa.ideamindmap.lang.tokens.MMTokens;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MMapURI;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * File based index of file links in mind maps. Key is path of linked file, relative
+ * one for links made relative to the project base, value is list of offsets of the
+ * links in the mind map. It allows to find links to a file without PSI building
+ * of all mind maps in project.
+ */
+public class MMFileLinkIndex extends FileBasedIndexExtension<String, List<Integer>> {
+
+  public static final ID<String, List<Integer>> NAME = ID.create("nbmindmap.file.links"); //NOI18N
+
+  private static final int VERSION = 1;
+
+  private static final DataIndexer<String, List<Integer>, FileContent> INDEXER = new DataIndexer<String, List<Integer>, FileContent>() {
+    @NotNull
+    @Override
+    public Map<String, List<Integer>> map(@NotNull final FileContent inputData) {
+      final CharSequence text = inputData.getContentAsText();
+      final Map<String, List<Integer>> result = new HashMap<String, List<Integer>>();
+
+      final MMLexer lexer = new MMLexer();
+      lexer.start(text, 0, text.length(), 0);
+
+      boolean fileExtra = false;
+      IElementType token;
+      while ((token = lexer.getTokenType()) != null) {
+        if (token == MMTokens.EXTRA_TYPE) {
+          fileExtra = isFileExtraType(text.subSequence(lexer.getTokenStart(), lexer.getTokenEnd()).toString());
+        } else if (token == MMTokens.EXTRA_BODY) {
+          if (fileExtra) {
+            final String key = makeKey(text.subSequence(lexer.getTokenStart(), lexer.getTokenEnd()).toString());
+            if (key != null) {
+              List<Integer> offsets = result.get(key);
+              if (offsets == null) {
+                offsets = new ArrayList<Integer>(1);
+                result.put(key, offsets);
+              }
+              offsets.add(lexer.getTokenStart());
+            }
+          }
+          fileExtra = false;
+        } else if (token != MMTokens.WHITE_SPACE) {
+          fileExtra = false;
+        }
+        lexer.advance();
+      }
+      return result;
+    }
+  };
+
+  private static final DataExternalizer<List<Integer>> EXTERNALIZER = new DataExternalizer<List<Integer>>() {
+    @Override
+    public void save(@NotNull final DataOutput out, final List<Integer> value) throws IOException {
+      DataInputOutputUtil.writeINT(out, value.size());
+      for (final Integer offset : value) {
+        DataInputOutputUtil.writeINT(out, offset);
+      }
+    }
+
+    @Override
+    public List<Integer> read(@NotNull final DataInput in) throws IOException {
+      final int size = DataInputOutputUtil.readINT(in);
+      final List<Integer> result = new ArrayList<Integer>(size);
+      for (int i = 0; i < size; i++) {
+        result.add(DataInputOutputUtil.readINT(in));
+      }
+      return result;
+    }
+  };
+
+  private static boolean isFileExtraType(@Nonnull final String tokenText) {
+    return tokenText.length() > 1 && Extra.ExtraType.FILE.name().equals(tokenText.substring(1).trim());
+  }
+
+  /**
+   * Make index key for text of extra body token.
+   *
+   * @param tokenText text of token, includes the pre tags
+   * @return key or null if the text doesn't contain valid URI
+   */
+  @Nullable
+  private static String makeKey(@Nonnull final String tokenText) {
+    if (tokenText.length() < 11) {
+      return null;
+    }
+    final String uriText = StringEscapeUtils.unescapeHtml(Extra.ExtraType.FILE.preprocessString(tokenText.substring(5, tokenText.length() - 6)));
+    try {
+      return makeKey(new MMapURI(uriText));
+    } catch (URISyntaxException ex) {
+      return null;
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  @Nonnull
+  private static String makeKey(@Nonnull final MMapURI uri) {
+    return FilenameUtils.normalize(uri.asFile(null).getPath(), true);
+  }
+
+  /**
+   * Find file link elements in project mind maps which point to file.
+   *
+   * @param project project
+   * @param file linked file or folder
+   * @return found elements
+   */
+  @Nonnull
+  @MustNotContainNull
+  public static List<PsiExtraFile> findLinksToFile(@Nonnull final Project project, @Nonnull final VirtualFile file) {
+    final Set<String> keys = new LinkedHashSet<String>();
+    keys.add(FilenameUtils.normalize(file.getPath(), true));
+    final VirtualFile baseDir = project.getBaseDir();
+    if (baseDir != null) {
+      final String relativePath = VfsUtilCore.getRelativePath(file, baseDir, '/');
+      if (relativePath != null) {
+        keys.add(relativePath);
+      }
+    }
+
+    final List<PsiExtraFile> result = new ArrayList<PsiExtraFile>();
+    final PsiManager psiManager = PsiManager.getInstance(project);
+    final GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+
+    for (final String key : keys) {
+      FileBasedIndex.getInstance().processValues(NAME, key, null, new FileBasedIndex.ValueProcessor<List<Integer>>() {
+        @Override
+        public boolean process(final VirtualFile mindMap, final List<Integer> offsets) {
+          final PsiFile psiFile = psiManager.findFile(mindMap);
+          if (psiFile != null) {
+            for (final Integer offset : offsets) {
+              final PsiElement leaf = psiFile.findElementAt(offset);
+              final PsiExtraFile link = PsiTreeUtil.getParentOfType(leaf, PsiExtraFile.class, false);
+              if (link != null && !result.contains(link)) {
+                result.add(link);
+              }
+            }
+          }
+          return true;
+        }
+      }, scope);
+    }
+    return result.isEmpty() ? Collections.<PsiExtraFile>emptyList() : result;
+  }
+
+  @NotNull
+  @Override
+  public ID<String, List<Integer>> getName() {
+    return NAME;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+    return INDEXER;
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return new EnumeratorStringDescriptor();
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<List<Integer>> getValueExternalizer() {
+    return EXTERNALIZER;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(MindMapFileType.INSTANCE);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+}
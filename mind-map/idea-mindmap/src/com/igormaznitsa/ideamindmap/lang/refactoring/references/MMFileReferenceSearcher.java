@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.ideamindmap.lang.refactoring.references;
+
+import com.igormaznitsa.ideamindmap.lang.psi.PsiExtraFile;
+import com.igormaznitsa.ideamindmap.lang.refactoring.references.providers.PsiExtraFileReference;
+import com.intellij.openapi.application.QueryExecutorBase;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFileSystemItem;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Finds references from mind maps to files and folders through {@link MMFileLinkIndex}.
+ */
+public class MMFileReferenceSearcher extends QueryExecutorBase<PsiReference, ReferencesSearch.SearchParameters> {
+
+  public MMFileReferenceSearcher() {
+    super(true);
+  }
+
+  @Override
+  public void processQuery(@NotNull final ReferencesSearch.SearchParameters queryParameters, @NotNull final Processor<PsiReference> consumer) {
+    final PsiElement element = queryParameters.getElementToSearch();
+    if (!(element instanceof PsiFileSystemItem)) {
+      return;
+    }
+    final VirtualFile file = ((PsiFileSystemItem) element).getVirtualFile();
+    if (file == null) {
+      return;
+    }
+
+    for (final PsiExtraFile link : MMFileLinkIndex.findLinksToFile(element.getProject(), file)) {
+      for (final PsiReference reference : link.getReferences()) {
+        if (reference instanceof PsiExtraFileReference && !consumer.process(reference)) {
+          return;
+        }
+      }
+    }
+  }
+}
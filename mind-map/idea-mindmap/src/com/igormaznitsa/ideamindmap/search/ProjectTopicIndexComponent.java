@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.ideamindmap.search;
+
+import com.igormaznitsa.ideamindmap.filetype.MindMapFileType;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.ide.commons.TopicIndex;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileAdapter;
+import com.intellij.openapi.vfs.VirtualFileEvent;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileMoveEvent;
+import com.intellij.openapi.vfs.VirtualFilePropertyEvent;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Alarm;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.apache.commons.io.IOUtils;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Index of topics of all mind maps in project, it is loaded from the system
+ * folder of IDE and updated in background only for changed files.
+ */
+public class ProjectTopicIndexComponent implements ProjectComponent {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProjectTopicIndexComponent.class);
+
+  private static final int UPDATE_DELAY = 1000;
+
+  private final Project project;
+  private final Alarm updateAlarm;
+  private volatile TopicIndex index = new TopicIndex();
+
+  public ProjectTopicIndexComponent(@Nonnull final Project project) {
+    this.project = project;
+    this.updateAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, project);
+  }
+
+  @Nonnull
+  public static ProjectTopicIndexComponent findInstance(@Nonnull final Project project) {
+    return project.getComponent(ProjectTopicIndexComponent.class);
+  }
+
+  @Nonnull
+  public TopicIndex getIndex() {
+    return this.index;
+  }
+
+  @Override
+  public void projectOpened() {
+    ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+      @Override
+      public void run() {
+        load();
+        DumbService.getInstance(project).runWhenSmart(new Runnable() {
+          @Override
+          public void run() {
+            scheduleRefresh(0);
+          }
+        });
+      }
+    });
+
+    VirtualFileManager.getInstance().addVirtualFileListener(new VirtualFileAdapter() {
+      @Override
+      public void contentsChanged(@Nonnull final VirtualFileEvent event) {
+        onFileEvent(event.getFile());
+      }
+
+      @Override
+      public void fileCreated(@Nonnull final VirtualFileEvent event) {
+        onFileEvent(event.getFile());
+      }
+
+      @Override
+      public void fileDeleted(@Nonnull final VirtualFileEvent event) {
+        onFileEvent(event.getFile());
+      }
+
+      @Override
+      public void fileMoved(@Nonnull final VirtualFileMoveEvent event) {
+        onFileEvent(event.getFile());
+      }
+
+      @Override
+      public void propertyChanged(@Nonnull final VirtualFilePropertyEvent event) {
+        if (VirtualFile.PROP_NAME.equals(event.getPropertyName())) {
+          onFileEvent(event.getFile());
+        }
+      }
+    }, this.project);
+  }
+
+  @Override
+  public void projectClosed() {
+    this.updateAlarm.cancelAllRequests();
+  }
+
+  @Override
+  public void initComponent() {
+  }
+
+  @Override
+  public void disposeComponent() {
+  }
+
+  @Nonnull
+  @Override
+  public String getComponentName() {
+    return "NBMindMapProjectTopicIndex";
+  }
+
+  private void onFileEvent(@Nonnull final VirtualFile file) {
+    if (file.isDirectory() || file.getFileType() == MindMapFileType.INSTANCE) {
+      scheduleRefresh(UPDATE_DELAY);
+    }
+  }
+
+  private void scheduleRefresh(final int delay) {
+    if (this.project.isDisposed()) {
+      return;
+    }
+    this.updateAlarm.cancelAllRequests();
+    this.updateAlarm.addRequest(new Runnable() {
+      @Override
+      public void run() {
+        refresh();
+      }
+    }, delay);
+  }
+
+  @Nonnull
+  private File getCacheFile() {
+    return new File(PathManager.getSystemPath(), "nbmindmap" + File.separatorChar + this.project.getLocationHash() + ".idx"); //NOI18N
+  }
+
+  private void load() {
+    final File cacheFile = getCacheFile();
+    if (cacheFile.isFile()) {
+      InputStream in = null;
+      try {
+        in = new BufferedInputStream(new FileInputStream(cacheFile));
+        final TopicIndex loaded = TopicIndex.read(in);
+        if (loaded != null) {
+          this.index = loaded;
+        }
+      } catch (IOException ex) {
+        LOGGER.warn("Can't load topic index : " + ex.getMessage()); //NOI18N
+      } finally {
+        IOUtils.closeQuietly(in);
+      }
+    }
+  }
+
+  private void save() {
+    final File cacheFile = getCacheFile();
+    final File folder = cacheFile.getParentFile();
+    if (!folder.isDirectory() && !folder.mkdirs()) {
+      LOGGER.warn("Can't create folder " + folder); //NOI18N
+      return;
+    }
+    OutputStream out = null;
+    try {
+      out = new BufferedOutputStream(new FileOutputStream(cacheFile));
+      this.index.write(out);
+    } catch (IOException ex) {
+      LOGGER.error("Can't save topic index", ex); //NOI18N
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  /**
+   * Only files which modification time or size have been changed are parsed.
+   * If project is being indexed then the refresh is postponed until end of
+   * indexing.
+   */
+  private void refresh() {
+    if (this.project.isDisposed()) {
+      return;
+    }
+    if (DumbService.isDumb(this.project)) {
+      // file index is not ready, refresh again when indexing is over
+      DumbService.getInstance(this.project).runWhenSmart(new Runnable() {
+        @Override
+        public void run() {
+          scheduleRefresh(0);
+        }
+      });
+      return;
+    }
+
+    final List<File> files = findMindMapFiles();
+    boolean changed = false;
+    for (final File f : files) {
+      try {
+        changed |= this.index.update(f);
+      } catch (IOException ex) {
+        LOGGER.warn("Can't index mind map " + f + " : " + ex.getMessage()); //NOI18N
+        changed |= this.index.remove(f);
+      }
+    }
+    changed |= this.index.retainOnly(files);
+
+    if (changed) {
+      save();
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private List<File> findMindMapFiles() {
+    return ApplicationManager.getApplication().runReadAction(new Computable<List<File>>() {
+      @Override
+      public List<File> compute() {
+        final List<File> result = new ArrayList<File>();
+        if (!project.isDisposed()) {
+          final Collection<VirtualFile> found = FileBasedIndex.getInstance().getContainingFiles(FileTypeIndex.NAME, MindMapFileType.INSTANCE, GlobalSearchScope.projectScope(project));
+          for (final VirtualFile f : found) {
+            if (f.isInLocalFileSystem()) {
+              result.add(VfsUtilCore.virtualToIoFile(f));
+            }
+          }
+        }
+        return result;
+      }
+    });
+  }
+}
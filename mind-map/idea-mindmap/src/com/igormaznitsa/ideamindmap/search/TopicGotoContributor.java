@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.ideamindmap.search;
+
+import com.igormaznitsa.ideamindmap.editor.MindMapDocumentEditor;
+import com.igormaznitsa.ideamindmap.utils.AllIcons;
+import com.igormaznitsa.mindmap.ide.commons.TopicIndex;
+import com.intellij.navigation.ChooseByNameContributor;
+import com.intellij.navigation.ItemPresentation;
+import com.intellij.navigation.NavigationItem;
+import com.intellij.openapi.fileEditor.FileEditor;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.swing.Icon;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Provides topic titles, notes and file links of project mind maps for the
+ * "Go to Symbol" action, selected item opens the map and focuses the topic.
+ */
+public class TopicGotoContributor implements ChooseByNameContributor {
+
+  @Nonnull
+  @Override
+  public String[] getNames(@Nonnull final Project project, final boolean includeNonProjectItems) {
+    final Set<String> result = new LinkedHashSet<String>();
+    for (final TopicIndex.Entry e : ProjectTopicIndexComponent.findInstance(project).getIndex().getEntries()) {
+      result.add(e.getText());
+    }
+    return result.toArray(new String[result.size()]);
+  }
+
+  @Nonnull
+  @Override
+  public NavigationItem[] getItemsByName(@Nonnull final String name, @Nonnull final String pattern, @Nonnull final Project project, final boolean includeNonProjectItems) {
+    final List<NavigationItem> result = new ArrayList<NavigationItem>();
+    for (final TopicIndex.Entry e : ProjectTopicIndexComponent.findInstance(project).getIndex().getEntries()) {
+      if (name.equals(e.getText())) {
+        result.add(new TopicItem(project, e));
+      }
+    }
+    return result.toArray(new NavigationItem[result.size()]);
+  }
+
+  private static final class TopicItem implements NavigationItem, ItemPresentation {
+
+    private final Project project;
+    private final TopicIndex.Entry entry;
+
+    private TopicItem(@Nonnull final Project project, @Nonnull final TopicIndex.Entry entry) {
+      this.project = project;
+      this.entry = entry;
+    }
+
+    @Nullable
+    private VirtualFile findFile() {
+      return LocalFileSystem.getInstance().findFileByIoFile(this.entry.getFile());
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+      return this.entry.getText();
+    }
+
+    @Nonnull
+    @Override
+    public ItemPresentation getPresentation() {
+      return this;
+    }
+
+    @Nonnull
+    @Override
+    public String getPresentableText() {
+      return this.entry.getText();
+    }
+
+    @Nonnull
+    @Override
+    public String getLocationString() {
+      final String fileName = this.entry.getFile().getName();
+      return this.entry.getKind() == TopicIndex.Kind.TITLE ? '(' + fileName + ')' : '(' + this.entry.getTopicTitle() + ", " + fileName + ')'; //NOI18N
+    }
+
+    @Nonnull
+    @Override
+    public Icon getIcon(final boolean unused) {
+      return AllIcons.File.MINDMAP;
+    }
+
+    @Override
+    public void navigate(final boolean requestFocus) {
+      final VirtualFile file = findFile();
+      if (file != null) {
+        for (final FileEditor editor : FileEditorManager.getInstance(this.project).openFile(file, requestFocus)) {
+          if (editor instanceof MindMapDocumentEditor) {
+            ((MindMapDocumentEditor) editor).focusToPath(this.entry.getPositionPath());
+          }
+        }
+      }
+    }
+
+    @Override
+    public boolean canNavigate() {
+      return findFile() != null;
+    }
+
+    @Override
+    public boolean canNavigateToSource() {
+      return canNavigate();
+    }
+  }
+}
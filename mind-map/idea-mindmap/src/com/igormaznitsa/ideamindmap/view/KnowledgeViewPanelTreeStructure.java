@@ -15,17 +15,22 @@
  */
 package com.igormaznitsa.ideamindmap.view;
 
+import com.igormaznitsa.ideamindmap.filetype.MindMapFileType;
 import com.igormaznitsa.ideamindmap.view.nodes.KnowledgeViewProjectNode;
+import com.igormaznitsa.ideamindmap.view.nodes.MindMapFileNode;
 import com.intellij.ide.projectView.TreeStructureProvider;
 import com.intellij.ide.projectView.ViewSettings;
+import com.intellij.ide.projectView.impl.nodes.PsiFileNode;
 import com.intellij.ide.util.treeView.AbstractTreeNode;
 import com.intellij.ide.util.treeView.AbstractTreeStructureBase;
 import com.intellij.openapi.project.DumbAware;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -62,6 +67,14 @@ public class KnowledgeViewPanelTreeStructure extends AbstractTreeStructureBase i
     return this.myRoot;
   }
 
+  /**
+   * Children are built outside of the event dispatch thread just as a node is
+   * expanded, so that opening of the view doesn't wait for walking of folders.
+   */
+  @Override public boolean isToBuildChildrenInBackground(final Object element) {
+    return true;
+  }
+
   @Override public void commit() {
     PsiDocumentManager.getInstance(myProject).commitAllDocuments();
   }
@@ -99,8 +112,22 @@ public class KnowledgeViewPanelTreeStructure extends AbstractTreeStructureBase i
     return false;
   }
 
+  /**
+   * Nodes of mind maps are replaced by nodes showing thumbnails of maps in tooltips.
+   */
   @Nonnull @Override public Collection<AbstractTreeNode> modify(@Nonnull final AbstractTreeNode parent, @Nonnull final Collection<AbstractTreeNode> children, final ViewSettings settings) {
-    return children;
+    final List<AbstractTreeNode> result = new ArrayList<AbstractTreeNode>(children.size());
+    for (final AbstractTreeNode node : children) {
+      if (node instanceof PsiFileNode && !(node instanceof MindMapFileNode)) {
+        final PsiFile file = ((PsiFileNode) node).getValue();
+        if (file != null && file.getFileType() == MindMapFileType.INSTANCE) {
+          result.add(new MindMapFileNode(myProject, file, settings));
+          continue;
+        }
+      }
+      result.add(node);
+    }
+    return result;
   }
 
   @Nullable @Override public Object getData(Collection<AbstractTreeNode> selected, String dataName) {
@@ -15,6 +15,8 @@
  */
 package com.igormaznitsa.ideamindmap.view;
 
+import com.igormaznitsa.ideamindmap.utils.IdeaUtils;
+import com.igormaznitsa.ideamindmap.view.nodes.KnowledgeViewProjectNode;
 import com.intellij.ProjectTopics;
 import com.intellij.ide.CopyPasteUtil;
 import com.intellij.ide.bookmarks.Bookmark;
@@ -34,10 +36,18 @@ import com.intellij.openapi.roots.ModuleRootEvent;
 import com.intellij.openapi.vcs.FileStatusListener;
 import com.intellij.openapi.vcs.FileStatusManager;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
 import com.intellij.problems.WolfTheProblemSolver;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiManager;
 import com.intellij.util.Alarm;
+import com.intellij.util.PathUtil;
 import com.intellij.util.SmartList;
 import com.intellij.util.messages.MessageBusConnection;
 import gnu.trove.THashSet;
@@ -50,10 +60,13 @@ import javax.swing.tree.DefaultTreeModel;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Set;
 
 public class KnowledgeViewTreeBuilder extends BaseProjectTreeBuilder {
 
+  private final NodeRefresher nodeRefresher = new NodeRefresher();
+
   public KnowledgeViewTreeBuilder(@Nonnull Project project,
     @Nonnull JTree tree,
     @Nonnull DefaultTreeModel treeModel,
@@ -66,7 +79,20 @@ public class KnowledgeViewTreeBuilder extends BaseProjectTreeBuilder {
     connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter() {
       @Override
       public void rootsChanged(ModuleRootEvent event) {
-        queueUpdate();
+        invalidateKnowledgeFolders();
+      }
+    });
+
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+      @Override
+      public void after(@Nonnull final List<? extends VFileEvent> events) {
+        for (final VFileEvent e : events) {
+          if ((e instanceof VFileCreateEvent || e instanceof VFileDeleteEvent || e instanceof VFileMoveEvent || e instanceof VFilePropertyChangeEvent)
+              && IdeaUtils.PROJECT_KNOWLEDGE_FOLDER_NAME.equals(PathUtil.getFileName(e.getPath()))) {
+            invalidateKnowledgeFolders();
+            break;
+          }
+        }
       }
     });
 
@@ -83,6 +109,17 @@ public class KnowledgeViewTreeBuilder extends BaseProjectTreeBuilder {
     initRootNode();
   }
 
+  /**
+   * Knowledge folders of modules will be searched again during the next update of the tree.
+   */
+  private void invalidateKnowledgeFolders() {
+    final Object root = getTreeStructure().getRootElement();
+    if (root instanceof KnowledgeViewProjectNode) {
+      ((KnowledgeViewProjectNode) root).invalidateChildren();
+    }
+    queueUpdate();
+  }
+
   protected ProjectViewPsiTreeChangeListener createPsiTreeChangeListener(final Project project) {
     return new ProjectTreeBuilderPsiListener(project);
   }
@@ -141,7 +178,7 @@ public class KnowledgeViewTreeBuilder extends BaseProjectTreeBuilder {
 
     @Override
     public void fileStatusChanged(@Nonnull VirtualFile vFile) {
-      queueUpdate(false);
+      nodeRefresher.queueUpdate(vFile);
     }
   }
 
@@ -153,24 +190,29 @@ public class KnowledgeViewTreeBuilder extends BaseProjectTreeBuilder {
   }
 
   private class MyProblemListener extends WolfTheProblemSolver.ProblemListener {
-    private final Alarm myUpdateProblemAlarm = new Alarm();
-    private final Collection<VirtualFile> myFilesToRefresh = new THashSet<VirtualFile>();
-
     @Override
     public void problemsAppeared(@Nonnull VirtualFile file) {
-      queueUpdate(file);
+      nodeRefresher.queueUpdate(file);
     }
 
     @Override
     public void problemsDisappeared(@Nonnull VirtualFile file) {
-      queueUpdate(file);
+      nodeRefresher.queueUpdate(file);
     }
+  }
+
+  /**
+   * Collects changed files and updates only nodes which contain them, instead of update of the whole tree.
+   */
+  private class NodeRefresher {
+    private final Alarm myUpdateAlarm = new Alarm();
+    private final Collection<VirtualFile> myFilesToRefresh = new THashSet<VirtualFile>();
 
     private void queueUpdate(@Nonnull VirtualFile fileToRefresh) {
       synchronized (myFilesToRefresh) {
         if (myFilesToRefresh.add(fileToRefresh)) {
-          myUpdateProblemAlarm.cancelAllRequests();
-          myUpdateProblemAlarm.addRequest(new Runnable() {
+          myUpdateAlarm.cancelAllRequests();
+          myUpdateAlarm.addRequest(new Runnable() {
             @Override
             public void run() {
               if (!myProject.isOpen())
@@ -35,12 +35,30 @@ import javax.swing.Icon;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public class KnowledgeViewProjectNode extends AbstractProjectNode {
+
+  /**
+   * Nodes of knowledge folders are kept between updates of the tree, so that
+   * their presentation data is not recalculated and modules are not scanned
+   * again until module roots or knowledge folders are changed.
+   */
+  private volatile List<AbstractTreeNode> cachedChildren;
+
   public KnowledgeViewProjectNode(final Project project, final ViewSettings viewSettings) {
     super(project, project, viewSettings);
   }
 
+  /**
+   * Drop cached nodes of knowledge folders, they will be made again during the
+   * next update of the tree.
+   */
+  public void invalidateChildren() {
+    this.cachedChildren = null;
+  }
+
   @Override protected AbstractTreeNode createModuleGroup(final Module module)
     throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
     return null;
@@ -52,7 +70,28 @@ public class KnowledgeViewProjectNode extends AbstractProjectNode {
   }
 
   @Nonnull @Override public Collection<? extends AbstractTreeNode> getChildren() {
-    final ArrayList<AbstractTreeNode> result = new ArrayList<AbstractTreeNode>();
+    final List<AbstractTreeNode> cached = this.cachedChildren;
+    if (cached != null && isValid(cached)) {
+      return cached;
+    }
+    final List<AbstractTreeNode> result = Collections.unmodifiableList(makeChildren());
+    this.cachedChildren = result;
+    return result;
+  }
+
+  private static boolean isValid(@Nonnull final List<AbstractTreeNode> nodes) {
+    for (final AbstractTreeNode n : nodes) {
+      final Object value = n.getValue();
+      if (value instanceof PsiDirectory && !((PsiDirectory) value).isValid()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nonnull
+  private List<AbstractTreeNode> makeChildren() {
+    final List<AbstractTreeNode> result = new ArrayList<AbstractTreeNode>();
     final PsiManager psiManager = PsiManager.getInstance(getProject());
 
     for (final Module m : ModuleManager.getInstance(myProject).getModules()) {
@@ -62,6 +101,9 @@ public class KnowledgeViewProjectNode extends AbstractProjectNode {
         final String moduleName = m.getName();
 
         final PsiDirectory dir = psiManager.findDirectory(knowledgeFolder);
+        if (dir == null) {
+          continue;
+        }
         final PsiDirectoryNode node = new PsiDirectoryNode(myProject, dir, getSettings()) {
 
           protected Icon patchIcon(final Icon original, final VirtualFile file) {
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.ideamindmap.view.nodes;
+
+import com.igormaznitsa.ideamindmap.settings.MindMapApplicationSettings;
+import com.igormaznitsa.mindmap.swing.panel.MindMapConfigListener;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+import com.igormaznitsa.mindmap.swing.services.MindMapThumbnailService;
+import com.intellij.ide.projectView.PresentationData;
+import com.intellij.ide.projectView.ViewSettings;
+import com.intellij.ide.projectView.impl.nodes.PsiFileNode;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+/**
+ * Node of mind map file in knowledge view, its tooltip shows thumbnail of the
+ * map which is rendered in background.
+ */
+public class MindMapFileNode extends PsiFileNode {
+
+  private static final class Thumbnails {
+
+    private static final MindMapThumbnailService SERVICE = new MindMapThumbnailService(
+      new File(PathManager.getSystemPath(), "nbmindmap" + File.separatorChar + "thumbnails"), //NOI18N
+      MindMapApplicationSettings.findInstance().getConfig(),
+      MindMapThumbnailService.DEFAULT_SIZE,
+      MindMapThumbnailService.DEFAULT_CPU_BUDGET);
+
+    static {
+      MindMapApplicationSettings.findInstance().getConfig().addConfigurationListener(new MindMapConfigListener() {
+        @Override
+        public void onConfigurationPropertyChanged(@Nonnull final MindMapPanelConfig changedConfig) {
+          SERVICE.setConfig(changedConfig);
+        }
+      });
+    }
+  }
+
+  private final MindMapThumbnailService.ThumbnailListener thumbnailListener = new MindMapThumbnailService.ThumbnailListener() {
+    @Override
+    public void onThumbnailReady(@Nonnull final File mapFile, @Nonnull final BufferedImage thumbnail, @Nullable final File cacheFile) {
+      if (!getProject().isDisposed()) {
+        update();
+      }
+    }
+  };
+
+  public MindMapFileNode(final Project project, @Nonnull final PsiFile value, final ViewSettings viewSettings) {
+    super(project, value, viewSettings);
+  }
+
+  @Override
+  protected void updateImpl(final PresentationData data) {
+    super.updateImpl(data);
+    final VirtualFile file = getVirtualFile();
+    if (file != null && file.isInLocalFileSystem()) {
+      final File thumbnail = Thumbnails.SERVICE.getThumbnailFile(VfsUtilCore.virtualToIoFile(file), this.thumbnailListener);
+      if (thumbnail != null) {
+        data.setTooltip("<html><img src=\"" + thumbnail.toURI() + "\"></html>"); //NOI18N
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.ide.commons;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Finds single changed region between two texts, it allows to write changed
+ * mind map into IDE document with replacement of only the changed part instead
+ * of whole text.
+ *
+ * @since 1.4.2
+ */
+public final class TextDiff {
+
+  private final int start;
+  private final int end;
+  private final String replacement;
+
+  private TextDiff(final int start, final int end, @Nonnull final String replacement) {
+    this.start = start;
+    this.end = end;
+    this.replacement = replacement;
+  }
+
+  /**
+   * Find region of old text which must be replaced to get new text. The region
+   * is placed between the longest common prefix and the longest common suffix
+   * of the texts.
+   *
+   * @param oldText old text
+   * @param newText new text
+   * @return found change or null if texts are equal
+   */
+  @Nullable
+  public static TextDiff find(@Nonnull final CharSequence oldText, @Nonnull final CharSequence newText) {
+    final int oldLength = oldText.length();
+    final int newLength = newText.length();
+    final int minLength = Math.min(oldLength, newLength);
+
+    int prefix = 0;
+    while (prefix < minLength && oldText.charAt(prefix) == newText.charAt(prefix)) {
+      prefix++;
+    }
+
+    if (prefix == oldLength && prefix == newLength) {
+      return null;
+    }
+
+    int suffix = 0;
+    final int maxSuffix = minLength - prefix;
+    while (suffix < maxSuffix && oldText.charAt(oldLength - 1 - suffix) == newText.charAt(newLength - 1 - suffix)) {
+      suffix++;
+    }
+
+    return new TextDiff(prefix, oldLength - suffix, newText.subSequence(prefix, newLength - suffix).toString());
+  }
+
+  /**
+   * Get start offset of changed region in old text.
+   *
+   * @return start offset, inclusive
+   */
+  public int getStart() {
+    return this.start;
+  }
+
+  /**
+   * Get end offset of changed region in old text.
+   *
+   * @return end offset, exclusive
+   */
+  public int getEnd() {
+    return this.end;
+  }
+
+  /**
+   * Get text to be placed instead of the changed region.
+   *
+   * @return replacement text, can be empty
+   */
+  @Nonnull
+  public String getReplacement() {
+    return this.replacement;
+  }
+
+  @Override
+  @Nonnull
+  public String toString() {
+    return "TextDiff[" + this.start + ".." + this.end + " -> '" + this.replacement + "']"; //NOI18N
+  }
+}
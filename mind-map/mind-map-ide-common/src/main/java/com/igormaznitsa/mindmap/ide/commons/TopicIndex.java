@@ -0,0 +1,519 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.ide.commons;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+
+/**
+ * Index of topic titles, notes and file links of mind maps. Every map is
+ * indexed together with its modification time and size, so that only changed
+ * maps must be parsed again. Search is made over flat snapshot of entries and
+ * doesn't lock the index.
+ *
+ * @since 1.4.2
+ */
+public final class TopicIndex {
+
+  private static final int MAGIC = 0x4D4D4449;
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Max length of indexed text, longer notes are cut.
+   */
+  private static final int MAX_TEXT_LENGTH = 1024;
+
+  /**
+   * Number of processed entries between checks of thread interruption.
+   */
+  private static final int CANCEL_CHECK_STEP = 1024;
+
+  public enum Kind {
+    TITLE,
+    NOTE,
+    FILE
+  }
+
+  /**
+   * Indexed text of topic.
+   */
+  public static final class Entry {
+
+    private final File file;
+    private final Kind kind;
+    private final String text;
+    private final String topicTitle;
+    private final int[] positionPath;
+    private final char[] lowerText;
+
+    private Entry(@Nonnull final File file, @Nonnull final Kind kind, @Nonnull final String text, @Nonnull final String topicTitle, @Nonnull final int[] positionPath) {
+      this.file = file;
+      this.kind = kind;
+      this.text = text;
+      this.topicTitle = topicTitle;
+      this.positionPath = positionPath;
+      this.lowerText = toLowerCase(text);
+    }
+
+    @Nonnull
+    public File getFile() {
+      return this.file;
+    }
+
+    @Nonnull
+    public Kind getKind() {
+      return this.kind;
+    }
+
+    @Nonnull
+    public String getText() {
+      return this.text;
+    }
+
+    @Nonnull
+    public String getTopicTitle() {
+      return this.topicTitle;
+    }
+
+    /**
+     * Get position path of topic in its map.
+     *
+     * @return position path, it can be used in
+     * {@link MindMap#findForPositionPath(int[])}
+     */
+    @Nonnull
+    public int[] getPositionPath() {
+      return this.positionPath.clone();
+    }
+  }
+
+  /**
+   * Found entry with its score, bigger score means better match.
+   */
+  public static final class Match implements Comparable<Match> {
+
+    private final Entry entry;
+    private final int score;
+
+    private Match(@Nonnull final Entry entry, final int score) {
+      this.entry = entry;
+      this.score = score;
+    }
+
+    @Nonnull
+    public Entry getEntry() {
+      return this.entry;
+    }
+
+    public int getScore() {
+      return this.score;
+    }
+
+    /**
+     * Better matches go first, matches with the same score are ordered by
+     * text.
+     */
+    @Override
+    public int compareTo(@Nonnull final Match that) {
+      final int result = that.score < this.score ? -1 : that.score == this.score ? 0 : 1;
+      return result == 0 ? this.entry.text.compareTo(that.entry.text) : result;
+    }
+  }
+
+  private static final class MapRecord {
+
+    private final long lastModified;
+    private final long length;
+    private final Entry[] entries;
+
+    private MapRecord(final long lastModified, final long length, @Nonnull @MustNotContainNull final Entry[] entries) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.entries = entries;
+    }
+  }
+
+  private final Map<File, MapRecord> records = new HashMap<File, MapRecord>();
+  private volatile Entry[] snapshot = new Entry[0];
+  private boolean changed;
+
+  /**
+   * Check that indexed data of file is actual.
+   *
+   * @param file mind map file
+   * @return true if the file has been indexed with its current modification
+   * time and size
+   */
+  public synchronized boolean isUpToDate(@Nonnull final File file) {
+    final MapRecord record = this.records.get(file);
+    return record != null && record.lastModified == file.lastModified() && record.length == file.length();
+  }
+
+  /**
+   * Parse file and put its topics into the index if the file has been changed
+   * since the last indexing.
+   *
+   * @param file mind map file
+   * @return true if the file has been parsed
+   * @throws IOException if the file can't be read or parsed
+   */
+  public boolean update(@Nonnull final File file) throws IOException {
+    if (isUpToDate(file)) {
+      return false;
+    }
+    final long lastModified = file.lastModified();
+    final long length = file.length();
+    final Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8"); //NOI18N
+    final MindMap map;
+    try {
+      map = new MindMap(null, reader);
+    } catch (IllegalArgumentException ex) {
+      throw new IOException("Can't parse mind map " + file, ex);
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+    put(file, lastModified, length, map);
+    return true;
+  }
+
+  /**
+   * Put topics of parsed map into the index.
+   *
+   * @param file file of the map
+   * @param lastModified modification time of the file
+   * @param length size of the file
+   * @param map parsed map
+   */
+  public void put(@Nonnull final File file, final long lastModified, final long length, @Nonnull final MindMap map) {
+    final List<Entry> entries = new ArrayList<Entry>();
+    final Topic root = map.getRoot();
+    if (root != null) {
+      collect(file, root, entries);
+    }
+    synchronized (this) {
+      this.records.put(file, new MapRecord(lastModified, length, entries.toArray(new Entry[entries.size()])));
+      this.changed = true;
+    }
+  }
+
+  private static void collect(@Nonnull final File file, @Nonnull final Topic topic, @Nonnull @MustNotContainNull final List<Entry> entries) {
+    final int[] path = topic.getPositionPath();
+    final String title = cut(topic.getText());
+    entries.add(new Entry(file, Kind.TITLE, title, title, path));
+
+    final Extra<?> note = topic.getExtras().get(Extra.ExtraType.NOTE);
+    if (note != null) {
+      entries.add(new Entry(file, Kind.NOTE, cut(note.getAsString()), title, path));
+    }
+    final Extra<?> fileLink = topic.getExtras().get(Extra.ExtraType.FILE);
+    if (fileLink != null) {
+      entries.add(new Entry(file, Kind.FILE, cut(fileLink.getAsString()), title, path));
+    }
+
+    for (final Topic child : topic.getChildren()) {
+      collect(file, child, entries);
+    }
+  }
+
+  @Nonnull
+  private static String cut(@Nonnull final String text) {
+    return text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+  }
+
+  /**
+   * Remove file from the index.
+   *
+   * @param file file to be removed
+   * @return true if the file has been indexed
+   */
+  public synchronized boolean remove(@Nonnull final File file) {
+    final boolean result = this.records.remove(file) != null;
+    this.changed |= result;
+    return result;
+  }
+
+  /**
+   * Remove all files which are not in the collection.
+   *
+   * @param files actual files
+   * @return true if any file has been removed
+   */
+  public synchronized boolean retainOnly(@Nonnull @MustNotContainNull final Collection<File> files) {
+    final Set<File> actual = new HashSet<File>(files);
+    boolean result = false;
+    final Iterator<File> iterator = this.records.keySet().iterator();
+    while (iterator.hasNext()) {
+      if (!actual.contains(iterator.next())) {
+        iterator.remove();
+        result = true;
+      }
+    }
+    this.changed |= result;
+    return result;
+  }
+
+  /**
+   * Get all indexed files.
+   *
+   * @return list of files
+   */
+  @Nonnull
+  @MustNotContainNull
+  public synchronized List<File> getFiles() {
+    return new ArrayList<File>(this.records.keySet());
+  }
+
+  /**
+   * Get all indexed entries, it is needed for IDEs which make matching
+   * themselves.
+   *
+   * @return unmodifiable list of entries
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<Entry> getEntries() {
+    return Collections.unmodifiableList(Arrays.asList(getSnapshot()));
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private Entry[] getSnapshot() {
+    synchronized (this) {
+      if (this.changed) {
+        final List<Entry> all = new ArrayList<Entry>();
+        for (final MapRecord r : this.records.values()) {
+          Collections.addAll(all, r.entries);
+        }
+        this.snapshot = all.toArray(new Entry[all.size()]);
+        this.changed = false;
+      }
+    }
+    return this.snapshot;
+  }
+
+  /**
+   * Find entries which contain chars of query in the same order, entries which
+   * start with the query or contain it get bigger score.
+   *
+   * @param query text to find, must not be empty
+   * @param maxResults max number of results
+   * @return found matches, the best one goes first
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<Match> find(@Nonnull final String query, final int maxResults) throws InterruptedException {
+    final Entry[] entries = getSnapshot();
+    final char[] lowerQuery = toLowerCase(query);
+    final PriorityQueue<Match> best = new PriorityQueue<Match>(Math.max(1, maxResults), Collections.reverseOrder());
+
+    for (int i = 0; i < entries.length; i++) {
+      if (i % CANCEL_CHECK_STEP == 0 && Thread.currentThread().isInterrupted()) {
+        throw new InterruptedException();
+      }
+      final Entry entry = entries[i];
+      int score = score(lowerQuery, entry.text, entry.lowerText);
+      if (score >= 0) {
+        // titles are more important than notes and file links
+        score = entry.kind == Kind.TITLE ? score * 2 : score;
+        final Match worst = best.peek();
+        if (best.size() < maxResults || (worst != null && score > worst.score)) {
+          best.add(new Match(entry, score));
+          if (best.size() > maxResults) {
+            best.poll();
+          }
+        }
+      }
+    }
+
+    final List<Match> result = new ArrayList<Match>(best);
+    Collections.sort(result);
+    return result;
+  }
+
+  /**
+   * Make lower case chars of text char by char, so that the result doesn't
+   * depend on default locale and has the same length as the text.
+   *
+   * @param text source text
+   * @return lower case chars
+   */
+  @Nonnull
+  static char[] toLowerCase(@Nonnull final String text) {
+    final char[] result = text.toCharArray();
+    for (int i = 0; i < result.length; i++) {
+      result[i] = Character.toLowerCase(result[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Score text for query. Texts starting with the query get the biggest bonus,
+   * texts containing the query as substring get smaller one, other texts must
+   * contain chars of the query in the same order.
+   *
+   * @param query lower case query chars
+   * @param text original text
+   * @param lowerText lower case text chars
+   * @return score or -1 if the text doesn't match
+   */
+  static int score(@Nonnull final char[] query, @Nonnull final String text, @Nonnull final char[] lowerText) {
+    if (query.length == 0 || query.length > lowerText.length) {
+      return -1;
+    }
+
+    final int substring = indexOf(lowerText, query);
+    if (substring == 0) {
+      return 1000 + query.length * 10 - (lowerText.length - query.length) / 4;
+    } else if (substring > 0) {
+      return 500 + query.length * 10 - substring - (lowerText.length - query.length) / 8;
+    }
+
+    int queryIndex = 0;
+    int score = 0;
+    int lastMatched = -2;
+    for (int i = 0; i < lowerText.length && queryIndex < query.length; i++) {
+      if (lowerText[i] == query[queryIndex]) {
+        int charScore = 1;
+        if (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1))) {
+          charScore += 5;
+        }
+        if (lastMatched == i - 1) {
+          charScore += 3;
+        }
+        score += charScore;
+        lastMatched = i;
+        queryIndex++;
+      }
+    }
+    return queryIndex < query.length ? -1 : Math.max(0, Math.min(499, score - (lowerText.length - query.length) / 8));
+  }
+
+  private static int indexOf(@Nonnull final char[] text, @Nonnull final char[] pattern) {
+    final int last = text.length - pattern.length;
+    for (int i = 0; i <= last; i++) {
+      int j = 0;
+      while (j < pattern.length && text[i + j] == pattern[j]) {
+        j++;
+      }
+      if (j == pattern.length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Write the index into stream.
+   *
+   * @param out stream, it is not closed
+   * @throws IOException if the index can't be written
+   */
+  public void write(@Nonnull final OutputStream out) throws IOException {
+    final Map<File, MapRecord> copy;
+    synchronized (this) {
+      copy = new HashMap<File, MapRecord>(this.records);
+    }
+
+    final DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(FORMAT_VERSION);
+    data.writeInt(copy.size());
+    for (final Map.Entry<File, MapRecord> e : copy.entrySet()) {
+      final MapRecord record = e.getValue();
+      data.writeUTF(e.getKey().getPath());
+      data.writeLong(record.lastModified);
+      data.writeLong(record.length);
+      data.writeInt(record.entries.length);
+      for (final Entry entry : record.entries) {
+        data.writeByte(entry.kind.ordinal());
+        data.writeUTF(entry.text);
+        data.writeUTF(entry.topicTitle);
+        data.writeShort(entry.positionPath.length);
+        for (final int p : entry.positionPath) {
+          data.writeInt(p);
+        }
+      }
+    }
+    data.flush();
+  }
+
+  /**
+   * Read index written by {@link #write(OutputStream)}.
+   *
+   * @param in stream, it is not closed
+   * @return read index, null if the stream contains data in unsupported format
+   * @throws IOException if the index can't be read
+   */
+  @Nullable
+  public static TopicIndex read(@Nonnull final InputStream in) throws IOException {
+    final DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+      return null;
+    }
+
+    final TopicIndex result = new TopicIndex();
+    final Kind[] kinds = Kind.values();
+    final int files = data.readInt();
+    for (int f = 0; f < files; f++) {
+      final File file = new File(data.readUTF());
+      final long lastModified = data.readLong();
+      final long length = data.readLong();
+      final Entry[] entries = new Entry[data.readInt()];
+      for (int i = 0; i < entries.length; i++) {
+        final int kind = data.readByte();
+        if (kind < 0 || kind >= kinds.length) {
+          return null;
+        }
+        final String text = data.readUTF();
+        final String title = data.readUTF();
+        final int[] path = new int[data.readShort()];
+        for (int p = 0; p < path.length; p++) {
+          path[p] = data.readInt();
+        }
+        entries[i] = new Entry(file, kinds[kind], text, title, path);
+      }
+      result.records.put(file, new MapRecord(lastModified, length, entries));
+    }
+    result.changed = true;
+    return result;
+  }
+}
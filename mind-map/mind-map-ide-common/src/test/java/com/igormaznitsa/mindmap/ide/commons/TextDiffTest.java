@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.ide.commons;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TextDiffTest {
+
+  private static String apply(final String oldText, final TextDiff diff) {
+    return oldText.substring(0, diff.getStart()) + diff.getReplacement() + oldText.substring(diff.getEnd());
+  }
+
+  private static void assertDiff(final String oldText, final String newText, final int start, final int end, final String replacement) {
+    final TextDiff diff = TextDiff.find(oldText, newText);
+    assertNotNull(diff);
+    assertEquals(start, diff.getStart());
+    assertEquals(end, diff.getEnd());
+    assertEquals(replacement, diff.getReplacement());
+    assertEquals(newText, apply(oldText, diff));
+  }
+
+  @Test
+  public void testEqualTexts() {
+    assertNull(TextDiff.find("", ""));
+    assertNull(TextDiff.find("# Root\n## Child\n", "# Root\n## Child\n"));
+  }
+
+  @Test
+  public void testChangeInMiddle() {
+    assertDiff("# Root\n## Child\n## Other\n", "# Root\n## Node\n## Other\n", 10, 15, "Node");
+  }
+
+  @Test
+  public void testInsertion() {
+    assertDiff("# Root\n", "# Root\n## Child\n", 7, 7, "## Child\n");
+    assertDiff("", "abc", 0, 0, "abc");
+  }
+
+  @Test
+  public void testRemoval() {
+    assertDiff("# Root\n## Child\n", "# Root\n", 7, 16, "");
+    assertDiff("abc", "", 0, 3, "");
+  }
+
+  @Test
+  public void testRepeatedChars_PrefixAndSuffixDontOverlap() {
+    assertDiff("aaaa", "aaaaaa", 4, 4, "aa");
+    assertDiff("aaaaaa", "aaaa", 4, 6, "");
+    assertDiff("abab", "ab", 2, 4, "");
+  }
+}
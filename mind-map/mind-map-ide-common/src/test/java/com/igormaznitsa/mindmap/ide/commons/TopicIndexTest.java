@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.ide.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+import com.igormaznitsa.mindmap.model.MindMap;
+import static org.junit.Assert.*;
+
+public class TopicIndexTest {
+
+  private static final String MAP = "Mind Map generated by NB MindMap plugin\n"
+      + "> __version__=`1.1`\n"
+      + "---\n\n"
+      + "# Root\n\n"
+      + "## Planning\n"
+      + "- NOTE\n<pre>Budget for the next year</pre>\n\n"
+      + "### Release plan\n\n"
+      + "## Sources\n"
+      + "- FILE\n<pre>src/main/Starter.java</pre>\n";
+
+  private static TopicIndex makeIndex() throws Exception {
+    final TopicIndex index = new TopicIndex();
+    index.put(new File("a.mmd"), 1L, 2L, new MindMap(null, new StringReader(MAP)));
+    return index;
+  }
+
+  @Test
+  public void testFindByPrefixAndFuzzy() throws Exception {
+    final TopicIndex index = makeIndex();
+
+    List<TopicIndex.Match> found = index.find("plan", 10);
+    assertEquals(2, found.size());
+    assertEquals("Planning", found.get(0).getEntry().getText());
+    assertTrue(Arrays.equals(new int[]{0, 0}, found.get(0).getEntry().getPositionPath()));
+    assertEquals("Release plan", found.get(1).getEntry().getText());
+
+    found = index.find("rlspln", 10);
+    assertEquals(1, found.size());
+    assertEquals("Release plan", found.get(0).getEntry().getText());
+    assertTrue(Arrays.equals(new int[]{0, 0, 0}, found.get(0).getEntry().getPositionPath()));
+
+    assertTrue(index.find("zzz", 10).isEmpty());
+  }
+
+  @Test
+  public void testNotesAndFileLinksAreIndexed() throws Exception {
+    final TopicIndex index = makeIndex();
+
+    List<TopicIndex.Match> found = index.find("budget", 10);
+    assertEquals(1, found.size());
+    assertEquals(TopicIndex.Kind.NOTE, found.get(0).getEntry().getKind());
+    assertEquals("Planning", found.get(0).getEntry().getTopicTitle());
+
+    found = index.find("starter", 10);
+    assertEquals(1, found.size());
+    assertEquals(TopicIndex.Kind.FILE, found.get(0).getEntry().getKind());
+    assertEquals("Sources", found.get(0).getEntry().getTopicTitle());
+  }
+
+  @Test
+  public void testGetEntries() throws Exception {
+    final List<TopicIndex.Entry> entries = makeIndex().getEntries();
+    assertEquals(6, entries.size());
+    assertEquals("Root", entries.get(0).getText());
+  }
+
+  @Test
+  public void testLowerCaseDoesNotDependOnLocale() throws Exception {
+    final Locale defaultLocale = Locale.getDefault();
+    Locale.setDefault(new Locale("tr", "TR"));
+    try {
+      final String text = "\u0130stanbul TITLE";
+      assertEquals(text.length(), TopicIndex.toLowerCase(text).length);
+      assertEquals("istanbul title", new String(TopicIndex.toLowerCase(text)));
+
+      final TopicIndex index = new TopicIndex();
+      index.put(new File("t.mmd"), 1L, 2L, new MindMap(null, new StringReader(MAP.replace("Release plan", text))));
+      final List<TopicIndex.Match> found = index.find("ISTANBUL", 10);
+      assertEquals(1, found.size());
+      assertEquals(text, found.get(0).getEntry().getText());
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  @Test
+  public void testMaxResults() throws Exception {
+    final TopicIndex index = makeIndex();
+    final List<TopicIndex.Match> found = index.find("o", 2);
+    assertEquals(2, found.size());
+    assertTrue(found.get(0).getScore() >= found.get(1).getScore());
+  }
+
+  @Test
+  public void testRemoveAndRetain() throws Exception {
+    final TopicIndex index = makeIndex();
+    index.put(new File("b.mmd"), 1L, 2L, new MindMap(null, new StringReader(MAP)));
+    assertEquals(2, index.find("root", 10).size());
+
+    assertTrue(index.remove(new File("b.mmd")));
+    assertFalse(index.remove(new File("b.mmd")));
+    assertEquals(1, index.find("root", 10).size());
+
+    assertTrue(index.retainOnly(Arrays.asList(new File("c.mmd"))));
+    assertTrue(index.find("root", 10).isEmpty());
+  }
+
+  @Test
+  public void testWriteRead() throws Exception {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    makeIndex().write(buffer);
+
+    final TopicIndex restored = TopicIndex.read(new ByteArrayInputStream(buffer.toByteArray()));
+    assertNotNull(restored);
+    assertEquals(Arrays.asList(new File("a.mmd")), restored.getFiles());
+    final List<TopicIndex.Match> found = restored.find("release", 10);
+    assertEquals(1, found.size());
+    assertTrue(Arrays.equals(new int[]{0, 0, 0}, found.get(0).getEntry().getPositionPath()));
+
+    assertNull(TopicIndex.read(new ByteArrayInputStream(new byte[]{0, 0, 0, 0, 0, 0, 0, 1})));
+  }
+}
@@ -25,6 +25,7 @@ import java.io.Serializable;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -282,6 +283,17 @@ public final class MindMap implements Serializable, Constants, TreeModel, Iterab
     return this.attributes.get(name);
   }
 
+  /**
+   * Get all attributes of the map.
+   *
+   * @return unmodifiable map of attributes
+   * @since 1.4.2
+   */
+  @Nonnull
+  public Map<String, String> getAttributes() {
+    return Collections.unmodifiableMap(this.attributes);
+  }
+
   public void setAttribute(@Nonnull final String name, @Nullable final String value) {
     this.locker.lock();
     try {
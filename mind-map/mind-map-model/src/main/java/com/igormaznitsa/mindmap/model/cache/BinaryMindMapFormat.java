@@ -0,0 +1,405 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.model.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.MindMapController;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+
+/**
+ * Compact binary snapshot of mind map. It contains header, table of all
+ * strings used in the map and tree of topics where every string is presented
+ * by its varint encoded index in the table. The format is not a replacement of
+ * the MMD text format and should be used only as cache of already parsed maps
+ * or to transfer detached topic subtrees.
+ *
+ * @since 1.4.2
+ */
+public final class BinaryMindMapFormat {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BinaryMindMapFormat.class);
+
+  private static final int MAGIC = 0x4D4D4443; // MMDC
+  private static final int MAGIC_TOPICS = 0x4D4D4454; // MMDT
+  private static final int VERSION = 1;
+
+  private static final Extra.ExtraType[] EXTRA_TYPES = Extra.ExtraType.values();
+
+  private BinaryMindMapFormat() {
+  }
+
+  /**
+   * Description of source of cached data, it is saved in header and allows to
+   * check that snapshot is still actual.
+   */
+  public static final class SourceKey {
+
+    private final long lastModified;
+    private final long length;
+    private final int hash;
+
+    public SourceKey(final long lastModified, final long length, final int hash) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.hash = hash;
+    }
+
+    public long getLastModified() {
+      return this.lastModified;
+    }
+
+    public long getLength() {
+      return this.length;
+    }
+
+    public int getHash() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj instanceof SourceKey) {
+        final SourceKey that = (SourceKey) obj;
+        return this.lastModified == that.lastModified && this.length == that.length && this.hash == that.hash;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (this.lastModified ^ (this.lastModified >>> 32)) ^ (int) this.length ^ this.hash;
+    }
+  }
+
+  private static final class StringTable {
+
+    private final Map<String, Integer> indexes = new LinkedHashMap<String, Integer>();
+
+    private int index(@Nonnull final String str) {
+      Integer result = this.indexes.get(str);
+      if (result == null) {
+        result = this.indexes.size();
+        this.indexes.put(str, result);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Write snapshot of mind map.
+   *
+   * @param key key of source, must not be null
+   * @param map map to be saved, must not be null
+   * @param out output stream, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  public static void write(@Nonnull final SourceKey key, @Nonnull final MindMap map, @Nonnull final OutputStream out) throws IOException {
+    final StringTable strings = new StringTable();
+    final ByteArrayOutputStream body = new ByteArrayOutputStream(16384);
+
+    map.lock();
+    try {
+      writeStringMap(body, strings, map.getAttributes());
+      final Topic root = map.getRoot();
+      if (root == null) {
+        body.write(0);
+      } else {
+        body.write(1);
+        writeTopic(body, strings, root);
+      }
+    }
+    finally {
+      map.unlock();
+    }
+
+    final ByteArrayOutputStream header = new ByteArrayOutputStream(4096);
+    writeInt(header, MAGIC);
+    header.write(VERSION);
+    writeLong(header, key.getLastModified());
+    writeLong(header, key.getLength());
+    writeInt(header, key.getHash());
+
+    writeStringTable(header, strings);
+
+    header.writeTo(out);
+    body.writeTo(out);
+    out.flush();
+  }
+
+  /**
+   * Write detached copy of topic subtrees, attributes of their mind map are not
+   * saved.
+   *
+   * @param topics topics to be saved with their children, must not be null
+   * @param out output stream, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  public static void writeTopics(@Nonnull @MustNotContainNull final Topic[] topics, @Nonnull final OutputStream out) throws IOException {
+    final StringTable strings = new StringTable();
+    final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+
+    writeVarInt(body, topics.length);
+    for (final Topic t : topics) {
+      writeTopic(body, strings, t);
+    }
+
+    final ByteArrayOutputStream header = new ByteArrayOutputStream(1024);
+    writeInt(header, MAGIC_TOPICS);
+    header.write(VERSION);
+    writeStringTable(header, strings);
+
+    header.writeTo(out);
+    body.writeTo(out);
+    out.flush();
+  }
+
+  /**
+   * Read topic subtrees written by {@link #writeTopics(Topic[], OutputStream)}.
+   * Read topics are created without parent.
+   *
+   * @param map mind map to be owner of read topics, must not be null
+   * @param buffer buffer contains data, must not be null
+   * @return array of read topics
+   * @throws IOException it will be thrown if data is wrong or broken
+   */
+  @Nonnull
+  @MustNotContainNull
+  public static Topic[] readTopics(@Nonnull final MindMap map, @Nonnull final ByteBuffer buffer) throws IOException {
+    final ByteBuffer buff = buffer.duplicate();
+    try {
+      if (buff.getInt() != MAGIC_TOPICS || buff.get() != VERSION) {
+        throw new IOException("Not supported topic list format");
+      }
+
+      final String[] strings = readStringTable(buff);
+
+      final Topic[] result = new Topic[readVarInt(buff)];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = readTopic(buff, strings, map, null);
+      }
+      return result;
+    }
+    catch (BufferUnderflowException ex) {
+      throw new IOException("Unexpected end of topic list data", ex);
+    }
+    catch (IndexOutOfBoundsException ex) {
+      throw new IOException("Detected wrong index in topic list data", ex);
+    }
+  }
+
+  /**
+   * Read source key from snapshot header. Position of the buffer is not
+   * changed.
+   *
+   * @param buffer buffer contains snapshot, must not be null
+   * @return source key or null if the buffer doesn't contain snapshot of
+   * supported version
+   */
+  @Nullable
+  public static SourceKey readKey(@Nonnull final ByteBuffer buffer) {
+    final ByteBuffer buff = buffer.duplicate();
+    try {
+      if (buff.getInt() != MAGIC || buff.get() != VERSION) {
+        return null;
+      }
+      return new SourceKey(buff.getLong(), buff.getLong(), buff.getInt());
+    }
+    catch (BufferUnderflowException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Read mind map from snapshot.
+   *
+   * @param controller controller for new map, can be null
+   * @param buffer buffer contains snapshot, must not be null
+   * @return restored mind map
+   * @throws IOException it will be thrown if data is wrong or broken
+   */
+  @Nonnull
+  public static MindMap read(@Nullable final MindMapController controller, @Nonnull final ByteBuffer buffer) throws IOException {
+    if (readKey(buffer) == null) {
+      throw new IOException("Not supported snapshot format");
+    }
+
+    final ByteBuffer buff = buffer.duplicate();
+    try {
+      buff.position(buff.position() + 4 + 1 + 8 + 8 + 4);
+
+      final String[] strings = readStringTable(buff);
+
+      final MindMap result = new MindMap(controller, false);
+      final int attributes = readVarInt(buff);
+      for (int i = 0; i < attributes; i++) {
+        result.setAttribute(strings[readVarInt(buff)], strings[readVarInt(buff)]);
+      }
+
+      if (buff.get() != 0) {
+        result.setRoot(readTopic(buff, strings, result, null), false);
+      }
+      return result;
+    }
+    catch (BufferUnderflowException ex) {
+      throw new IOException("Unexpected end of snapshot data", ex);
+    }
+    catch (IndexOutOfBoundsException ex) {
+      throw new IOException("Detected wrong index in snapshot data", ex);
+    }
+  }
+
+  private static void writeTopic(@Nonnull final ByteArrayOutputStream out, @Nonnull final StringTable strings, @Nonnull final Topic topic) {
+    writeVarInt(out, strings.index(topic.getText()));
+    writeStringMap(out, strings, topic.getAttributes());
+
+    final Map<Extra.ExtraType, Extra<?>> extras = topic.getExtras();
+    writeVarInt(out, extras.size());
+    for (final Extra<?> e : extras.values()) {
+      out.write(e.getType().ordinal());
+      writeVarInt(out, strings.index(e.provideAsStringForSave()));
+    }
+
+    writeStringMap(out, strings, topic.getCodeSnippets());
+
+    writeVarInt(out, topic.getChildren().size());
+    for (final Topic child : topic.getChildren()) {
+      writeTopic(out, strings, child);
+    }
+  }
+
+  @Nonnull
+  private static Topic readTopic(@Nonnull final ByteBuffer buff, @Nonnull @MustNotContainNull final String[] strings, @Nonnull final MindMap map, @Nullable final Topic parent) throws IOException {
+    final Topic result = new Topic(map, parent, strings[readVarInt(buff)]);
+
+    final int attributes = readVarInt(buff);
+    for (int i = 0; i < attributes; i++) {
+      result.setAttribute(strings[readVarInt(buff)], strings[readVarInt(buff)]);
+    }
+
+    final int extras = readVarInt(buff);
+    for (int i = 0; i < extras; i++) {
+      final Extra.ExtraType type = EXTRA_TYPES[buff.get()];
+      final String value = strings[readVarInt(buff)];
+      if (type == Extra.ExtraType.UNKNOWN) {
+        continue;
+      }
+      try {
+        result.setExtra(type.parseLoaded(value));
+      }
+      catch (URISyntaxException ex) {
+        LOGGER.error("Can't restore extra " + type + " from snapshot", ex); //NOI18N
+      }
+    }
+
+    final int snippets = readVarInt(buff);
+    for (int i = 0; i < snippets; i++) {
+      result.setCodeSnippet(strings[readVarInt(buff)], strings[readVarInt(buff)]);
+    }
+
+    final int children = readVarInt(buff);
+    for (int i = 0; i < children; i++) {
+      readTopic(buff, strings, map, result);
+    }
+
+    return result;
+  }
+
+  private static void writeStringTable(@Nonnull final ByteArrayOutputStream out, @Nonnull final StringTable strings) throws IOException {
+    writeVarInt(out, strings.indexes.size());
+    for (final String s : strings.indexes.keySet()) {
+      final byte[] utf8 = s.getBytes("UTF-8"); //NOI18N
+      writeVarInt(out, utf8.length);
+      out.write(utf8);
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static String[] readStringTable(@Nonnull final ByteBuffer buff) throws IOException {
+    final String[] result = new String[readVarInt(buff)];
+    byte[] tmp = new byte[256];
+    for (int i = 0; i < result.length; i++) {
+      final int len = readVarInt(buff);
+      if (len > tmp.length) {
+        tmp = new byte[len];
+      }
+      buff.get(tmp, 0, len);
+      result[i] = new String(tmp, 0, len, "UTF-8"); //NOI18N
+    }
+    return result;
+  }
+
+  private static void writeStringMap(@Nonnull final ByteArrayOutputStream out, @Nonnull final StringTable strings, @Nonnull final Map<String, String> map) {
+    writeVarInt(out, map.size());
+    for (final Map.Entry<String, String> e : map.entrySet()) {
+      writeVarInt(out, strings.index(e.getKey()));
+      writeVarInt(out, strings.index(e.getValue()));
+    }
+  }
+
+  private static void writeVarInt(@Nonnull final ByteArrayOutputStream out, final int value) {
+    int v = value;
+    while ((v & ~0x7F) != 0) {
+      out.write((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    out.write(v);
+  }
+
+  private static int readVarInt(@Nonnull final ByteBuffer buff) throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      final int b = buff.get();
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        if (result < 0) {
+          throw new IOException("Detected negative varint");
+        }
+        return result;
+      }
+    }
+    throw new IOException("Too long varint");
+  }
+
+  private static void writeInt(@Nonnull final ByteArrayOutputStream out, final int value) {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  }
+
+  private static void writeLong(@Nonnull final ByteArrayOutputStream out, final long value) {
+    writeInt(out, (int) (value >>> 32));
+    writeInt(out, (int) value);
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.model.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.MindMapController;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+
+/**
+ * Folder based cache of binary snapshots of parsed mind map files. Every
+ * snapshot is placed into file which name is made from hash of the source file
+ * path and it keeps modification time, length and CRC32 of the source header,
+ * so that changed sources are parsed again and actual snapshot can be used
+ * without reading of the whole source. MMD file is always the source of truth,
+ * any problem with cache just leads to parsing of the text. Number and total
+ * size of snapshots are limited, the least recently used ones are removed.
+ *
+ * @since 1.4.2
+ */
+public class MindMapFileCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MindMapFileCache.class);
+
+  private static final String EXTENSION = ".mmdc"; //NOI18N
+
+  /**
+   * Number of the first bytes of source file which are checked by CRC32.
+   */
+  private static final int HEADER_SIZE = 4096;
+
+  public static final int DEFAULT_MAX_SNAPSHOTS = 512;
+  public static final long DEFAULT_MAX_BYTES = 32L * 1024L * 1024L;
+
+  private final File folder;
+  private final int maxSnapshots;
+  private final long maxBytes;
+
+  /**
+   * Snapshot file names with their sizes in access order, it is filled from
+   * the folder content during the first access.
+   */
+  private Map<String, Long> snapshots;
+  private long snapshotBytes;
+
+  public MindMapFileCache(@Nonnull final File folder) {
+    this(folder, DEFAULT_MAX_SNAPSHOTS, DEFAULT_MAX_BYTES);
+  }
+
+  public MindMapFileCache(@Nonnull final File folder, final int maxSnapshots, final long maxBytes) {
+    this.folder = folder;
+    this.maxSnapshots = Math.max(1, maxSnapshots);
+    this.maxBytes = Math.max(1L, maxBytes);
+  }
+
+  @Nonnull
+  public File getFolder() {
+    return this.folder;
+  }
+
+  /**
+   * Load mind map from file, use snapshot if it is actual one or parse text
+   * and save new snapshot.
+   *
+   * @param file mind map file, must not be null
+   * @param controller controller for loaded map, can be null
+   * @return loaded map, must not be null
+   * @throws IOException it will be thrown if the file can't be read
+   */
+  @Nonnull
+  public MindMap load(@Nonnull final File file, @Nullable final MindMapController controller) throws IOException {
+    final BinaryMindMapFormat.SourceKey key = makeKey(file);
+
+    final File snapshot = findSnapshotFile(file);
+    MindMap result = snapshot.isFile() ? readSnapshot(snapshot, key, controller) : null;
+    if (result != null) {
+      touch(snapshot);
+    } else {
+      result = new MindMap(controller, new StringReader(FileUtils.readFileToString(file, "UTF-8"))); //NOI18N
+      store(snapshot, key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Save snapshot for just written mind map file, allows to avoid parsing
+   * during next opening.
+   *
+   * @param file saved mind map file, must not be null
+   * @param map saved mind map, must not be null
+   */
+  public void update(@Nonnull final File file, @Nonnull final MindMap map) {
+    try {
+      store(findSnapshotFile(file), makeKey(file), map);
+    }
+    catch (IOException ex) {
+      LOGGER.warn("Can't update snapshot for " + file + " : " + ex.getMessage()); //NOI18N
+    }
+  }
+
+  /**
+   * Remove snapshot for file if it exists.
+   *
+   * @param file mind map file, must not be null
+   */
+  public void invalidate(@Nonnull final File file) {
+    final File snapshot = findSnapshotFile(file);
+    forget(snapshot);
+    if (snapshot.isFile() && !snapshot.delete()) {
+      LOGGER.warn("Can't delete snapshot file " + snapshot); //NOI18N
+    }
+  }
+
+  @Nonnull
+  private Map<String, Long> getSnapshots() {
+    if (this.snapshots == null) {
+      this.snapshots = new LinkedHashMap<String, Long>(64, 0.75f, true);
+      this.snapshotBytes = 0L;
+      final File[] files = this.folder.listFiles();
+      if (files != null) {
+        Arrays.sort(files, new Comparator<File>() {
+          @Override
+          public int compare(@Nonnull final File o1, @Nonnull final File o2) {
+            final long m1 = o1.lastModified();
+            final long m2 = o2.lastModified();
+            return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+          }
+        });
+        for (final File f : files) {
+          if (f.isFile() && f.getName().endsWith(EXTENSION)) {
+            final long length = f.length();
+            this.snapshots.put(f.getName(), length);
+            this.snapshotBytes += length;
+          }
+        }
+      }
+    }
+    return this.snapshots;
+  }
+
+  private void touch(@Nonnull final File snapshot) {
+    synchronized (this) {
+      getSnapshots().get(snapshot.getName());
+    }
+    if (!snapshot.setLastModified(System.currentTimeMillis())) {
+      LOGGER.warn("Can't touch snapshot file " + snapshot); //NOI18N
+    }
+  }
+
+  private void forget(@Nonnull final File snapshot) {
+    synchronized (this) {
+      final Long length = getSnapshots().remove(snapshot.getName());
+      if (length != null) {
+        this.snapshotBytes -= length;
+      }
+    }
+  }
+
+  private void register(@Nonnull final File snapshot) {
+    synchronized (this) {
+      final Map<String, Long> map = getSnapshots();
+      final long length = snapshot.length();
+      final Long old = map.put(snapshot.getName(), length);
+      this.snapshotBytes += length - (old == null ? 0L : old);
+
+      final Iterator<Map.Entry<String, Long>> iterator = map.entrySet().iterator();
+      while ((map.size() > this.maxSnapshots || this.snapshotBytes > this.maxBytes) && iterator.hasNext()) {
+        final Map.Entry<String, Long> eldest = iterator.next();
+        if (eldest.getKey().equals(snapshot.getName())) {
+          continue;
+        }
+        iterator.remove();
+        this.snapshotBytes -= eldest.getValue();
+        final File evicted = new File(this.folder, eldest.getKey());
+        if (evicted.isFile() && !evicted.delete()) {
+          LOGGER.warn("Can't delete evicted snapshot file " + evicted); //NOI18N
+        }
+      }
+    }
+  }
+
+  @Nonnull
+  private static BinaryMindMapFormat.SourceKey makeKey(@Nonnull final File file) throws IOException {
+    final long lastModified = file.lastModified();
+    final long length = file.length();
+    final byte[] header = new byte[(int) Math.min(length, HEADER_SIZE)];
+    final InputStream in = new FileInputStream(file);
+    try {
+      IOUtils.readFully(in, header);
+    }
+    finally {
+      IOUtils.closeQuietly(in);
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(header);
+    return new BinaryMindMapFormat.SourceKey(lastModified, length, (int) crc.getValue());
+  }
+
+  @Nonnull
+  private File findSnapshotFile(@Nonnull final File file) {
+    return new File(this.folder, makeHashName(file.getAbsolutePath()) + EXTENSION);
+  }
+
+  @Nonnull
+  private static String makeHashName(@Nonnull final String path) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("MD5").digest(path.getBytes("UTF-8")); //NOI18N
+      final StringBuilder result = new StringBuilder(digest.length * 2);
+      for (final byte b : digest) {
+        result.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return result.toString();
+    }
+    catch (NoSuchAlgorithmException ex) {
+      throw new Error("Can't find MD5", ex); //NOI18N
+    }
+    catch (UnsupportedEncodingException ex) {
+      throw new Error("Can't find UTF-8", ex); //NOI18N
+    }
+  }
+
+  @Nullable
+  private static MindMap readSnapshot(@Nonnull final File snapshot, @Nonnull final BinaryMindMapFormat.SourceKey key, @Nullable final MindMapController controller) {
+    MindMap result = null;
+    final RandomAccessFile raFile;
+    try {
+      raFile = new RandomAccessFile(snapshot, "r"); //NOI18N
+    }
+    catch (IOException ex) {
+      LOGGER.warn("Can't open snapshot " + snapshot + " : " + ex.getMessage()); //NOI18N
+      return null;
+    }
+
+    try {
+      final FileChannel channel = raFile.getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          break;
+        }
+      }
+      buffer.flip();
+      if (key.equals(BinaryMindMapFormat.readKey(buffer))) {
+        result = BinaryMindMapFormat.read(controller, buffer);
+      }
+    }
+    catch (IOException ex) {
+      LOGGER.warn("Can't read snapshot " + snapshot + " : " + ex.getMessage()); //NOI18N
+    }
+    finally {
+      IOUtils.closeQuietly(raFile);
+    }
+    return result;
+  }
+
+  private void store(@Nonnull final File snapshot, @Nonnull final BinaryMindMapFormat.SourceKey key, @Nonnull final MindMap map) {
+    if (!this.folder.isDirectory() && !this.folder.mkdirs()) {
+      LOGGER.warn("Can't create snapshot folder " + this.folder); //NOI18N
+      return;
+    }
+
+    final File tempFile = new File(snapshot.getParentFile(), snapshot.getName() + ".tmp"); //NOI18N
+    try {
+      final OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile, false));
+      try {
+        BinaryMindMapFormat.write(key, map, out);
+      }
+      finally {
+        IOUtils.closeQuietly(out);
+      }
+
+      if ((snapshot.isFile() && !snapshot.delete()) || !tempFile.renameTo(snapshot)) {
+        LOGGER.warn("Can't replace snapshot file " + snapshot); //NOI18N
+        if (!tempFile.delete()) {
+          tempFile.deleteOnExit();
+        }
+      } else {
+        register(snapshot);
+      }
+    }
+    catch (IOException ex) {
+      LOGGER.warn("Can't write snapshot " + snapshot + " : " + ex.getMessage()); //NOI18N
+      if (!tempFile.delete()) {
+        tempFile.deleteOnExit();
+      }
+    }
+  }
+}
@@ -92,12 +92,24 @@ public final class MindMapLexer {
     }
   }
 
+  /**
+   * Encoded lexer state of safe restart point, lexing can be started from start
+   * of any token which has the state. At start of buffer it means header line,
+   * in other places whitespace before topic elements.
+   *
+   * @see #getTokenStartState()
+   * @see #start(CharSequence, int, int, int)
+   * @since 1.4.2
+   */
+  public static final int STATE_RESTART_POINT = 0;
+
   private CharSequence buffer = "";
   private int endOffset;
   private int tokenStart;
   private int tokenEnd;
   private TokenType tokenType = TokenType.UNKNOWN_LINE;
   private final LexerPosition position = new LexerPosition(0, TokenType.UNKNOWN_LINE);
+  private int tokenStartState = STATE_RESTART_POINT;
 
   public int getTokenStartOffset() {
     return this.tokenStart;
@@ -114,6 +126,57 @@ public final class MindMapLexer {
     this.position.tokenCompleted = true;
     this.position.state = this.tokenType;
     this.endOffset = endOffset;
+    this.tokenStartState = encodeState(initialState, startOffset);
+  }
+
+  /**
+   * Start lexing from encoded state, it allows to restart lexing from start of
+   * a token which state has been got through {@link #getTokenStartState()}.
+   *
+   * @param buffer buffer to be lexed
+   * @param startOffset start offset, must be start of token
+   * @param endOffset end offset, exclusive
+   * @param encodedState encoded state of the token at start offset
+   * @since 1.4.2
+   */
+  public void start(@Nonnull final CharSequence buffer, final int startOffset, final int endOffset, final int encodedState) {
+    final TokenType state;
+    if (encodedState == STATE_RESTART_POINT) {
+      state = startOffset == 0 ? TokenType.HEAD_LINE : TokenType.WHITESPACE;
+    } else {
+      final TokenType[] values = TokenType.values();
+      final int index = encodedState - 1;
+      state = index >= 0 && index < values.length ? values[index] : TokenType.UNKNOWN_LINE;
+    }
+    start(buffer, startOffset, endOffset, state);
+  }
+
+  /**
+   * Get encoded state of lexer at start of the current token. Lexing restarted
+   * from the token start with the state produces the same tokens.
+   *
+   * @return encoded state, {@link #STATE_RESTART_POINT} for safe restart
+   * points
+   * @since 1.4.2
+   */
+  public int getTokenStartState() {
+    return this.tokenStartState;
+  }
+
+  /**
+   * Encode lexer state. Header at buffer start and whitespace in the body
+   * don't depend on previous text so that they are encoded as restart point.
+   *
+   * @param state lexer state
+   * @param offset offset of the state in buffer
+   * @return encoded state
+   * @since 1.4.2
+   */
+  public static int encodeState(@Nonnull final TokenType state, final int offset) {
+    if ((state == TokenType.HEAD_LINE && offset == 0) || (state == TokenType.WHITESPACE && offset > 0)) {
+      return STATE_RESTART_POINT;
+    }
+    return state.ordinal() + 1;
   }
 
   public void setBufferEndOffset(final int value) {
@@ -146,7 +209,10 @@ public final class MindMapLexer {
 
   public void advance() {
     boolean tokenHasBeenCompleted = this.position.isTokenCompleted();
-    this.tokenStart = tokenHasBeenCompleted ? this.position.offset : this.tokenStart;
+    if (tokenHasBeenCompleted) {
+      this.tokenStart = this.position.offset;
+      this.tokenStartState = encodeState(this.position.state, this.position.offset);
+    }
     boolean inAction = true;
 
     while (inAction && !isBufferEnd()) {
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.model.cache;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+
+public class BinaryMindMapFormatTest {
+
+  private static final String MAP_TEXT = "Mind Map generated by NB MindMap plugin   \n"
+      + "> __version__=`1.1`,someattr=`hello`\n"
+      + "---\n"
+      + "# Root\n"
+      + "> fillColor=`#FF0000`,collapsed=`true`\n\n"
+      + "- NOTE\n"
+      + "<pre>Some &lt;note&gt;\n"
+      + "second line</pre>\n"
+      + "- LINK\n"
+      + "<pre>http://www.igormaznitsa.com/?a=1&amp;b=2</pre>\n"
+      + "```java\n"
+      + "System.exit(0);\n"
+      + "```\n"
+      + "## Child \\# 1\n"
+      + "> topicLinkUID=`15F4B1A5D94A`\n\n"
+      + "### Юникод\n"
+      + "- FILE\n"
+      + "<pre>some/file.txt</pre>\n"
+      + "## Child 2\n"
+      + "- TOPIC\n"
+      + "<pre>15F4B1A5D94A</pre>\n";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static ByteBuffer write(final MindMap map, final BinaryMindMapFormat.SourceKey key) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    BinaryMindMapFormat.write(key, map, buffer);
+    return ByteBuffer.wrap(buffer.toByteArray());
+  }
+
+  @Test
+  public void testWriteRead_SameAsText() throws Exception {
+    final MindMap map = new MindMap(null, new StringReader(MAP_TEXT));
+    final BinaryMindMapFormat.SourceKey key = new BinaryMindMapFormat.SourceKey(1234L, 5678L, 0xCAFEBABE);
+
+    final ByteBuffer buffer = write(map, key);
+    assertEquals(key, BinaryMindMapFormat.readKey(buffer));
+
+    final MindMap restored = BinaryMindMapFormat.read(null, buffer);
+    assertEquals(map.packToString(), restored.packToString());
+    assertEquals("hello", restored.getAttribute("someattr"));
+    assertEquals(2, restored.getRoot().getChildren().size());
+    assertSame(restored.getRoot().getChildren().get(0), restored.findTopicForLink((ExtraTopic) restored.getRoot().getChildren().get(1).getExtras().get(Extra.ExtraType.TOPIC)));
+  }
+
+  @Test
+  public void testWriteRead_NoRoot() throws Exception {
+    final MindMap map = new MindMap(null, false);
+    final MindMap restored = BinaryMindMapFormat.read(null, write(map, new BinaryMindMapFormat.SourceKey(0L, 0L, 0)));
+    assertNull(restored.getRoot());
+  }
+
+  @Test
+  public void testReadKey_NotSnapshot() throws Exception {
+    assertNull(BinaryMindMapFormat.readKey(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+    assertNull(BinaryMindMapFormat.readKey(ByteBuffer.wrap("Mind Map generated by NB MindMap plugin".getBytes("UTF-8"))));
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_Truncated() throws Exception {
+    final byte[] data = write(new MindMap(null, new StringReader(MAP_TEXT)), new BinaryMindMapFormat.SourceKey(0L, 0L, 0)).array();
+    final byte[] truncated = new byte[data.length - 10];
+    System.arraycopy(data, 0, truncated, 0, truncated.length);
+    BinaryMindMapFormat.read(null, ByteBuffer.wrap(truncated));
+  }
+
+  @Test
+  public void testWriteReadTopics() throws Exception {
+    final MindMap map = new MindMap(null, new StringReader(MAP_TEXT));
+    final Topic[] topics = map.getRoot().getChildren().toArray(new Topic[0]);
+
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    BinaryMindMapFormat.writeTopics(topics, buffer);
+
+    final MindMap target = new MindMap(null, true);
+    final Topic[] restored = BinaryMindMapFormat.readTopics(target, ByteBuffer.wrap(buffer.toByteArray()));
+    assertEquals(2, restored.length);
+    for (int i = 0; i < topics.length; i++) {
+      assertNull(restored[i].getParent());
+      assertSame(target, restored[i].getMap());
+      final StringWriter expected = new StringWriter();
+      final StringWriter actual = new StringWriter();
+      topics[i].write(expected);
+      restored[i].write(actual);
+      assertEquals(expected.toString(), actual.toString());
+    }
+  }
+
+  @Test
+  public void testFileCache_UseSnapshotAndReparseChanged() throws Exception {
+    final File mapFile = this.tempFolder.newFile("test.mmd");
+    final File cacheFolder = new File(this.tempFolder.getRoot(), "cache");
+    FileUtils.writeStringToFile(mapFile, MAP_TEXT, "UTF-8");
+
+    final MindMapFileCache cache = new MindMapFileCache(cacheFolder);
+    final MindMap first = cache.load(mapFile, null);
+    assertEquals(1, cacheFolder.listFiles().length);
+
+    final MindMap second = cache.load(mapFile, null);
+    assertEquals(first.packToString(), second.packToString());
+
+    FileUtils.writeStringToFile(mapFile, MAP_TEXT.replace("# Root", "# Changed root"), "UTF-8");
+    assertEquals("Changed root", cache.load(mapFile, null).getRoot().getText());
+
+    cache.invalidate(mapFile);
+    assertEquals(0, cacheFolder.listFiles().length);
+  }
+
+  @Test
+  public void testFileCache_EvictLeastRecentlyUsed() throws Exception {
+    final File cacheFolder = new File(this.tempFolder.getRoot(), "cache");
+    final MindMapFileCache cache = new MindMapFileCache(cacheFolder, 2, Long.MAX_VALUE);
+
+    final File[] mapFiles = new File[3];
+    for (int i = 0; i < mapFiles.length; i++) {
+      mapFiles[i] = this.tempFolder.newFile("test" + i + ".mmd");
+      FileUtils.writeStringToFile(mapFiles[i], MAP_TEXT, "UTF-8");
+    }
+
+    cache.load(mapFiles[0], null);
+    cache.load(mapFiles[1], null);
+    cache.load(mapFiles[0], null);
+    cache.load(mapFiles[2], null);
+
+    assertEquals(2, cacheFolder.listFiles().length);
+
+    cache.invalidate(mapFiles[0]);
+    cache.invalidate(mapFiles[2]);
+    assertEquals("Snapshot of the least recently used map must be evicted", 0, cacheFolder.listFiles().length);
+  }
+
+  @Test
+  public void testFileCache_LimitSizeAndReadBig() throws Exception {
+    final StringBuilder text = new StringBuilder(MAP_TEXT);
+    for (int i = 0; i < 4000; i++) {
+      text.append("## Generated child topic number ").append(i).append('\n');
+    }
+    final File bigMap = this.tempFolder.newFile("big.mmd");
+    FileUtils.writeStringToFile(bigMap, text.toString(), "UTF-8");
+    final File smallMap = this.tempFolder.newFile("small.mmd");
+    FileUtils.writeStringToFile(smallMap, MAP_TEXT, "UTF-8");
+
+    final File cacheFolder = new File(this.tempFolder.getRoot(), "cache");
+    final MindMapFileCache cache = new MindMapFileCache(cacheFolder, 100, 96L * 1024L);
+
+    final MindMap first = cache.load(bigMap, null);
+    final File[] snapshots = cacheFolder.listFiles();
+    assertEquals(1, snapshots.length);
+    assertTrue("Snapshot must be bigger than checked header of source", snapshots[0].length() >= 64 * 1024);
+
+    final MindMap second = cache.load(bigMap, null);
+    assertEquals(first.packToString(), second.packToString());
+    assertTrue("Snapshot must be deletable after reading", snapshots[0].delete());
+
+    cache.load(bigMap, null);
+    final File bigSnapshot = cacheFolder.listFiles()[0];
+    final long bigSize = bigSnapshot.length();
+
+    final MindMapFileCache smallCache = new MindMapFileCache(cacheFolder, 100, bigSize);
+    smallCache.load(smallMap, null);
+    assertEquals(1, cacheFolder.listFiles().length);
+    assertFalse(bigSnapshot.exists());
+  }
+}
@@ -22,6 +22,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.apache.commons.io.IOUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import com.igormaznitsa.mindmap.model.parser.MindMapLexer.TokenType;
 
 public class MindMapLexerTest {
@@ -549,4 +552,38 @@ public class MindMapLexerTest {
     assertEquals(etalon,accum3.toString());
   }
   
+  private static List<int[]> lexAll(final String text, final int startOffset, final int state) {
+    final MindMapLexer lexer = new MindMapLexer();
+    lexer.start(text, startOffset, text.length(), state);
+    lexer.advance();
+    final List<int[]> result = new ArrayList<int[]>();
+    while (lexer.getTokenType() != null) {
+      result.add(new int[]{lexer.getTokenStartOffset(), lexer.getTokenEndOffset(), lexer.getTokenType().ordinal(), lexer.getTokenStartState()});
+      lexer.advance();
+    }
+    return result;
+  }
+
+  @Test
+  public void testRestartFromTokenStartState() {
+    final String text = "Mind Map generated by NB MindMap plugin\n> __version__=`1.1`\n---\n\n# Root\n> attr=`1`\n\n- NOTE\n<pre>some\n# not topic\n</pre>\n\n## Child\n```Java\nint a = 0;\n# not topic\n```\n\n## Other\n- LINK\n<pre>http://www.google.com</pre>\n### Deep\n";
+
+    final List<int[]> all = lexAll(text, 0, MindMapLexer.STATE_RESTART_POINT);
+    assertEquals(MindMapLexer.STATE_RESTART_POINT, all.get(0)[3]);
+
+    int restartPoints = 0;
+    for (int i = 0; i < all.size(); i++) {
+      final int[] token = all.get(i);
+      if (token[3] == MindMapLexer.STATE_RESTART_POINT) {
+        restartPoints++;
+      }
+      final List<int[]> restarted = lexAll(text, token[0], token[3]);
+      assertEquals("Restart from " + token[0], all.size() - i, restarted.size());
+      for (int j = 0; j < restarted.size(); j++) {
+        assertTrue("Restart from " + token[0] + ", token " + j, Arrays.equals(all.get(i + j), restarted.get(j)));
+      }
+    }
+    assertTrue(restartPoints > 10);
+  }
+
 }
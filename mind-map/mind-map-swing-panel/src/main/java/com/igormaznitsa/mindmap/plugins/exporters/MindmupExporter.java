@@ -16,8 +16,9 @@
 package com.igormaznitsa.mindmap.plugins.exporters;
 
 import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
-import com.grack.nanojson.JsonStringWriter;
+import com.grack.nanojson.JsonAppendableWriter;
 import com.grack.nanojson.JsonWriter;
+import com.grack.nanojson.JsonWriterException;
 
 import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.ExtraFile;
@@ -31,10 +32,13 @@ import com.igormaznitsa.mindmap.swing.panel.ui.AbstractCollapsableElement;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -87,11 +91,12 @@ public class MindmupExporter extends AbstractExporter {
 
   private static class State {
 
-    private JsonStringWriter json = JsonWriter.string();
+    private JsonAppendableWriter json;
     private final Map<String, TopicData> topicsWithId = new HashMap<String, TopicData>();
     private final List<TopicData> topicsContainsJump = new ArrayList<TopicData>();
 
-    public State () {
+    public State (@Nonnull final Appendable out) {
+      this.json = JsonWriter.on(out);
     }
 
     public void processTopic (final int uid, final int id, @Nonnull final Topic topic) {
@@ -157,10 +162,8 @@ public class MindmupExporter extends AbstractExporter {
       return this;
     }
 
-    @Override
-    @Nonnull
-    public String toString () {
-      return json.done();
+    public void done () {
+      this.json.done();
     }
   }
 
@@ -327,12 +330,6 @@ public class MindmupExporter extends AbstractExporter {
 
   @Override
   public void doExport (@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final State state = new State();
-    
-    writeRoot(state, panel.getConfiguration(), panel.getModel().getRoot());
-
-    final String text = state.toString();
-
     File fileToSaveMap = null;
     OutputStream theOut = out;
     if (theOut == null) {
@@ -342,7 +339,16 @@ public class MindmupExporter extends AbstractExporter {
     }
     if (theOut != null) {
       try {
-        IOUtils.write(text, theOut, "UTF-8");
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(theOut, "UTF-8")); //NOI18N
+        final State state = new State(writer);
+        try {
+          writeRoot(state, panel.getConfiguration(), panel.getModel().getRoot());
+          state.done();
+        }
+        catch (JsonWriterException ex) {
+          throw ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException("Can't write JSON", ex); //NOI18N
+        }
+        writer.flush();
       }
       finally {
         if (fileToSaveMap != null) {
@@ -188,9 +188,15 @@ public final class PNGImageExporter extends AbstractExporter {
       }
     }
 
-    final MindMapPanelConfig newConfig = new MindMapPanelConfig(panel.getConfiguration(), false);
-    newConfig.setDrawBackground(this.flagDrawBackground);
-    newConfig.setScale(1.0f);
+    final MindMapPanelConfig snapshot = panel.getConfiguration().getSnapshot();
+    final MindMapPanelConfig newConfig;
+    if (snapshot.isDrawBackground() == this.flagDrawBackground && Double.compare(snapshot.getScale(), 1.0d) == 0) {
+      newConfig = snapshot;
+    } else {
+      newConfig = new MindMapPanelConfig(snapshot, false);
+      newConfig.setDrawBackground(this.flagDrawBackground);
+      newConfig.setScale(1.0f);
+    }
 
     final RenderedImage image = MindMapPanel.renderMindMapAsImage(panel.getModel(), newConfig, flagExpandAllNodes);
 
@@ -558,9 +558,15 @@ public class SVGImageExporter extends AbstractExporter {
       MindMapUtils.removeCollapseAttr(workMap);
     }
 
-    final MindMapPanelConfig newConfig = new MindMapPanelConfig(panel.getConfiguration(), false);
-    newConfig.setDrawBackground(this.flagDrawBackground);
-    newConfig.setScale(1.0f);
+    final MindMapPanelConfig snapshot = panel.getConfiguration().getSnapshot();
+    final MindMapPanelConfig newConfig;
+    if (snapshot.isDrawBackground() == this.flagDrawBackground && Double.compare(snapshot.getScale(), 1.0d) == 0) {
+      newConfig = snapshot;
+    } else {
+      newConfig = new MindMapPanelConfig(snapshot, false);
+      newConfig.setDrawBackground(this.flagDrawBackground);
+      newConfig.setScale(1.0f);
+    }
 
     final Dimension2D blockSize = calculateSizeOfMapInPixels(workMap, null, newConfig, flagExpandAllNodes);
     if (blockSize == null) {
@@ -16,12 +16,20 @@
 package com.igormaznitsa.mindmap.plugins.external;
 
 import java.io.File;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import javax.annotation.Nonnull;
 import org.apache.commons.io.FileUtils;
 import com.igormaznitsa.commons.version.Version;
 import com.igormaznitsa.commons.version.VersionValidator;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.GetUtils;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
@@ -42,31 +50,79 @@ public class ExternalPlugins {
     LOGGER.info("External plugins folder is "+pluginsFolder);
   }
   
+  /**
+   * Load plugins from the folder. Plugin files are opened, validated and their
+   * classes are instantiated in parallel, found plugins are registered in the
+   * order of files.
+   */
   public void init() {
-    final Collection<File> plugins = FileUtils.listFiles(this.pluginsFolder, new String[]{PLUGIN_EXTENSION,PLUGIN_EXTENSION.toUpperCase(Locale.ENGLISH)}, false);
+    final long start = System.currentTimeMillis();
+    final List<File> plugins = new ArrayList<File>(FileUtils.listFiles(this.pluginsFolder, new String[]{PLUGIN_EXTENSION,PLUGIN_EXTENSION.toUpperCase(Locale.ENGLISH)}, false));
     LOGGER.info("Detected "+plugins.size()+" plugin(s)");
-    for(final File plugin : plugins){
-      try{
-        final PluginClassLoader loader = new PluginClassLoader(plugin);
-        final String pluginTitle = GetUtils.ensureNonNull(loader.getAttributes(Attribute.TITLE),"<unknown>");
-        final Version pluginVersion = new Version(loader.getAttributes(Attribute.VERSION));
-        
-        LOGGER.info(String.format("Detected plugin %s [%s]",pluginTitle,pluginVersion.toString()));
-        final Version pluginApiVersion = loader.getApiVersion();
-        if (this.pluginApiValidator.isValid(pluginApiVersion)){
-          LOGGER.info(String.format("Plugin %s [%s] is valid for API", pluginTitle, pluginVersion.toString()));
-          final String [] classes = loader.extractPluginClassNames();
-          for(final String klazzName : classes){
-            LOGGER.info(String.format("Loading plugin class %s from %s",klazzName,pluginTitle));
-            final MindMapPlugin pluginInstance = (MindMapPlugin) loader.loadClass(klazzName).newInstance();
-            MindMapPluginRegistry.getInstance().registerPlugin(pluginInstance);
+    if (plugins.isEmpty()) {
+      return;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(plugins.size(), Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+      @Override
+      @Nonnull
+      public Thread newThread(@Nonnull final Runnable r) {
+        final Thread result = new Thread(r, "MMD_PLUGIN_LOADER"); //NOI18N
+        result.setDaemon(true);
+        return result;
+      }
+    });
+
+    try {
+      final List<Future<List<MindMapPlugin>>> loaded = new ArrayList<Future<List<MindMapPlugin>>>();
+      for (final File plugin : plugins) {
+        loaded.add(executor.submit(new Callable<List<MindMapPlugin>>() {
+          @Override
+          @Nonnull
+          @MustNotContainNull
+          public List<MindMapPlugin> call() throws Exception {
+            return loadPlugin(plugin);
+          }
+        }));
+      }
+
+      for (int i = 0; i < plugins.size(); i++) {
+        try {
+          for (final MindMapPlugin p : loaded.get(i).get()) {
+            MindMapPluginRegistry.getInstance().registerPlugin(p);
           }
-        } else {
-          LOGGER.warn(String.format("Plugin %s [%s] is not valid for API : %s", pluginTitle, pluginVersion.toString(), pluginApiVersion.toString()));
+        } catch (ExecutionException ex) {
+          LOGGER.error("Can't load plugin from : " + plugins.get(i).getAbsolutePath(), ex.getCause());
         }
-      }catch(Exception ex){
-        LOGGER.error("Can't load plugin from : "+plugin.getAbsolutePath(), ex);
       }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+    LOGGER.info("Plugins loaded in " + (System.currentTimeMillis() - start) + "ms");
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private List<MindMapPlugin> loadPlugin(@Nonnull final File plugin) throws Exception {
+    final List<MindMapPlugin> result = new ArrayList<MindMapPlugin>();
+    final PluginClassLoader loader = new PluginClassLoader(plugin);
+    final String pluginTitle = GetUtils.ensureNonNull(loader.getAttributes(Attribute.TITLE),"<unknown>");
+    final Version pluginVersion = new Version(loader.getAttributes(Attribute.VERSION));
+
+    LOGGER.info(String.format("Detected plugin %s [%s]",pluginTitle,pluginVersion.toString()));
+    final Version pluginApiVersion = loader.getApiVersion();
+    if (this.pluginApiValidator.isValid(pluginApiVersion)){
+      LOGGER.info(String.format("Plugin %s [%s] is valid for API", pluginTitle, pluginVersion.toString()));
+      final String [] classes = loader.extractPluginClassNames();
+      for(final String klazzName : classes){
+        LOGGER.info(String.format("Loading plugin class %s from %s",klazzName,pluginTitle));
+        result.add((MindMapPlugin) loader.loadClass(klazzName).newInstance());
+      }
+    } else {
+      LOGGER.warn(String.format("Plugin %s [%s] is not valid for API : %s", pluginTitle, pluginVersion.toString(), pluginApiVersion.toString()));
     }
+    return result;
   }
 }
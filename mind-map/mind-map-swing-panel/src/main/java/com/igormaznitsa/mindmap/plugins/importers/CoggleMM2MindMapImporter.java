@@ -20,6 +20,8 @@ import java.awt.Image;
 import com.igormaznitsa.mindmap.plugins.api.AbstractImporter;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
@@ -29,8 +31,9 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.imageio.ImageIO;
 import javax.swing.Icon;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.io.IOUtils;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.mindmap.model.ExtraLink;
@@ -66,22 +69,40 @@ public class CoggleMM2MindMapImporter extends AbstractImporter {
       return null;
     }
 
-    final Document document = Utils.loadXmlDocument(new FileInputStream(file), "UTF-8", true);
-
-    final MindMap result = new MindMap(null, true);
-    Assertions.assertNotNull(result.getRoot()).setText("Empty");
+    final InputStream in = new FileInputStream(file);
+    try {
+      return extractTopics(in);
+    }
+    finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
 
-    final Element root = document.getDocumentElement();
-    if ("map".equals(root.getTagName())) {
-      final List<Element> nodes = Utils.findDirectChildrenForName(root, "node");
-      if (!nodes.isEmpty()) {
-        parseTopic(result, null, result.getRoot(), nodes.get(0));
+  @Nonnull
+  MindMap extractTopics(@Nonnull final InputStream in) throws IOException, XMLStreamException {
+    final XMLStreamReader reader = Utils.makeXmlStreamReader(in, "UTF-8");
+    try {
+      final MindMap result = new MindMap(null, true);
+      Assertions.assertNotNull(result.getRoot()).setText("Empty");
+
+      if (Utils.nextXmlChildElement(reader) && "map".equals(Utils.getXmlElementName(reader))) {
+        while (Utils.nextXmlChildElement(reader)) {
+          if ("node".equals(Utils.getXmlElementName(reader))) {
+            parseTopic(reader, result, null, result.getRoot());
+            break;
+          } else {
+            Utils.skipXmlElement(reader);
+          }
+        }
+      } else {
+        throw new IllegalArgumentException("File is not Coggle mind map");
       }
-    } else {
-      throw new IllegalArgumentException("File is not Coggle mind map");
-    }
 
-    return result;
+      return result;
+    }
+    finally {
+      Utils.closeQuietly(reader);
+    }
   }
 
   private static final Pattern MD_IMAGE_LINK = Pattern.compile("\\!\\[(.*?)\\]\\((.*?)\\)", Pattern.MULTILINE | Pattern.UNICODE_CASE);
@@ -181,7 +202,7 @@ public class CoggleMM2MindMapImporter extends AbstractImporter {
     return result;
   }
 
-  private void parseTopic(@Nonnull final MindMap map, @Nullable final Topic parent, @Nullable final Topic preGeneratedOne, @Nonnull final Element element) {
+  private void parseTopic(@Nonnull final XMLStreamReader reader, @Nonnull final MindMap map, @Nullable final Topic parent, @Nullable final Topic preGeneratedOne) throws XMLStreamException {
     final Topic topicToProcess;
     if (preGeneratedOne == null) {
       topicToProcess = Assertions.assertNotNull(parent).makeChild("", null);
@@ -190,7 +211,7 @@ public class CoggleMM2MindMapImporter extends AbstractImporter {
     }
 
     final StringBuilder resultTextBuffer = new StringBuilder();
-    final List<String> foundImageURLs = extractImageURLs(element.getAttribute("TEXT"), resultTextBuffer);
+    final List<String> foundImageURLs = extractImageURLs(Utils.getXmlAttribute(reader, "TEXT"), resultTextBuffer);
     String nodeText = resultTextBuffer.toString();
     resultTextBuffer.setLength(0);
 
@@ -231,18 +252,8 @@ public class CoggleMM2MindMapImporter extends AbstractImporter {
     }
 
     final String text = nodeText.replace("\r", "");
-    final String position = element.getAttribute("POSITION");
-    final String folded = element.getAttribute("FOLDED");
-
-    Color edgeColor = null;
-    for (final Element e : Utils.findDirectChildrenForName(element, "edge")) {
-      try {
-        edgeColor = Utils.html2color(e.getAttribute("COLOR"), false);
-      }
-      catch (final Exception ex) {
-        LOGGER.error("Can't parse color value", ex);
-      }
-    }
+    final String position = Utils.getXmlAttribute(reader, "POSITION");
+    final String folded = Utils.getXmlAttribute(reader, "FOLDED");
 
     topicToProcess.setText(text);
 
@@ -254,17 +265,31 @@ public class CoggleMM2MindMapImporter extends AbstractImporter {
       MindMapUtils.setCollapsed(topicToProcess, true);
     }
 
-    if (edgeColor != null) {
-      topicToProcess.setAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText(), Utils.color2html(edgeColor, false));
-      topicToProcess.setAttribute(StandardTopicAttribute.ATTR_TEXT_COLOR.getText(), Utils.color2html(Utils.makeContrastColor(edgeColor), false));
-    }
-
     if (note.length() > 0) {
       topicToProcess.setExtra(new ExtraNote(note.toString()));
     }
 
-    for (final Element c : Utils.findDirectChildrenForName(element, "node")) {
-      parseTopic(map, topicToProcess, null, c);
+    Color edgeColor = null;
+    while (Utils.nextXmlChildElement(reader)) {
+      final String tag = Utils.getXmlElementName(reader);
+      if ("node".equals(tag)) {
+        parseTopic(reader, map, topicToProcess, null);
+      } else if ("edge".equals(tag)) {
+        try {
+          edgeColor = Utils.html2color(Utils.getXmlAttribute(reader, "COLOR"), false);
+        }
+        catch (final Exception ex) {
+          LOGGER.error("Can't parse color value", ex);
+        }
+        Utils.skipXmlElement(reader);
+      } else {
+        Utils.skipXmlElement(reader);
+      }
+    }
+
+    if (edgeColor != null) {
+      topicToProcess.setAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText(), Utils.color2html(edgeColor, false));
+      topicToProcess.setAttribute(StandardTopicAttribute.ATTR_TEXT_COLOR.getText(), Utils.color2html(Utils.makeContrastColor(edgeColor), false));
     }
   }
 
@@ -21,6 +21,8 @@ import java.awt.Color;
 import com.igormaznitsa.mindmap.plugins.api.AbstractImporter;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,13 +31,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.io.IOUtils;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.annotation.ReturnsOriginal;
 import com.igormaznitsa.meta.common.utils.Assertions;
@@ -50,7 +53,6 @@ import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
-import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
 import com.igormaznitsa.mindmap.swing.panel.ui.AbstractCollapsableElement;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 
@@ -104,51 +106,70 @@ public class Freemind2MindMapImporter extends AbstractImporter {
       return null;
     }
 
-    final Document document = Utils.loadXmlDocument(new FileInputStream(file), "UTF-8", true);
-
-    final Element rootElement = document.getDocumentElement();
-    if (!rootElement.getTagName().equals("map")) {
-      throw new IllegalArgumentException("Not Freemind file");
+    final InputStream in = new FileInputStream(file);
+    try {
+      return extractTopics(file.getParentFile(), in);
     }
-
-    final Map<String, Topic> idTopicMap = new HashMap<String, Topic>();
-    final Map<String, String> linksMap = new HashMap<String, String>();
-    final MindMap resultedMap = new MindMap(null, true);
-    resultedMap.setAttribute(MindMapPanel.ATTR_SHOW_JUMPS, "true");
-
-    final List<Element> list = Utils.findDirectChildrenForName(rootElement, "node");
-    if (list.isEmpty()) {
-      Assertions.assertNotNull(resultedMap.getRoot()).setText("Empty");
-    } else {
-      parseTopic(file.getParentFile(), resultedMap, null, resultedMap.getRoot(), list.get(0), idTopicMap, linksMap);
+    finally {
+      IOUtils.closeQuietly(in);
     }
+  }
 
-    for (final Map.Entry<String, String> l : linksMap.entrySet()) {
-      final Topic start = idTopicMap.get(l.getKey());
-      final Topic end = idTopicMap.get(l.getValue());
-      if (start != null && end != null) {
-        start.setExtra(ExtraTopic.makeLinkTo(resultedMap, end));
+  @Nonnull
+  MindMap extractTopics(@Nonnull final File rootFolder, @Nonnull final InputStream in) throws IOException, XMLStreamException, InterruptedException {
+    final XMLStreamReader reader = Utils.makeXmlStreamReader(in, "UTF-8");
+    try {
+      if (!Utils.nextXmlChildElement(reader) || !"map".equals(Utils.getXmlElementName(reader))) {
+        throw new IllegalArgumentException("Not Freemind file");
       }
-    }
 
-    return resultedMap;
-  }
+      final Map<String, Topic> idTopicMap = new HashMap<String, Topic>();
+      final Map<String, String> linksMap = new HashMap<String, String>();
+      final MindMap resultedMap = new MindMap(null, true);
+      resultedMap.setAttribute(MindMapPanel.ATTR_SHOW_JUMPS, "true");
 
-  @Nonnull
-  private static String findArrowlinkDestination(@Nonnull final Element element) {
-    final List<Element> arrows = Utils.findDirectChildrenForName(element, "arrowlink");
-    return arrows.isEmpty() ? "" : arrows.get(0).getAttribute("DESTINATION");
-  }
+      boolean rootFound = false;
+      final TopicImageLoader imageLoader = new TopicImageLoader();
+      try {
+        while (Utils.nextXmlChildElement(reader)) {
+          if ("node".equals(Utils.getXmlElementName(reader))) {
+            parseTopic(reader, rootFolder, imageLoader, null, resultedMap.getRoot(), idTopicMap, linksMap);
+            rootFound = true;
+            break;
+          } else {
+            Utils.skipXmlElement(reader);
+          }
+        }
+        imageLoader.attachAll();
+      }
+      finally {
+        imageLoader.dispose();
+      }
 
-  private void parseTopic(@Nonnull final File rootFolder, @Nonnull final MindMap map, @Nullable Topic parent, @Nullable Topic preGeneratedTopic, @Nonnull Element element, @Nonnull final Map<String, Topic> idTopicMap, @Nonnull final Map<String, String> linksMap) {
+      if (!rootFound) {
+        Assertions.assertNotNull(resultedMap.getRoot()).setText("Empty");
+      }
 
-    final String text = element.getAttribute("TEXT");
-    final String id = element.getAttribute("ID");
-    final String position = element.getAttribute("POSITION");
-    final String arrowDestination = findArrowlinkDestination(element);
-    final String color = element.getAttribute("COLOR");
+      for (final Map.Entry<String, String> l : linksMap.entrySet()) {
+        final Topic start = idTopicMap.get(l.getKey());
+        final Topic end = idTopicMap.get(l.getValue());
+        if (start != null && end != null) {
+          start.setExtra(ExtraTopic.makeLinkTo(resultedMap, end));
+        }
+      }
 
-    final List<RichContent> foundRichContent = extractRichContent(element);
+      return resultedMap;
+    }
+    finally {
+      Utils.closeQuietly(reader);
+    }
+  }
+
+  private static void parseTopic(@Nonnull final XMLStreamReader reader, @Nonnull final File rootFolder, @Nonnull final TopicImageLoader imageLoader, @Nullable Topic parent, @Nullable Topic preGeneratedTopic, @Nonnull final Map<String, Topic> idTopicMap, @Nonnull final Map<String, String> linksMap) throws XMLStreamException {
+    final String text = Utils.getXmlAttribute(reader, "TEXT");
+    final String id = Utils.getXmlAttribute(reader, "ID");
+    final String position = Utils.getXmlAttribute(reader, "POSITION");
+    final String color = Utils.getXmlAttribute(reader, "COLOR");
 
     final Topic topicToProcess;
     if (preGeneratedTopic == null) {
@@ -172,37 +193,65 @@ public class Freemind2MindMapImporter extends AbstractImporter {
 
     topicToProcess.setText(text);
 
-    for (final RichContent r : foundRichContent) {
-      switch (r.getType()) {
-        case NODE: {
-          if (!r.getText().isEmpty()) {
-            topicToProcess.setText(r.getText().trim());
-          }
+    String arrowDestination = null;
+
+    while (Utils.nextXmlChildElement(reader)) {
+      final String tag = Utils.getXmlElementName(reader);
+      if ("node".equals(tag)) {
+        parseTopic(reader, rootFolder, imageLoader, topicToProcess, null, idTopicMap, linksMap);
+      } else if ("richcontent".equals(tag)) {
+        final RichContent richContent = extractRichContent(reader);
+        if (richContent != null) {
+          processRichContent(rootFolder, imageLoader, topicToProcess, richContent);
         }
-        break;
-        case NOTE: {
-          if (!r.getText().isEmpty()) {
-            topicToProcess.setExtra(new ExtraNote(r.getText().trim()));
-          }
+      } else if ("arrowlink".equals(tag)) {
+        if (arrowDestination == null) {
+          arrowDestination = Utils.getXmlAttribute(reader, "DESTINATION");
         }
-        break;
+        Utils.skipXmlElement(reader);
+      } else {
+        Utils.skipXmlElement(reader);
       }
-      processImageLinkForTopic(rootFolder, topicToProcess, r.getFoundImageURLs());
     }
 
     if (!id.isEmpty()) {
       idTopicMap.put(id, topicToProcess);
-      if (!arrowDestination.isEmpty()) {
+      if (arrowDestination != null && !arrowDestination.isEmpty()) {
         linksMap.put(id, arrowDestination);
       }
     }
+  }
 
-    for (final Element e : Utils.findDirectChildrenForName(element, "node")) {
-      parseTopic(rootFolder, map, topicToProcess, null, e, idTopicMap, linksMap);
+  private static void processRichContent(@Nonnull final File rootFolder, @Nonnull final TopicImageLoader imageLoader, @Nonnull final Topic topic, @Nonnull final RichContent richContent) {
+    switch (richContent.getType()) {
+      case NODE: {
+        if (!richContent.getText().isEmpty()) {
+          topic.setText(richContent.getText().trim());
+        }
+      }
+      break;
+      case NOTE: {
+        if (!richContent.getText().isEmpty()) {
+          topic.setExtra(new ExtraNote(richContent.getText().trim()));
+        }
+      }
+      break;
+    }
+
+    final String[] imageUrls = richContent.getFoundImageURLs();
+    if (imageUrls.length > 0) {
+      imageLoader.load(topic, new Callable<String>() {
+        @Override
+        @Nullable
+        public String call() {
+          return loadFirstImage(rootFolder, imageUrls);
+        }
+      });
     }
   }
 
-  private static void processImageLinkForTopic(@Nonnull final File rootFolder, @Nonnull final Topic topic, @Nonnull @MustNotContainNull final String[] imageUrls) {
+  @Nullable
+  private static String loadFirstImage(@Nonnull final File rootFolder, @Nonnull @MustNotContainNull final String[] imageUrls) {
     for (final String s : imageUrls) {
       try {
         URI imageUri = URI.create(s);
@@ -215,31 +264,31 @@ public class Freemind2MindMapImporter extends AbstractImporter {
         }
 
         if (file.isFile()) {
-          topic.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, Utils.rescaleImageAndEncodeAsBase64(file, -1));
-          break;
+          return Utils.rescaleImageAndEncodeAsBase64(file, -1);
         }
       }
       catch (final Exception ex) {
         LOGGER.warn("Can't decode or load image for URI : " + s);
       }
     }
+    return null;
   }
 
   @Nonnull
   @ReturnsOriginal
-  private static StringBuilder processHtmlElement(@Nonnull final Node node, @Nonnull final StringBuilder builder, @Nonnull @MustNotContainNull final List<String> imageURLs) {
-    final NodeList list = node.getChildNodes();
-    for (int i = 0; i < list.getLength(); i++) {
-      final Node n = list.item(i);
-      switch (n.getNodeType()) {
-        case Node.TEXT_NODE: {
-          builder.append(n.getTextContent());
+  private static StringBuilder processHtmlElement(@Nonnull final XMLStreamReader reader, @Nonnull final StringBuilder builder, @Nonnull @MustNotContainNull final List<String> imageURLs) throws XMLStreamException {
+    while (reader.hasNext()) {
+      switch (reader.next()) {
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE: {
+          builder.append(reader.getText());
         }
         break;
-        case Node.ELEMENT_NODE: {
-          final String tag = n.getNodeName();
+        case XMLStreamConstants.START_ELEMENT: {
+          final String tag = Utils.getXmlElementName(reader);
           if ("img".equals(tag)) {
-            final String source = ((Element) n).getAttribute("src");
+            final String source = Utils.getXmlAttribute(reader, "src");
             if (!source.isEmpty()) {
               imageURLs.add(source);
             }
@@ -248,9 +297,14 @@ public class Freemind2MindMapImporter extends AbstractImporter {
           if (TOKEN_NEEDS_NEXT_LINE.contains(tag)) {
             builder.append('\n');
           }
-          processHtmlElement(n, builder, imageURLs);
+          processHtmlElement(reader, builder, imageURLs);
         }
         break;
+        case XMLStreamConstants.END_ELEMENT: {
+          return builder;
+        }
+        default:
+          break;
       }
     }
     return builder;
@@ -258,40 +312,44 @@ public class Freemind2MindMapImporter extends AbstractImporter {
 
   @Nonnull
   @ReturnsOriginal
-  private static StringBuilder extractTextFromHtmlElement(@Nonnull final Element element, @Nonnull final StringBuilder buffer, @Nonnull @MustNotContainNull final List<String> imageURLs) {
-    final List<Element> html = Utils.findDirectChildrenForName(element, "html");
-    if (!html.isEmpty()) {
-      final List<Element> body = Utils.findDirectChildrenForName(html.get(0), "body");
-      if (!body.isEmpty()) {
-        processHtmlElement(body.get(0), buffer, imageURLs);
+  private static StringBuilder extractTextFromHtmlElement(@Nonnull final XMLStreamReader reader, @Nonnull final StringBuilder buffer, @Nonnull @MustNotContainNull final List<String> imageURLs) throws XMLStreamException {
+    boolean htmlFound = false;
+    while (Utils.nextXmlChildElement(reader)) {
+      if (!htmlFound && "html".equals(Utils.getXmlElementName(reader))) {
+        htmlFound = true;
+        boolean bodyFound = false;
+        while (Utils.nextXmlChildElement(reader)) {
+          if (!bodyFound && "body".equals(Utils.getXmlElementName(reader))) {
+            bodyFound = true;
+            processHtmlElement(reader, buffer, imageURLs);
+          } else {
+            Utils.skipXmlElement(reader);
+          }
+        }
+      } else {
+        Utils.skipXmlElement(reader);
       }
     }
     return buffer;
   }
 
-  @Nonnull
-  @MustNotContainNull
-  private static List<RichContent> extractRichContent(@Nonnull final Element richContentElement) {
-    final List<Element> richContents = Utils.findDirectChildrenForName(richContentElement, "richcontent");
-
-    final List<RichContent> result = new ArrayList<RichContent>();
-
-    final List<String> foundImageUrls = new ArrayList<String>();
+  @Nullable
+  private static RichContent extractRichContent(@Nonnull final XMLStreamReader reader) throws XMLStreamException {
+    final String textType = Utils.getXmlAttribute(reader, "TYPE");
 
-    for (final Element e : richContents) {
-      final String textType = e.getAttribute("TYPE");
-      try {
-        foundImageUrls.clear();
-        final RichContentType type = RichContentType.valueOf(textType);
-        final String text = extractTextFromHtmlElement(e, new StringBuilder(), foundImageUrls).toString().replace("\r", "");
-        result.add(new RichContent(type, text, foundImageUrls));
-      }
-      catch (IllegalArgumentException ex) {
-        LOGGER.warn("Unknown node type : " + textType);
-      }
+    final RichContentType type;
+    try {
+      type = RichContentType.valueOf(textType);
+    }
+    catch (IllegalArgumentException ex) {
+      LOGGER.warn("Unknown node type : " + textType);
+      Utils.skipXmlElement(reader);
+      return null;
     }
 
-    return result;
+    final List<String> foundImageUrls = new ArrayList<String>();
+    final String text = extractTextFromHtmlElement(reader, new StringBuilder(), foundImageUrls).toString().replace("\r", "");
+    return new RichContent(type, text, foundImageUrls);
   }
 
   @Override
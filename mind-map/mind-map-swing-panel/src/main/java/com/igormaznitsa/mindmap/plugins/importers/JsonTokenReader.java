@@ -0,0 +1,295 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import java.io.IOException;
+import java.io.Reader;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Minimalistic streaming JSON reader which reads tokens one by one from a
+ * character stream without building whole object tree in memory.
+ *
+ * @since 1.4.2
+ */
+final class JsonTokenReader {
+
+  enum Token {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    NAME,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    END_DOCUMENT
+  }
+
+  private static final char CTX_OBJECT_NAME = 'N';
+  private static final char CTX_OBJECT_VALUE = 'V';
+  private static final char CTX_ARRAY = 'A';
+
+  private final Reader reader;
+  private final char[] buffer = new char[16384];
+  private int bufferPosition;
+  private int bufferLength;
+
+  private char[] contextStack = new char[32];
+  private int contextDepth;
+
+  private final StringBuilder text = new StringBuilder();
+  private Token lastToken;
+
+  JsonTokenReader(@Nonnull final Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Read next token.
+   *
+   * @return the next token, {@link Token#END_DOCUMENT} if end of stream
+   * @throws IOException if there is any transport error or wrong format
+   */
+  @Nonnull
+  Token next() throws IOException {
+    this.text.setLength(0);
+    while (true) {
+      final int chr = nextNonSpace();
+      switch (chr) {
+        case -1:
+          return setToken(Token.END_DOCUMENT);
+        case '{':
+          pushContext(CTX_OBJECT_NAME);
+          return setToken(Token.BEGIN_OBJECT);
+        case '}':
+          popContext('}');
+          return setToken(Token.END_OBJECT);
+        case '[':
+          pushContext(CTX_ARRAY);
+          return setToken(Token.BEGIN_ARRAY);
+        case ']':
+          popContext(']');
+          return setToken(Token.END_ARRAY);
+        case ',': {
+          if (this.contextDepth > 0 && this.contextStack[this.contextDepth - 1] == CTX_OBJECT_VALUE) {
+            this.contextStack[this.contextDepth - 1] = CTX_OBJECT_NAME;
+          }
+        }
+        break;
+        case ':':
+          break;
+        case '\"': {
+          readString();
+          if (this.contextDepth > 0 && this.contextStack[this.contextDepth - 1] == CTX_OBJECT_NAME) {
+            this.contextStack[this.contextDepth - 1] = CTX_OBJECT_VALUE;
+            return setToken(Token.NAME);
+          }
+          return setToken(Token.STRING);
+        }
+        case 't':
+        case 'f':
+        case 'n': {
+          this.text.append((char) chr);
+          readWhile(false);
+          final String literal = this.text.toString();
+          if ("true".equals(literal) || "false".equals(literal)) {
+            return setToken(Token.BOOLEAN);
+          } else if ("null".equals(literal)) {
+            return setToken(Token.NULL);
+          }
+          throw new IOException("Unexpected literal : " + literal);
+        }
+        default: {
+          if (chr == '-' || (chr >= '0' && chr <= '9')) {
+            this.text.append((char) chr);
+            readWhile(true);
+            return setToken(Token.NUMBER);
+          }
+          throw new IOException("Unexpected char : " + (char) chr);
+        }
+      }
+    }
+  }
+
+  /**
+   * Get text of the last read name, string, number or boolean token.
+   *
+   * @return the token text
+   */
+  @Nonnull
+  String getText() {
+    return this.text.toString();
+  }
+
+  /**
+   * Get the last read token.
+   *
+   * @return the last token, null if nothing read yet
+   */
+  @Nullable
+  Token getLastToken() {
+    return this.lastToken;
+  }
+
+  /**
+   * Skip whole value. If the last token is begin of an object or an array then
+   * skip its rest, if the last token is a name then skip its value.
+   *
+   * @throws IOException if there is any transport error or wrong format
+   */
+  void skipValue() throws IOException {
+    Token token = this.lastToken == Token.NAME || this.lastToken == null ? next() : this.lastToken;
+    int depth = token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY ? 1 : 0;
+    while (depth > 0) {
+      token = next();
+      switch (token) {
+        case BEGIN_OBJECT:
+        case BEGIN_ARRAY:
+          depth++;
+          break;
+        case END_OBJECT:
+        case END_ARRAY:
+          depth--;
+          break;
+        case END_DOCUMENT:
+          throw new IOException("Unexpected end of document");
+        default:
+          break;
+      }
+    }
+  }
+
+  @Nonnull
+  private Token setToken(@Nonnull final Token token) {
+    this.lastToken = token;
+    return token;
+  }
+
+  private void pushContext(final char context) {
+    if (this.contextDepth == this.contextStack.length) {
+      final char[] newStack = new char[this.contextStack.length << 1];
+      System.arraycopy(this.contextStack, 0, newStack, 0, this.contextStack.length);
+      this.contextStack = newStack;
+    }
+    this.contextStack[this.contextDepth++] = context;
+  }
+
+  private void popContext(final char chr) throws IOException {
+    if (this.contextDepth == 0) {
+      throw new IOException("Unexpected char : " + chr);
+    }
+    final char context = this.contextStack[--this.contextDepth];
+    if ((chr == ']') != (context == CTX_ARRAY)) {
+      throw new IOException("Unexpected char : " + chr);
+    }
+  }
+
+  private int read() throws IOException {
+    if (this.bufferPosition >= this.bufferLength) {
+      this.bufferLength = this.reader.read(this.buffer, 0, this.buffer.length);
+      this.bufferPosition = 0;
+      if (this.bufferLength <= 0) {
+        this.bufferLength = 0;
+        return -1;
+      }
+    }
+    return this.buffer[this.bufferPosition++];
+  }
+
+  private int nextNonSpace() throws IOException {
+    int chr;
+    do {
+      chr = read();
+    } while (chr == ' ' || chr == '\t' || chr == '\n' || chr == '\r');
+    return chr;
+  }
+
+  private void readWhile(final boolean number) throws IOException {
+    while (true) {
+      final int chr = read();
+      final boolean accepted;
+      if (number) {
+        accepted = (chr >= '0' && chr <= '9') || chr == '.' || chr == 'e' || chr == 'E' || chr == '+' || chr == '-';
+      } else {
+        accepted = chr >= 'a' && chr <= 'z';
+      }
+      if (accepted) {
+        this.text.append((char) chr);
+      } else {
+        if (chr >= 0) {
+          this.bufferPosition--;
+        }
+        break;
+      }
+    }
+  }
+
+  private void readString() throws IOException {
+    while (true) {
+      final int chr = read();
+      switch (chr) {
+        case -1:
+          throw new IOException("Unclosed string");
+        case '\"':
+          return;
+        case '\\': {
+          final int escaped = read();
+          switch (escaped) {
+            case 'b':
+              this.text.append('\b');
+              break;
+            case 'f':
+              this.text.append('\f');
+              break;
+            case 'n':
+              this.text.append('\n');
+              break;
+            case 'r':
+              this.text.append('\r');
+              break;
+            case 't':
+              this.text.append('\t');
+              break;
+            case 'u': {
+              int code = 0;
+              for (int i = 0; i < 4; i++) {
+                final int digit = Character.digit(read(), 16);
+                if (digit < 0) {
+                  throw new IOException("Wrong unicode escape");
+                }
+                code = (code << 4) | digit;
+              }
+              this.text.append((char) code);
+            }
+            break;
+            case -1:
+              throw new IOException("Unclosed string");
+            default:
+              this.text.append((char) escaped);
+              break;
+          }
+        }
+        break;
+        default:
+          this.text.append((char) chr);
+          break;
+      }
+    }
+  }
+}
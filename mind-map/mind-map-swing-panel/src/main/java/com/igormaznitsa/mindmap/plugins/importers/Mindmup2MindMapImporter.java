@@ -21,17 +21,21 @@ import java.awt.Color;
 import java.io.ByteArrayInputStream;
 import com.igormaznitsa.mindmap.plugins.api.AbstractImporter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
-import org.apache.commons.io.FileUtils;
-import com.grack.nanojson.JsonArray;
+import org.apache.commons.io.IOUtils;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
@@ -40,8 +44,6 @@ import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
-import com.grack.nanojson.JsonObject;
-import com.grack.nanojson.JsonParser;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.ExtraFile;
@@ -51,7 +53,6 @@ import com.igormaznitsa.mindmap.model.ExtraTopic;
 import com.igormaznitsa.mindmap.model.MMapURI;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
-import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
 import com.igormaznitsa.mindmap.swing.panel.ui.AbstractCollapsableElement;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 
@@ -64,11 +65,11 @@ public class Mindmup2MindMapImporter extends AbstractImporter {
   private static final class OrderableIdea implements Comparable<OrderableIdea> {
 
     private final double order;
-    private final JsonObject idea;
+    private final Topic topic;
 
-    private OrderableIdea(final double order, @Nonnull final JsonObject idea) {
+    private OrderableIdea(final double order, @Nonnull final Topic topic) {
       this.order = order;
-      this.idea = idea;
+      this.topic = topic;
     }
 
     private boolean isLeftBranch() {
@@ -76,8 +77,8 @@ public class Mindmup2MindMapImporter extends AbstractImporter {
     }
 
     @Nonnull
-    private JsonObject getIdea() {
-      return this.idea;
+    private Topic getTopic() {
+      return this.topic;
     }
 
     @Override
@@ -95,149 +96,279 @@ public class Mindmup2MindMapImporter extends AbstractImporter {
     if (file == null) {
       return null;
     }
-    
-    final JsonObject parsedJson;
-    parsedJson = JsonParser.object().from(FileUtils.readFileToString(file, "UTF-8"));
 
-    MindMap resultedMap = null;
+    final Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    final MindMap resultedMap;
+    try {
+      resultedMap = extractTopics(reader);
+    }
+    finally {
+      IOUtils.closeQuietly(reader);
+    }
 
-    final Number formatVersion = parsedJson.getNumber("formatVersion");
-    if (formatVersion == null) {
-      dialogProvider.msgError(null,Texts.getString("MMDImporters.Mindmup2MindMap.Error.WrongFormat"));
+    if (resultedMap == null) {
+      dialogProvider.msgError(null, Texts.getString("MMDImporters.Mindmup2MindMap.Error.WrongFormat"));
     } else {
-      resultedMap = new MindMap(null, true);
-      resultedMap.setAttribute(MindMapPanel.ATTR_SHOW_JUMPS, "true");
-
       final Topic mindMapRoot = Assertions.assertNotNull(resultedMap.getRoot());
-      final Map<Long, Topic> mapTopicId = new HashMap<Long, Topic>();
-
-      parseTopic(resultedMap, null, mindMapRoot, parsedJson, mapTopicId);
-
       if (!mindMapRoot.getExtras().containsKey(Extra.ExtraType.FILE)) {
         mindMapRoot.setExtra(new ExtraFile(new MMapURI(null, file, null)));
       }
-
-      final JsonArray links = parsedJson.getArray("links");
-      if (links != null) {
-        processLinks(resultedMap, links, mapTopicId);
-      }
     }
+
     return resultedMap;
   }
 
-  private void processLinks(@Nonnull final MindMap map, @Nonnull final JsonArray links, @Nonnull final Map<Long, Topic> topics) {
-    for (int i = 0; i < links.size(); i++) {
-      try {
-        final JsonObject linkObject = links.getObject(i);
+  /**
+   * Read Mindmup JSON token by token and make topics on the fly.
+   *
+   * @param reader reader of JSON text, must not be null
+   * @return made mind map or null if wrong format
+   * @throws IOException if any transport or format error
+   * @throws InterruptedException if interrupted during image decoding
+   */
+  @Nullable
+  MindMap extractTopics(@Nonnull final Reader reader) throws IOException, InterruptedException {
+    final JsonTokenReader json = new JsonTokenReader(reader);
 
-        final Topic fromTopic = topics.get(linkObject.getNumber("ideaIdFrom", Long.MIN_VALUE).longValue());
-        final Topic toTopic = topics.get(linkObject.getNumber("ideaIdTo", Long.MIN_VALUE).longValue());
+    if (json.next() != JsonTokenReader.Token.BEGIN_OBJECT) {
+      return null;
+    }
 
-        if (fromTopic != null && toTopic != null) {
-          fromTopic.setExtra(ExtraTopic.makeLinkTo(map, toTopic));
+    final MindMap resultedMap = new MindMap(null, true);
+    resultedMap.setAttribute(MindMapPanel.ATTR_SHOW_JUMPS, "true");
+
+    final Topic mindMapRoot = Assertions.assertNotNull(resultedMap.getRoot());
+    final Map<Long, Topic> mapTopicId = new HashMap<Long, Topic>();
+    final List<long[]> links = new ArrayList<long[]>();
+
+    boolean formatVersionFound = false;
+
+    final TopicImageLoader imageLoader = new TopicImageLoader();
+    try {
+      while (json.next() == JsonTokenReader.Token.NAME) {
+        final String name = json.getText();
+        if ("formatVersion".equals(name)) {
+          formatVersionFound = json.next() == JsonTokenReader.Token.NUMBER;
+          json.skipValue();
+        } else if ("ideas".equals(name)) {
+          parseIdeas(json, resultedMap, null, mindMapRoot, mapTopicId, imageLoader);
+        } else if ("links".equals(name)) {
+          parseLinks(json, links);
+        } else {
+          json.skipValue();
         }
       }
-      catch (final Exception ex) {
-        LOGGER.error("Can't parse link", ex);
+      imageLoader.attachAll();
+    }
+    finally {
+      imageLoader.dispose();
+    }
+
+    if (!formatVersionFound) {
+      return null;
+    }
+
+    for (final long[] l : links) {
+      final Topic fromTopic = mapTopicId.get(l[0]);
+      final Topic toTopic = mapTopicId.get(l[1]);
+
+      if (fromTopic != null && toTopic != null) {
+        fromTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, toTopic));
+      }
+    }
+
+    return resultedMap;
+  }
+
+  private static long parseId(@Nonnull final JsonTokenReader json) throws IOException {
+    long result = Long.MIN_VALUE;
+    if (json.next() == JsonTokenReader.Token.NUMBER) {
+      try {
+        result = (long) Double.parseDouble(json.getText());
+      }
+      catch (final NumberFormatException ex) {
+        LOGGER.error("Can't parse id : " + json.getText());
       }
+    } else {
+      json.skipValue();
     }
+    return result;
   }
 
-  private void parseTopic(@Nonnull MindMap map, @Nullable final Topic parentTopic, @Nullable final Topic pregeneratedTopic, @Nonnull final JsonObject json, @Nonnull final Map<Long, Topic> idTopicMap) {
-    final JsonObject ideas = json.getObject("ideas");
-    if (ideas != null) {
-
-      final List<OrderableIdea> sortedIdeas = new ArrayList<OrderableIdea>();
-      for (final Map.Entry<String, Object> i : ideas.entrySet()) {
-        if (i.getValue() instanceof JsonObject) {
-          final JsonObject idea = (JsonObject) i.getValue();
-          double order = 0.0d;
-          try {
-            order = Double.parseDouble(i.getKey().trim());
-          }
-          catch (final NumberFormatException ex) {
-            LOGGER.error("Detected unexpected number format in order", ex);
+  private void parseLinks(@Nonnull final JsonTokenReader json, @Nonnull @MustNotContainNull final List<long[]> links) throws IOException {
+    if (json.next() != JsonTokenReader.Token.BEGIN_ARRAY) {
+      json.skipValue();
+      return;
+    }
+
+    JsonTokenReader.Token token;
+    while ((token = json.next()) != JsonTokenReader.Token.END_ARRAY) {
+      if (token == JsonTokenReader.Token.BEGIN_OBJECT) {
+        long from = Long.MIN_VALUE;
+        long to = Long.MIN_VALUE;
+        while (json.next() == JsonTokenReader.Token.NAME) {
+          final String name = json.getText();
+          if ("ideaIdFrom".equals(name)) {
+            from = parseId(json);
+          } else if ("ideaIdTo".equals(name)) {
+            to = parseId(json);
+          } else {
+            json.skipValue();
           }
-          sortedIdeas.add(new OrderableIdea(order, idea));
         }
+        links.add(new long[]{from, to});
+      } else if (token == JsonTokenReader.Token.END_DOCUMENT) {
+        throw new IOException("Unexpected end of document");
+      } else {
+        json.skipValue();
       }
-      Collections.sort(sortedIdeas);
+    }
+  }
 
-      for (final OrderableIdea i : sortedIdeas) {
-        final JsonObject ideaObject = i.getIdea();
+  private void parseIdeas(@Nonnull final JsonTokenReader json, @Nonnull final MindMap map, @Nullable final Topic parentTopic, @Nullable final Topic pregeneratedTopic, @Nonnull final Map<Long, Topic> idTopicMap, @Nonnull final TopicImageLoader imageLoader) throws IOException {
+    if (json.next() != JsonTokenReader.Token.BEGIN_OBJECT) {
+      json.skipValue();
+      return;
+    }
 
-        final String title = ideaObject.getString("title", "");
-        final long id = ideaObject.getNumber("id", Long.MIN_VALUE).longValue();
+    final List<OrderableIdea> ideas = new ArrayList<OrderableIdea>();
 
-        final Topic topicToProcess;
+    while (json.next() == JsonTokenReader.Token.NAME) {
+      double order = 0.0d;
+      try {
+        order = Double.parseDouble(json.getText().trim());
+      }
+      catch (final NumberFormatException ex) {
+        LOGGER.error("Detected unexpected number format in order", ex);
+      }
 
+      if (json.next() == JsonTokenReader.Token.BEGIN_OBJECT) {
+        final Topic topicToProcess;
         if (pregeneratedTopic == null) {
-          topicToProcess = Assertions.assertNotNull(parentTopic).makeChild(title.trim(), parentTopic);
-          if (Assertions.assertNotNull(topicToProcess.getParent()).isRoot()) {
-            if (i.isLeftBranch()) {
-              AbstractCollapsableElement.makeTopicLeftSided(topicToProcess, true);
-              final Topic firstSibling = Assertions.assertNotNull(parentTopic).getFirst();
-              if (firstSibling != null && firstSibling != topicToProcess) {
-                topicToProcess.moveBefore(firstSibling);
-              }
-            }
+          topicToProcess = Assertions.assertNotNull(parentTopic).makeChild("", parentTopic);
+          if (order < 0.0d && Assertions.assertNotNull(parentTopic).isRoot()) {
+            AbstractCollapsableElement.makeTopicLeftSided(topicToProcess, true);
           }
+          ideas.add(new OrderableIdea(order, topicToProcess));
         } else {
           topicToProcess = pregeneratedTopic;
-          topicToProcess.setText(title.trim());
         }
+        parseIdea(json, map, topicToProcess, idTopicMap, imageLoader);
+      } else {
+        json.skipValue();
+      }
+    }
 
-        if (id != Long.MIN_VALUE) {
-          idTopicMap.put(id, topicToProcess);
-        }
+    if (parentTopic != null && ideas.size() > 1) {
+      Collections.sort(ideas);
 
-        final JsonObject attributes = ideaObject.getObject("attr");
-
-        if (attributes != null) {
-          for (final Map.Entry<String, Object> a : attributes.entrySet()) {
-            final String name = a.getKey();
-            final Object attrJson = a.getValue();
-            if ("note".equals(name)) {
-              processAttrNote((JsonObject) attrJson, topicToProcess);
-            } else if ("icon".equals(name)) {
-              processAttrIcon((JsonObject) attrJson, topicToProcess);
-            } else if ("style".equals(name)) {
-              processAttrStyle((JsonObject) attrJson, topicToProcess);
-            } else {
-              LOGGER.warn("Detected unsupported attribute '" + name + '\'');
-            }
-          }
+      final List<Topic> ordered = new ArrayList<Topic>(ideas.size());
+      for (final OrderableIdea i : ideas) {
+        if (i.isLeftBranch() && parentTopic.isRoot()) {
+          ordered.add(0, i.getTopic());
+        } else {
+          ordered.add(i.getTopic());
         }
+      }
+
+      for (final Topic t : ordered) {
+        t.makeLast();
+      }
+    }
+  }
 
-        if (id >= 0L) {
+  private void parseIdea(@Nonnull final JsonTokenReader json, @Nonnull final MindMap map, @Nonnull final Topic topicToProcess, @Nonnull final Map<Long, Topic> idTopicMap, @Nonnull final TopicImageLoader imageLoader) throws IOException {
+    while (json.next() == JsonTokenReader.Token.NAME) {
+      final String name = json.getText();
+      if ("title".equals(name)) {
+        if (json.next() == JsonTokenReader.Token.STRING) {
+          topicToProcess.setText(json.getText().trim());
+        } else {
+          json.skipValue();
+        }
+      } else if ("id".equals(name)) {
+        final long id = parseId(json);
+        if (id != Long.MIN_VALUE) {
           idTopicMap.put(id, topicToProcess);
         }
+      } else if ("ideas".equals(name)) {
+        parseIdeas(json, map, topicToProcess, null, idTopicMap, imageLoader);
+      } else if ("attr".equals(name)) {
+        parseAttributes(json, topicToProcess, imageLoader);
+      } else {
+        json.skipValue();
+      }
+    }
+    imageLoader.attachCompleted();
+  }
 
-        parseTopic(map, topicToProcess, null, ideaObject, idTopicMap);
+  private void parseAttributes(@Nonnull final JsonTokenReader json, @Nonnull final Topic topic, @Nonnull final TopicImageLoader imageLoader) throws IOException {
+    if (json.next() != JsonTokenReader.Token.BEGIN_OBJECT) {
+      json.skipValue();
+      return;
+    }
+
+    while (json.next() == JsonTokenReader.Token.NAME) {
+      final String name = json.getText();
+      if ("note".equals(name)) {
+        final String text = readStringField(json, "text");
+        topic.setExtra(new ExtraNote(text == null ? "" : text));
+      } else if ("icon".equals(name)) {
+        final String url = readStringField(json, "url");
+        if (url != null) {
+          processAttrIcon(url, topic, imageLoader);
+        }
+      } else if ("style".equals(name)) {
+        final String background = readStringField(json, "background");
+        if (background != null) {
+          processAttrStyle(background, topic);
+        }
+      } else {
+        LOGGER.warn("Detected unsupported attribute '" + name + '\'');
+        json.skipValue();
       }
     }
   }
 
-  private void processAttrNote(@Nonnull final JsonObject note, @Nonnull final Topic topic) {
-    topic.setExtra(new ExtraNote(note.getString("text", "")));
+  @Nullable
+  private static String readStringField(@Nonnull final JsonTokenReader json, @Nonnull final String field) throws IOException {
+    if (json.next() != JsonTokenReader.Token.BEGIN_OBJECT) {
+      json.skipValue();
+      return null;
+    }
+
+    String result = null;
+    while (json.next() == JsonTokenReader.Token.NAME) {
+      if (field.equals(json.getText()) && json.next() == JsonTokenReader.Token.STRING) {
+        result = json.getText();
+      } else {
+        json.skipValue();
+      }
+    }
+    return result;
   }
 
-  private void processAttrIcon(@Nonnull final JsonObject icon, @Nonnull final Topic topic) {
-    final String iconUrl = icon.getString("url");
+  private void processAttrIcon(@Nonnull final String iconUrl, @Nonnull final Topic topic, @Nonnull final TopicImageLoader imageLoader) {
     if (iconUrl.startsWith("data:")) {
       final String[] data = iconUrl.split("\\,");
       if (data.length == 2 && data[0].startsWith("data:image/") && data[0].endsWith("base64")) {
-        try {
-          final String encoded = Utils.rescaleImageAndEncodeAsBase64(new ByteArrayInputStream(Utils.base64decode(data[1].trim())), -1);
-          if (encoded == null) {
-            LOGGER.warn("Can't convert image : "+iconUrl);
-          } else {
-            topic.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, encoded);
+        imageLoader.load(topic, new Callable<String>() {
+          @Override
+          @Nullable
+          public String call() {
+            String result = null;
+            try {
+              result = Utils.rescaleImageAndEncodeAsBase64(new ByteArrayInputStream(Utils.base64decode(data[1].trim())), -1);
+              if (result == null) {
+                LOGGER.warn("Can't convert image : " + iconUrl);
+              }
+            }
+            catch (final Exception ex) {
+              LOGGER.error("Can't load image : " + iconUrl, ex);
+            }
+            return result;
           }
-        }
-        catch (final Exception ex) {
-          LOGGER.error("Can't load image : "+iconUrl, ex);
-        }
+        });
       }
     } else {
       try {
@@ -249,14 +380,11 @@ public class Mindmup2MindMapImporter extends AbstractImporter {
     }
   }
 
-  private void processAttrStyle(@Nonnull final JsonObject style, @Nonnull final Topic topic) {
-    final String background = style.getString("background");
-    if (background != null) {
-      final Color color = Utils.html2color(background, false);
-      if (color != null) {
-        topic.setAttribute(ATTR_FILL_COLOR.getText(), Utils.color2html(color, false));
-        topic.setAttribute(ATTR_TEXT_COLOR.getText(), Utils.color2html(Utils.makeContrastColor(color),false));
-      }
+  private void processAttrStyle(@Nonnull final String background, @Nonnull final Topic topic) {
+    final Color color = Utils.html2color(background, false);
+    if (color != null) {
+      topic.setAttribute(ATTR_FILL_COLOR.getText(), Utils.color2html(color, false));
+      topic.setAttribute(ATTR_TEXT_COLOR.getText(), Utils.color2html(Utils.makeContrastColor(color), false));
     }
   }
 
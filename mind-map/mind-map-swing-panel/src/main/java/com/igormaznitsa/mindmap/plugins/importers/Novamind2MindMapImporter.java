@@ -26,14 +26,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.zip.ZipFile;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.io.IOUtils;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.meta.common.utils.GetUtils;
@@ -52,7 +53,6 @@ import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
-import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
 import com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 
@@ -99,20 +99,32 @@ public class Novamind2MindMapImporter extends AbstractImporter {
       try {
         final InputStream resourceIn = Utils.findInputStreamForResource(zipFile, manifestPath);
         if (resourceIn != null) {
-          final Document document = Utils.loadXmlDocument(resourceIn, null, true);
-          final Element main = document.getDocumentElement();
-          if ("manifest".equals(main.getTagName())) {
-            for (final Element e : Utils.findDirectChildrenForName(main, "resources")) {
-              for (final Element r : Utils.findDirectChildrenForName(e, "resource")) {
-                final String id = r.getAttribute("id");
-                final String url = r.getAttribute("url");
-                if (!id.isEmpty() && !url.isEmpty()) {
-                  resourceMap.put(id, new Resource(url));
+          final XMLStreamReader reader = Utils.makeXmlStreamReader(resourceIn, null);
+          try {
+            if (Utils.nextXmlChildElement(reader) && "manifest".equals(Utils.getXmlElementName(reader))) {
+              while (Utils.nextXmlChildElement(reader)) {
+                if ("resources".equals(Utils.getXmlElementName(reader))) {
+                  while (Utils.nextXmlChildElement(reader)) {
+                    if ("resource".equals(Utils.getXmlElementName(reader))) {
+                      final String id = Utils.getXmlAttribute(reader, "id");
+                      final String url = Utils.getXmlAttribute(reader, "url");
+                      if (!id.isEmpty() && !url.isEmpty()) {
+                        resourceMap.put(id, new Resource(url));
+                      }
+                    }
+                    Utils.skipXmlElement(reader);
+                  }
+                } else {
+                  Utils.skipXmlElement(reader);
                 }
               }
+            } else {
+              LOGGER.warn("Can't find manifest tag, looks like that format changed");
             }
-          } else {
-            LOGGER.warn("Can't find manifest tag, looks like that format changed");
+          }
+          finally {
+            Utils.closeQuietly(reader);
+            IOUtils.closeQuietly(resourceIn);
           }
         }
       }
@@ -155,7 +167,8 @@ public class Novamind2MindMapImporter extends AbstractImporter {
     private static final class TopicReference {
 
       private final String id;
-      private final ContentTopic linkedTopic;
+      private final String contentTopicId;
+      private final Map<String, ContentTopic> topicMap;
 
       private final Color colorBorder;
       private final Color colorText;
@@ -163,42 +176,70 @@ public class Novamind2MindMapImporter extends AbstractImporter {
 
       private final List<TopicReference> children = new ArrayList<TopicReference>();
 
-      private TopicReference(@Nonnull final Element topicNode, @Nonnull final Map<String, ContentTopic> topicMap) {
-        this.id = topicNode.getAttribute("id");
-        this.linkedTopic = topicMap.get(topicNode.getAttribute("topic-ref"));
+      private TopicReference(@Nonnull final XMLStreamReader topicNode, @Nonnull final Map<String, ContentTopic> topicMap, @Nonnull final Map<String, TopicReference> contentIdMap) throws XMLStreamException {
+        this.id = Utils.getXmlAttribute(topicNode, "id");
+        this.contentTopicId = Utils.getXmlAttribute(topicNode, "topic-ref");
+        this.topicMap = topicMap;
 
-        final Element subTopics = Utils.findFirstElement(topicNode, "sub-topics");
-        if (subTopics != null) {
-          for (final Element t : Utils.findDirectChildrenForName(subTopics, "topic-node")) {
-            this.children.add(new TopicReference(t, topicMap));
-          }
+        if (!contentIdMap.containsKey(this.contentTopicId)) {
+          contentIdMap.put(this.contentTopicId, this);
         }
 
         Color tmpColorBackground = null;
         Color tmpColorText = null;
         Color tmpColorBorder = null;
 
-        final Element topicNodeView = Utils.findFirstElement(topicNode, "topic-node-view");
-        if (topicNodeView != null) {
-          final Element style = Utils.findFirstElement(topicNodeView, "topic-node-style");
-          if (style != null) {
-            final Element fillStyle = Utils.findFirstElement(style, "fill-style");
-            final Element lineStyle = Utils.findFirstElement(style, "line-style");
-
-            if (fillStyle != null) {
-              final Element solidColor = Utils.findFirstElement(fillStyle, "solid-color");
-              if (solidColor != null) {
-                tmpColorBackground = Utils.html2color(solidColor.getAttribute("color"), false);
-                if (tmpColorBackground != null) {
-                  tmpColorText = Utils.makeContrastColor(tmpColorBackground);
-                }
+        boolean subTopicsFound = false;
+        boolean topicNodeViewFound = false;
+
+        while (Utils.nextXmlChildElement(topicNode)) {
+          final String tag = Utils.getXmlElementName(topicNode);
+          if (!subTopicsFound && "sub-topics".equals(tag)) {
+            subTopicsFound = true;
+            while (Utils.nextXmlChildElement(topicNode)) {
+              if ("topic-node".equals(Utils.getXmlElementName(topicNode))) {
+                this.children.add(new TopicReference(topicNode, topicMap, contentIdMap));
+              } else {
+                Utils.skipXmlElement(topicNode);
               }
             }
-
-            if (lineStyle != null) {
-              tmpColorBorder = Utils.html2color(lineStyle.getAttribute("color"), false);
+          } else if (!topicNodeViewFound && "topic-node-view".equals(tag)) {
+            topicNodeViewFound = true;
+            boolean styleFound = false;
+            while (Utils.nextXmlChildElement(topicNode)) {
+              if (!styleFound && "topic-node-style".equals(Utils.getXmlElementName(topicNode))) {
+                styleFound = true;
+                boolean fillStyleFound = false;
+                boolean lineStyleFound = false;
+                while (Utils.nextXmlChildElement(topicNode)) {
+                  final String styleTag = Utils.getXmlElementName(topicNode);
+                  if (!fillStyleFound && "fill-style".equals(styleTag)) {
+                    fillStyleFound = true;
+                    boolean solidColorFound = false;
+                    while (Utils.nextXmlChildElement(topicNode)) {
+                      if (!solidColorFound && "solid-color".equals(Utils.getXmlElementName(topicNode))) {
+                        solidColorFound = true;
+                        tmpColorBackground = Utils.html2color(Utils.getXmlAttribute(topicNode, "color"), false);
+                        if (tmpColorBackground != null) {
+                          tmpColorText = Utils.makeContrastColor(tmpColorBackground);
+                        }
+                      }
+                      Utils.skipXmlElement(topicNode);
+                    }
+                  } else if (!lineStyleFound && "line-style".equals(styleTag)) {
+                    lineStyleFound = true;
+                    tmpColorBorder = Utils.html2color(Utils.getXmlAttribute(topicNode, "color"), false);
+                    Utils.skipXmlElement(topicNode);
+                  } else {
+                    Utils.skipXmlElement(topicNode);
+                  }
+                }
+              } else {
+                Utils.skipXmlElement(topicNode);
+              }
             }
-
+          } else {
+            Utils.skipXmlElement(topicNode);
           }
         }
 
@@ -229,7 +270,7 @@ public class Novamind2MindMapImporter extends AbstractImporter {
 
       @Nullable
       ContentTopic getContentTopic() {
-        return this.linkedTopic;
+        return this.topicMap.get(this.contentTopicId);
       }
 
       @Nonnull
@@ -247,12 +288,37 @@ public class Novamind2MindMapImporter extends AbstractImporter {
       private final List<String> linkUrls;
       private final String imageResourceId;
 
-      private ContentTopic(@Nonnull final String id, @Nonnull final Element nodeElement) {
+      private ContentTopic(@Nonnull final String id, @Nonnull final XMLStreamReader nodeElement) throws XMLStreamException {
         this.id = id;
-        this.imageResourceId = extractImageId(nodeElement);
-        this.notes = extractNotes(nodeElement);
-        this.linkUrls = extractLinkUrls(nodeElement);
-        this.richText = extractRichTextBlock(nodeElement);
+
+        String foundImageResourceId = null;
+        boolean topImageFound = false;
+        final StringBuilder foundNotes = new StringBuilder();
+        final StringBuilder foundRichText = new StringBuilder();
+        final List<String> foundLinkUrls = new ArrayList<String>();
+
+        while (Utils.nextXmlChildElement(nodeElement)) {
+          final String tag = Utils.getXmlElementName(nodeElement);
+          if (!topImageFound && "top-image".equals(tag)) {
+            topImageFound = true;
+            final String resourceRef = Utils.getXmlAttribute(nodeElement, "resource-ref");
+            foundImageResourceId = resourceRef.isEmpty() ? null : resourceRef;
+            Utils.skipXmlElement(nodeElement);
+          } else if ("notes".equals(tag)) {
+            extractRichTextBlock(nodeElement, foundNotes);
+          } else if ("links".equals(tag)) {
+            extractLinkUrls(nodeElement, foundLinkUrls);
+          } else if ("rich-text".equals(tag)) {
+            extractRichText(nodeElement, foundRichText);
+          } else {
+            Utils.skipXmlElement(nodeElement);
+          }
+        }
+
+        this.imageResourceId = foundImageResourceId;
+        this.notes = foundNotes.length() == 0 ? null : foundNotes.toString();
+        this.linkUrls = foundLinkUrls;
+        this.richText = foundRichText.length() == 0 ? null : foundRichText.toString();
       }
 
       @Nonnull
@@ -281,95 +347,73 @@ public class Novamind2MindMapImporter extends AbstractImporter {
         return this.linkUrls;
       }
 
-      @Nonnull
-      private static String extractRichText(@Nonnull final Element richText) {
-        final StringBuilder result = new StringBuilder();
-
-        for (final Element r : Utils.findDirectChildrenForName(richText, "text-run")) {
-          NodeList list = r.getChildNodes();
-          for (int i = 0; i < list.getLength(); i++) {
-            final Node n = list.item(i);
-
-            if (n.getNodeType() == Node.ELEMENT_NODE) {
-              if (n.getNodeName().equals("br")) {
-                result.append('\n');
-              } else {
-                result.append(n.getTextContent());
+      private static void extractRichText(@Nonnull final XMLStreamReader richText, @Nonnull final StringBuilder result) throws XMLStreamException {
+        while (Utils.nextXmlChildElement(richText)) {
+          if ("text-run".equals(Utils.getXmlElementName(richText))) {
+            boolean textRunEnded = false;
+            while (!textRunEnded && richText.hasNext()) {
+              switch (richText.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                  if ("br".equals(Utils.getXmlElementName(richText))) {
+                    result.append('\n');
+                    Utils.skipXmlElement(richText);
+                  } else {
+                    result.append(Utils.readXmlElementText(richText));
+                  }
+                }
+                break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE: {
+                  result.append(richText.getText());
+                }
+                break;
+                case XMLStreamConstants.END_ELEMENT: {
+                  textRunEnded = true;
+                }
+                break;
+                default:
+                  break;
               }
-            } else if (n.getNodeType() == Node.TEXT_NODE) {
-              result.append(n.getTextContent());
             }
+          } else {
+            Utils.skipXmlElement(richText);
           }
         }
-
-        return result.toString();
-      }
-
-      @Nullable
-      private static String extractImageId(@Nonnull final Element node) {
-        final Element imageElement = Utils.findFirstElement(node, "top-image");
-        final String resourceRef = imageElement == null ? "" : imageElement.getAttribute("resource-ref");
-        return resourceRef.isEmpty() ? null : resourceRef;
       }
 
-      @Nullable
-      private static String extractNotes(@Nonnull final Element node) {
-        final StringBuilder result = new StringBuilder();
-        for (final Element e : Utils.findDirectChildrenForName(node, "notes")) {
-          final String rtext = extractRichTextBlock(e);
-          if (rtext != null) {
-            result.append(rtext);
+      private static void extractRichTextBlock(@Nonnull final XMLStreamReader element, @Nonnull final StringBuilder result) throws XMLStreamException {
+        while (Utils.nextXmlChildElement(element)) {
+          if ("rich-text".equals(Utils.getXmlElementName(element))) {
+            extractRichText(element, result);
+          } else {
+            Utils.skipXmlElement(element);
           }
         }
-        return result.length() == 0 ? null : result.toString();
       }
 
-      @Nullable
-      private static String extractRichTextBlock(@Nonnull final Element element) {
-        final StringBuilder result = new StringBuilder();
-        for (final Element rc : Utils.findDirectChildrenForName(element, "rich-text")) {
-          result.append(extractRichText(rc));
-        }
-        return result.length() == 0 ? null : result.toString();
-      }
-
-      @Nonnull
-      @MustNotContainNull
-      private static List<String> extractLinkUrls(@Nonnull final Element node) {
-        final List<String> result = new ArrayList<String>();
-        for (final Element links : Utils.findDirectChildrenForName(node, "links")) {
-          for (final Element l : Utils.findDirectChildrenForName(links, "link")) {
-            final String url = l.getAttribute("url");
+      private static void extractLinkUrls(@Nonnull final XMLStreamReader links, @Nonnull @MustNotContainNull final List<String> result) throws XMLStreamException {
+        while (Utils.nextXmlChildElement(links)) {
+          if ("link".equals(Utils.getXmlElementName(links))) {
+            final String url = Utils.getXmlAttribute(links, "url");
             if (!url.isEmpty()) {
               result.add(url);
             }
           }
+          Utils.skipXmlElement(links);
         }
-        return result;
       }
 
     }
 
     private final Map<String, ContentTopic> topicsMap = new HashMap<String, ContentTopic>();
+    private final Map<String, TopicReference> contentIdToTopicRef = new HashMap<String, TopicReference>();
     private final Map<String, String> linksBetweenTopics = new HashMap<String, String>();
     private final TopicReference rootRef;
 
     @Nullable
-    TopicReference findForTopicId(@Nonnull TopicReference startTopicRef, @Nonnull final String contentTopicId) {
-      TopicReference result = null;
-
-      if (contentTopicId.equals(Assertions.assertNotNull(startTopicRef.getContentTopic()).getId())) {
-        result = startTopicRef;
-      } else {
-        for (final ParsedContent.TopicReference c : startTopicRef.getChildren()) {
-          result = findForTopicId(c, contentTopicId);
-          if (result != null) {
-            break;
-          }
-        }
-      }
-
-      return result;
+    TopicReference findForTopicId(@Nonnull final String contentTopicId) {
+      return this.contentIdToTopicRef.get(contentTopicId);
     }
 
     @Nullable
@@ -388,42 +432,43 @@ public class Novamind2MindMapImporter extends AbstractImporter {
       try {
         final InputStream resourceIn = Utils.findInputStreamForResource(file, path);
         if (resourceIn != null) {
-          final Document document = Utils.loadXmlDocument(resourceIn, null, true);
-          final Element main = document.getDocumentElement();
-          if ("document".equals(main.getTagName())) {
-            for (final Element e : Utils.findDirectChildrenForName(main, "topics")) {
-              for (final Element r : Utils.findDirectChildrenForName(e, "topic")) {
-                final String id = r.getAttribute("id");
-                this.topicsMap.put(id, new ContentTopic(id, r));
-              }
-            }
-
-            final Element maps = Utils.findFirstElement(main, "maps");
-            if (maps != null) {
-              final Element firstMap = Utils.findFirstElement(maps, "map");
-              if (firstMap != null) {
-                final Element rootTopicNode = Utils.findFirstElement(firstMap, "topic-node");
-                if (rootTopicNode != null) {
-                  mapRoot = new TopicReference(rootTopicNode, this.topicsMap);
-                }
-
-                for (final Element l : Utils.findDirectChildrenForName(firstMap, "link-lines")) {
-                  for (final Element tn : Utils.findDirectChildrenForName(l, "topic-node")) {
-                    for (final Element lld : Utils.findDirectChildrenForName(tn, "link-line-data")) {
-                      this.linksBetweenTopics.put(lld.getAttribute("start-topic-node-ref"), lld.getAttribute("end-topic-node-ref"));
+          final XMLStreamReader reader = Utils.makeXmlStreamReader(resourceIn, null);
+          try {
+            if (Utils.nextXmlChildElement(reader) && "document".equals(Utils.getXmlElementName(reader))) {
+              boolean mapsFound = false;
+              while (Utils.nextXmlChildElement(reader)) {
+                final String tag = Utils.getXmlElementName(reader);
+                if ("topics".equals(tag)) {
+                  while (Utils.nextXmlChildElement(reader)) {
+                    if ("topic".equals(Utils.getXmlElementName(reader))) {
+                      final String id = Utils.getXmlAttribute(reader, "id");
+                      this.topicsMap.put(id, new ContentTopic(id, reader));
+                    } else {
+                      Utils.skipXmlElement(reader);
+                    }
+                  }
+                } else if (!mapsFound && "maps".equals(tag)) {
+                  mapsFound = true;
+                  boolean firstMapFound = false;
+                  while (Utils.nextXmlChildElement(reader)) {
+                    if (!firstMapFound && "map".equals(Utils.getXmlElementName(reader))) {
+                      firstMapFound = true;
+                      mapRoot = parseMap(reader);
+                    } else {
+                      Utils.skipXmlElement(reader);
                     }
                   }
+                } else {
+                  Utils.skipXmlElement(reader);
                 }
-
-              } else {
-                mapRoot = null;
               }
             } else {
-              mapRoot = null;
+              LOGGER.warn("Can't find document, looks like that format changed");
             }
-
-          } else {
-            LOGGER.warn("Can't find document, looks like that format changed");
+          }
+          finally {
+            Utils.closeQuietly(reader);
+            IOUtils.closeQuietly(resourceIn);
           }
         }
       }
@@ -434,6 +479,33 @@ public class Novamind2MindMapImporter extends AbstractImporter {
       this.rootRef = mapRoot;
     }
 
+    @Nullable
+    private TopicReference parseMap(@Nonnull final XMLStreamReader map) throws XMLStreamException {
+      TopicReference result = null;
+      while (Utils.nextXmlChildElement(map)) {
+        final String tag = Utils.getXmlElementName(map);
+        if (result == null && "topic-node".equals(tag)) {
+          result = new TopicReference(map, this.topicsMap, this.contentIdToTopicRef);
+        } else if ("link-lines".equals(tag)) {
+          while (Utils.nextXmlChildElement(map)) {
+            if ("topic-node".equals(Utils.getXmlElementName(map))) {
+              while (Utils.nextXmlChildElement(map)) {
+                if ("link-line-data".equals(Utils.getXmlElementName(map))) {
+                  this.linksBetweenTopics.put(Utils.getXmlAttribute(map, "start-topic-node-ref"), Utils.getXmlAttribute(map, "end-topic-node-ref"));
+                }
+                Utils.skipXmlElement(map);
+              }
+            } else {
+              Utils.skipXmlElement(map);
+            }
+          }
+        } else {
+          Utils.skipXmlElement(map);
+        }
+      }
+      return result;
+    }
+
   }
 
   @Override
@@ -446,6 +518,16 @@ public class Novamind2MindMapImporter extends AbstractImporter {
     }
 
     final ZipFile zipFile = new ZipFile(file);
+    try {
+      return extractTopics(zipFile);
+    }
+    finally {
+      Utils.closeQuietly(zipFile);
+    }
+  }
+
+  @Nonnull
+  MindMap extractTopics(@Nonnull final ZipFile zipFile) throws InterruptedException {
     final Manifest manifest = new Manifest(zipFile, "manifest.xml");
     final ParsedContent content = new ParsedContent(zipFile, "content.xml");
 
@@ -457,7 +539,15 @@ public class Novamind2MindMapImporter extends AbstractImporter {
     final ParsedContent.TopicReference rootRef = content.getRootTopic();
     if (rootRef != null) {
       final Map<String, Topic> mapIdToTopic = new HashMap<String, Topic>();
-      convertContentTopicIntoMMTopic(result, null, rootRef, manifest, mapIdToTopic);
+
+      final TopicImageLoader imageLoader = new TopicImageLoader();
+      try {
+        convertContentTopicIntoMMTopic(result, null, rootRef, manifest, imageLoader, mapIdToTopic);
+        imageLoader.attachAll();
+      }
+      finally {
+        imageLoader.dispose();
+      }
 
       for (final Map.Entry<String, String> link : content.getLinksBetweenTopics().entrySet()) {
         final Topic from = mapIdToTopic.get(link.getKey());
@@ -489,7 +579,7 @@ public class Novamind2MindMapImporter extends AbstractImporter {
         for (final String s : urls) {
           if (s.startsWith("novamind://topic/")) {
             final String targetTopicId = s.substring(17);
-            final ParsedContent.TopicReference reference = model.findForTopicId(assertNotNull(model.getRootTopic()), targetTopicId);
+            final ParsedContent.TopicReference reference = model.findForTopicId(targetTopicId);
             if (reference != null) {
               final Topic destTopic = mapTopicRefToTopics.get(reference.getId());
               if (destTopic != null) {
@@ -555,7 +645,7 @@ public class Novamind2MindMapImporter extends AbstractImporter {
     }
   }
 
-  private static void convertContentTopicIntoMMTopic(@Nonnull final MindMap map, @Nullable final Topic parent, @Nonnull final ParsedContent.TopicReference node, @Nonnull final Manifest manifest, @Nonnull final Map<String, Topic> mapRefToTopic) {
+  private static void convertContentTopicIntoMMTopic(@Nonnull final MindMap map, @Nullable final Topic parent, @Nonnull final ParsedContent.TopicReference node, @Nonnull final Manifest manifest, @Nonnull final TopicImageLoader imageLoader, @Nonnull final Map<String, Topic> mapRefToTopic) {
     final Topic processing;
     if (parent == null) {
       processing = assertNotNull(map.getRoot());
@@ -584,10 +674,13 @@ public class Novamind2MindMapImporter extends AbstractImporter {
 
       final String imageResourceId = data.getImageResourceId();
       if (imageResourceId != null) {
-        final String imageBody = manifest.findResourceImage(imageResourceId);
-        if (imageBody != null) {
-          processing.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, imageBody);
-        }
+        imageLoader.load(processing, new Callable<String>() {
+          @Override
+          @Nullable
+          public String call() {
+            return manifest.findResourceImage(imageResourceId);
+          }
+        });
       }
 
       if (data.getNotes() != null) {
@@ -595,7 +688,7 @@ public class Novamind2MindMapImporter extends AbstractImporter {
       }
 
       for (final ParsedContent.TopicReference c : node.getChildren()) {
-        convertContentTopicIntoMMTopic(map, processing, c, manifest, mapRefToTopic);
+        convertContentTopicIntoMMTopic(map, processing, c, manifest, imageLoader, mapRefToTopic);
       }
     }
   }
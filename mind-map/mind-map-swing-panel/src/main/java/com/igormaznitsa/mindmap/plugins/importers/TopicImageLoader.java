@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
+
+/**
+ * Auxiliary class to load, rescale and encode images of imported topics on a
+ * bounded thread pool. Loaded images are attached to their topics only in the
+ * thread which makes import, as soon as they are ready.
+ *
+ * @since 1.4.2
+ */
+final class TopicImageLoader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TopicImageLoader.class);
+
+  private static final int MAX_THREADS = 4;
+
+  private static final class LoadedImage {
+
+    private final Topic topic;
+    private final String image;
+
+    private LoadedImage(@Nonnull final Topic topic, @Nullable final String image) {
+      this.topic = topic;
+      this.image = image;
+    }
+  }
+
+  private final ExecutorService executor;
+  private final CompletionService<LoadedImage> completionService;
+  private int pendingTasks;
+
+  TopicImageLoader() {
+    final int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+    final AtomicInteger counter = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      @Nonnull
+      public Thread newThread(@Nonnull final Runnable r) {
+        final Thread result = new Thread(r, "MMDImportImageLoader-" + counter.incrementAndGet()); //NOI18N
+        result.setDaemon(true);
+        result.setPriority(Thread.NORM_PRIORITY - 1);
+        return result;
+      }
+    });
+    this.completionService = new ExecutorCompletionService<LoadedImage>(this.executor);
+  }
+
+  /**
+   * Schedule image loading for topic. Also attaches images which have been
+   * already loaded.
+   *
+   * @param topic topic to get image attribute
+   * @param imageProvider provider of Base64 encoded image, can return null if
+   * image not found
+   */
+  void load(@Nonnull final Topic topic, @Nonnull final Callable<String> imageProvider) {
+    this.completionService.submit(new Callable<LoadedImage>() {
+      @Override
+      @Nonnull
+      public LoadedImage call() throws Exception {
+        return new LoadedImage(topic, imageProvider.call());
+      }
+    });
+    this.pendingTasks++;
+    attachCompleted();
+  }
+
+  /**
+   * Attach all already loaded images without waiting.
+   */
+  void attachCompleted() {
+    Future<LoadedImage> completed;
+    while (this.pendingTasks > 0 && (completed = this.completionService.poll()) != null) {
+      this.pendingTasks--;
+      attach(completed);
+    }
+  }
+
+  /**
+   * Wait for all scheduled images and attach them to their topics, the loader
+   * is disposed after the call.
+   *
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  void attachAll() throws InterruptedException {
+    try {
+      while (this.pendingTasks > 0) {
+        final Future<LoadedImage> completed = this.completionService.take();
+        this.pendingTasks--;
+        attach(completed);
+      }
+    }
+    finally {
+      dispose();
+    }
+  }
+
+  /**
+   * Cancel all not completed tasks and stop threads.
+   */
+  void dispose() {
+    this.executor.shutdownNow();
+  }
+
+  private static void attach(@Nonnull final Future<LoadedImage> future) {
+    try {
+      final LoadedImage loaded = future.get();
+      if (loaded.image != null && !loaded.image.isEmpty()) {
+        loaded.topic.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, loaded.image);
+      }
+    }
+    catch (ExecutionException ex) {
+      LOGGER.error("Can't load image for topic", ex.getCause()); //NOI18N
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
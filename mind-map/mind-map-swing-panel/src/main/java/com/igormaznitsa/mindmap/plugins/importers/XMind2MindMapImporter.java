@@ -24,13 +24,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.zip.ZipFile;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.apache.commons.io.IOUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.mindmap.model.ExtraFile;
@@ -47,7 +48,6 @@ import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
-import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
 import com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 
@@ -63,24 +63,21 @@ public class XMind2MindMapImporter extends AbstractImporter {
     private final Color background;
     private final Color border;
 
-    private XMindStyle(@Nonnull final Element style) {
+    private XMindStyle(@Nonnull final XMLStreamReader style) throws XMLStreamException {
       Color back = null;
       Color front = null;
       Color bord = null;
 
-      for (final Element t : Utils.findDirectChildrenForName(style, "topic-properties")) {
-        final String colorFill = t.getAttribute("svg:fill");
-        final String colorText = t.getAttribute("fo:color");
-        final String colorBorder = t.getAttribute("border-line-color");
-        if (colorFill != null) {
+      while (Utils.nextXmlChildElement(style)) {
+        if ("topic-properties".equals(Utils.getXmlElementName(style))) {
+          final String colorFill = Utils.getXmlAttribute(style, "svg:fill");
+          final String colorText = Utils.getXmlAttribute(style, "fo:color");
+          final String colorBorder = Utils.getXmlAttribute(style, "border-line-color");
           back = Utils.html2color(colorFill, false);
-        }
-        if (colorText != null) {
           front = Utils.html2color(colorText, false);
-        }
-        if (colorBorder != null) {
           bord = Utils.html2color(colorBorder, false);
         }
+        Utils.skipXmlElement(style);
       }
 
       this.foreground = front;
@@ -110,24 +107,45 @@ public class XMind2MindMapImporter extends AbstractImporter {
       try {
         final InputStream stylesXml = Utils.findInputStreamForResource(zipFile, "styles.xml");
         if (stylesXml != null) {
-          final Document parsedStyles = Utils.loadXmlDocument(stylesXml, null, true);
-
-          final Element root = parsedStyles.getDocumentElement();
+          try {
+            loadStyles(stylesXml);
+          }
+          finally {
+            IOUtils.closeQuietly(stylesXml);
+          }
+        }
+      }
+      catch (Exception ex) {
+        LOGGER.error("Can't extract XMIND styles", ex);
+      }
+    }
 
-          if ("xmap-styles".equals(root.getTagName())) {
-            for (final Element styles : Utils.findDirectChildrenForName(root, "styles")) {
-              for (final Element style : Utils.findDirectChildrenForName(styles, "style")) {
-                final String id = style.getAttribute("id");
-                if (!id.isEmpty() && "topic".equals(style.getAttribute("type"))) {
-                  this.stylesMap.put(id, new XMindStyle(style));
+    private void loadStyles(@Nonnull final InputStream stylesXml) throws Exception {
+      final XMLStreamReader reader = Utils.makeXmlStreamReader(stylesXml, null);
+      try {
+        if (Utils.nextXmlChildElement(reader) && "xmap-styles".equals(Utils.getXmlElementName(reader))) {
+          while (Utils.nextXmlChildElement(reader)) {
+            if ("styles".equals(Utils.getXmlElementName(reader))) {
+              while (Utils.nextXmlChildElement(reader)) {
+                if ("style".equals(Utils.getXmlElementName(reader))) {
+                  final String id = Utils.getXmlAttribute(reader, "id");
+                  if (!id.isEmpty() && "topic".equals(Utils.getXmlAttribute(reader, "type"))) {
+                    this.stylesMap.put(id, new XMindStyle(reader));
+                  } else {
+                    Utils.skipXmlElement(reader);
+                  }
+                } else {
+                  Utils.skipXmlElement(reader);
                 }
               }
+            } else {
+              Utils.skipXmlElement(reader);
             }
           }
         }
       }
-      catch (Exception ex) {
-        LOGGER.error("Can't extract XMIND styles", ex);
+      finally {
+        Utils.closeQuietly(reader);
       }
     }
 
@@ -153,35 +171,62 @@ public class XMind2MindMapImporter extends AbstractImporter {
     }
 
     final ZipFile zipFile = new ZipFile(file);
+    try {
+      return extractTopics(zipFile);
+    }
+    finally {
+      Utils.closeQuietly(zipFile);
+    }
+  }
+
+  @Nonnull
+  MindMap extractTopics(@Nonnull final ZipFile zipFile) throws Exception {
     final XMindStyles styles = new XMindStyles(zipFile);
 
     final InputStream contentStream = Utils.findInputStreamForResource(zipFile, "content.xml");
     if (contentStream == null) {
       throwWrongFormat();
     }
-    final Document document = Utils.loadXmlDocument(Assertions.assertNotNull(contentStream), null, true);
 
-    final Element rootElement = document.getDocumentElement();
-    if (!rootElement.getTagName().equals("xmap-content")) {
-      throwWrongFormat();
-    }
+    final XMLStreamReader reader = Utils.makeXmlStreamReader(Assertions.assertNotNull(contentStream), null);
+    try {
+      if (!Utils.nextXmlChildElement(reader) || !"xmap-content".equals(Utils.getXmlElementName(reader))) {
+        throwWrongFormat();
+      }
 
-    final List<Element> sheets = Utils.findDirectChildrenForName(document.getDocumentElement(), "sheet");
+      MindMap result = null;
 
-    final MindMap result;
+      final TopicImageLoader imageLoader = new TopicImageLoader();
+      try {
+        while (Utils.nextXmlChildElement(reader)) {
+          if ("sheet".equals(Utils.getXmlElementName(reader))) {
+            result = convertSheet(styles, zipFile, imageLoader, reader);
+            break;
+          } else {
+            Utils.skipXmlElement(reader);
+          }
+        }
+        imageLoader.attachAll();
+      }
+      finally {
+        imageLoader.dispose();
+      }
 
-    if (sheets.isEmpty()) {
-      result = new MindMap(null, true);
-      Assertions.assertNotNull(result.getRoot()).setText("Empty");
-    } else {
-      result = convertSheet(styles, zipFile, sheets.get(0));
-    }
+      if (result == null) {
+        result = new MindMap(null, true);
+        Assertions.assertNotNull(result.getRoot()).setText("Empty");
+      }
 
-    return result;
+      return result;
+    }
+    finally {
+      Utils.closeQuietly(reader);
+      IOUtils.closeQuietly(contentStream);
+    }
   }
 
   @Nonnull
-  private MindMap convertSheet(@Nonnull final XMindStyles styles, @Nonnull final ZipFile file, @Nonnull final Element sheet) throws Exception {
+  private MindMap convertSheet(@Nonnull final XMindStyles styles, @Nonnull final ZipFile file, @Nonnull final TopicImageLoader imageLoader, @Nonnull final XMLStreamReader sheet) throws Exception {
     final MindMap resultedMap = new MindMap(null, true);
     resultedMap.setAttribute(MindMapPanel.ATTR_SHOW_JUMPS, "true");
 
@@ -190,22 +235,35 @@ public class XMind2MindMapImporter extends AbstractImporter {
 
     final Map<String, Topic> topicIdMap = new HashMap<String, Topic>();
     final Map<String, String> linksBetweenTopics = new HashMap<String, String>();
-
-    final List<Element> rootTopics = Utils.findDirectChildrenForName(sheet, "topic");
-    if (!rootTopics.isEmpty()) {
-      convertTopic(file, styles, resultedMap, null, rootTopic, rootTopics.get(0), topicIdMap, linksBetweenTopics);
+    final List<String[]> relationships = new ArrayList<String[]>();
+
+    boolean rootTopicFound = false;
+
+    while (Utils.nextXmlChildElement(sheet)) {
+      final String tag = Utils.getXmlElementName(sheet);
+      if (!rootTopicFound && "topic".equals(tag)) {
+        rootTopicFound = true;
+        convertTopic(file, styles, imageLoader, resultedMap, null, rootTopic, sheet, topicIdMap, linksBetweenTopics);
+      } else if ("relationships".equals(tag)) {
+        while (Utils.nextXmlChildElement(sheet)) {
+          if ("relationship".equals(Utils.getXmlElementName(sheet))) {
+            relationships.add(new String[]{Utils.getXmlAttribute(sheet, "end1"), Utils.getXmlAttribute(sheet, "end2")});
+          }
+          Utils.skipXmlElement(sheet);
+        }
+      } else {
+        Utils.skipXmlElement(sheet);
+      }
     }
 
-    for (final Element l : Utils.findDirectChildrenForName(sheet, "relationships")) {
-      for (final Element r : Utils.findDirectChildrenForName(l, "relationship")) {
-        final String end1 = r.getAttribute("end1");
-        final String end2 = r.getAttribute("end2");
-        if (!linksBetweenTopics.containsKey(end1)) {
-          final Topic startTopic = topicIdMap.get(end1);
-          final Topic endTopic = topicIdMap.get(end2);
-          if (startTopic != null && endTopic != null) {
-            startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
-          }
+    for (final String[] r : relationships) {
+      final String end1 = r[0];
+      final String end2 = r[1];
+      if (!linksBetweenTopics.containsKey(end1)) {
+        final Topic startTopic = topicIdMap.get(end1);
+        final Topic endTopic = topicIdMap.get(end2);
+        if (startTopic != null && endTopic != null) {
+          startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
         }
       }
     }
@@ -221,27 +279,7 @@ public class XMind2MindMapImporter extends AbstractImporter {
     return resultedMap;
   }
 
-  @Nonnull
-  private static String extractTopicTitle(@Nonnull final Element topic) {
-    final List<Element> title = Utils.findDirectChildrenForName(topic, "title");
-    return title.isEmpty() ? "" : title.get(0).getTextContent();
-  }
-
-  @Nonnull
-  @MustNotContainNull
-  private static List<Element> getChildTopics(@Nonnull final Element topic) {
-    List<Element> result = new ArrayList<Element>();
-
-    for (final Element c : Utils.findDirectChildrenForName(topic, "children")) {
-      for (Element t : Utils.findDirectChildrenForName(c, "topics")) {
-        result.addAll(Utils.findDirectChildrenForName(t, "topic"));
-      }
-    }
-
-    return result;
-  }
-
-  private static void convertTopic(@Nonnull ZipFile zipFile, @Nonnull final XMindStyles styles, @Nonnull final MindMap map, @Nullable final Topic parent, @Nullable Topic pregeneratedOne, @Nonnull final Element topicElement, @Nonnull Map<String, Topic> idTopicMap, @Nonnull final Map<String, String> linksBetweenTopics) throws Exception {
+  private static void convertTopic(@Nonnull final ZipFile zipFile, @Nonnull final XMindStyles styles, @Nonnull final TopicImageLoader imageLoader, @Nonnull final MindMap map, @Nullable final Topic parent, @Nullable Topic pregeneratedOne, @Nonnull final XMLStreamReader topicElement, @Nonnull Map<String, Topic> idTopicMap, @Nonnull final Map<String, String> linksBetweenTopics) throws Exception {
     final Topic topicToProcess;
 
     if (pregeneratedOne == null) {
@@ -250,23 +288,18 @@ public class XMind2MindMapImporter extends AbstractImporter {
       topicToProcess = pregeneratedOne;
     }
 
-    topicToProcess.setText(extractTopicTitle(topicElement));
+    topicToProcess.setText("");
 
-    final String theTopicId = topicElement.getAttribute("id");
+    final String theTopicId = Utils.getXmlAttribute(topicElement, "id");
 
     idTopicMap.put(theTopicId, topicToProcess);
 
-    final String styleId = topicElement.getAttribute("style-id");
+    final String styleId = Utils.getXmlAttribute(topicElement, "style-id");
     if (!styleId.isEmpty()) {
       styles.setStyle(styleId, topicToProcess);
     }
 
-    final String attachedImage = extractFirstAttachedImageAsBase64(zipFile, topicElement);
-    if (attachedImage != null && !attachedImage.isEmpty()) {
-      topicToProcess.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, attachedImage);
-    }
-
-    final String xlink = topicElement.getAttribute("xlink:href");
+    final String xlink = Utils.getXmlAttribute(topicElement, "xlink:href");
     if (!xlink.isEmpty()) {
       if (xlink.startsWith("file:")) {
         try {
@@ -287,79 +320,107 @@ public class XMind2MindMapImporter extends AbstractImporter {
       }
     }
 
-    final String extractedNote = extractNote(topicElement);
+    boolean titleFound = false;
+    final List<String> imageLinks = new ArrayList<String>();
+    final StringBuilder note = new StringBuilder();
+
+    while (Utils.nextXmlChildElement(topicElement)) {
+      final String tag = Utils.getXmlElementName(topicElement);
+      if (!titleFound && "title".equals(tag)) {
+        titleFound = true;
+        topicToProcess.setText(Utils.readXmlElementText(topicElement));
+      } else if ("xhtml:img".equals(tag)) {
+        final String link = Utils.getXmlAttribute(topicElement, "xhtml:src");
+        if (link.startsWith("xap:")) {
+          imageLinks.add(link);
+        }
+        Utils.skipXmlElement(topicElement);
+      } else if ("notes".equals(tag)) {
+        extractNote(topicElement, note);
+      } else if ("children".equals(tag)) {
+        while (Utils.nextXmlChildElement(topicElement)) {
+          if ("topics".equals(Utils.getXmlElementName(topicElement))) {
+            while (Utils.nextXmlChildElement(topicElement)) {
+              if ("topic".equals(Utils.getXmlElementName(topicElement))) {
+                convertTopic(zipFile, styles, imageLoader, map, topicToProcess, null, topicElement, idTopicMap, linksBetweenTopics);
+              } else {
+                Utils.skipXmlElement(topicElement);
+              }
+            }
+          } else {
+            Utils.skipXmlElement(topicElement);
+          }
+        }
+      } else {
+        Utils.skipXmlElement(topicElement);
+      }
+    }
 
-    if (!extractedNote.isEmpty()) {
-      topicToProcess.setExtra(new ExtraNote(extractedNote));
+    if (note.length() > 0) {
+      topicToProcess.setExtra(new ExtraNote(note.toString()));
     }
 
-    for (final Element c : getChildTopics(topicElement)) {
-      convertTopic(zipFile, styles, map, topicToProcess, null, c, idTopicMap, linksBetweenTopics);
+    if (!imageLinks.isEmpty()) {
+      imageLoader.load(topicToProcess, new Callable<String>() {
+        @Override
+        @Nullable
+        public String call() {
+          return extractFirstAttachedImageAsBase64(zipFile, imageLinks);
+        }
+      });
     }
   }
 
   @Nullable
-  private static String extractFirstAttachedImageAsBase64(@Nonnull final ZipFile file, @Nonnull final Element topic) {
+  private static String extractFirstAttachedImageAsBase64(@Nonnull final ZipFile file, @Nonnull @MustNotContainNull final List<String> links) {
     String result = null;
 
-    for (final Element e : Utils.findDirectChildrenForName(topic, "xhtml:img")) {
-      final String link = e.getAttribute("xhtml:src");
-      if (!link.isEmpty()) {
-        if (link.startsWith("xap:")) {
-          InputStream inStream = null;
-          try {
-            inStream = Utils.findInputStreamForResource(file, link.substring(4));
-            if (inStream!=null) {
-              result = Utils.rescaleImageAndEncodeAsBase64(inStream, -1);
-              if (result != null) break;
-            }
-          }
-          catch (final Exception ex) {
-            LOGGER.error("Can't decode attached image : "+link, ex);
-          }
-          finally{
-            IOUtils.closeQuietly(inStream);
+    for (final String link : links) {
+      InputStream inStream = null;
+      try {
+        inStream = Utils.findInputStreamForResource(file, link.substring(4));
+        if (inStream != null) {
+          result = Utils.rescaleImageAndEncodeAsBase64(inStream, -1);
+          if (result != null) {
+            break;
           }
         }
       }
-    }
-    return result;
-  }
-
-  @Nonnull
-  private static String extractNote(@Nonnull final Element topic) {
-    final StringBuilder result = new StringBuilder();
-
-    for (final Element note : Utils.findDirectChildrenForName(topic, "notes")) {
-      final String plain = extractTextContentFrom(note, "plain");
-      final String html = extractTextContentFrom(note, "html");
-
-      if (result.length() > 0) {
-        result.append('\n');
+      catch (final Exception ex) {
+        LOGGER.error("Can't decode attached image : " + link, ex);
       }
-
-      if (!plain.isEmpty()) {
-        result.append(plain);
-      } else if (!html.isEmpty()) {
-        result.append(html);
+      finally {
+        IOUtils.closeQuietly(inStream);
       }
     }
 
-    return result.toString();
+    return result;
   }
 
-  @Nonnull
-  private static String extractTextContentFrom(@Nonnull final Element element, @Nonnull final String tag) {
-    final StringBuilder result = new StringBuilder();
+  private static void extractNote(@Nonnull final XMLStreamReader notes, @Nonnull final StringBuilder result) throws XMLStreamException {
+    final StringBuilder plain = new StringBuilder();
+    final StringBuilder html = new StringBuilder();
 
-    for (final Element c : Utils.findDirectChildrenForName(element, tag)) {
-      final String found = c.getTextContent();
-      if (found != null && !found.isEmpty()) {
-        result.append(found.replace("\r", ""));
+    while (Utils.nextXmlChildElement(notes)) {
+      final String tag = Utils.getXmlElementName(notes);
+      if ("plain".equals(tag)) {
+        plain.append(Utils.readXmlElementText(notes).replace("\r", ""));
+      } else if ("html".equals(tag)) {
+        html.append(Utils.readXmlElementText(notes).replace("\r", ""));
+      } else {
+        Utils.skipXmlElement(notes);
       }
     }
 
-    return result.toString();
+    if (result.length() > 0) {
+      result.append('\n');
+    }
+
+    if (plain.length() > 0) {
+      result.append(plain);
+    } else if (html.length() > 0) {
+      result.append(html);
+    }
   }
 
   @Override
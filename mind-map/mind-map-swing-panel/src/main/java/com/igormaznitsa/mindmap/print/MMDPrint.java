@@ -70,7 +70,7 @@ public class MMDPrint {
     PrintPage[][] pgs = NO_PAGES;
 
     if (paperWidthInPixels > 0 && paperHeightInPixels > 0) {
-      final MindMapPanelConfig cfg = new MindMapPanelConfig(panel.getConfiguration(), false);
+      final MindMapPanelConfig cfg = new MindMapPanelConfig(panel.getConfiguration().getSnapshot(), false);
       cfg.setDrawBackground(false);
       cfg.setDropShadow(false);
 
@@ -27,7 +27,9 @@ import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 
 /**
- * Transferable object to represent topic list in clipboard.
+ * Transferable object to represent topic list in clipboard. Topics are copied
+ * only once during creation, every data flavor is materialized lazily by the
+ * first request and reused for next ones.
  * 
  * @since 1.3.1
  */
@@ -48,6 +50,9 @@ public class MMDTopicsTransferable implements Transferable {
  
   private static final String END_OF_LINE = System.getProperty("line.separator","\n");
   
+  private String text;
+  private NBMindMapTopicsContainer container;
+  
   public MMDTopicsTransferable(@Nonnull @MustNotContainNull final Topic ... topics) {
     this.topics = new Topic[topics.length];
     
@@ -58,10 +63,7 @@ public class MMDTopicsTransferable implements Transferable {
     }
   }
   
-  @Nonnull
-  private static String convertTopicToText(@Nonnull final Topic topic) {
-    final StringBuilder result = new StringBuilder();
-    
+  private static void convertTopicToText(@Nonnull final Topic topic, @Nonnull final StringBuilder result) {
     result.append(topic.getText());
 
     boolean addedExtras = false;
@@ -85,10 +87,9 @@ public class MMDTopicsTransferable implements Transferable {
     result.append(END_OF_LINE).append("--------------------");
   
     for(final Topic c : topic.getChildren()){
-      result.append(END_OF_LINE).append(END_OF_LINE).append(convertTopicToText(c));
+      result.append(END_OF_LINE).append(END_OF_LINE);
+      convertTopicToText(c, result);
     }
-    
-    return result.toString();
   }
   
   @Override
@@ -105,20 +106,26 @@ public class MMDTopicsTransferable implements Transferable {
 
   @Override
   @Nonnull
-  public Object getTransferData(@Nonnull final DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+  public synchronized Object getTransferData(@Nonnull final DataFlavor flavor) throws UnsupportedFlavorException, IOException {
     if (flavor.isFlavorTextType()) {
-      final StringBuilder result = new StringBuilder();
-      
-      for(final Topic t : this.topics){
-        if (result.length()>0){
-          result.append(END_OF_LINE).append(END_OF_LINE);
+      if (this.text == null) {
+        final StringBuilder result = new StringBuilder();
+
+        for (final Topic t : this.topics) {
+          if (result.length() > 0) {
+            result.append(END_OF_LINE).append(END_OF_LINE);
+          }
+          convertTopicToText(t, result);
         }
-        result.append(convertTopicToText(t));
+
+        this.text = result.toString();
       }
-      
-      return result.toString();
+      return this.text;
     } else if (flavor.isMimeTypeEqual(MMD_DATA_FLAVOR)) {
-      return new NBMindMapTopicsContainer(this.topics);
+      if (this.container == null) {
+        this.container = new NBMindMapTopicsContainer(this.topics);
+      }
+      return this.container;
     } else {
       throw new UnsupportedFlavorException(flavor);
     }
@@ -2614,8 +2614,9 @@ public class MindMapPanel extends JPanel implements ClipboardOwner {
               final Topic [] selected = this.getSelectedTopics();
               
               if (selected.length>0){
+                final Topic [] pastedTopics = container.getTopics();
                 for(final Topic s : selected){
-                  for(final Topic t : container.getTopics()) {
+                  for(final Topic t : pastedTopics) {
                     final Topic newTopic = new Topic(this.model,t,true);
                     newTopic.removeExtra(Extra.ExtraType.TOPIC);
                     newTopic.moveToNewParent(s);
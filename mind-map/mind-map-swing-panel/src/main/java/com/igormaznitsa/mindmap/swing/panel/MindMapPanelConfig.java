@@ -116,9 +116,107 @@ public final class MindMapPanelConfig implements Serializable {
 
   private transient final Map<String, KeyShortcut> mapShortCut = new HashMap<String, KeyShortcut>();
 
+  /**
+   * Fields of parameters are found only once, all copying, comparing, saving
+   * and loading of configuration goes through the table.
+   */
+  private static final Field[] PARAMETER_FIELDS = findParameterFields();
+
+  private transient final boolean readOnly;
+  private transient volatile MindMapPanelConfig snapshot;
+  private transient volatile ScaledFont scaledFont;
+
+  private static final class ScaledFont {
+
+    private final Font base;
+    private final double scale;
+    private final Font font;
+
+    private ScaledFont (@Nonnull final Font base, final double scale) {
+      this.base = base;
+      this.scale = scale;
+      this.font = base.deriveFont(Math.max(2.0f, (float) (scale * (double) base.getSize2D())));
+    }
+  }
+
+  private static final class DefaultConfig {
+
+    private static final MindMapPanelConfig INSTANCE = new MindMapPanelConfig().getSnapshot();
+  }
+
   public MindMapPanelConfig (@Nonnull final MindMapPanelConfig cfg, final boolean copyListeners) {
-    this();
-    this.makeFullCopyOf(cfg, copyListeners, false);
+    this(cfg, copyListeners, false);
+  }
+
+  private MindMapPanelConfig (@Nonnull final MindMapPanelConfig cfg, final boolean copyListeners, final boolean readOnly) {
+    this.readOnly = readOnly;
+    copyParameters(cfg);
+    if (copyListeners) {
+      copyListeners(cfg);
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static Field[] findParameterFields () {
+    final List<Field> result = new ArrayList<Field>();
+    for (final Field f : MindMapPanelConfig.class.getDeclaredFields()) {
+      if ((f.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT | Modifier.FINAL)) == 0) {
+        result.add(f);
+      }
+    }
+    return result.toArray(new Field[result.size()]);
+  }
+
+  /**
+   * Get read only copy of the configuration. The copy is made only once and
+   * shared until the configuration is changed, so that it can be given to
+   * exporters, printing and background rendering without copying.
+   *
+   * @return read only snapshot of the current state, the same object for
+   * read only configuration
+   * @since 1.4.2
+   */
+  @Nonnull
+  public MindMapPanelConfig getSnapshot () {
+    if (this.readOnly) {
+      return this;
+    }
+    MindMapPanelConfig result = this.snapshot;
+    if (result == null) {
+      result = new MindMapPanelConfig(this, false, true);
+      this.snapshot = result;
+    }
+    return result;
+  }
+
+  public boolean isReadOnly () {
+    return this.readOnly;
+  }
+
+  private void assertWritable () {
+    if (this.readOnly) {
+      throw new IllegalStateException("Configuration snapshot is read only"); //NOI18N
+    }
+  }
+
+  /**
+   * Get the configuration font scaled for the current scale. The derived font
+   * is cached until the font or the scale is changed.
+   *
+   * @return scaled font, its size is not less than 2
+   * @since 1.4.2
+   */
+  @Nonnull
+  public Font getScaledFont () {
+    final Font base = this.font;
+    final double theScale = this.scale;
+    ScaledFont result = this.scaledFont;
+    if (result == null || result.base != base || Double.compare(result.scale, theScale) != 0) {
+      result = new ScaledFont(base, theScale);
+      this.scaledFont = result;
+    }
+    return result.font;
   }
 
   public boolean isKeyEvent(@Nonnull final String id, @Nonnull final KeyEvent event, final int modifiersMask){
@@ -136,19 +234,40 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setKeyShortCut (@Nonnull final KeyShortcut shortCut) {
+    assertWritable();
+    this.snapshot = null;
     this.mapShortCut.put(shortCut.getID(), shortCut);
   }
 
+  /**
+   * Make hash of parameters, it is the same for configurations without
+   * difference in parameters between sessions, so that it can be used as a part
+   * of key for cached rendering results. Key shortcuts are not included.
+   *
+   * @return hash of parameters
+   * @since 1.4.2
+   */
+  public int makeParametersHash () {
+    int result = 1;
+    for (final Field f : PARAMETER_FIELDS) {
+      try {
+        final Object value = f.get(this);
+        result = 31 * result + (value == null ? 0 : value.hashCode());
+      }
+      catch (IllegalAccessException ex) {
+        throw new Error("IllegalAccessException [" + f.getName() + ']', ex);
+      }
+    }
+    return result;
+  }
+
   @Nullable
   public Map<String,KeyShortcut> getKeyShortcutMap(){
     return new HashMap<String, KeyShortcut>(this.mapShortCut);
   }
   
   public boolean hasDifferenceInParameters (@Nonnull final MindMapPanelConfig etalon) {
-    for (final Field f : MindMapPanelConfig.class.getDeclaredFields()) {
-      if ((f.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT | Modifier.FINAL)) != 0) {
-        continue;
-      }
+    for (final Field f : PARAMETER_FIELDS) {
       try {
         final Object thisValue = f.get(this);
         final Object thatValue = f.get(etalon);
@@ -187,11 +306,7 @@ public final class MindMapPanelConfig implements Serializable {
     if (prefs != null) {
       final String prefix = MindMapPanelConfig.class.getSimpleName();
 
-      for (final Field f : MindMapPanelConfig.class.getDeclaredFields()) {
-        if ((f.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT | Modifier.FINAL)) != 0) {
-          continue;
-        }
-
+      for (final Field f : PARAMETER_FIELDS) {
         final Class<?> fieldClass = f.getType();
         final String fieldName = prefix + '.' + f.getName();
 
@@ -242,15 +357,13 @@ public final class MindMapPanelConfig implements Serializable {
   @Nullable
   public Preferences loadFrom (@Nullable final Preferences prefs) {
     if (prefs != null) {
+      assertWritable();
+      this.snapshot = null;
       final String prefix = MindMapPanelConfig.class.getSimpleName();
 
-      final MindMapPanelConfig etalon = new MindMapPanelConfig();
-
-      for (final Field f : MindMapPanelConfig.class.getDeclaredFields()) {
-        if ((f.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT | Modifier.FINAL)) != 0) {
-          continue;
-        }
+      final MindMapPanelConfig etalon = DefaultConfig.INSTANCE;
 
+      for (final Field f : PARAMETER_FIELDS) {
         final Class<?> fieldClass = f.getType();
         final String fieldName = prefix + '.' + f.getName();
 
@@ -318,6 +431,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
   
   public void makeAtomicChange (@Nonnull final Runnable runnable) {
+    assertWritable();
     this.notificationEnabled = false;
     try {
       runnable.run();
@@ -335,37 +449,44 @@ public final class MindMapPanelConfig implements Serializable {
 
   public void makeFullCopyOf (@Nullable final MindMapPanelConfig src, final boolean copyListeners, final boolean makeNotification) {
     if (src != null) {
-      for (final Field f : MindMapPanelConfig.class.getDeclaredFields()) {
-        if (f.getName().equals("listeners")) { //NOI18N
-          if (copyListeners) {
-            this.listeners.clear();
-            for (final WeakReference<MindMapConfigListener> weakContainer : src.listeners) {
-              final MindMapConfigListener theListener = weakContainer.get();
-              if (theListener != null) {
-                this.listeners.add(new WeakReference<MindMapConfigListener>(theListener));
-              }
-            }
-          }
-        }
-        else if ((f.getModifiers() & (Modifier.STATIC | Modifier.FINAL)) == 0) {
-          try {
-            f.set(this, f.get(src));
-          }
-          catch (Exception ex) {
-            throw new Error("Unexpected state during cloning field " + f, ex); //NOI18N
-          }
-        }
+      assertWritable();
+      this.snapshot = null;
+      copyParameters(src);
+      if (copyListeners) {
+        copyListeners(src);
       }
 
-      this.mapShortCut.clear();
-      this.mapShortCut.putAll(src.mapShortCut);
-
       if (makeNotification) {
         this.notifyCfgListenersAboutChange();
       }
     }
   }
 
+  private void copyParameters (@Nonnull final MindMapPanelConfig src) {
+    for (final Field f : PARAMETER_FIELDS) {
+      try {
+        f.set(this, f.get(src));
+      }
+      catch (Exception ex) {
+        throw new Error("Unexpected state during cloning field " + f, ex); //NOI18N
+      }
+    }
+    this.scaledFont = src.scaledFont;
+
+    this.mapShortCut.clear();
+    this.mapShortCut.putAll(src.mapShortCut);
+  }
+
+  private void copyListeners (@Nonnull final MindMapPanelConfig src) {
+    this.listeners.clear();
+    for (final WeakReference<MindMapConfigListener> weakContainer : src.listeners) {
+      final MindMapConfigListener theListener = weakContainer.get();
+      if (theListener != null) {
+        this.listeners.add(new WeakReference<MindMapConfigListener>(theListener));
+      }
+    }
+  }
+
   public void addConfigurationListener (@Nonnull final MindMapConfigListener l) {
     this.listeners.add(new WeakReference<MindMapConfigListener>(assertNotNull(l)));
   }
@@ -395,6 +516,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   private void notifyCfgListenersAboutChange () {
+    this.snapshot = null;
     if (this.notificationEnabled) {
       for (final WeakReference<MindMapConfigListener> l : this.listeners) {
         final MindMapConfigListener c = l.get();
@@ -406,6 +528,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public MindMapPanelConfig() {
+    this.readOnly = false;
     if (SystemUtils.IS_OS_MAC) {
       // key map for MAC
       this.mapShortCut.put(KEY_ADD_CHILD_AND_START_EDIT, new KeyShortcut(KEY_ADD_CHILD_AND_START_EDIT, KeyEvent.VK_TAB, 0));
@@ -474,6 +597,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setHorizontalBlockGap (final int gap) {
+    assertWritable();
     this.horizontalBlockGap = gap;
     notifyCfgListenersAboutChange();
   }
@@ -483,6 +607,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setSelectLineWidth (final float f) {
+    assertWritable();
     this.selectLineWidth = f;
     notifyCfgListenersAboutChange();
   }
@@ -492,6 +617,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setJumpLinkWidth (final float f) {
+    assertWritable();
     this.jumpLinkWidth = f;
     notifyCfgListenersAboutChange();
   }
@@ -502,6 +628,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setJumpLinkColor (@Nonnull final Color color) {
+    assertWritable();
     this.jumpLinkColor = color;
     notifyCfgListenersAboutChange();
   }
@@ -511,6 +638,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setScaleModifiers (final int value) {
+    assertWritable();
     this.scaleModifiers = value;
     notifyCfgListenersAboutChange();
   }
@@ -522,11 +650,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setSelectLineColor (@Nonnull final Color color) {
+    assertWritable();
     this.selectLineColor = color;
     notifyCfgListenersAboutChange();
   }
 
   public void setPaperMargins (final int size) {
+    assertWritable();
     this.paperMargins = size;
     notifyCfgListenersAboutChange();
   }
@@ -540,11 +670,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setDrawBackground (final boolean flag) {
+    assertWritable();
     this.drawBackground = flag;
     notifyCfgListenersAboutChange();
   }
 
   public void setOtherLevelVerticalInset (final int value) {
+    assertWritable();
     this.otherLevelVerticalInset = value;
     notifyCfgListenersAboutChange();
   }
@@ -554,6 +686,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setOtherLevelHorizontalInset (final int value) {
+    assertWritable();
     this.otherLevelHorizontalInset = value;
     notifyCfgListenersAboutChange();
   }
@@ -563,6 +696,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setFirstLevelVerticalInset (final int value) {
+    assertWritable();
     this.firstLevelVerticalInset = value;
     notifyCfgListenersAboutChange();
   }
@@ -572,6 +706,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setFirstLevelHorizontalInset (final int value) {
+    assertWritable();
     this.firstLevelHorizontalInset = value;
     notifyCfgListenersAboutChange();
   }
@@ -586,11 +721,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setPaperColor (@Nonnull final Color color) {
+    assertWritable();
     this.paperColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
 
   public void setGridColor (@Nonnull final Color color) {
+    assertWritable();
     this.gridColor = color;
     notifyCfgListenersAboutChange();
   }
@@ -601,6 +738,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setShowGrid (final boolean flag) {
+    assertWritable();
     this.showGrid = flag;
     notifyCfgListenersAboutChange();
   }
@@ -610,6 +748,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setGridStep (final int step) {
+    assertWritable();
     this.gridStep = step;
     notifyCfgListenersAboutChange();
   }
@@ -619,6 +758,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setRootBackgroundColor (@Nonnull final Color color) {
+    assertWritable();
     this.rootBackgroundColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
@@ -634,11 +774,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setFirstLevelBackgroundColor (@Nonnull final Color color) {
+    assertWritable();
     this.firstLevelBackgroundColor = color;
     notifyCfgListenersAboutChange();
   }
 
   public void setOtherLevelBackgroundColor (@Nonnull final Color color) {
+    assertWritable();
     this.otherLevelBackgroundColor = color;
     notifyCfgListenersAboutChange();
   }
@@ -654,11 +796,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setRootTextColor (@Nonnull final Color color) {
+    assertWritable();
     this.rootTextColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
 
   public void setFirstLevelTextColor (@Nonnull final Color color) {
+    assertWritable();
     this.firstLevelTextColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
@@ -674,6 +818,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setOtherLevelTextColor (@Nonnull final Color color) {
+    assertWritable();
     this.otherLevelTextColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
@@ -684,11 +829,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setElementBorderColor (@Nonnull final Color color) {
+    assertWritable();
     this.elementBorderColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
 
   public void setConnectorColor (@Nonnull final Color color) {
+    assertWritable();
     this.connectorColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
@@ -699,6 +846,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setShadowColor (@Nonnull final Color color) {
+    assertWritable();
     this.shadowColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
@@ -714,6 +862,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setCollapsatorBorderColor (@Nonnull final Color color) {
+    assertWritable();
     this.collapsatorBorderColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
@@ -724,11 +873,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setCollapsatorBackgroundColor (@Nonnull final Color color) {
+    assertWritable();
     this.collapsatorBackgroundColor = assertNotNull(color);
     notifyCfgListenersAboutChange();
   }
 
   public void setElementBorderWidth (final float value) {
+    assertWritable();
     this.elementBorderWidth = value;
     notifyCfgListenersAboutChange();
   }
@@ -746,10 +897,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setShadowOffset (final float value) {
+    assertWritable();
     this.shadowOffset = value;
+    notifyCfgListenersAboutChange();
   }
 
   public void setCollapsatorBorderWidth (final float width) {
+    assertWritable();
     this.collapsatorBorderWidth = width;
     notifyCfgListenersAboutChange();
   }
@@ -759,11 +913,13 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setConnectorWidth (final float value) {
+    assertWritable();
     this.connectorWidth = value;
     notifyCfgListenersAboutChange();
   }
 
   public void setFont (@Nonnull final Font f) {
+    assertWritable();
     this.font = assertNotNull(f);
     notifyCfgListenersAboutChange();
   }
@@ -778,6 +934,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setScale (final double value) {
+    assertWritable();
     this.scale = Math.max(0.01d, value);
     notifyCfgListenersAboutChange();
   }
@@ -787,6 +944,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setDropShadow (final boolean value) {
+    assertWritable();
     this.dropShadow = value;
     notifyCfgListenersAboutChange();
   }
@@ -796,6 +954,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setCollapsatorSize (final int size) {
+    assertWritable();
     this.collapsatorSize = size;
     notifyCfgListenersAboutChange();
   }
@@ -805,6 +964,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setTextMargins (final int value) {
+    assertWritable();
     this.textMargins = value;
     notifyCfgListenersAboutChange();
   }
@@ -814,6 +974,7 @@ public final class MindMapPanelConfig implements Serializable {
   }
 
   public void setSelectLineGap (final int value) {
+    assertWritable();
     this.selectLineGap = value;
     notifyCfgListenersAboutChange();
   }
@@ -15,13 +15,29 @@
  */
 package com.igormaznitsa.mindmap.swing.panel;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import javax.annotation.Nonnull;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.cache.BinaryMindMapFormat;
 
 /**
  * Auxiliary container to transfer topics through clipboard.
+ * <p>
+ * Inside JVM the container is passed by reference and shares its detached
+ * topics with all pastes, every paste must make own copy of them. For
+ * serialization the topics are packed into compact binary form without any
+ * reference to their mind map. Serialized form of previous versions (graph of
+ * topics with their mind map) is not supported, it could not be deserialized
+ * because of cyclic references between topics and mind map.
+ *
  * @since 1.3.1
  */
 public final class NBMindMapTopicsContainer implements Serializable {
@@ -43,4 +59,49 @@ public final class NBMindMapTopicsContainer implements Serializable {
     return this.topics.clone();
   }
 
+  @Nonnull
+  private Object writeReplace() throws ObjectStreamException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try {
+      BinaryMindMapFormat.writeTopics(this.topics, buffer);
+    }
+    catch (IOException ex) {
+      final InvalidObjectException error = new InvalidObjectException("Can't pack topics");
+      error.initCause(ex);
+      throw error;
+    }
+    return new PackedTopics(buffer.toByteArray());
+  }
+
+  private void readObject(@Nonnull final ObjectInputStream in) throws InvalidObjectException {
+    throw new InvalidObjectException("Packed form is expected, serialized form of versions before 1.4.2 is not supported");
+  }
+
+  /**
+   * Serialized form of the container.
+   *
+   * @since 1.4.2
+   */
+  private static final class PackedTopics implements Serializable {
+
+    private static final long serialVersionUID = 7613370453385421402L;
+
+    private final byte[] data;
+
+    private PackedTopics(@Nonnull final byte[] data) {
+      this.data = data;
+    }
+
+    @Nonnull
+    private Object readResolve() throws ObjectStreamException {
+      try {
+        return new NBMindMapTopicsContainer(BinaryMindMapFormat.readTopics(new MindMap(null, false), ByteBuffer.wrap(this.data)));
+      }
+      catch (IOException ex) {
+        final InvalidObjectException error = new InvalidObjectException("Can't unpack topics");
+        error.initCause(ex);
+        throw error;
+      }
+    }
+  }
 }
@@ -100,7 +100,7 @@ public final class TextBlock implements Cloneable {
   }
   
   public void updateSize(@Nonnull final MMGraphics gfx, @Nonnull final MindMapPanelConfig cfg) {
-      this.font = cfg.getFont().deriveFont(cfg.safeScaleFloatValue(cfg.getFont().getSize2D(),2f));
+      this.font = cfg.getScaledFont();
       gfx.setFont(font);
       
       this.maxLineAscent = gfx.getFontMaxAscent();
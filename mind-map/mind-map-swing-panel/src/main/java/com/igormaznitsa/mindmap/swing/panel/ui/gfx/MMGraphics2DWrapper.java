@@ -25,11 +25,20 @@ import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public class MMGraphics2DWrapper implements MMGraphics {
 
+  /**
+   * Strokes are immutable and there are only few combinations of width and
+   * type during rendering, so that they are shared between all wrappers.
+   */
+  private static final Map<Long, Stroke> STROKE_CACHE = new ConcurrentHashMap<Long, Stroke>();
+  private static final int MAX_CACHED_STROKES = 256;
+
   private final Graphics2D wrapped;
   private StrokeType strokeType = StrokeType.SOLID;
   private float strokeWidth = 1.0f;
@@ -92,24 +101,34 @@ public class MMGraphics2DWrapper implements MMGraphics {
     if (type != this.strokeType || Float.compare(this.strokeWidth, width) != 0) {
       this.strokeType = type;
       this.strokeWidth = width;
+      this.wrapped.setStroke(findStroke(width, type));
+    }
+  }
 
-      final Stroke stroke;
-
+  @Nonnull
+  private static Stroke findStroke(final float width, @Nonnull final StrokeType type) {
+    final Long key = ((long) type.ordinal() << 32) | (Float.floatToIntBits(width) & 0xFFFFFFFFL);
+    Stroke result = STROKE_CACHE.get(key);
+    if (result == null) {
       switch (type) {
         case SOLID:
-          stroke = new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+          result = new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
           break;
         case DASHES:
-          stroke = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{width * 3.0f, width}, 0.0f);
+          result = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{width * 3.0f, width}, 0.0f);
           break;
         case DOTS:
-          stroke = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{width, width * 2.0f}, 0.0f);
+          result = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{width, width * 2.0f}, 0.0f);
           break;
         default:
           throw new Error("Unexpected stroke type : " + type);
       }
-      this.wrapped.setStroke(stroke);
+      if (STROKE_CACHE.size() >= MAX_CACHED_STROKES) {
+        STROKE_CACHE.clear();
+      }
+      STROKE_CACHE.put(key, result);
     }
+    return result;
   }
 
   @Override
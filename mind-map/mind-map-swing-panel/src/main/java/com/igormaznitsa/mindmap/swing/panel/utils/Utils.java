@@ -37,6 +37,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -62,6 +63,10 @@ import javax.swing.tree.TreePath;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.apache.commons.io.IOUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -239,6 +244,206 @@ public final class Utils {
     return resultList;
   }
 
+  /**
+   * Make streaming XML reader for input stream. The Reader is not namespace
+   * aware so that element names contain their prefixes (like 'xhtml:img'), DTD
+   * and external entities are not processed.
+   *
+   * @param inStream stream to read document
+   * @param charset charset to decode stream, if null then encoding will be
+   * detected by XML parser
+   * @return streaming reader positioned at document start
+   * @throws IOException if charset is not supported
+   * @throws XMLStreamException if it is impossible to make reader
+   *
+   * @since 1.4.2
+   */
+  @Nonnull
+  public static XMLStreamReader makeXmlStreamReader(@Nonnull final InputStream inStream, @Nullable final String charset) throws IOException, XMLStreamException {
+    final XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+
+    if (charset == null) {
+      return factory.createXMLStreamReader(inStream);
+    } else {
+      return factory.createXMLStreamReader(new InputStreamReader(inStream, charset));
+    }
+  }
+
+  /**
+   * Close streaming XML reader quietly.
+   *
+   * @param reader reader to be closed, can be null
+   *
+   * @since 1.4.2
+   */
+  public static void closeQuietly(@Nullable final XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      }
+      catch (XMLStreamException ex) {
+        LOGGER.warn("Can't close XML stream reader : " + ex.getMessage()); //NOI18N
+      }
+    }
+  }
+
+  /**
+   * Close zip file quietly.
+   *
+   * @param zipFile zip file to be closed, can be null
+   *
+   * @since 1.4.2
+   */
+  public static void closeQuietly(@Nullable final ZipFile zipFile) {
+    if (zipFile != null) {
+      try {
+        zipFile.close();
+      }
+      catch (IOException ex) {
+        LOGGER.warn("Can't close zip file : " + ex.getMessage()); //NOI18N
+      }
+    }
+  }
+
+  /**
+   * Move streaming reader to the next direct child element of current element.
+   * The Reader must be positioned either on start of the parent element or on
+   * end of a previous child element, so that nested elements of a found child
+   * must be completely read or skipped before next call.
+   *
+   * @param reader streaming XML reader
+   * @return true if reader is positioned on start of next child element, false
+   * if the end of the parent element (or the end of document) has been reached
+   * @throws XMLStreamException if there is any parsing error
+   *
+   * @see #skipXmlElement(javax.xml.stream.XMLStreamReader)
+   * @since 1.4.2
+   */
+  public static boolean nextXmlChildElement(@Nonnull final XMLStreamReader reader) throws XMLStreamException {
+    while (reader.hasNext()) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          return true;
+        case XMLStreamConstants.END_ELEMENT:
+          return false;
+        default:
+          break;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Skip current element together with its nested elements. The Reader must be
+   * positioned on start of the element and will be positioned on its end.
+   *
+   * @param reader streaming XML reader
+   * @throws XMLStreamException if there is any parsing error
+   *
+   * @since 1.4.2
+   */
+  public static void skipXmlElement(@Nonnull final XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Read whole text content of current element including text of its nested
+   * elements. The Reader must be positioned on start of the element and will
+   * be positioned on its end.
+   *
+   * @param reader streaming XML reader
+   * @return collected text content, can be empty
+   * @throws XMLStreamException if there is any parsing error
+   *
+   * @since 1.4.2
+   */
+  @Nonnull
+  public static String readXmlElementText(@Nonnull final XMLStreamReader reader) throws XMLStreamException {
+    final StringBuilder result = new StringBuilder();
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          result.append(reader.getText());
+          break;
+        default:
+          break;
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Get name of current element with its prefix.
+   *
+   * @param reader streaming XML reader positioned on an element
+   * @return element name, like 'xhtml:img'
+   *
+   * @since 1.4.2
+   */
+  @Nonnull
+  public static String getXmlElementName(@Nonnull final XMLStreamReader reader) {
+    final String prefix = reader.getPrefix();
+    final String name = reader.getLocalName();
+    return prefix == null || prefix.isEmpty() ? name : prefix + ':' + name;
+  }
+
+  /**
+   * Get attribute value of current element, the same as
+   * {@link Element#getAttribute(java.lang.String)}.
+   *
+   * @param reader streaming XML reader positioned on start of an element
+   * @param name attribute name with prefix, like 'xhtml:src'
+   * @return attribute value or empty string if not found
+   *
+   * @since 1.4.2
+   */
+  @Nonnull
+  public static String getXmlAttribute(@Nonnull final XMLStreamReader reader, @Nonnull final String name) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      final String prefix = reader.getAttributePrefix(i);
+      final String localName = reader.getAttributeLocalName(i);
+      final boolean found;
+      if (prefix == null || prefix.isEmpty()) {
+        found = name.equals(localName);
+      } else {
+        found = name.length() == prefix.length() + localName.length() + 1
+            && name.startsWith(prefix)
+            && name.charAt(prefix.length()) == ':'
+            && name.endsWith(localName);
+      }
+      if (found) {
+        return reader.getAttributeValue(i);
+      }
+    }
+    return "";
+  }
+
   /**
    * Get max image size.
    *
@@ -0,0 +1,471 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.services;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Dimension2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import org.apache.commons.io.FileUtils;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+
+/**
+ * Service renders small previews of mind map files. Rendering is made by one
+ * low priority daemon thread which pauses after every rendering to keep its
+ * share of CPU time in the budget, so that a caller (as a rule a tree renderer)
+ * is never blocked. Rendered thumbnails are kept in memory and in a cache
+ * folder where they are named by hash of the file content and hash of the
+ * configuration, so that a map is rendered again only if its content or the
+ * configuration has been changed. Old thumbnails are removed from the cache
+ * folder in background when the service is started.
+ *
+ * @since 1.4.2
+ */
+public final class MindMapThumbnailService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MindMapThumbnailService.class);
+
+  /**
+   * Default max size of thumbnail side in pixels.
+   */
+  public static final int DEFAULT_SIZE = 192;
+
+  /**
+   * Default share of CPU time which can be used by the rendering thread.
+   */
+  public static final double DEFAULT_CPU_BUDGET = 0.25d;
+
+  private static final int MAX_RECORDS_IN_MEMORY = 64;
+  private static final long MAX_CACHE_AGE_MS = 30L * 24L * 60L * 60L * 1000L;
+  private static final long MAX_CACHE_BYTES = 32L * 1024L * 1024L;
+  private static final long MAX_PAUSE_MS = 5000L;
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  /**
+   * Listener to get notification about ready thumbnail, it is called on the
+   * Swing event dispatch thread.
+   */
+  public interface ThumbnailListener {
+
+    void onThumbnailReady(@Nonnull File mapFile, @Nonnull BufferedImage thumbnail, @Nullable File cacheFile);
+  }
+
+  private static final class Settings {
+
+    private final MindMapPanelConfig config;
+    private final String hash;
+
+    private Settings(@Nonnull final MindMapPanelConfig config) {
+      this.config = config.getSnapshot();
+      this.hash = Integer.toHexString(this.config.makeParametersHash());
+    }
+  }
+
+  private static final class Record {
+
+    private final long lastModified;
+    private final long length;
+    private final String configHash;
+    private final BufferedImage image;
+    private final File cacheFile;
+
+    private Record(final long lastModified, final long length, @Nonnull final String configHash, @Nonnull final BufferedImage image, @Nullable final File cacheFile) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.configHash = configHash;
+      this.image = image;
+      this.cacheFile = cacheFile;
+    }
+
+    private boolean isActualFor(@Nonnull final File file, @Nonnull final String configHash) {
+      return this.lastModified == file.lastModified() && this.length == file.length() && this.configHash.equals(configHash);
+    }
+  }
+
+  private final File cacheFolder;
+  private volatile Settings settings;
+  private final int maxSize;
+  private final double cpuBudget;
+  private final ThreadPoolExecutor executor;
+
+  private final Map<File, Record> records = new LinkedHashMap<File, Record>(16, 0.75f, true) {
+    private static final long serialVersionUID = -2198347123408718234L;
+
+    @Override
+    protected boolean removeEldestEntry(@Nonnull final Map.Entry<File, Record> eldest) {
+      return this.size() > MAX_RECORDS_IN_MEMORY;
+    }
+  };
+
+  private final Map<File, List<ThumbnailListener>> pending = new HashMap<File, List<ThumbnailListener>>();
+
+  /**
+   * Constructor.
+   *
+   * @param cacheFolder folder to keep rendered thumbnails, can be null if
+   * thumbnails should be kept only in memory
+   * @param config configuration to render maps, the service keeps its snapshot
+   * @param maxSize max size of thumbnail side in pixels
+   * @param cpuBudget share of CPU time for rendering thread, from 0 exclusive to
+   * 1 inclusive
+   */
+  public MindMapThumbnailService(@Nullable final File cacheFolder, @Nonnull final MindMapPanelConfig config, final int maxSize, final double cpuBudget) {
+    this.cacheFolder = cacheFolder;
+    this.settings = new Settings(config);
+    this.maxSize = Math.max(16, maxSize);
+    this.cpuBudget = Math.max(0.01d, Math.min(1.0d, cpuBudget));
+    this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      @Override
+      @Nonnull
+      public Thread newThread(@Nonnull final Runnable r) {
+        final Thread result = new Thread(r, "mmd-thumbnail-" + THREAD_COUNTER.incrementAndGet()); //NOI18N
+        result.setDaemon(true);
+        result.setPriority(Thread.MIN_PRIORITY);
+        return result;
+      }
+    });
+
+    if (cacheFolder != null) {
+      this.executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          pruneCacheFolder(cacheFolder, System.currentTimeMillis() - MAX_CACHE_AGE_MS, MAX_CACHE_BYTES);
+        }
+      });
+    }
+  }
+
+  public int getMaxSize() {
+    return this.maxSize;
+  }
+
+  /**
+   * Replace configuration used to render maps, the service keeps its snapshot.
+   * Thumbnails rendered for another configuration are still returned until new
+   * ones are ready.
+   *
+   * @param config new configuration to render maps
+   * @since 1.4.2
+   */
+  public void setConfig(@Nonnull final MindMapPanelConfig config) {
+    final Settings newSettings = new Settings(config);
+    if (!newSettings.hash.equals(this.settings.hash)) {
+      this.settings = newSettings;
+    }
+  }
+
+  /**
+   * Get thumbnail of mind map file. If there is no thumbnail for the current
+   * state of the file then its rendering is scheduled and the listener will be
+   * notified when it is ready.
+   *
+   * @param mapFile mind map file
+   * @param listener listener to be notified if thumbnail is not ready, can be
+   * null
+   * @return thumbnail for the file, it can be thumbnail of previous state of
+   * the file, null if there is not any thumbnail yet
+   */
+  @Nullable
+  public BufferedImage getThumbnail(@Nonnull final File mapFile, @Nullable final ThumbnailListener listener) {
+    final Record record = findRecord(mapFile, listener);
+    return record == null ? null : record.image;
+  }
+
+  /**
+   * Get file of cached thumbnail of mind map file, it can be used in HTML
+   * tooltips. Works in the same way as
+   * {@link #getThumbnail(java.io.File, ThumbnailListener)}.
+   *
+   * @param mapFile mind map file
+   * @param listener listener to be notified if thumbnail is not ready, can be
+   * null
+   * @return PNG file of thumbnail or null if there is no cached thumbnail
+   */
+  @Nullable
+  public File getThumbnailFile(@Nonnull final File mapFile, @Nullable final ThumbnailListener listener) {
+    final Record record = findRecord(mapFile, listener);
+    return record == null ? null : record.cacheFile;
+  }
+
+  /**
+   * Stop rendering thread, scheduled tasks are dropped.
+   */
+  public void dispose() {
+    this.executor.shutdownNow();
+    synchronized (this.pending) {
+      this.pending.clear();
+    }
+  }
+
+  /**
+   * Remove too old thumbnails from cache folder and then the least recently
+   * used ones while the folder is too big.
+   *
+   * @param folder cache folder
+   * @param minLastModified thumbnails modified before the time are removed
+   * @param maxBytes max total size of thumbnails
+   */
+  static void pruneCacheFolder(@Nonnull final File folder, final long minLastModified, final long maxBytes) {
+    final File[] files = folder.listFiles();
+    if (files == null) {
+      return;
+    }
+    final long[] modified = new long[files.length];
+    final Integer[] order = new Integer[files.length];
+    for (int i = 0; i < files.length; i++) {
+      modified[i] = files[i].lastModified();
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(@Nonnull final Integer o1, @Nonnull final Integer o2) {
+        final long m1 = modified[o1];
+        final long m2 = modified[o2];
+        return m1 < m2 ? 1 : (m1 == m2 ? 0 : -1);
+      }
+    });
+
+    long totalSize = 0L;
+    for (final Integer i : order) {
+      final File f = files[i];
+      if (!f.isFile() || !(f.getName().endsWith(".png") || f.getName().endsWith(".tmp"))) { //NOI18N
+        continue;
+      }
+      final long length = f.length();
+      if (modified[i] < minLastModified || totalSize + length > maxBytes || f.getName().endsWith(".tmp")) { //NOI18N
+        if (!f.delete()) {
+          LOGGER.warn("Can't delete thumbnail cache file " + f); //NOI18N
+        }
+      } else {
+        totalSize += length;
+      }
+    }
+  }
+
+  @Nullable
+  private Record findRecord(@Nonnull final File mapFile, @Nullable final ThumbnailListener listener) {
+    final Record record;
+    synchronized (this.records) {
+      record = this.records.get(mapFile);
+    }
+    if ((record == null || !record.isActualFor(mapFile, this.settings.hash)) && mapFile.isFile()) {
+      schedule(mapFile, listener);
+    }
+    return record;
+  }
+
+  private void schedule(@Nonnull final File mapFile, @Nullable final ThumbnailListener listener) {
+    if (this.executor.isShutdown()) {
+      return;
+    }
+    synchronized (this.pending) {
+      List<ThumbnailListener> listeners = this.pending.get(mapFile);
+      if (listeners == null) {
+        listeners = new ArrayList<ThumbnailListener>(1);
+        this.pending.put(mapFile, listeners);
+        this.executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            process(mapFile);
+          }
+        });
+      }
+      if (listener != null && !listeners.contains(listener)) {
+        listeners.add(listener);
+      }
+    }
+  }
+
+  private void process(@Nonnull final File mapFile) {
+    final long start = System.nanoTime();
+    Record record = null;
+    try {
+      record = makeRecord(mapFile);
+    } catch (IOException ex) {
+      LOGGER.warn("Can't make thumbnail for " + mapFile + " : " + ex.getMessage()); //NOI18N
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Can't render thumbnail for " + mapFile + " : " + ex.getMessage()); //NOI18N
+    }
+
+    final List<ThumbnailListener> listeners;
+    synchronized (this.pending) {
+      listeners = this.pending.remove(mapFile);
+    }
+
+    if (record != null) {
+      synchronized (this.records) {
+        this.records.put(mapFile, record);
+      }
+      if (listeners != null && !listeners.isEmpty()) {
+        final Record ready = record;
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            for (final ThumbnailListener l : listeners) {
+              l.onThumbnailReady(mapFile, ready.image, ready.cacheFile);
+            }
+          }
+        });
+      }
+    }
+
+    keepCpuBudget(System.nanoTime() - start);
+  }
+
+  private void keepCpuBudget(final long spentNanos) {
+    if (this.cpuBudget < 1.0d) {
+      final long pause = Math.min(MAX_PAUSE_MS, (long) (TimeUnit.NANOSECONDS.toMillis(spentNanos) * (1.0d - this.cpuBudget) / this.cpuBudget));
+      if (pause > 0L) {
+        try {
+          Thread.sleep(pause);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  @Nullable
+  private Record makeRecord(@Nonnull final File mapFile) throws IOException {
+    final long lastModified = mapFile.lastModified();
+    final long length = mapFile.length();
+    final byte[] content = FileUtils.readFileToByteArray(mapFile);
+    final Settings current = this.settings;
+
+    final File cacheFile = this.cacheFolder == null ? null : new File(this.cacheFolder, makeHash(content) + '_' + current.hash + '_' + this.maxSize + ".png"); //NOI18N
+
+    if (cacheFile != null && cacheFile.isFile()) {
+      final BufferedImage cached = ImageIO.read(cacheFile);
+      if (cached != null) {
+        if (!cacheFile.setLastModified(System.currentTimeMillis())) {
+          LOGGER.warn("Can't touch thumbnail cache file " + cacheFile); //NOI18N
+        }
+        return new Record(lastModified, length, current.hash, cached, cacheFile);
+      }
+    }
+
+    final MindMap map = new MindMap(null, new StringReader(new String(content, "UTF-8"))); //NOI18N
+    final BufferedImage image = render(map, current.config);
+    if (image == null) {
+      return null;
+    }
+
+    File savedFile = null;
+    if (cacheFile != null) {
+      if (this.cacheFolder.isDirectory() || this.cacheFolder.mkdirs()) {
+        final File tempFile = new File(this.cacheFolder, cacheFile.getName() + ".tmp"); //NOI18N
+        if (ImageIO.write(image, "png", tempFile) && (tempFile.renameTo(cacheFile) || cacheFile.isFile())) { //NOI18N
+          savedFile = cacheFile;
+        }
+        FileUtils.deleteQuietly(tempFile);
+      } else {
+        LOGGER.warn("Can't create thumbnail cache folder " + this.cacheFolder); //NOI18N
+      }
+    }
+    return new Record(lastModified, length, current.hash, image, savedFile);
+  }
+
+  @Nullable
+  private BufferedImage render(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig config) {
+    final MindMapPanelConfig cfg = new MindMapPanelConfig(config, false);
+    cfg.setScale(1.0d);
+
+    final Dimension2D size = MindMapPanel.calculateSizeOfMapInPixels(map, null, cfg, false);
+    if (size == null) {
+      return null;
+    }
+
+    final double maxSide = Math.max(size.getWidth(), size.getHeight());
+    if (maxSide > this.maxSize) {
+      cfg.setScale(this.maxSize / maxSide);
+    }
+
+    final BufferedImage rendered = MindMapPanel.renderMindMapAsImage(map, cfg, false);
+    return rendered == null ? null : fitToMaxSize(rendered);
+  }
+
+  /**
+   * Scale down image if it is still too big because of the min scale of the
+   * configuration.
+   */
+  @Nonnull
+  private BufferedImage fitToMaxSize(@Nonnull final BufferedImage image) {
+    final int side = Math.max(image.getWidth(), image.getHeight());
+    if (side <= this.maxSize) {
+      return image;
+    }
+    final double k = (double) this.maxSize / (double) side;
+    final int width = Math.max(1, (int) Math.round(image.getWidth() * k));
+    final int height = Math.max(1, (int) Math.round(image.getHeight() * k));
+
+    final BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = result.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g.drawImage(image, 0, 0, width, height, null);
+    } finally {
+      g.dispose();
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static String makeHash(@Nonnull final byte[] content) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest(content); //NOI18N
+      final StringBuilder result = new StringBuilder(digest.length * 2);
+      for (final byte b : digest) {
+        final int value = b & 0xFF;
+        if (value < 0x10) {
+          result.append('0');
+        }
+        result.append(Integer.toHexString(value));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new Error("SHA-1 is not supported", ex); //NOI18N
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import org.junit.Test;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraLink;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.swing.panel.ui.AbstractCollapsableElement;
+import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
+
+public class CoggleMM2MindMapImporterTest {
+
+  private static final CoggleMM2MindMapImporter INSTANCE = new CoggleMM2MindMapImporter();
+
+  private static MindMap parse(final String text) throws Exception {
+    return INSTANCE.extractTopics(new ByteArrayInputStream(text.getBytes("UTF-8")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testExtractTopics_NotCoggle() throws Exception {
+    parse("<nomap><node TEXT=\"root\"/></nomap>");
+  }
+
+  @Test
+  public void testExtractTopics_Empty() throws Exception {
+    final MindMap result = parse("<map version=\"0.9.0\"></map>");
+    assertEquals("Empty", result.getRoot().getText());
+    assertEquals(0, result.getRoot().getChildren().size());
+  }
+
+  @Test
+  public void testExtractTopics_TreeLinksAndNotes() throws Exception {
+    final MindMap result = parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<map version=\"0.9.0\">\n"
+        + "<node TEXT=\"Root\">\n"
+        + "  <node TEXT=\"Go to [site](http://www.igormaznitsa.com)\" POSITION=\"left\" FOLDED=\"true\">\n"
+        + "    <edge COLOR=\"#ff0000\"/>\n"
+        + "    <node TEXT=\"Deep\"/>\n"
+        + "  </node>\n"
+        + "  <node TEXT=\"[one](http://one.com) and [two](http://two.com)\" POSITION=\"right\"/>\n"
+        + "</node>\n"
+        + "<node TEXT=\"Ignored\"/>\n"
+        + "</map>");
+
+    final Topic root = result.getRoot();
+    assertEquals("Root", root.getText());
+    assertEquals(2, root.getChildren().size());
+
+    final Topic first = root.getChildren().get(0);
+    assertEquals("Go to site", first.getText());
+    assertTrue(AbstractCollapsableElement.isLeftSidedTopic(first));
+    assertTrue(MindMapUtils.isCollapsed(first));
+    assertEquals("#FF0000", first.getAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText()));
+    assertEquals("http://www.igormaznitsa.com", ((ExtraLink) first.getExtras().get(Extra.ExtraType.LINK)).getValue().asString(false, false));
+    assertNull(first.getExtras().get(Extra.ExtraType.NOTE));
+    assertEquals(1, first.getChildren().size());
+    assertEquals("Deep", first.getChildren().get(0).getText());
+
+    final Topic second = root.getChildren().get(1);
+    assertEquals("one and two", second.getText());
+    assertFalse(AbstractCollapsableElement.isLeftSidedTopic(second));
+    assertEquals("http://one.com", ((ExtraLink) second.getExtras().get(Extra.ExtraType.LINK)).getValue().asString(false, false));
+    assertEquals("Detected URLs\n---------------\nhttp://one.com\nhttp://two.com", ((ExtraNote) second.getExtras().get(Extra.ExtraType.NOTE)).getValue());
+  }
+}
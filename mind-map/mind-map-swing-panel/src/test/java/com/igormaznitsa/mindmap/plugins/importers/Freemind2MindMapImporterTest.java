@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import org.junit.Test;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+
+public class Freemind2MindMapImporterTest {
+
+  private static final Freemind2MindMapImporter INSTANCE = new Freemind2MindMapImporter();
+
+  private static MindMap parse(final String text) throws Exception {
+    return INSTANCE.extractTopics(new File("."), new ByteArrayInputStream(text.getBytes("UTF-8")));
+  }
+
+  @Test
+  public void testExtractTopics_Empty() throws Exception {
+    final MindMap result = parse("<map version=\"1.0.1\"></map>");
+    assertEquals("Empty", result.getRoot().getText());
+    assertEquals(0, result.getRoot().getChildren().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testExtractTopics_NotFreemind() throws Exception {
+    parse("<nomap><node TEXT=\"root\"/></nomap>");
+  }
+
+  @Test
+  public void testExtractTopics_TreeRichContentAndLinks() throws Exception {
+    final MindMap result = parse("<?xml version=\"1.0\"?>\n"
+        + "<map version=\"1.0.1\">\n"
+        + "<!-- some comment -->\n"
+        + "<node TEXT=\"root\" ID=\"ID_1\">\n"
+        + "  <node TEXT=\"first\" ID=\"ID_2\" POSITION=\"left\">\n"
+        + "    <arrowlink DESTINATION=\"ID_4\"/>\n"
+        + "    <node TEXT=\"first.1\" ID=\"ID_3\"/>\n"
+        + "  </node>\n"
+        + "  <node ID=\"ID_4\">\n"
+        + "    <richcontent TYPE=\"NODE\"><html><head><title>nope</title></head><body><p>rich</p><p>text</p></body></html></richcontent>\n"
+        + "    <richcontent TYPE=\"NOTE\"><html><body>some <b>note</b></body></html></richcontent>\n"
+        + "    <richcontent TYPE=\"UNKNOWN\"><html><body>ignored</body></html></richcontent>\n"
+        + "  </node>\n"
+        + "</node>\n"
+        + "<node TEXT=\"ignored\"/>\n"
+        + "</map>");
+
+    final Topic root = result.getRoot();
+    assertEquals("root", root.getText());
+    assertEquals(2, root.getChildren().size());
+
+    final Topic first = root.getChildren().get(0);
+    assertEquals("first", first.getText());
+    assertEquals(1, first.getChildren().size());
+    assertEquals("first.1", first.getChildren().get(0).getText());
+
+    final Topic second = root.getChildren().get(1);
+    assertEquals("rich\ntext", second.getText());
+    assertEquals("some note", ((ExtraNote) second.getExtras().get(Extra.ExtraType.NOTE)).getValue());
+
+    final ExtraTopic link = (ExtraTopic) first.getExtras().get(Extra.ExtraType.TOPIC);
+    assertNotNull(link);
+    assertSame(second, result.findTopicForLink(link));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraLink;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.swing.panel.ui.AbstractCollapsableElement;
+
+public class Mindmup2MindMapImporterTest {
+
+  private static final Mindmup2MindMapImporter INSTANCE = new Mindmup2MindMapImporter();
+
+  private static MindMap parse(final String text) throws Exception {
+    return INSTANCE.extractTopics(new StringReader(text));
+  }
+
+  @Test
+  public void testExtractTopics_NoFormatVersion() throws Exception {
+    assertNull(parse("{\"id\":1,\"ideas\":{\"1\":{\"title\":\"root\"}}}"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testExtractTopics_BrokenJson() throws Exception {
+    parse("{\"formatVersion\":2,\"ideas\":{\"1\":{\"title\":\"root\"]}}");
+  }
+
+  @Test
+  public void testExtractTopics_TreeOrderAttributesAndLinks() throws Exception {
+    final MindMap result = parse("{\"formatVersion\":3,\"id\":\"root\",\"unknown\":[1,{\"a\":[true,null]}],\n"
+        + "\"ideas\":{\"1\":{\"title\":\" root \",\"id\":1,\"attr\":{\"style\":{\"background\":\"#FF0000\"}},\n"
+        + "  \"ideas\":{\n"
+        + "    \"2\":{\"title\":\"right2\",\"id\":3},\n"
+        + "    \"-1\":{\"title\":\"left1\",\"id\":4,\"attr\":{\"note\":{\"index\":1,\"text\":\"some \\\"note\\\"\\n\\u0041\"}}},\n"
+        + "    \"1\":{\"title\":\"right1\",\"id\":2,\"attr\":{\"icon\":{\"url\":\"http://www.igormaznitsa.com\"}},\"ideas\":{\"1\":{\"title\":\"sub\",\"id\":6}}},\n"
+        + "    \"-2\":{\"title\":\"left2\",\"id\":5,\"attr\":{\"unknown\":{\"x\":[1,2]}}}\n"
+        + "  }}},\n"
+        + "\"links\":[{\"ideaIdFrom\":6,\"ideaIdTo\":5,\"attr\":{\"style\":{}}},{\"ideaIdFrom\":6,\"ideaIdTo\":100}]}");
+
+    final Topic root = result.getRoot();
+    assertEquals("root", root.getText());
+    assertEquals("#FF0000", root.getAttribute("fillColor"));
+    assertEquals(4, root.getChildren().size());
+
+    assertEquals("left1", root.getChildren().get(0).getText());
+    assertEquals("left2", root.getChildren().get(1).getText());
+    assertEquals("right1", root.getChildren().get(2).getText());
+    assertEquals("right2", root.getChildren().get(3).getText());
+
+    assertTrue(AbstractCollapsableElement.isLeftSidedTopic(root.getChildren().get(0)));
+    assertTrue(AbstractCollapsableElement.isLeftSidedTopic(root.getChildren().get(1)));
+    assertFalse(AbstractCollapsableElement.isLeftSidedTopic(root.getChildren().get(2)));
+
+    assertEquals("some \"note\"\nA", ((ExtraNote) root.getChildren().get(0).getExtras().get(Extra.ExtraType.NOTE)).getValue());
+    assertEquals("http://www.igormaznitsa.com", ((ExtraLink) root.getChildren().get(2).getExtras().get(Extra.ExtraType.LINK)).getValue().asString(false, false));
+
+    final Topic sub = root.getChildren().get(2).getChildren().get(0);
+    assertEquals("sub", sub.getText());
+    assertSame(root.getChildren().get(1), result.findTopicForLink((ExtraTopic) sub.getExtras().get(Extra.ExtraType.TOPIC)));
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraFile;
+import com.igormaznitsa.mindmap.model.ExtraLink;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute;
+import com.igormaznitsa.mindmap.model.Topic;
+
+public class Novamind2MindMapImporterTest {
+
+  private static final Novamind2MindMapImporter INSTANCE = new Novamind2MindMapImporter();
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private MindMap parse(final String... nameAndContent) throws Exception {
+    final File file = this.tempFolder.newFile("test.nm5");
+    final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      for (int i = 0; i < nameAndContent.length; i += 2) {
+        out.putNextEntry(new ZipEntry(nameAndContent[i]));
+        out.write(nameAndContent[i + 1].getBytes("UTF-8"));
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+
+    final ZipFile zipFile = new ZipFile(file);
+    try {
+      return INSTANCE.extractTopics(zipFile);
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  @Test
+  public void testExtractTopics_NoContent() throws Exception {
+    final MindMap result = parse("manifest.xml", "<manifest/>");
+    assertEquals("Empty map", result.getRoot().getText());
+    assertEquals(0, result.getRoot().getChildren().size());
+  }
+
+  @Test
+  public void testExtractTopics_TreeNotesAndLinks() throws Exception {
+    final MindMap result = parse("manifest.xml", "<manifest><resources/></manifest>",
+        "content.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<document>\n"
+        + "<topics>\n"
+        + "  <topic id=\"c1\"><rich-text><text-run>Root</text-run></rich-text></topic>\n"
+        + "  <topic id=\"c2\"><rich-text><text-run>First<br/>line</text-run></rich-text>\n"
+        + "    <notes><rich-text><text-run>some note</text-run></rich-text></notes>\n"
+        + "    <links><link url=\"http://www.igormaznitsa.com\"/><link url=\"novamind://topic/c3\"/></links>\n"
+        + "  </topic>\n"
+        + "  <topic id=\"c3\"><rich-text><text-run>Second</text-run></rich-text>\n"
+        + "    <links><link url=\"http://one.com\"/><link url=\"http://two.com\"/><link url=\"some/file.txt\"/></links>\n"
+        + "  </topic>\n"
+        + "</topics>\n"
+        + "<maps>\n"
+        + "  <map>\n"
+        + "    <topic-node id=\"n1\" topic-ref=\"c1\">\n"
+        + "      <topic-node-view><topic-node-style>\n"
+        + "        <fill-style><solid-color color=\"#FF0000\"/></fill-style>\n"
+        + "        <line-style color=\"#0000FF\"/>\n"
+        + "      </topic-node-style></topic-node-view>\n"
+        + "      <sub-topics>\n"
+        + "        <topic-node id=\"n2\" topic-ref=\"c2\"/>\n"
+        + "        <topic-node id=\"n3\" topic-ref=\"c3\"/>\n"
+        + "      </sub-topics>\n"
+        + "    </topic-node>\n"
+        + "    <link-lines><topic-node><link-line-data start-topic-node-ref=\"n3\" end-topic-node-ref=\"n1\"/></topic-node></link-lines>\n"
+        + "  </map>\n"
+        + "  <map><topic-node id=\"x1\" topic-ref=\"c2\"/></map>\n"
+        + "</maps>\n"
+        + "</document>");
+
+    final Topic root = result.getRoot();
+    assertEquals("Root", root.getText());
+    assertEquals("#FF0000", root.getAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText()));
+    assertEquals("#0000FF", root.getAttribute(StandardTopicAttribute.ATTR_BORDER_COLOR.getText()));
+    assertNotNull(root.getAttribute(StandardTopicAttribute.ATTR_TEXT_COLOR.getText()));
+    assertEquals(2, root.getChildren().size());
+
+    final Topic first = root.getChildren().get(0);
+    final Topic second = root.getChildren().get(1);
+
+    assertEquals("First\nline", first.getText());
+    assertEquals("some note", ((ExtraNote) first.getExtras().get(Extra.ExtraType.NOTE)).getValue());
+    assertEquals("http://www.igormaznitsa.com", ((ExtraLink) first.getExtras().get(Extra.ExtraType.LINK)).getValue().asString(false, false));
+    assertSame(second, result.findTopicForLink((ExtraTopic) first.getExtras().get(Extra.ExtraType.TOPIC)));
+    assertEquals(0, first.getChildren().size());
+
+    assertEquals("Second", second.getText());
+    assertSame(root, result.findTopicForLink((ExtraTopic) second.getExtras().get(Extra.ExtraType.TOPIC)));
+    assertTrue(((ExtraFile) second.getExtras().get(Extra.ExtraType.FILE)).getValue().asString(false, false).endsWith("some/file.txt"));
+    assertNull(second.getExtras().get(Extra.ExtraType.LINK));
+    assertEquals(2, second.getChildren().size());
+    assertEquals("URL link", second.getChildren().get(0).getText());
+    assertEquals("http://one.com", ((ExtraLink) second.getChildren().get(0).getExtras().get(Extra.ExtraType.LINK)).getValue().asString(false, false));
+    assertEquals("http://two.com", ((ExtraLink) second.getChildren().get(1).getExtras().get(Extra.ExtraType.LINK)).getValue().asString(false, false));
+  }
+}
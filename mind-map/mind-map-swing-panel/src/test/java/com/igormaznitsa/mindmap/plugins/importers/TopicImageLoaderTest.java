@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import static org.junit.Assert.*;
+import java.util.concurrent.Callable;
+import org.junit.Test;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
+
+public class TopicImageLoaderTest {
+
+  @Test
+  public void testAttachAll() throws Exception {
+    final MindMap map = new MindMap(null, true);
+    final Topic root = map.getRoot();
+
+    final TopicImageLoader loader = new TopicImageLoader();
+
+    final Topic[] topics = new Topic[32];
+    for (int i = 0; i < topics.length; i++) {
+      final int index = i;
+      topics[i] = root.makeChild("topic" + i, null);
+      loader.load(topics[i], new Callable<String>() {
+        @Override
+        public String call() throws Exception {
+          if (index % 3 == 0) {
+            return null;
+          }
+          if (index % 5 == 0) {
+            throw new IllegalStateException("Test error");
+          }
+          Thread.sleep(index % 4);
+          return "image" + index;
+        }
+      });
+    }
+
+    loader.attachAll();
+
+    for (int i = 0; i < topics.length; i++) {
+      final String image = topics[i].getAttribute(ImageVisualAttributePlugin.ATTR_KEY);
+      if (i % 3 == 0 || i % 5 == 0) {
+        assertNull(image);
+      } else {
+        assertEquals("image" + i, image);
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraLink;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute;
+import com.igormaznitsa.mindmap.model.Topic;
+
+public class XMind2MindMapImporterTest {
+
+  private static final XMind2MindMapImporter INSTANCE = new XMind2MindMapImporter();
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private MindMap parse(final String... nameAndContent) throws Exception {
+    final File file = this.tempFolder.newFile("test.xmind");
+    final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      for (int i = 0; i < nameAndContent.length; i += 2) {
+        out.putNextEntry(new ZipEntry(nameAndContent[i]));
+        out.write(nameAndContent[i + 1].getBytes("UTF-8"));
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+
+    final ZipFile zipFile = new ZipFile(file);
+    try {
+      return INSTANCE.extractTopics(zipFile);
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testExtractTopics_NoContent() throws Exception {
+    parse("styles.xml", "<xmap-styles/>");
+  }
+
+  @Test
+  public void testExtractTopics_NoSheet() throws Exception {
+    final MindMap result = parse("content.xml", "<xmap-content version=\"2.0\"></xmap-content>");
+    assertEquals("Empty", result.getRoot().getText());
+    assertEquals(0, result.getRoot().getChildren().size());
+  }
+
+  @Test
+  public void testExtractTopics_TreeNotesStylesAndLinks() throws Exception {
+    final MindMap result = parse("content.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<xmap-content xmlns=\"urn:xmind:xmap:xmlns:content:2.0\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" version=\"2.0\">\n"
+        + "<sheet id=\"s1\">\n"
+        + "  <topic id=\"t1\" style-id=\"st1\"><title>Root</title>\n"
+        + "    <children><topics type=\"attached\">\n"
+        + "      <topic id=\"t2\" xlink:href=\"http://www.igormaznitsa.com\"><title>First</title>\n"
+        + "        <notes><plain>plain note</plain><html>html note</html></notes>\n"
+        + "        <children><topics type=\"attached\"><topic id=\"t3\" xlink:href=\"xmind:#t4\"><title>Sub</title></topic></topics></children>\n"
+        + "      </topic>\n"
+        + "      <topic id=\"t4\"><title>Second</title><notes><html>only html</html></notes></topic>\n"
+        + "    </topics></children>\n"
+        + "  </topic>\n"
+        + "  <relationships><relationship id=\"r1\" end1=\"t4\" end2=\"t2\"/><relationship id=\"r2\" end1=\"t3\" end2=\"t1\"/></relationships>\n"
+        + "</sheet>\n"
+        + "<sheet id=\"s2\"><topic id=\"x1\"><title>Ignored</title></topic></sheet>\n"
+        + "</xmap-content>",
+        "styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<xmap-styles xmlns=\"urn:xmind:xmap:xmlns:style:2.0\" xmlns:svg=\"http://www.w3.org/2000/svg\" xmlns:fo=\"http://www.w3.org/1999/XSL/Format\" version=\"2.0\">\n"
+        + "<styles><style id=\"st1\" type=\"topic\"><topic-properties svg:fill=\"#FF0000\" fo:color=\"#00FF00\"/></style></styles>\n"
+        + "</xmap-styles>");
+
+    final Topic root = result.getRoot();
+    assertEquals("Root", root.getText());
+    assertEquals("#FF0000", root.getAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText()));
+    assertEquals("#00FF00", root.getAttribute(StandardTopicAttribute.ATTR_TEXT_COLOR.getText()));
+    assertEquals(2, root.getChildren().size());
+
+    final Topic first = root.getChildren().get(0);
+    final Topic second = root.getChildren().get(1);
+    assertEquals("First", first.getText());
+    assertEquals("Second", second.getText());
+
+    assertEquals("http://www.igormaznitsa.com", ((ExtraLink) first.getExtras().get(Extra.ExtraType.LINK)).getValue().asString(false, false));
+    assertEquals("plain note", ((ExtraNote) first.getExtras().get(Extra.ExtraType.NOTE)).getValue());
+    assertEquals("only html", ((ExtraNote) second.getExtras().get(Extra.ExtraType.NOTE)).getValue());
+
+    assertEquals(1, first.getChildren().size());
+    final Topic sub = first.getChildren().get(0);
+    assertEquals("Sub", sub.getText());
+    assertSame("Topic link must win over relationship", second, result.findTopicForLink((ExtraTopic) sub.getExtras().get(Extra.ExtraType.TOPIC)));
+    assertSame(first, result.findTopicForLink((ExtraTopic) second.getExtras().get(Extra.ExtraType.TOPIC)));
+    assertNull(root.getExtras().get(Extra.ExtraType.TOPIC));
+  }
+}
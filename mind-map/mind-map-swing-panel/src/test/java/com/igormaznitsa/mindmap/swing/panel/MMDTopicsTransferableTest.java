@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel;
+
+import static org.junit.Assert.*;
+import java.awt.datatransfer.DataFlavor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import org.junit.Test;
+import com.igormaznitsa.mindmap.model.ExtraNote;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+
+public class MMDTopicsTransferableTest {
+
+  private static String asText(final Topic topic) throws Exception {
+    final StringWriter writer = new StringWriter();
+    topic.write(writer);
+    return writer.toString();
+  }
+
+  @Test
+  public void testFlavorsMaterializedOnce() throws Exception {
+    final MindMap map = new MindMap(null, true);
+    final Topic topic = map.getRoot().makeChild("topic", null);
+    topic.makeChild("child", null);
+
+    final MMDTopicsTransferable transferable = new MMDTopicsTransferable(topic);
+    topic.setText("changed after copy");
+
+    final String text = (String) transferable.getTransferData(DataFlavor.stringFlavor);
+    assertTrue(text.startsWith("topic"));
+    assertSame(text, transferable.getTransferData(DataFlavor.stringFlavor));
+    assertSame(transferable.getTransferData(MMDTopicsTransferable.MMD_DATA_FLAVOR), transferable.getTransferData(MMDTopicsTransferable.MMD_DATA_FLAVOR));
+  }
+
+  @Test
+  public void testContainerSerialization() throws Exception {
+    final MindMap map = new MindMap(null, true);
+    final Topic first = map.getRoot().makeChild("first", null);
+    first.setAttribute("fillColor", "#FF0000");
+    first.setExtra(new ExtraNote("some note"));
+    first.setCodeSnippet("java", "System.exit(0);");
+    first.makeChild("first.1", null);
+    final Topic second = map.getRoot().makeChild("second", null);
+
+    final NBMindMapTopicsContainer container = (NBMindMapTopicsContainer) new MMDTopicsTransferable(first, second).getTransferData(MMDTopicsTransferable.MMD_DATA_FLAVOR);
+
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    final ObjectOutputStream out = new ObjectOutputStream(buffer);
+    out.writeObject(container);
+    out.close();
+
+    final NBMindMapTopicsContainer restored = (NBMindMapTopicsContainer) new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray())).readObject();
+
+    final Topic[] topics = restored.getTopics();
+    assertEquals(2, topics.length);
+    assertEquals(asText(first), asText(topics[0]));
+    assertEquals(asText(second), asText(topics[1]));
+  }
+}
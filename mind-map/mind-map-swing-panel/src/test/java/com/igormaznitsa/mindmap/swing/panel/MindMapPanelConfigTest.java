@@ -253,4 +253,63 @@ public class MindMapPanelConfigTest {
     assertNotNull(newConfig.getKeyShortCut(MindMapPanelConfig.KEY_ADD_CHILD_AND_START_EDIT));
   }
 
+  @Test
+  public void testSnapshot_SharedUntilChange () {
+    final MindMapPanelConfig config = new MindMapPanelConfig();
+    config.setScale(2.5d);
+
+    final MindMapPanelConfig snapshot = config.getSnapshot();
+    assertTrue(snapshot.isReadOnly());
+    assertFalse(config.isReadOnly());
+    assertSame(snapshot, config.getSnapshot());
+    assertSame(snapshot, snapshot.getSnapshot());
+    assertFalse(snapshot.hasDifferenceInParameters(config));
+    assertEquals(2.5d, snapshot.getScale(), 0.0d);
+
+    config.setDropShadow(!config.isDropShadow());
+    final MindMapPanelConfig changed = config.getSnapshot();
+    assertNotSame(snapshot, changed);
+    assertTrue(snapshot.hasDifferenceInParameters(changed));
+    assertFalse(changed.hasDifferenceInParameters(config));
+
+    final MindMapPanelConfig copy = new MindMapPanelConfig(changed, false);
+    assertFalse(copy.isReadOnly());
+    copy.setScale(1.0d);
+    assertEquals(2.5d, changed.getScale(), 0.0d);
+  }
+
+  @Test
+  public void testSnapshot_ResetByShadowOffset () {
+    final MindMapPanelConfig config = new MindMapPanelConfig();
+    final MindMapPanelConfig snapshot = config.getSnapshot();
+
+    config.setShadowOffset(config.getShadowOffset() + 3.0f);
+
+    final MindMapPanelConfig changed = config.getSnapshot();
+    assertNotSame(snapshot, changed);
+    assertEquals(config.getShadowOffset(), changed.getShadowOffset(), 0.0f);
+    assertTrue(snapshot.hasDifferenceInParameters(changed));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSnapshot_ReadOnly () {
+    new MindMapPanelConfig().getSnapshot().setScale(3.0d);
+  }
+
+  @Test
+  public void testScaledFont () {
+    final MindMapPanelConfig config = new MindMapPanelConfig();
+    config.setFont(new Font("Helvetica", Font.BOLD, 20));
+    config.setScale(0.5d);
+
+    final Font scaled = config.getScaledFont();
+    assertEquals(10.0f, scaled.getSize2D(), 0.0f);
+    assertSame(scaled, config.getScaledFont());
+
+    config.setScale(0.01d);
+    assertEquals(2.0f, config.getScaledFont().getSize2D(), 0.0f);
+
+    config.setScale(2.0d);
+    assertEquals(40.0f, config.getScaledFont().getSize2D(), 0.0f);
+  }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.services;
+
+import static org.junit.Assert.*;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.imageio.ImageIO;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+
+public class MindMapThumbnailServiceTest {
+
+  private static final String MAP_TEXT = "Mind Map generated by NB MindMap plugin   \n"
+      + "> __version__=`1.1`\n"
+      + "---\n"
+      + "# Root\n"
+      + "## Child 1\n"
+      + "### Child 1.1\n"
+      + "## Child 2\n"
+      + "## Child 3\n";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static File waitThumbnail(final MindMapThumbnailService service, final File mapFile) throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<File> cacheFile = new AtomicReference<File>();
+    assertNull(service.getThumbnail(mapFile, new MindMapThumbnailService.ThumbnailListener() {
+      @Override
+      public void onThumbnailReady(final File file, final BufferedImage thumbnail, final File cached) {
+        assertEquals(mapFile, file);
+        cacheFile.set(cached);
+        latch.countDown();
+      }
+    }));
+    assertTrue("Thumbnail must be rendered", latch.await(30, TimeUnit.SECONDS));
+    return cacheFile.get();
+  }
+
+  @Test
+  public void testRenderAndCacheOnDisk() throws Exception {
+    final File mapFile = this.tempFolder.newFile("test.mmd");
+    FileUtils.write(mapFile, MAP_TEXT, "UTF-8");
+    final File cacheFolder = new File(this.tempFolder.getRoot(), "thumbnails");
+
+    final MindMapThumbnailService service = new MindMapThumbnailService(cacheFolder, new MindMapPanelConfig(), 64, 1.0d);
+    try {
+      final File cacheFile = waitThumbnail(service, mapFile);
+      assertNotNull(cacheFile);
+      assertTrue(cacheFile.isFile());
+
+      final BufferedImage thumbnail = service.getThumbnail(mapFile, null);
+      assertNotNull(thumbnail);
+      assertTrue(thumbnail.getWidth() <= 64);
+      assertTrue(thumbnail.getHeight() <= 64);
+      assertEquals(cacheFile, service.getThumbnailFile(mapFile, null));
+    } finally {
+      service.dispose();
+    }
+
+    final File cached = cacheFolder.listFiles()[0];
+    assertTrue(ImageIO.write(new BufferedImage(3, 3, BufferedImage.TYPE_INT_ARGB), "png", cached));
+
+    final MindMapThumbnailService another = new MindMapThumbnailService(cacheFolder, new MindMapPanelConfig(), 64, 1.0d);
+    try {
+      final File cacheFile = waitThumbnail(another, mapFile);
+      assertEquals(1, cacheFolder.listFiles().length);
+      assertEquals(cached, cacheFile);
+      assertEquals("Cached thumbnail must be used", 3, another.getThumbnail(mapFile, null).getWidth());
+    } finally {
+      another.dispose();
+    }
+  }
+
+  @Test
+  public void testConfigChangeMakesNewThumbnail() throws Exception {
+    final File mapFile = this.tempFolder.newFile("test.mmd");
+    FileUtils.write(mapFile, MAP_TEXT, "UTF-8");
+    final File cacheFolder = new File(this.tempFolder.getRoot(), "thumbnails");
+
+    final MindMapThumbnailService service = new MindMapThumbnailService(cacheFolder, new MindMapPanelConfig(), 64, 1.0d);
+    final File first;
+    try {
+      first = waitThumbnail(service, mapFile);
+    } finally {
+      service.dispose();
+    }
+
+    final MindMapPanelConfig changed = new MindMapPanelConfig();
+    changed.setPaperColor(Color.RED);
+    final MindMapThumbnailService another = new MindMapThumbnailService(cacheFolder, changed, 64, 1.0d);
+    try {
+      final File second = waitThumbnail(another, mapFile);
+      assertNotEquals(first, second);
+      assertEquals(2, cacheFolder.listFiles().length);
+    } finally {
+      another.dispose();
+    }
+  }
+
+  @Test
+  public void testSetConfigMakesNewThumbnail() throws Exception {
+    final File mapFile = this.tempFolder.newFile("test.mmd");
+    FileUtils.write(mapFile, MAP_TEXT, "UTF-8");
+    final File cacheFolder = new File(this.tempFolder.getRoot(), "thumbnails");
+
+    final MindMapThumbnailService service = new MindMapThumbnailService(cacheFolder, new MindMapPanelConfig(), 64, 1.0d);
+    try {
+      final File first = waitThumbnail(service, mapFile);
+
+      service.setConfig(new MindMapPanelConfig());
+      assertEquals("Same configuration must not change thumbnail", first, service.getThumbnailFile(mapFile, null));
+
+      final MindMapPanelConfig changed = new MindMapPanelConfig();
+      changed.setPaperColor(Color.RED);
+      service.setConfig(changed);
+
+      final CountDownLatch latch = new CountDownLatch(1);
+      final AtomicReference<File> second = new AtomicReference<File>();
+      assertEquals("Old thumbnail must be returned while new one is rendered", first, service.getThumbnailFile(mapFile, new MindMapThumbnailService.ThumbnailListener() {
+        @Override
+        public void onThumbnailReady(final File file, final BufferedImage thumbnail, final File cached) {
+          second.set(cached);
+          latch.countDown();
+        }
+      }));
+      assertTrue("Thumbnail must be rendered", latch.await(30, TimeUnit.SECONDS));
+      assertNotEquals(first, second.get());
+      assertEquals(second.get(), service.getThumbnailFile(mapFile, null));
+    } finally {
+      service.dispose();
+    }
+  }
+
+  @Test
+  public void testPruneCacheFolder() throws Exception {
+    final File folder = this.tempFolder.newFolder("thumbnails");
+    final long now = System.currentTimeMillis();
+
+    final File old = new File(folder, "old.png");
+    FileUtils.writeByteArrayToFile(old, new byte[10]);
+    assertTrue(old.setLastModified(now - 100000L));
+
+    final File temp = new File(folder, "some.png.tmp");
+    FileUtils.writeByteArrayToFile(temp, new byte[10]);
+
+    final File[] recent = new File[3];
+    for (int i = 0; i < recent.length; i++) {
+      recent[i] = new File(folder, "recent" + i + ".png");
+      FileUtils.writeByteArrayToFile(recent[i], new byte[100]);
+      assertTrue(recent[i].setLastModified(now - 30000L + i * 10000L));
+    }
+
+    final File other = new File(folder, "other.txt");
+    FileUtils.writeByteArrayToFile(other, new byte[1000]);
+    assertTrue(other.setLastModified(now - 100000L));
+
+    MindMapThumbnailService.pruneCacheFolder(folder, now - 50000L, 250L);
+
+    assertFalse(old.exists());
+    assertFalse(temp.exists());
+    assertFalse("The least recently used thumbnail must be removed", recent[0].exists());
+    assertTrue(recent[1].exists());
+    assertTrue(recent[2].exists());
+    assertTrue(other.exists());
+  }
+
+  @Test
+  public void testNoThumbnailForNonMindMap() throws Exception {
+    final File file = this.tempFolder.newFile("test.mmd");
+    final MindMapThumbnailService service = new MindMapThumbnailService(null, new MindMapPanelConfig(), 64, 1.0d);
+    try {
+      final File missing = new File(this.tempFolder.getRoot(), "missing.mmd");
+      assertNull(service.getThumbnail(missing, null));
+      assertNull(service.getThumbnailFile(file, null));
+    } finally {
+      service.dispose();
+    }
+  }
+}
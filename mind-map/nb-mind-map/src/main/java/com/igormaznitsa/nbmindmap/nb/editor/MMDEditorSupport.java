@@ -15,6 +15,7 @@
  */
 package com.igormaznitsa.nbmindmap.nb.editor;
 
+import com.igormaznitsa.mindmap.ide.commons.TextDiff;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import java.io.File;
@@ -24,6 +25,7 @@ import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
@@ -50,6 +52,8 @@ public class MMDEditorSupport extends DataEditorSupport implements OpenCookie, E
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MMDEditorSupport.class);
 
+  private transient SharedMindMapModel sharedModel;
+
   public MMDEditorSupport(final MMDDataObject obj) {
     super(obj, new MMDDataEnv(obj));
     setMIMEType(MMDDataObject.MIME);
@@ -79,6 +83,19 @@ public class MMDEditorSupport extends DataEditorSupport implements OpenCookie, E
     return editor;
   }
 
+  /**
+   * Get parsed model of the document shared between editors and navigator.
+   *
+   * @return shared model, created on the first call
+   */
+  @Nonnull
+  public synchronized SharedMindMapModel getSharedModel() {
+    if (this.sharedModel == null) {
+      this.sharedModel = new SharedMindMapModel(this);
+    }
+    return this.sharedModel;
+  }
+
   public String getDocumentText() {
     if (this.getDataObject().isValid()) {
       try {
@@ -137,8 +154,16 @@ public class MMDEditorSupport extends DataEditorSupport implements OpenCookie, E
         @Override
         public void run() {
           try {
-            doc.remove(0, doc.getLength());
-            doc.insertString(0, text, null);
+            // only changed region is replaced to keep lexing and undo of the rest of document
+            final TextDiff diff = TextDiff.find(doc.getText(0, doc.getLength()), text);
+            if (diff != null) {
+              if (diff.getEnd() > diff.getStart()) {
+                doc.remove(diff.getStart(), diff.getEnd() - diff.getStart());
+              }
+              if (!diff.getReplacement().isEmpty()) {
+                doc.insertString(diff.getStart(), diff.getReplacement(), null);
+              }
+            }
           }
           catch (Exception ex) {
             LOGGER.error("Can't replace text", ex); //NOI18N
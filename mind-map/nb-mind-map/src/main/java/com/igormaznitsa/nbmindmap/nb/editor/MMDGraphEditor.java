@@ -60,7 +60,6 @@ import java.awt.event.ComponentEvent;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Date;
 import java.util.List;
@@ -409,22 +408,23 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
     if (!this.mindMapPanel.isDisposed()) {
       this.mindMapPanel.hideEditor();
 
-      final String text = this.editorSupport.getDocumentText();
-      if (text == null) {
-        this.mindMapPanel.setErrorText(BUNDLE.getString("MMDGraphEditor.updateModel.cantLoadDocument"));
-      } else {
-        try {
-          this.mindMapPanel.setModel(new MindMap(this, new StringReader(text)), false);
-        }
-        catch (IllegalArgumentException ex) {
-          LOGGER.warn("Can't detect mind map"); //NOI18N
-          this.mindMapPanel.setErrorText(BUNDLE.getString("MMDGraphEditor.updateModel.cantDetectMMap"));
-        }
-        catch (IOException ex) {
-          LOGGER.error("Can't parse mind map text", ex); //NOI18N
-          this.mindMapPanel.setErrorText(BUNDLE.getString("MMDGraphEditor.updateModel.cantParseDoc"));
+      try {
+        // the text is parsed only if it has been changed outside of the editor
+        final MindMap snapshot = this.editorSupport.getSharedModel().getSnapshot();
+        if (snapshot == null) {
+          this.mindMapPanel.setErrorText(BUNDLE.getString("MMDGraphEditor.updateModel.cantLoadDocument"));
+        } else {
+          this.mindMapPanel.setModel(new MindMap(snapshot, this), false);
         }
       }
+      catch (IllegalArgumentException ex) {
+        LOGGER.warn("Can't detect mind map"); //NOI18N
+        this.mindMapPanel.setErrorText(BUNDLE.getString("MMDGraphEditor.updateModel.cantDetectMMap"));
+      }
+      catch (IOException ex) {
+        LOGGER.error("Can't parse mind map text", ex); //NOI18N
+        this.mindMapPanel.setErrorText(BUNDLE.getString("MMDGraphEditor.updateModel.cantParseDoc"));
+      }
     }
   }
 
@@ -464,7 +464,10 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
       final MindMap theMap = this.mindMapPanel.getModel();
       MindMapUtils.removeCollapseAttributeFromTopicsWithoutChildren(theMap);
       theMap.write(writer);
-      this.editorSupport.replaceDocumentText(writer.toString());
+      final String text = writer.toString();
+      // published before replacement because the replacement triggers update of views
+      this.editorSupport.getSharedModel().publish(text, theMap);
+      this.editorSupport.replaceDocumentText(text);
       this.editorSupport.getDataObject().setModified(true);
     }
     catch (Exception ex) {
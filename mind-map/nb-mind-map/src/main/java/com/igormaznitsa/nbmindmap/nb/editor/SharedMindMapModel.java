@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.nbmindmap.nb.editor;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+
+/**
+ * Parsed mind map of document shared between graph editor and navigator of
+ * the same data object. Document text is parsed only if it differs from the
+ * text of the current snapshot, the graph editor publishes its model directly
+ * without parsing. Snapshot must not be changed by its users, they should make
+ * own copy if they need editable model.
+ */
+public final class SharedMindMapModel {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SharedMindMapModel.class);
+
+  /**
+   * Listener of snapshot changes.
+   */
+  public interface Listener {
+
+    /**
+     * Called after change of the snapshot, can be called from any thread. The
+     * snapshot instance is replaced only if its content has been changed.
+     *
+     * @param source source of the event
+     * @param previousSnapshot snapshot which has been replaced, can be null
+     * @param snapshot new snapshot, null if the document can't be parsed
+     * @param changedTopicPath position path of the deepest topic which subtree
+     * contains all changes against the previous snapshot, null if whole model
+     * must be reloaded
+     */
+    void onSharedModelChanged(@Nonnull SharedMindMapModel source, @Nullable MindMap previousSnapshot, @Nullable MindMap snapshot, @Nullable int[] changedTopicPath);
+  }
+
+  static final int[] NO_CHANGES = new int[0];
+
+  private final MMDEditorSupport editorSupport;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+  private String snapshotText;
+  private MindMap snapshot;
+
+  SharedMindMapModel(@Nonnull final MMDEditorSupport editorSupport) {
+    this.editorSupport = editorSupport;
+  }
+
+  public void addListener(@Nonnull final Listener listener) {
+    this.listeners.add(listener);
+  }
+
+  public void removeListener(@Nonnull final Listener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Get snapshot for the current document text, the text is parsed only if it
+   * has been changed since the last call.
+   *
+   * @return snapshot or null if the document can't be loaded or parsed
+   * @throws IOException if the document text can't be parsed
+   * @throws IllegalArgumentException if the document doesn't contain mind map
+   */
+  @Nullable
+  public MindMap getSnapshot() throws IOException {
+    final String text = this.editorSupport.getDocumentText();
+    if (text == null) {
+      return null;
+    }
+
+    final MindMap oldSnapshot;
+    synchronized (this) {
+      if (text.equals(this.snapshotText)) {
+        return this.snapshot;
+      }
+      oldSnapshot = this.snapshot;
+      this.snapshotText = text;
+      this.snapshot = null;
+    }
+
+    final MindMap newSnapshot;
+    try {
+      newSnapshot = new MindMap(null, new StringReader(text));
+    } catch (IOException ex) {
+      notifyListeners(oldSnapshot, null, null);
+      throw ex;
+    } catch (IllegalArgumentException ex) {
+      notifyListeners(oldSnapshot, null, null);
+      throw ex;
+    }
+
+    final int[] changedTopicPath = findChangedTopic(oldSnapshot, newSnapshot);
+    final MindMap result;
+    synchronized (this) {
+      if (!text.equals(this.snapshotText)) {
+        // the snapshot has been replaced during parsing
+        return newSnapshot;
+      }
+      // snapshot instance is changed only together with its content
+      result = changedTopicPath == NO_CHANGES && oldSnapshot != null ? oldSnapshot : newSnapshot;
+      this.snapshot = result;
+    }
+    notifyListeners(oldSnapshot, result, changedTopicPath);
+    return result;
+  }
+
+  /**
+   * Bring the snapshot in sync with the document text and notify listeners if
+   * it has been changed, parse errors are only logged.
+   */
+  public void refresh() {
+    try {
+      getSnapshot();
+    } catch (IOException ex) {
+      LOGGER.error("Can't parse mind map text", ex); //NOI18N
+    } catch (IllegalArgumentException ex) {
+      LOGGER.warn("Can't detect mind map"); //NOI18N
+    }
+  }
+
+  /**
+   * Publish model which has been written into the document, the model is
+   * copied and the text is not parsed.
+   *
+   * @param text text written into the document
+   * @param model model which has been written as the text
+   */
+  public void publish(@Nonnull final String text, @Nonnull final MindMap model) {
+    final MindMap newSnapshot = new MindMap(model, null);
+    final MindMap oldSnapshot;
+    final int[] changedTopicPath;
+    synchronized (this) {
+      oldSnapshot = this.snapshot;
+      changedTopicPath = findChangedTopic(oldSnapshot, newSnapshot);
+      this.snapshotText = text;
+      if (changedTopicPath != NO_CHANGES || oldSnapshot == null) {
+        this.snapshot = newSnapshot;
+      }
+    }
+    notifyListeners(oldSnapshot, newSnapshot, changedTopicPath);
+  }
+
+  private void notifyListeners(@Nullable final MindMap oldSnapshot, @Nullable final MindMap newSnapshot, @Nullable final int[] changedTopicPath) {
+    if (changedTopicPath == NO_CHANGES) {
+      return;
+    }
+    for (final Listener l : this.listeners) {
+      l.onSharedModelChanged(this, oldSnapshot, newSnapshot, changedTopicPath);
+    }
+  }
+
+  /**
+   * Find the deepest topic which subtree contains all differences between
+   * two models.
+   *
+   * @param oldMap old model, can be null
+   * @param newMap new model
+   * @return position path of the found topic, null if whole model is changed
+   * (including change of map attributes) or {@link #NO_CHANGES} if there is no
+   * difference
+   */
+  @Nullable
+  static int[] findChangedTopic(@Nullable final MindMap oldMap, @Nonnull final MindMap newMap) {
+    if (oldMap != null && !oldMap.getAttributes().equals(newMap.getAttributes())) {
+      return null;
+    }
+    final Topic oldRoot = oldMap == null ? null : oldMap.getRoot();
+    final Topic newRoot = newMap.getRoot();
+    if (oldRoot == null || newRoot == null) {
+      return oldRoot == newRoot ? NO_CHANGES : null;
+    }
+    final Topic changed = findChangedTopic(oldRoot, newRoot);
+    return changed == null ? NO_CHANGES : changed.getPositionPath();
+  }
+
+  @Nullable
+  private static Topic findChangedTopic(@Nonnull final Topic oldTopic, @Nonnull final Topic newTopic) {
+    final List<Topic> oldChildren = oldTopic.getChildren();
+    final List<Topic> newChildren = newTopic.getChildren();
+    if (!isSameContent(oldTopic, newTopic) || oldChildren.size() != newChildren.size()) {
+      return newTopic;
+    }
+
+    Topic result = null;
+    for (int i = 0; i < newChildren.size(); i++) {
+      final Topic changed = findChangedTopic(oldChildren.get(i), newChildren.get(i));
+      if (changed != null) {
+        if (result != null) {
+          // changes in several children, so that the parent is the common subtree
+          return newTopic;
+        }
+        result = changed;
+      }
+    }
+    return result;
+  }
+
+  private static boolean isSameContent(@Nonnull final Topic oldTopic, @Nonnull final Topic newTopic) {
+    if (!oldTopic.getText().equals(newTopic.getText())
+        || !oldTopic.getAttributes().equals(newTopic.getAttributes())
+        || !oldTopic.getCodeSnippets().equals(newTopic.getCodeSnippets())) {
+      return false;
+    }
+    final Map<Extra.ExtraType, Extra<?>> oldExtras = oldTopic.getExtras();
+    final Map<Extra.ExtraType, Extra<?>> newExtras = newTopic.getExtras();
+    if (oldExtras.size() != newExtras.size()) {
+      return false;
+    }
+    for (final Map.Entry<Extra.ExtraType, Extra<?>> e : newExtras.entrySet()) {
+      final Extra<?> oldExtra = oldExtras.get(e.getKey());
+      if (oldExtra == null || !oldExtra.getAsString().equals(e.getValue().getAsString())) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
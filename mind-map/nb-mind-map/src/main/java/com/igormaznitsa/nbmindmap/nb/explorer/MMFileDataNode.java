@@ -15,11 +15,20 @@
  */
 package com.igormaznitsa.nbmindmap.nb.explorer;
 
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+import com.igormaznitsa.mindmap.swing.services.MindMapThumbnailService;
 import com.igormaznitsa.nbmindmap.nb.editor.MMDDataObject;
+import com.igormaznitsa.nbmindmap.utils.NbUtils;
 import java.awt.Image;
+import java.awt.image.BufferedImage;
 import java.beans.BeanInfo;
+import java.io.File;
 import java.util.ResourceBundle;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.openide.filesystems.FileUtil;
 import org.openide.loaders.DataNode;
+import org.openide.modules.Places;
 import org.openide.nodes.Children;
 import org.openide.util.ImageUtilities;
 import org.openide.util.Lookup;
@@ -31,11 +40,56 @@ public class MMFileDataNode extends DataNode {
   private static final Image NODE_ICON16 = ImageUtilities.loadImage("com/igormaznitsa/nbmindmap/icons/logo/logo16.png"); //NOI18N
   private static final Image NODE_ICON32 = ImageUtilities.loadImage("com/igormaznitsa/nbmindmap/icons/logo/logo32.png"); //NOI18N
 
+  private static final class Thumbnails {
+
+    private static final MindMapThumbnailService SERVICE = new MindMapThumbnailService(Places.getCacheSubdirectory("nbmindmap/thumbnails"), loadConfig(), MindMapThumbnailService.DEFAULT_SIZE, MindMapThumbnailService.DEFAULT_CPU_BUDGET); //NOI18N
+
+    @Nonnull
+    private static MindMapPanelConfig loadConfig() {
+      final MindMapPanelConfig config = new MindMapPanelConfig();
+      config.loadFrom(NbUtils.getPreferences());
+      return config;
+    }
+  }
+
+  private final MindMapThumbnailService.ThumbnailListener thumbnailListener = new MindMapThumbnailService.ThumbnailListener() {
+    @Override
+    public void onThumbnailReady(@Nonnull final File mapFile, @Nonnull final BufferedImage thumbnail, @Nullable final File cacheFile) {
+      fireShortDescriptionChange(null, null);
+    }
+  };
+
+  /**
+   * Reload configuration of thumbnail rendering from preferences, thumbnails
+   * are rendered again if the configuration has been changed.
+   */
+  public static void notifyReloadConfig() {
+    Thumbnails.SERVICE.setConfig(Thumbnails.loadConfig());
+  }
+
   public MMFileDataNode(final MMDDataObject obj, final Lookup lookup) {
     super(obj, Children.LEAF, lookup);
     setShortDescription(BUNDLE.getString("MMDDataNode.shortDescription"));
   }
 
+  /**
+   * Short description contains thumbnail of the map if it is ready, otherwise
+   * its rendering is scheduled in background and the description is updated
+   * later.
+   */
+  @Override
+  public String getShortDescription() {
+    final String description = super.getShortDescription();
+    final File file = FileUtil.toFile(getDataObject().getPrimaryFile());
+    if (file != null) {
+      final File thumbnail = Thumbnails.SERVICE.getThumbnailFile(file, this.thumbnailListener);
+      if (thumbnail != null) {
+        return "<html>" + description + "<br><img src=\"" + thumbnail.toURI() + "\"></html>"; //NOI18N
+      }
+    }
+    return description;
+  }
+
   @Override
   public Image getIcon(final int type) {
     switch (type) {
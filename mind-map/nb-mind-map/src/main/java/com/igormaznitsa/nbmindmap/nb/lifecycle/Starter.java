@@ -20,6 +20,7 @@ import org.openide.modules.OnStart;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.external.ExternalPlugins;
+import com.igormaznitsa.nbmindmap.nb.quicksearch.ProjectTopicIndex;
 
 @OnStart
 public class Starter implements Runnable {
@@ -44,6 +45,8 @@ public class Starter implements Runnable {
     }else{
       LOGGER.info("Property "+PROPERTY+" is not defined");
     }
+
+    ProjectTopicIndex.getInstance().start();
     
   }
   
@@ -15,21 +15,24 @@
  */
 package com.igormaznitsa.nbmindmap.nb.navigator;
 
+import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.nbmindmap.nb.editor.MMDDataObject;
 import com.igormaznitsa.nbmindmap.nb.editor.MMDEditorSupport;
+import com.igormaznitsa.nbmindmap.nb.editor.SharedMindMapModel;
 import com.igormaznitsa.nbmindmap.nb.swing.MindMapTreePanel;
 import com.igormaznitsa.nbmindmap.nb.swing.SortedTreeModelWrapper;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
-import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Map;
 
 import javax.swing.JComponent;
 import javax.swing.JScrollPane;
@@ -50,7 +53,7 @@ import org.openide.windows.TopComponent;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 
 @NavigatorPanel.Registration(displayName = "Mind map", mimeType = MMDDataObject.MIME)
-public final class MMDNavigator extends JScrollPane implements NavigatorPanel, LookupListener, FileChangeListener, Comparator<Object> {
+public final class MMDNavigator extends JScrollPane implements NavigatorPanel, LookupListener, FileChangeListener, Comparator<Object>, SharedMindMapModel.Listener {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MMDNavigator.class);
   
@@ -62,6 +65,9 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
   
   private transient Lookup.Result<? extends MMDEditorSupport> context;
   private transient MMDEditorSupport currentSupport;
+  private transient SharedMindMapModel currentModel;
+  private transient MindMap shownSnapshot;
+  private transient MindMap shownMap;
 
   public MMDNavigator() {
     super();
@@ -109,6 +115,11 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
   private void extractDataFromContextAndUpdate() {
     final Lookup.Result<? extends MMDEditorSupport> ctx = this.context;
 
+    if (this.currentModel != null) {
+      this.currentModel.removeListener(this);
+      this.currentModel = null;
+    }
+
     if (ctx == null) {
       this.currentSupport = null;
     }
@@ -130,41 +141,103 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
         if (this.currentSupport != null) {
           this.currentSupport.getDataObject().getPrimaryFile().removeFileChangeListener(this);
           this.currentSupport.getDataObject().getPrimaryFile().addFileChangeListener(this);
+          this.currentModel = this.currentSupport.getSharedModel();
+          this.currentModel.addListener(this);
         }
       }
     }
     updateContent();
   }
 
-  private String getDocumentText() {
-    String result = null;
-    if (this.currentSupport != null) {
-      final MMDEditorSupport editor = this.currentSupport;
-      result = editor.getDocumentText();
-    }
-    return result;
-  }
-
   private void updateContent() {
-    if (this.treeModel!=null){
-      this.treeModel.dispose();
-    }
-    
-    final String text = getDocumentText();
-    if (text != null) {
+    MindMap snapshot = null;
+    if (this.currentModel != null) {
       try {
-        this.treeModel = new SortedTreeModelWrapper(new MindMap(null,new StringReader(text)), this);
-        this.mindMapTree.setModel(this.treeModel);
-        Utils.foldUnfoldTree(this.mindMapTree, true);
+        snapshot = this.currentModel.getSnapshot();
       }
       catch (IOException ex) {
         LOGGER.error("Can't parse mind map text", ex); //NOI18N
-        this.mindMapTree.setModel(null);
+      }
+      catch (IllegalArgumentException ex) {
+        LOGGER.warn("Can't detect mind map"); //NOI18N
       }
     }
-    else {
+    showSnapshot(snapshot);
+  }
+
+  private void showSnapshot(final MindMap snapshot) {
+    if (this.treeModel != null) {
+      this.treeModel.dispose();
+      this.treeModel = null;
+    }
+    this.shownSnapshot = snapshot;
+    if (snapshot == null) {
+      this.shownMap = null;
       this.mindMapTree.setModel(null);
     }
+    else {
+      // own copy because the shared snapshot must not be changed
+      this.shownMap = new MindMap(snapshot, null);
+      this.treeModel = new SortedTreeModelWrapper(this.shownMap, this);
+      this.mindMapTree.setModel(this.treeModel);
+      Utils.foldUnfoldTree(this.mindMapTree, true);
+    }
+  }
+
+  @Override
+  public void onSharedModelChanged(final SharedMindMapModel source, final MindMap previousSnapshot, final MindMap snapshot, final int[] changedTopicPath) {
+    SwingUtilities.invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        if (source == currentModel && snapshot != shownSnapshot) {
+          if (snapshot == null || changedTopicPath == null || previousSnapshot == null || previousSnapshot != shownSnapshot || !updateSubtree(snapshot, changedTopicPath)) {
+            showSnapshot(snapshot);
+          }
+        }
+      }
+    });
+  }
+
+  private boolean updateSubtree(final MindMap snapshot, final int[] changedTopicPath) {
+    final Topic target = this.shownMap == null ? null : this.shownMap.findForPositionPath(changedTopicPath);
+    final Topic source = snapshot.findForPositionPath(changedTopicPath);
+    if (target == null || source == null || this.treeModel == null) {
+      return false;
+    }
+
+    target.setText(source.getText());
+    for (final String name : new ArrayList<String>(target.getAttributes().keySet())) {
+      target.setAttribute(name, null);
+    }
+    for (final Map.Entry<String, String> e : source.getAttributes().entrySet()) {
+      target.setAttribute(e.getKey(), e.getValue());
+    }
+    for (final String language : new ArrayList<String>(target.getCodeSnippets().keySet())) {
+      target.setCodeSnippet(language, null);
+    }
+    for (final Map.Entry<String, String> e : source.getCodeSnippets().entrySet()) {
+      target.setCodeSnippet(e.getKey(), e.getValue());
+    }
+    target.removeExtra(Extra.ExtraType.values());
+    target.setExtra(source.extrasToArray());
+
+    target.removeAllChildren();
+    for (final Topic child : source.getChildren()) {
+      new Topic(this.shownMap, child, true).moveToNewParent(target);
+    }
+
+    this.shownSnapshot = snapshot;
+    this.treeModel.fireSubtreeChanged(target);
+    expandSubtree(new TreePath(target.getPath()));
+    return true;
+  }
+
+  private void expandSubtree(final TreePath path) {
+    final Object node = path.getLastPathComponent();
+    for (int i = 0; i < this.treeModel.getChildCount(node); i++) {
+      expandSubtree(path.pathByAddingChild(this.treeModel.getChild(node, i)));
+    }
+    this.mindMapTree.expandPath(path);
   }
 
   @Override
@@ -176,10 +249,18 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
     if (this.currentSupport != null) {
       this.currentSupport.getDataObject().getPrimaryFile().removeFileChangeListener(this);
     }
-    
+
+    if (this.currentModel != null) {
+      this.currentModel.removeListener(this);
+      this.currentModel = null;
+    }
+
     if(this.treeModel!=null){
       this.treeModel.dispose();
+      this.treeModel = null;
     }
+    this.shownSnapshot = null;
+    this.shownMap = null;
     this.mindMapTree.setModel(null);
     this.currentSupport = null;
     this.context = null;
@@ -209,7 +290,11 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
 
       @Override
       public void run() {
-        updateContent();
+        // listeners are notified only if the document content has been really changed
+        final SharedMindMapModel model = currentModel;
+        if (model != null) {
+          model.refresh();
+        }
       }
     });
   }
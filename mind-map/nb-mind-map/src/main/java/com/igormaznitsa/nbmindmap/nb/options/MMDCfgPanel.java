@@ -20,6 +20,7 @@ import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.nbmindmap.nb.editor.MMDGraphEditor;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.utils.KeyShortcut;
+import com.igormaznitsa.nbmindmap.nb.explorer.MMFileDataNode;
 import com.igormaznitsa.nbmindmap.nb.explorer.MMKnowledgeSources;
 import com.igormaznitsa.nbmindmap.nb.swing.AboutPanel;
 import com.igormaznitsa.nbmindmap.nb.swing.KeyShortCutEditPanel;
@@ -1371,6 +1372,7 @@ final class MMDCfgPanel extends javax.swing.JPanel {
     finally {
       if (notifyConfigReload) {
         MMDGraphEditor.notifyReloadConfig();
+        MMFileDataNode.notifyReloadConfig();
       }
     }
     return cfg;
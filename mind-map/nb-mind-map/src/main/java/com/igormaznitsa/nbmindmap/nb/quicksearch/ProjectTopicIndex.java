@@ -0,0 +1,291 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.nbmindmap.nb.quicksearch;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nonnull;
+import org.apache.commons.io.IOUtils;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
+import org.openide.util.RequestProcessor;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.ide.commons.TopicIndex;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.nbmindmap.nb.editor.MMDDataObject;
+
+/**
+ * Index of topics of all mind maps in open projects. The index is loaded from
+ * the cache folder of IDE, refreshed in background and updated only for
+ * changed files.
+ */
+public final class ProjectTopicIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProjectTopicIndex.class);
+
+  private static final String CACHE_FILE = "nbmindmap/topics.idx"; //NOI18N
+  private static final int UPDATE_DELAY = 1000;
+
+  private static final ProjectTopicIndex INSTANCE = new ProjectTopicIndex();
+
+  private final RequestProcessor processor = new RequestProcessor("MMD topic index", 1); //NOI18N
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  private volatile TopicIndex index = new TopicIndex();
+
+  private final Set<File> changedFiles = new LinkedHashSet<File>();
+  private final Map<File, FileObject> listenedFolders = new HashMap<File, FileObject>();
+
+  private final RequestProcessor.Task refreshTask = processor.create(new Runnable() {
+    @Override
+    public void run() {
+      refreshAll();
+    }
+  });
+
+  private final RequestProcessor.Task updateTask = processor.create(new Runnable() {
+    @Override
+    public void run() {
+      updateChanged();
+    }
+  });
+
+  private final FileChangeListener fileListener = new FileChangeListener() {
+    @Override
+    public void fileFolderCreated(@Nonnull final FileEvent fe) {
+      refreshTask.schedule(UPDATE_DELAY);
+    }
+
+    @Override
+    public void fileDataCreated(@Nonnull final FileEvent fe) {
+      onFileChanged(fe.getFile());
+    }
+
+    @Override
+    public void fileChanged(@Nonnull final FileEvent fe) {
+      onFileChanged(fe.getFile());
+    }
+
+    @Override
+    public void fileDeleted(@Nonnull final FileEvent fe) {
+      if (fe.getFile().isFolder()) {
+        refreshTask.schedule(UPDATE_DELAY);
+      } else {
+        onFileChanged(fe.getFile());
+      }
+    }
+
+    @Override
+    public void fileRenamed(@Nonnull final FileRenameEvent fe) {
+      refreshTask.schedule(UPDATE_DELAY);
+    }
+
+    @Override
+    public void fileAttributeChanged(@Nonnull final FileAttributeEvent fe) {
+    }
+  };
+
+  private ProjectTopicIndex() {
+  }
+
+  @Nonnull
+  public static ProjectTopicIndex getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Start indexing of open projects, only the first call has effect.
+   */
+  public void start() {
+    if (this.started.compareAndSet(false, true)) {
+      this.processor.post(new Runnable() {
+        @Override
+        public void run() {
+          load();
+        }
+      });
+      OpenProjects.getDefault().addPropertyChangeListener(new PropertyChangeListener() {
+        @Override
+        public void propertyChange(@Nonnull final PropertyChangeEvent evt) {
+          if (OpenProjects.PROPERTY_OPEN_PROJECTS.equals(evt.getPropertyName())) {
+            refreshTask.schedule(0);
+          }
+        }
+      });
+      this.refreshTask.schedule(0);
+    }
+  }
+
+  /**
+   * Find topics in the index.
+   *
+   * @param query text to find
+   * @param maxResults max number of results
+   * @return found matches, the best one goes first
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<TopicIndex.Match> find(@Nonnull final String query, final int maxResults) throws InterruptedException {
+    return this.index.find(query, maxResults);
+  }
+
+  private void onFileChanged(@Nonnull final FileObject fileObject) {
+    if (MMDDataObject.MMD_EXT.equalsIgnoreCase(fileObject.getExt())) {
+      final File file = FileUtil.toFile(fileObject);
+      if (file != null) {
+        synchronized (this.changedFiles) {
+          this.changedFiles.add(file);
+        }
+        this.updateTask.schedule(UPDATE_DELAY);
+      }
+    }
+  }
+
+  @Nonnull
+  private static File getCacheFile() {
+    return Places.getCacheSubfile(CACHE_FILE);
+  }
+
+  private void load() {
+    final File cacheFile = getCacheFile();
+    if (cacheFile.isFile()) {
+      InputStream in = null;
+      try {
+        in = new BufferedInputStream(new FileInputStream(cacheFile));
+        final TopicIndex loaded = TopicIndex.read(in);
+        if (loaded != null) {
+          this.index = loaded;
+        }
+      } catch (IOException ex) {
+        LOGGER.warn("Can't load topic index : " + ex.getMessage()); //NOI18N
+      } finally {
+        IOUtils.closeQuietly(in);
+      }
+    }
+  }
+
+  private void save() {
+    OutputStream out = null;
+    try {
+      out = new BufferedOutputStream(new FileOutputStream(getCacheFile()));
+      this.index.write(out);
+    } catch (IOException ex) {
+      LOGGER.error("Can't save topic index", ex); //NOI18N
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  private void updateChanged() {
+    final List<File> files;
+    synchronized (this.changedFiles) {
+      files = new ArrayList<File>(this.changedFiles);
+      this.changedFiles.clear();
+    }
+    boolean changed = false;
+    for (final File f : files) {
+      if (f.isFile()) {
+        changed |= updateFile(f);
+      } else {
+        changed |= this.index.remove(f);
+      }
+    }
+    if (changed) {
+      save();
+    }
+  }
+
+  private boolean updateFile(@Nonnull final File file) {
+    try {
+      return this.index.update(file);
+    } catch (IOException ex) {
+      LOGGER.warn("Can't index mind map " + file + " : " + ex.getMessage()); //NOI18N
+      return this.index.remove(file);
+    }
+  }
+
+  private void refreshAll() {
+    final Map<File, FileObject> folders = new HashMap<File, FileObject>();
+    for (final Project p : OpenProjects.getDefault().getOpenProjects()) {
+      final FileObject folder = p.getProjectDirectory();
+      final File file = folder == null ? null : FileUtil.toFile(folder);
+      if (file != null) {
+        folders.put(file, folder);
+      }
+    }
+
+    synchronized (this.listenedFolders) {
+      for (final Map.Entry<File, FileObject> e : new ArrayList<Map.Entry<File, FileObject>>(this.listenedFolders.entrySet())) {
+        if (!folders.containsKey(e.getKey())) {
+          FileUtil.removeRecursiveListener(this.fileListener, e.getKey());
+          this.listenedFolders.remove(e.getKey());
+        }
+      }
+      for (final Map.Entry<File, FileObject> e : folders.entrySet()) {
+        if (!this.listenedFolders.containsKey(e.getKey())) {
+          FileUtil.addRecursiveListener(this.fileListener, e.getKey());
+          this.listenedFolders.put(e.getKey(), e.getValue());
+        }
+      }
+    }
+
+    final List<File> found = new ArrayList<File>();
+    boolean changed = false;
+    for (final FileObject folder : folders.values()) {
+      final Enumeration<? extends FileObject> e = folder.getChildren(true);
+      while (e.hasMoreElements()) {
+        final FileObject nxt = e.nextElement();
+        if (nxt.isData() && MMDDataObject.MMD_EXT.equalsIgnoreCase(nxt.getExt())) {
+          final File file = FileUtil.toFile(nxt);
+          if (file != null) {
+            found.add(file);
+            changed |= updateFile(file);
+          }
+        }
+      }
+    }
+    changed |= this.index.retainOnly(found);
+
+    if (changed) {
+      save();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.nbmindmap.nb.quicksearch;
+
+import java.io.File;
+import javax.annotation.Nonnull;
+import javax.swing.SwingUtilities;
+import org.netbeans.spi.quicksearch.SearchProvider;
+import org.netbeans.spi.quicksearch.SearchRequest;
+import org.netbeans.spi.quicksearch.SearchResponse;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.loaders.DataObject;
+import org.openide.loaders.DataObjectNotFoundException;
+import com.igormaznitsa.mindmap.ide.commons.TopicIndex;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.nbmindmap.nb.editor.MMDEditorSupport;
+
+/**
+ * Quick search over topics of mind maps in open projects.
+ */
+public class TopicSearchProvider implements SearchProvider {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TopicSearchProvider.class);
+
+  private static final int MAX_RESULTS = 32;
+
+  @Override
+  public void evaluate(@Nonnull final SearchRequest request, @Nonnull final SearchResponse response) {
+    final String text = request.getText();
+    if (text == null || text.trim().isEmpty()) {
+      return;
+    }
+
+    try {
+      for (final TopicIndex.Match m : ProjectTopicIndex.getInstance().find(text.trim(), MAX_RESULTS)) {
+        final TopicIndex.Entry entry = m.getEntry();
+        if (!response.addResult(new OpenTopic(entry), makeDisplayName(entry))) {
+          break;
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Nonnull
+  private static String makeDisplayName(@Nonnull final TopicIndex.Entry entry) {
+    final String fileName = entry.getFile().getName();
+    switch (entry.getKind()) {
+      case TITLE:
+        return entry.getText() + " [" + fileName + ']'; //NOI18N
+      default:
+        return entry.getTopicTitle() + " : " + entry.getText() + " [" + fileName + ']'; //NOI18N
+    }
+  }
+
+  private static final class OpenTopic implements Runnable {
+
+    private final File file;
+    private final int[] positionPath;
+
+    private OpenTopic(@Nonnull final TopicIndex.Entry entry) {
+      this.file = entry.getFile();
+      this.positionPath = entry.getPositionPath();
+    }
+
+    @Override
+    public void run() {
+      SwingUtilities.invokeLater(new Runnable() {
+        @Override
+        public void run() {
+          final FileObject fileObject = FileUtil.toFileObject(FileUtil.normalizeFile(file));
+          if (fileObject == null) {
+            LOGGER.warn("Can't find mind map file " + file); //NOI18N
+            return;
+          }
+          try {
+            final MMDEditorSupport editorSupport = DataObject.find(fileObject).getLookup().lookup(MMDEditorSupport.class);
+            if (editorSupport != null) {
+              editorSupport.edit();
+              editorSupport.focusToPosition(true, positionPath);
+            }
+          } catch (DataObjectNotFoundException ex) {
+            LOGGER.error("Can't find data object for " + file, ex); //NOI18N
+          }
+        }
+      });
+    }
+  }
+}
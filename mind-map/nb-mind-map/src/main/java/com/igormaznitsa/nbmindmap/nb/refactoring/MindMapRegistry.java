@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.nbmindmap.nb.refactoring;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.netbeans.api.fileinfo.NonRecursiveFolder;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.netbeans.api.project.SourceGroup;
+import org.netbeans.api.project.Sources;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraFile;
+import com.igormaznitsa.mindmap.model.MMapURI;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.nbmindmap.nb.refactoring.elements.AbstractPlugin;
+
+/**
+ * Registry of mind maps and their file links shared by refactoring plugins.
+ * Found maps of folders and projects are kept until any file or folder is
+ * created, deleted or renamed in listened folders, file links of a map are
+ * kept until the map is changed. Folders which don't belong to open projects
+ * are not listened anymore after change of open projects.
+ */
+public final class MindMapRegistry {
+
+  private static final MindMapRegistry INSTANCE = new MindMapRegistry();
+
+  private static final class LinksRecord {
+
+    private final long lastModified;
+    private final long size;
+    private final List<ExtraFile> links;
+
+    private LinksRecord(final long lastModified, final long size, @Nonnull @MustNotContainNull final List<ExtraFile> links) {
+      this.lastModified = lastModified;
+      this.size = size;
+      this.links = links;
+    }
+  }
+
+  private final Map<FileObject, List<FileObject>> foundMapsInFolders = new ConcurrentHashMap<FileObject, List<FileObject>>();
+  private final Map<FileObject, List<FileObject>> foundMapsInProjects = new ConcurrentHashMap<FileObject, List<FileObject>>();
+  private final Map<FileObject, LinksRecord> fileLinks = new ConcurrentHashMap<FileObject, LinksRecord>();
+  private final Set<File> listenedFolders = new HashSet<File>();
+
+  /**
+   * Incremented for every invalidation, so that scan started before change
+   * in file system doesn't put stale result into the cache.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  private final FileChangeListener fileListener = new FileChangeListener() {
+    @Override
+    public void fileFolderCreated(@Nonnull final FileEvent fe) {
+      invalidateFoundMaps();
+    }
+
+    @Override
+    public void fileDataCreated(@Nonnull final FileEvent fe) {
+      if (RefactoringUtils.isMMD(fe.getFile())) {
+        invalidateFoundMaps();
+      }
+    }
+
+    @Override
+    public void fileChanged(@Nonnull final FileEvent fe) {
+      fileLinks.remove(fe.getFile());
+    }
+
+    @Override
+    public void fileDeleted(@Nonnull final FileEvent fe) {
+      invalidateFoundMaps();
+      fileLinks.remove(fe.getFile());
+    }
+
+    @Override
+    public void fileRenamed(@Nonnull final FileRenameEvent fe) {
+      invalidateFoundMaps();
+      fileLinks.remove(fe.getFile());
+    }
+
+    @Override
+    public void fileAttributeChanged(@Nonnull final FileAttributeEvent fe) {
+    }
+  };
+
+  private MindMapRegistry() {
+    OpenProjects.getDefault().addPropertyChangeListener(new PropertyChangeListener() {
+      @Override
+      public void propertyChange(@Nonnull final PropertyChangeEvent evt) {
+        if (OpenProjects.PROPERTY_OPEN_PROJECTS.equals(evt.getPropertyName())) {
+          onOpenProjectsChanged();
+        }
+      }
+    });
+  }
+
+  private void invalidateFoundMaps() {
+    this.generation.incrementAndGet();
+    this.foundMapsInFolders.clear();
+    this.foundMapsInProjects.clear();
+  }
+
+  private void onOpenProjectsChanged() {
+    final List<File> projectFolders = new ArrayList<File>();
+    for (final Project p : OpenProjects.getDefault().getOpenProjects()) {
+      final File folder = FileUtil.toFile(p.getProjectDirectory());
+      if (folder != null) {
+        projectFolders.add(folder);
+      }
+    }
+
+    synchronized (this.listenedFolders) {
+      final Iterator<File> iterator = this.listenedFolders.iterator();
+      while (iterator.hasNext()) {
+        final File folder = iterator.next();
+        if (!isInsideAny(folder, projectFolders)) {
+          iterator.remove();
+          FileUtil.removeRecursiveListener(this.fileListener, folder);
+        }
+      }
+    }
+
+    invalidateFoundMaps();
+    this.fileLinks.clear();
+  }
+
+  private static boolean isInsideAny(@Nonnull final File file, @Nonnull @MustNotContainNull final List<File> folders) {
+    for (final File folder : folders) {
+      File current = file;
+      while (current != null) {
+        if (current.equals(folder)) {
+          return true;
+        }
+        current = current.getParentFile();
+      }
+    }
+    return false;
+  }
+
+  @Nonnull
+  public static MindMapRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Find all mind maps in folder and its sub-folders.
+   *
+   * @param folder folder to be scanned, can be null
+   * @param plugin plugin to check cancel, can be null
+   * @return list of found mind maps
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<FileObject> findAllMindMapsInFolder(@Nullable final NonRecursiveFolder folder, @Nullable final AbstractPlugin plugin) {
+    final FileObject folderFile = folder == null ? null : folder.getFolder();
+    if (folderFile == null) {
+      return Collections.<FileObject>emptyList();
+    }
+
+    List<FileObject> result = this.foundMapsInFolders.get(folderFile);
+    if (result == null) {
+      listen(folderFile);
+      final long startGeneration = this.generation.get();
+      result = Collections.unmodifiableList(new ArrayList<FileObject>(RefactoringUtils.findAllMindMapsInFolder(folder, plugin)));
+      if ((plugin == null || !plugin.isCanceled()) && startGeneration == this.generation.get()) {
+        this.foundMapsInFolders.put(folderFile, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Find all mind maps in source groups of project.
+   *
+   * @param project project to be scanned
+   * @param plugin plugin to check cancel, can be null
+   * @return list of found mind maps
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<FileObject> findAllMindMapsInProject(@Nonnull final Project project, @Nullable final AbstractPlugin plugin) {
+    final FileObject projectFolder = project.getProjectDirectory();
+    List<FileObject> result = projectFolder == null ? null : this.foundMapsInProjects.get(projectFolder);
+    if (result == null) {
+      final Sources sources = ProjectUtils.getSources(project);
+      for (final SourceGroup g : sources.getSourceGroups(Sources.TYPE_GENERIC)) {
+        final FileObject root = g.getRootFolder();
+        if (root != null) {
+          listen(root);
+        }
+      }
+      final long startGeneration = this.generation.get();
+      result = Collections.unmodifiableList(RefactoringUtils.findAllMindMapsInProject(project, plugin));
+      if (projectFolder != null && (plugin == null || !plugin.isCanceled()) && startGeneration == this.generation.get()) {
+        this.foundMapsInProjects.put(projectFolder, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get file links of mind map, the map is parsed only if it has been changed
+   * since the last call.
+   *
+   * @param mindMap mind map file
+   * @return list of file links, empty if the file is not mind map
+   * @throws IOException if the file can't be read
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<ExtraFile> getFileLinks(@Nonnull final FileObject mindMap) throws IOException {
+    final long lastModified = mindMap.lastModified().getTime();
+    final long size = mindMap.getSize();
+
+    final LinksRecord record = this.fileLinks.get(mindMap);
+    if (record != null && record.lastModified == lastModified && record.size == size) {
+      return record.links;
+    }
+
+    final List<ExtraFile> links = new ArrayList<ExtraFile>();
+    try {
+      final MindMap parsedMap = new MindMap(null, new StringReader(mindMap.asText("UTF-8"))); //NOI18N
+      final Topic root = parsedMap.getRoot();
+      if (root != null) {
+        collectFileLinks(root, links);
+      }
+    } catch (IllegalArgumentException ex) {
+      // not mind map
+    }
+
+    final List<ExtraFile> result = Collections.unmodifiableList(links);
+    this.fileLinks.put(mindMap, new LinksRecord(lastModified, size, result));
+    return result;
+  }
+
+  /**
+   * Check that mind map contains link to file.
+   *
+   * @param baseFolder base folder for relative links
+   * @param mindMap mind map file
+   * @param file file to be checked
+   * @return true if the map contains link to the file
+   * @throws IOException if the map can't be read
+   */
+  public boolean doesMindMapContainFileLink(@Nullable final File baseFolder, @Nonnull final FileObject mindMap, @Nonnull final MMapURI file) throws IOException {
+    for (final ExtraFile link : getFileLinks(mindMap)) {
+      if (link.isSame(baseFolder, file)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void collectFileLinks(@Nonnull final Topic topic, @Nonnull @MustNotContainNull final List<ExtraFile> links) {
+    final Extra<?> link = topic.getExtras().get(Extra.ExtraType.FILE);
+    if (link != null) {
+      links.add((ExtraFile) link);
+    }
+    for (final Topic c : topic.getChildren()) {
+      collectFileLinks(c, links);
+    }
+  }
+
+  private void listen(@Nullable final FileObject folder) {
+    final File file = folder == null ? null : FileUtil.toFile(folder);
+    if (file != null) {
+      synchronized (this.listenedFolders) {
+        if (this.listenedFolders.add(file)) {
+          FileUtil.addRecursiveListener(this.fileListener, file);
+        }
+      }
+    }
+  }
+}
@@ -16,14 +16,15 @@
 package com.igormaznitsa.nbmindmap.nb.refactoring.elements;
 
 import com.igormaznitsa.mindmap.model.MMapURI;
-import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
-import com.igormaznitsa.nbmindmap.nb.refactoring.RefactoringUtils;
+import com.igormaznitsa.nbmindmap.nb.refactoring.MindMapRegistry;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.netbeans.api.fileinfo.NonRecursiveFolder;
 import org.netbeans.api.java.source.TreePathHandle;
@@ -40,13 +41,18 @@ import org.netbeans.modules.refactoring.spi.RefactoringPlugin;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.util.Lookup;
+import org.openide.util.RequestProcessor;
 
 public abstract class AbstractPlugin<T extends AbstractRefactoring> extends ProgressProviderAdapter implements RefactoringPlugin {
 
   protected static final Logger LOGGER = LoggerFactory.getLogger(AbstractPlugin.class);
   protected final T refactoring;
   protected static final ResourceBundle BUNDLE = ResourceBundle.getBundle("com/igormaznitsa/nbmindmap/i18n/Bundle");
-  private final Map<FileObject, Collection<FileObject>> cache = new HashMap<FileObject, Collection<FileObject>>();
+
+  /**
+   * Shared processor to check mind maps in parallel.
+   */
+  private static final RequestProcessor MAP_PROCESSOR = new RequestProcessor("MMD refactoring", Runtime.getRuntime().availableProcessors()); //NOI18N
 
   private final List<RefactoringElementImplementation> elements = new ArrayList<RefactoringElementImplementation>();
 
@@ -67,17 +73,10 @@ public abstract class AbstractPlugin<T extends AbstractRefactoring> extends Prog
     final Collection<? extends Scope> scopes = this.refactoring.getRefactoringSource().lookupAll(Scope.class);
 
     if (!scopes.isEmpty()) {
-      final Collection<FileObject> mindMaps = new HashSet<FileObject>();
+      final Collection<FileObject> mindMaps = new LinkedHashSet<FileObject>();
       for (final Scope s : scopes) {
         for (final NonRecursiveFolder f : s.getFolders()) {
-          synchronized (this.cache) {
-            Collection<FileObject> found = this.cache.get(f.getFolder());
-            if (found == null) {
-              found = RefactoringUtils.findAllMindMapsInFolder(f,this);
-              this.cache.put(f.getFolder(), found);
-            }
-            mindMaps.addAll(found);
-          }
+          mindMaps.addAll(MindMapRegistry.getInstance().findAllMindMapsInFolder(f, this));
         }
       }
       return mindMaps;
@@ -86,16 +85,45 @@ public abstract class AbstractPlugin<T extends AbstractRefactoring> extends Prog
       if (project == null) {
         return Collections.<FileObject>emptyList();
       }
-      final FileObject projectFolder = project.getProjectDirectory();
-      synchronized (this.cache) {
-        Collection<FileObject> result = this.cache.get(projectFolder);
-        if (result == null) {
-          result = RefactoringUtils.findAllMindMapsInProject(project, this);
-          this.cache.put(projectFolder, result);
+      return MindMapRegistry.getInstance().findAllMindMapsInProject(project, this);
+    }
+  }
+
+  /**
+   * Find mind maps of project which contain link to file, maps are checked in
+   * parallel.
+   *
+   * @param project project which maps should be checked
+   * @param fileToCheck file which links should be found
+   * @return found maps in the same order as they are listed in the project
+   * @throws Exception if a map can't be processed
+   */
+  protected List<FileObject> findMindMapsContainingFileLink(final Project project, final MMapURI fileToCheck) throws Exception {
+    final List<FileObject> mindMaps = new ArrayList<FileObject>(allMapsInProject(project));
+    final List<Callable<Boolean>> checks = new ArrayList<Callable<Boolean>>(mindMaps.size());
+    for (final FileObject mmap : mindMaps) {
+      checks.add(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          return !isCanceled() && doesMindMapContainFileLink(project, mmap, fileToCheck);
+        }
+      });
+    }
+
+    final List<FileObject> result = new ArrayList<FileObject>();
+    final List<Future<Boolean>> checked = MAP_PROCESSOR.invokeAll(checks);
+    for (int i = 0; i < checked.size(); i++) {
+      try {
+        if (checked.get(i).get()) {
+          result.add(mindMaps.get(i));
         }
-        return result;
+      }
+      catch (ExecutionException ex) {
+        final Throwable cause = ex.getCause();
+        throw cause instanceof Exception ? (Exception) cause : ex;
       }
     }
+    return result;
   }
 
   private Collection<? extends FileObject> findFileObjectInLookup(final Lookup lookup) {
@@ -220,14 +248,7 @@ public abstract class AbstractPlugin<T extends AbstractRefactoring> extends Prog
 
   protected boolean doesMindMapContainFileLink(final Project project, final FileObject mindMap, final MMapURI fileToCheck) throws IOException {
     final FileObject baseFolder = project.getProjectDirectory();
-    try {
-      final MindMap parsedMap = new MindMap(null,new StringReader(mindMap.asText("UTF-8"))); //NOI18N
-      return parsedMap.doesContainFileLink(FileUtil.toFile(baseFolder), fileToCheck);
-    }
-    catch (IllegalArgumentException ex) {
-      // not mind map
-      return false;
-    }
+    return MindMapRegistry.getInstance().doesMindMapContainFileLink(FileUtil.toFile(baseFolder), mindMap, fileToCheck);
   }
 
   @Override
@@ -81,19 +81,17 @@ public class MoveFileActionPlugin extends AbstractPlugin<MoveRefactoring> {
 
         final MMapURI newFileAsURI = MMapURI.makeFromFilePath(projectFolder, fileObject.getPath(), null).replaceBaseInPath(true, baseURI, level);
 
-        for (final FileObject mmap : allMapsInProject(project)) {
-          try {
-            if (doesMindMapContainFileLink(project, mmap, fileAsURI)) {
-              final MoveElement element = new MoveElement(new MindMapLink(mmap), projectFolder, MMapURI.makeFromFilePath(projectFolder, fileObject.getPath(), null));
-              element.setTarget(newFileAsURI);
-              addElement(element);
-            }
-          }
-          catch (Exception ex) {
-            ErrorManager.getDefault().notify(ex);
-            return new Problem(true, BUNDLE.getString("Refactoring.CantProcessMindMap"));
+        try {
+          for (final FileObject mmap : findMindMapsContainingFileLink(project, fileAsURI)) {
+            final MoveElement element = new MoveElement(new MindMapLink(mmap), projectFolder, MMapURI.makeFromFilePath(projectFolder, fileObject.getPath(), null));
+            element.setTarget(newFileAsURI);
+            addElement(element);
           }
         }
+        catch (Exception ex) {
+          ErrorManager.getDefault().notify(ex);
+          return new Problem(true, BUNDLE.getString("Refactoring.CantProcessMindMap"));
+        }
       }
       catch (URISyntaxException ex) {
         LOGGER.error("Can't make new file uri for " + fileObject.getPath(), ex); //NOI18N
@@ -135,21 +135,19 @@ public class RenameFileActionPlugin extends AbstractPlugin<RenameRefactoring> {
       return new Problem(true, BUNDLE.getString("Refactoring.CantMakeURI"));
     }
 
-    for (final FileObject mmap : allMapsInProject(project)) {
-      if (isCanceled()) {
-        break;
-      }
-      try {
-        if (doesMindMapContainFileLink(project, mmap, fileAsURI)) {
-          final RenameElement element = new RenameElement(new MindMapLink(mmap), projectFolder, MMapURI.makeFromFilePath(projectFolder, fileObject.getPath(), null));
-          element.setNewFile(newFileAsURI);
-          addElement(element);
+    try {
+      for (final FileObject mmap : findMindMapsContainingFileLink(project, fileAsURI)) {
+        if (isCanceled()) {
+          break;
         }
+        final RenameElement element = new RenameElement(new MindMapLink(mmap), projectFolder, MMapURI.makeFromFilePath(projectFolder, fileObject.getPath(), null));
+        element.setNewFile(newFileAsURI);
+        addElement(element);
       }
-      catch (Exception ex) {
-        ErrorManager.getDefault().notify(ex);
-        return new Problem(true, BUNDLE.getString("Refactoring.CantProcessMindMap"));
-      }
+    }
+    catch (Exception ex) {
+      ErrorManager.getDefault().notify(ex);
+      return new Problem(true, BUNDLE.getString("Refactoring.CantProcessMindMap"));
     }
 
     return null;
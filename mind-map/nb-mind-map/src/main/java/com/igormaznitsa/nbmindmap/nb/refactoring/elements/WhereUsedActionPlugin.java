@@ -34,19 +34,17 @@ public class WhereUsedActionPlugin extends AbstractPlugin<WhereUsedQuery> {
   protected Problem processFile(final Project project, final int level, final File projectFolder, final FileObject fileObject) {
     final MMapURI fileAsURI = MMapURI.makeFromFilePath(projectFolder, fileObject.getPath(), null);
 
-    for (final FileObject mmap : allMapsInProject(project)) {
-      if (isCanceled()) {
-        break;
-      }
-      try {
-        if (doesMindMapContainFileLink(project, mmap, fileAsURI)) {
-            addElement(new WhereUsedElement(new MindMapLink(mmap), projectFolder, MMapURI.makeFromFilePath(projectFolder, fileObject.getPath(), null)));
+    try {
+      for (final FileObject mmap : findMindMapsContainingFileLink(project, fileAsURI)) {
+        if (isCanceled()) {
+          break;
         }
+        addElement(new WhereUsedElement(new MindMapLink(mmap), projectFolder, MMapURI.makeFromFilePath(projectFolder, fileObject.getPath(), null)));
       }
-      catch (Exception ex) {
-        ErrorManager.getDefault().notify(ex);
-        return new Problem(true, BUNDLE.getString("Refactoring.CantProcessMindMap"));
-      }
+    }
+    catch (Exception ex) {
+      ErrorManager.getDefault().notify(ex);
+      return new Problem(true, BUNDLE.getString("Refactoring.CantProcessMindMap"));
     }
 
     return null;
@@ -16,12 +16,14 @@
 package com.igormaznitsa.nbmindmap.nb.swing;
 
 import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreeModel;
@@ -32,6 +34,7 @@ public class SortedTreeModelWrapper implements TreeModel, TreeModelListener {
   
   private final Map<Object,List<Object>> sortedCache = new HashMap<Object, List<Object>>();
   private final Comparator<Object> comparator;
+  private final List<TreeModelListener> listeners = new CopyOnWriteArrayList<TreeModelListener>();
   
   public SortedTreeModelWrapper(final MindMap model, final Comparator<Object> comparator){
     this.model = model;
@@ -72,12 +75,26 @@ public class SortedTreeModelWrapper implements TreeModel, TreeModelListener {
 
   @Override
   public void addTreeModelListener(TreeModelListener l) {
-    this.model.addTreeModelListener(l);
+    this.listeners.add(l);
   }
 
   @Override
   public void removeTreeModelListener(TreeModelListener l) {
-    this.model.removeTreeModelListener(l);
+    this.listeners.remove(l);
+  }
+
+  /**
+   * Notify listeners that subtree of topic has been changed directly in the
+   * model, only the subtree is reloaded by listening trees.
+   *
+   * @param topic root topic of changed subtree, must belong to the model
+   */
+  public void fireSubtreeChanged(final Topic topic) {
+    clear();
+    final TreeModelEvent event = new TreeModelEvent(this, new TreePath(topic.getPath()));
+    for (final TreeModelListener l : this.listeners) {
+      l.treeStructureChanged(event);
+    }
   }
   
   private void clear(){
@@ -102,26 +119,38 @@ public class SortedTreeModelWrapper implements TreeModel, TreeModelListener {
 
   @Override
   public void treeNodesChanged(final TreeModelEvent e) {
-    
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesChanged(e);
+    }
   }
 
   @Override
   public void treeNodesInserted(final TreeModelEvent e) {
     clear();
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesInserted(e);
+    }
   }
 
   @Override
   public void treeNodesRemoved(final TreeModelEvent e) {
     clear();
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesRemoved(e);
+    }
   }
 
   @Override
   public void treeStructureChanged(final TreeModelEvent e) {
     clear();
+    for (final TreeModelListener l : this.listeners) {
+      l.treeStructureChanged(e);
+    }
   }
    
   public void dispose(){
     clear();
+    this.listeners.clear();
     this.model.removeTreeModelListener(this);
   }
   
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.nbmindmap.nb.editor;
+
+import static org.junit.Assert.*;
+import java.io.StringReader;
+import org.junit.Test;
+import com.igormaznitsa.mindmap.model.MindMap;
+
+public class SharedMindMapModelTest {
+
+  private static final String MAP_TEXT = "Mind Map generated by NB MindMap plugin   \n"
+      + "> __version__=`1.1`,someattr=`hello`\n"
+      + "---\n"
+      + "# Root\n"
+      + "## Child 1\n"
+      + "## Child 2\n";
+
+  private static MindMap parse(final String text) throws Exception {
+    return new MindMap(null, new StringReader(text));
+  }
+
+  @Test
+  public void testFindChangedTopic_NoChanges() throws Exception {
+    assertSame(SharedMindMapModel.NO_CHANGES, SharedMindMapModel.findChangedTopic(parse(MAP_TEXT), parse(MAP_TEXT)));
+  }
+
+  @Test
+  public void testFindChangedTopic_ChangedChild() throws Exception {
+    final int[] path = SharedMindMapModel.findChangedTopic(parse(MAP_TEXT), parse(MAP_TEXT.replace("Child 2", "Child Two")));
+    assertArrayEquals(new int[]{0, 1}, path);
+  }
+
+  @Test
+  public void testFindChangedTopic_ChangedOnlyMapAttribute() throws Exception {
+    assertNull(SharedMindMapModel.findChangedTopic(parse(MAP_TEXT), parse(MAP_TEXT.replace("`hello`", "`world`"))));
+  }
+}
@@ -88,6 +88,7 @@ import com.igormaznitsa.sciareto.ui.misc.JHtmlLabel;
 import com.igormaznitsa.sciareto.ui.platform.PlatformProvider;
 import com.igormaznitsa.mindmap.plugins.api.HasOptions;
 import com.igormaznitsa.meta.common.utils.Assertions;
+import com.igormaznitsa.mindmap.model.cache.MindMapFileCache;
 
 public class Main {
 
@@ -97,8 +98,56 @@ public class Main {
 
   private static MainFrame MAIN_FRAME;
 
+  private static final StringBuilder STARTUP_STAGES = new StringBuilder();
+  private static long lastStartupStageTime = UPSTART;
+
+  /**
+   * Register end of a startup stage, time since the end of the previous stage
+   * is added to the startup time log.
+   *
+   * @param stage name of the ended stage
+   */
+  public static synchronized void markStartupStage(@Nonnull final String stage) {
+    final long now = System.currentTimeMillis();
+    if (STARTUP_STAGES.length() > 0) {
+      STARTUP_STAGES.append(", "); //NOI18N
+    }
+    STARTUP_STAGES.append(stage).append(' ').append(now - lastStartupStageTime).append("ms"); //NOI18N
+    lastStartupStageTime = now;
+  }
+
+  private static synchronized void logStartupTime() {
+    LOGGER.info("Startup time " + (System.currentTimeMillis() - UPSTART) + "ms : " + STARTUP_STAGES); //NOI18N
+  }
+
   public static final Version IDE_VERSION = new Version("sciareto", new long[]{1L, 4L, 2L}, null); //NOI18N
 
+  /**
+   * Cache of binary snapshots of opened mind maps, allows to skip parsing of
+   * unchanged maps.
+   */
+  public static final MindMapFileCache MAP_CACHE = new MindMapFileCache(new File(new File(System.getProperty("user.home"), ".sciareto"), "mmdcache")); //NOI18N
+
+  /**
+   * Folder to keep full-text search indexes of opened projects.
+   */
+  public static final File TEXT_INDEX_FOLDER = new File(new File(System.getProperty("user.home"), ".sciareto"), "textindex"); //NOI18N
+
+  /**
+   * Folder to keep indexes of links between mind maps of opened projects.
+   */
+  public static final File LINK_INDEX_FOLDER = new File(new File(System.getProperty("user.home"), ".sciareto"), "linkindex"); //NOI18N
+
+  /**
+   * Folder to keep autosaved states of changed mind maps for crash recovery.
+   */
+  public static final File AUTOSAVE_FOLDER = new File(new File(System.getProperty("user.home"), ".sciareto"), "autosave"); //NOI18N
+
+  /**
+   * Folder to keep rendered thumbnails of mind maps shown in the explorer tree.
+   */
+  public static final File THUMBNAIL_FOLDER = new File(new File(System.getProperty("user.home"), ".sciareto"), "thumbnails"); //NOI18N
+
   public static final Random RND = new Random();
 
   private static final String PROPERTY = "nbmmd.plugin.folder"; //NOI18N
@@ -223,6 +272,7 @@ public class Main {
     SystemUtils.setDebugLevelForJavaLogger(Level.WARNING);
 
     PlatformProvider.getPlatform().init();
+    markStartupStage("platform"); //NOI18N
 
     final String selectedLookAndFeel = PreferencesManager.getInstance().getPreferences().get(PROPERTY_LOOKANDFEEL, PlatformProvider.getPlatform().getDefaultLFClassName());
 
@@ -262,6 +312,7 @@ public class Main {
         LOGGER.error("Error during splash processing", ex); //NOI18N
       }
       timeTakenBySplashStart = System.currentTimeMillis() - splashTimerStart;
+      markStartupStage("splash"); //NOI18N
     } else {
       timeTakenBySplashStart = 0L;
     }
@@ -305,7 +356,10 @@ public class Main {
       LOGGER.error("Can't set L&F", e); //NOI18N
     }
 
+    markStartupStage("look&feel"); //NOI18N
+
     loadPlugins();
+    markStartupStage("plugins"); //NOI18N
 
     boolean doShowGUI = true;
 
@@ -388,6 +442,8 @@ public class Main {
           }
 
           MAIN_FRAME.setVisible(true);
+          markStartupStage("show"); //NOI18N
+          logStartupTime();
 
           MAIN_FRAME.setExtendedState(MAIN_FRAME.getExtendedState() | JFrame.MAXIMIZED_BOTH);
           final JHtmlLabel label = new JHtmlLabel("<html>You use the application already for some time. If you like it then you could support its author and <a href=\"http://www.google.com\"><b>make some donation</b></a>.</html>");
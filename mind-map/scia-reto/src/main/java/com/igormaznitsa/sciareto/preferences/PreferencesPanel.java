@@ -70,6 +70,10 @@ public final class PreferencesPanel extends javax.swing.JPanel {
   private final Context context;
 
   public static final String PREFERENCE_KEY_KNOWLEDGEFOLDER_ALLOWED = "knowledgeFolderGenerationAllowed"; //NOI18N
+  public static final String PREFERENCE_KEY_AUTOSAVE_ALLOWED = "autosaveForRecoveryAllowed"; //NOI18N
+  public static final String PREFERENCE_KEY_PREFETCH_PROJECT_FOLDERS = "prefetchProjectFolders"; //NOI18N
+  public static final String PREFERENCE_KEY_SNAPSHOT_DELAY = "mapSnapshotDelay"; //NOI18N
+  public static final String PREFERENCE_KEY_SNAPSHOT_MAX_LATENCY = "mapSnapshotMaxLatency"; //NOI18N
 
   private boolean changed;
 
@@ -154,6 +158,8 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     checkBoxUnfoldCollapsedTarget = new javax.swing.JCheckBox();
     checkBoxCopyColorInfoToNewAllowed = new javax.swing.JCheckBox();
     checkBoxKnowledgeFolderAutogenerationAllowed = new javax.swing.JCheckBox();
+    checkBoxAutosaveAllowed = new javax.swing.JCheckBox();
+    checkBoxPrefetchProjectFolders = new javax.swing.JCheckBox();
     jPanel7 = new javax.swing.JPanel();
     buttonFont = new javax.swing.JButton();
     jPanel8 = new javax.swing.JPanel();
@@ -758,6 +764,30 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     gridBagConstraints.anchor = java.awt.GridBagConstraints.NORTHWEST;
     jPanel1.add(checkBoxKnowledgeFolderAutogenerationAllowed, gridBagConstraints);
 
+    checkBoxAutosaveAllowed.setText("Autosave changed maps for crash recovery");
+    checkBoxAutosaveAllowed.addActionListener(new java.awt.event.ActionListener() {
+      public void actionPerformed(java.awt.event.ActionEvent evt) {
+        checkBoxAutosaveAllowedActionPerformed(evt);
+      }
+    });
+    gridBagConstraints = new java.awt.GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 6;
+    gridBagConstraints.anchor = java.awt.GridBagConstraints.NORTHWEST;
+    jPanel1.add(checkBoxAutosaveAllowed, gridBagConstraints);
+
+    checkBoxPrefetchProjectFolders.setText("Prefetch project folders in background");
+    checkBoxPrefetchProjectFolders.addActionListener(new java.awt.event.ActionListener() {
+      public void actionPerformed(java.awt.event.ActionEvent evt) {
+        checkBoxPrefetchProjectFoldersActionPerformed(evt);
+      }
+    });
+    gridBagConstraints = new java.awt.GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 7;
+    gridBagConstraints.anchor = java.awt.GridBagConstraints.NORTHWEST;
+    jPanel1.add(checkBoxPrefetchProjectFolders, gridBagConstraints);
+
     jPanel7.setBorder(javax.swing.BorderFactory.createTitledBorder("Mind map topic text font"));
     jPanel7.setLayout(new java.awt.BorderLayout());
 
@@ -771,7 +801,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
 
     gridBagConstraints = new java.awt.GridBagConstraints();
     gridBagConstraints.gridx = 0;
-    gridBagConstraints.gridy = 6;
+    gridBagConstraints.gridy = 8;
     gridBagConstraints.fill = java.awt.GridBagConstraints.BOTH;
     jPanel1.add(jPanel7, gridBagConstraints);
 
@@ -826,7 +856,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
 
     gridBagConstraints = new java.awt.GridBagConstraints();
     gridBagConstraints.gridx = 0;
-    gridBagConstraints.gridy = 7;
+    gridBagConstraints.gridy = 9;
     gridBagConstraints.fill = java.awt.GridBagConstraints.HORIZONTAL;
     jPanel1.add(jPanel8, gridBagConstraints);
 
@@ -1075,6 +1105,18 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     }
   }//GEN-LAST:event_checkBoxKnowledgeFolderAutogenerationAllowedActionPerformed
 
+  private void checkBoxAutosaveAllowedActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_checkBoxAutosaveAllowedActionPerformed
+    if (this.changeNotificationAllowed) {
+      this.changed = true;
+    }
+  }//GEN-LAST:event_checkBoxAutosaveAllowedActionPerformed
+
+  private void checkBoxPrefetchProjectFoldersActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_checkBoxPrefetchProjectFoldersActionPerformed
+    if (this.changeNotificationAllowed) {
+      this.changed = true;
+    }
+  }//GEN-LAST:event_checkBoxPrefetchProjectFoldersActionPerformed
+
   private void checkBoxCopyColorInfoToNewAllowedActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_checkBoxCopyColorInfoToNewAllowedActionPerformed
     if (this.changeNotificationAllowed) {
       this.changed = true;
@@ -1240,6 +1282,8 @@ public final class PreferencesPanel extends javax.swing.JPanel {
       this.checkBoxUnfoldCollapsedTarget.setSelected(preferences.getBoolean("unfoldCollapsedTarget", true)); //NOI18N
       this.checkBoxCopyColorInfoToNewAllowed.setSelected(preferences.getBoolean("copyColorInfoToNewChildAllowed", true)); //NOI18N
       this.checkBoxKnowledgeFolderAutogenerationAllowed.setSelected(preferences.getBoolean(PREFERENCE_KEY_KNOWLEDGEFOLDER_ALLOWED, true));
+      this.checkBoxAutosaveAllowed.setSelected(preferences.getBoolean(PREFERENCE_KEY_AUTOSAVE_ALLOWED, true));
+      this.checkBoxPrefetchProjectFolders.setSelected(preferences.getBoolean(PREFERENCE_KEY_PREFETCH_PROJECT_FOLDERS, true));
 
       // Metrics
       this.checkboxMetricsAllowed.setSelected(MetricsService.getInstance().isEnabled());
@@ -1351,6 +1395,8 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     preferences.putBoolean("unfoldCollapsedTarget", this.checkBoxUnfoldCollapsedTarget.isSelected()); //NOI18N
     preferences.putBoolean("copyColorInfoToNewChildAllowed", this.checkBoxCopyColorInfoToNewAllowed.isSelected()); //NOI18N
     preferences.putBoolean(PREFERENCE_KEY_KNOWLEDGEFOLDER_ALLOWED, this.checkBoxKnowledgeFolderAutogenerationAllowed.isSelected());
+    preferences.putBoolean(PREFERENCE_KEY_AUTOSAVE_ALLOWED, this.checkBoxAutosaveAllowed.isSelected());
+    preferences.putBoolean(PREFERENCE_KEY_PREFETCH_PROJECT_FOLDERS, this.checkBoxPrefetchProjectFolders.isSelected());
     PreferencesManager.getInstance().setFont(preferences, SpecificKeys.PROPERTY_TEXT_EDITOR_FONT, fontTextEditor);
 
     // Metrics
@@ -1395,9 +1441,11 @@ public final class PreferencesPanel extends javax.swing.JPanel {
   private javax.swing.JButton buttonImportFromFile;
   private javax.swing.JButton buttonOpenShortcutEditor;
   private javax.swing.JButton buttonResetToDefault;
+  private javax.swing.JCheckBox checkBoxAutosaveAllowed;
   private javax.swing.JCheckBox checkBoxCopyColorInfoToNewAllowed;
   private javax.swing.JCheckBox checkBoxDropShadow;
   private javax.swing.JCheckBox checkBoxKnowledgeFolderAutogenerationAllowed;
+  private javax.swing.JCheckBox checkBoxPrefetchProjectFolders;
   private javax.swing.JCheckBox checkBoxScalingALT;
   private javax.swing.JCheckBox checkBoxScalingCTRL;
   private javax.swing.JCheckBox checkBoxScalingMETA;
@@ -23,9 +23,20 @@ import java.io.File;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -38,13 +49,16 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
+import javax.swing.tree.TreePath;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.ui.misc.FileExaminator;
 import com.igormaznitsa.sciareto.ui.misc.NodeListRenderer;
+import com.igormaznitsa.sciareto.ui.misc.TextSearchIndex;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
+import com.igormaznitsa.sciareto.ui.tree.NodeProject;
 
 public class FindFilesForTextPanel extends javax.swing.JPanel {
 
@@ -58,6 +72,8 @@ public class FindFilesForTextPanel extends javax.swing.JPanel {
 
   private static final int MIN_TEXT_LENGTH = 3;
 
+  private static final long HITS_BATCH_DELAY = 200L;
+
   private final NodeFileOrFolder folder;
 
   private static volatile String CHARSET = "UTF-8";
@@ -232,15 +248,28 @@ public class FindFilesForTextPanel extends javax.swing.JPanel {
     }
   }
 
-  private void addFileIntoList(@Nonnull final NodeFileOrFolder file) {
+  private void addFilesIntoList(@Nonnull final NodeFileOrFolder scopeFolder, @Nonnull @MustNotContainNull final List<File> found) {
+    // tree nodes are loaded and changed only in the event dispatch thread
     SwingUtilities.invokeLater(new Runnable() {
       @Override
       public void run() {
+        final List<NodeFileOrFolder> files = new ArrayList<>();
+        for (final File f : found) {
+          final TreePath path = scopeFolder.findPathToFile(f);
+          if (path != null) {
+            files.add((NodeFileOrFolder) path.getLastPathComponent());
+          }
+        }
+        if (files.isEmpty()) {
+          return;
+        }
+
         final boolean first = foundFiles.isEmpty();
 
-        foundFiles.add(file);
+        final int startIndex = foundFiles.size();
+        foundFiles.addAll(files);
         for (final ListDataListener l : listListeners) {
-          l.intervalAdded(new ListDataEvent(listOfFoundElements, ListDataEvent.INTERVAL_ADDED, foundFiles.size() - 1, foundFiles.size() - 1));
+          l.intervalAdded(new ListDataEvent(listOfFoundElements, ListDataEvent.INTERVAL_ADDED, startIndex, foundFiles.size() - 1));
         }
 
         if (first) {
@@ -251,63 +280,120 @@ public class FindFilesForTextPanel extends javax.swing.JPanel {
     });
   }
 
-  private void startSearchThread(@Nonnull @MustNotContainNull final List<NodeFileOrFolder> scope, @Nonnull final byte[] dataToFindVariant1, @Nonnull final byte[] dataToFindVariant2) {
-    int size = 0;
-    for (final NodeFileOrFolder p : scope) {
-      size += p.size();
-    }
+  private static final class ExamineFilesTask extends RecursiveAction {
 
-    final byte[] fileOpBuffer = new byte[1024 * 1024];
+    private static final long serialVersionUID = -3319564731982364514L;
 
-    final Runnable runnable = new Runnable() {
-      int value = 0;
+    private static final int MAX_FILES_PER_TASK = 4;
 
-      private void processFile(final NodeFileOrFolder file) {
-        value++;
-        final File f = file.makeFileForNode();
+    private final List<File> files;
+    private final FileExaminator.BytePattern pattern;
+    private final Queue<File> found;
+    private final AtomicInteger processed;
 
-        try {
-          if (new FileExaminator(f).doesContainData(fileOpBuffer, dataToFindVariant1, dataToFindVariant2)) {
-            addFileIntoList(file);
+    private ExamineFilesTask(@Nonnull @MustNotContainNull final List<File> files, @Nonnull final FileExaminator.BytePattern pattern, @Nonnull @MustNotContainNull final Queue<File> found, @Nonnull final AtomicInteger processed) {
+      this.files = files;
+      this.pattern = pattern;
+      this.found = found;
+      this.processed = processed;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.files.size() > MAX_FILES_PER_TASK) {
+        final int middle = this.files.size() / 2;
+        invokeAll(new ExamineFilesTask(this.files.subList(0, middle), this.pattern, this.found, this.processed),
+            new ExamineFilesTask(this.files.subList(middle, this.files.size()), this.pattern, this.found, this.processed));
+      } else {
+        for (final File f : this.files) {
+          if (Thread.currentThread().isInterrupted()) {
+            return;
           }
+          try {
+            if (new FileExaminator(f).doesContainData(this.pattern)) {
+              this.found.add(f);
+            }
+          }
+          catch (Exception ex) {
+            LOGGER.error("Error during text search in '" + f + '\'', ex);
+          }
+          this.processed.incrementAndGet();
         }
-        catch (Exception ex) {
-          LOGGER.error("Error during text search in '" + f + '\'', ex);
+      }
+    }
+  }
+
+  private void startSearchThread(@Nonnull @MustNotContainNull final List<NodeFileOrFolder> scope, @Nonnull final byte[] dataToFindVariant1, @Nonnull final byte[] dataToFindVariant2) {
+    final FileExaminator.BytePattern pattern = new FileExaminator.BytePattern(dataToFindVariant1, dataToFindVariant2);
+
+    final Runnable runnable = new Runnable() {
+      private void processScope(@Nonnull final NodeFileOrFolder scopeFolder) throws InterruptedException {
+        final NodeProject project = scopeFolder.findProject();
+        final File scopeFile = scopeFolder.makeFileForNode();
+        if (project == null || scopeFile == null) {
+          return;
         }
 
-        if (!Thread.currentThread().isInterrupted()) {
-          safeSetProgressValue(value);
+        safeSetProgressValue(-1);
+        final TextSearchIndex index = project.getTextIndex();
+        index.update();
+
+        final List<File> candidates = new ArrayList<>();
+        final Path scopePath = scopeFile.toPath();
+        for (final File f : index.findCandidates(dataToFindVariant1, dataToFindVariant2)) {
+          if (f.toPath().startsWith(scopePath)) {
+            candidates.add(f);
+          }
         }
-      }
+        Collections.sort(candidates);
+
+        safeSetProgressMaximum(candidates.size());
+
+        final Queue<File> found = new ConcurrentLinkedQueue<>();
+        final AtomicInteger processed = new AtomicInteger();
+        final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        try {
+          final ForkJoinTask<Void> task = pool.submit(new ExamineFilesTask(candidates, pattern, found, processed));
+          boolean done = false;
+          while (!done) {
+            try {
+              task.get(HITS_BATCH_DELAY, TimeUnit.MILLISECONDS);
+              done = true;
+            }
+            catch (TimeoutException ex) {
+              // send collected hits and continue
+            }
+            catch (ExecutionException ex) {
+              LOGGER.error("Error during text search", ex.getCause()); //NOI18N
+              done = true;
+            }
 
-      private void processFolder(final NodeFileOrFolder folder) {
-        value++;
-        for (final NodeFileOrFolder f : folder) {
-          if (f.isLeaf()) {
-            processFile(f);
-          } else {
-            processFolder(f);
+            final List<File> batch = new ArrayList<>();
+            File f;
+            while ((f = found.poll()) != null) {
+              batch.add(f);
+            }
+            if (!batch.isEmpty()) {
+              addFilesIntoList(scopeFolder, batch);
+            }
+            safeSetProgressValue(processed.get());
           }
         }
-        if (!Thread.currentThread().isInterrupted()) {
-          safeSetProgressValue(value);
+        finally {
+          pool.shutdownNow();
         }
       }
 
       @Override
       public void run() {
-        for (final NodeFileOrFolder p : scope) {
-          for (final NodeFileOrFolder f : p) {
-            if (Thread.currentThread().isInterrupted()) {
-              return;
-            }
-            if (f.isLeaf()) {
-              processFile(f);
-            } else {
-              processFolder(f);
-            }
+        try {
+          for (final NodeFileOrFolder p : scope) {
+            processScope(p);
           }
         }
+        catch (InterruptedException ex) {
+          return;
+        }
         safeSetProgressValue(Integer.MAX_VALUE);
         SwingUtilities.invokeLater(new Runnable() {
           @Override
@@ -341,13 +427,21 @@ public class FindFilesForTextPanel extends javax.swing.JPanel {
     }
 
     this.progressBarSearch.setMinimum(0);
-    this.progressBarSearch.setMaximum(size);
     this.progressBarSearch.setValue(0);
 
     thread.start();
 
   }
 
+  private void safeSetProgressMaximum(final int value) {
+    SwingUtilities.invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        progressBarSearch.setMaximum(value);
+      }
+    });
+  }
+
   private void safeSetProgressValue(final int value) {
     SwingUtilities.invokeLater(new Runnable() {
       @Override
@@ -489,8 +583,12 @@ public class FindFilesForTextPanel extends javax.swing.JPanel {
     final Locale selectedLocale = ((TheLocale) this.comboLocale.getSelectedItem()).locale;
 
     try {
-      final byte[] str1 = this.fieldText.getText().toLowerCase(selectedLocale).getBytes(this.comboCharsets.getSelectedItem().toString());
-      final byte[] str2 = this.fieldText.getText().toUpperCase(selectedLocale).getBytes(this.comboCharsets.getSelectedItem().toString());
+      byte[] str1 = this.fieldText.getText().toLowerCase(selectedLocale).getBytes(this.comboCharsets.getSelectedItem().toString());
+      byte[] str2 = this.fieldText.getText().toUpperCase(selectedLocale).getBytes(this.comboCharsets.getSelectedItem().toString());
+      if (str1.length != str2.length) {
+        str1 = this.fieldText.getText().getBytes(this.comboCharsets.getSelectedItem().toString());
+        str2 = str1;
+      }
       startSearchThread(folders, str1, str2);
     }
     catch (UnsupportedEncodingException ex) {
@@ -15,11 +15,7 @@
  */
 package com.igormaznitsa.sciareto.ui;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -30,14 +26,14 @@ import javax.swing.ListModel;
 import javax.swing.SwingUtilities;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
+import javax.swing.tree.TreePath;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
-import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.ui.misc.MapLinkIndex;
 import com.igormaznitsa.sciareto.ui.misc.NodeListRenderer;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
 import com.igormaznitsa.sciareto.ui.tree.NodeProject;
@@ -156,20 +152,8 @@ public class FindUsagesPanel extends javax.swing.JPanel {
           final NodeProject project = file.findProject();
           if (project != null) {
             final String extension = FilenameUtils.getExtension(f.getName()).toLowerCase(Locale.ENGLISH);
-            if ("mmd".equals(extension)) { //NOI18N
-              Reader reader = null;
-              try {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(f), "UTF-8")); //NOI18N
-                final MindMap map = new MindMap(null, reader);
-                if (!MapUtils.findTopicsRelatedToFile(project.getFolder(), nodeFileToSearch, map).isEmpty()) {
-                  addFileIntoList(file);
-                }
-              } catch (Exception ex) {
-                LOGGER.error("Can't parse map", ex); //NOI18N
-              } finally {
-                IOUtils.closeQuietly(reader);
-              }
-            } else if (findEverywhere){
+            // maps are processed through link index
+            if (!"mmd".equals(extension)) { //NOI18N
               try {
                 final LineIterator lineIterator = org.apache.commons.io.FileUtils.lineIterator(f, "UTF-8"); //NOI18N
                 try {
@@ -213,6 +197,27 @@ public class FindUsagesPanel extends javax.swing.JPanel {
 
         @Override
         public void run() {
+          safeSetProgressValue(-1);
+          for (final NodeProject p : scope) {
+            final MapLinkIndex index = p.getLinkIndex();
+            try {
+              index.update();
+            } catch (InterruptedException ex) {
+              return;
+            }
+            for (final File mapFile : index.findMapsReferringTo(nodeFileToSearch)) {
+              final TreePath path = p.findPathToFile(mapFile);
+              if (path != null) {
+                addFileIntoList((NodeFileOrFolder) path.getLastPathComponent());
+              }
+            }
+          }
+
+          if (!findEverywhere) {
+            safeSetProgressValue(Integer.MAX_VALUE);
+            return;
+          }
+
           for (final NodeProject p : scope) {
             for (final NodeFileOrFolder f : p) {
               if (Thread.currentThread().isInterrupted()) {
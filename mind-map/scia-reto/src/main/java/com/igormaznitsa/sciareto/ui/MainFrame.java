@@ -85,6 +85,7 @@ import com.igormaznitsa.sciareto.Main;
 import com.igormaznitsa.sciareto.preferences.FileHistoryManager;
 import com.igormaznitsa.sciareto.preferences.PreferencesManager;
 import com.igormaznitsa.sciareto.ui.editors.AbstractEditor;
+import com.igormaznitsa.sciareto.ui.editors.LazyEditor;
 import com.igormaznitsa.sciareto.ui.editors.EditorContentType;
 import com.igormaznitsa.sciareto.ui.editors.SourceTextEditor;
 import com.igormaznitsa.sciareto.ui.misc.DonateButton;
@@ -255,6 +256,7 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
       }
     });
 
+    Main.markStartupStage("main frame"); //NOI18N
     if (!this.stateless) {
       restoreState();
     } else {
@@ -272,6 +274,7 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
         //TODO try to hide project panel!
       }
     }
+    Main.markStartupStage("restore state"); //NOI18N
 
     final LookAndFeel current = UIManager.getLookAndFeel();
     final ButtonGroup lfGroup = new ButtonGroup();
@@ -388,7 +391,12 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
     }
   }
 
-  public void processTabChanged(@Nullable final TabTitle title) {
+  public void processTabChanged(@Nullable TabTitle title) {
+    if (title != null && title.getProvider() instanceof LazyEditor) {
+      materializeLazyTab(title);
+      title = this.tabPane.getCurrentTitle();
+    }
+
     this.menuSaveAll.setEnabled(this.tabPane.hasEditableAndChangedDocument());
 
     if (title != null && !this.tabPane.isEmpty() && title.getProvider().doesSupportPatternSearch()) {
@@ -453,6 +461,12 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
     return handled;
   }
 
+  @Override
+  public void dispose() {
+    this.explorerTree.dispose();
+    super.dispose();
+  }
+
   private boolean doClosing() {
     endFullScreenIfActive();
 
@@ -470,6 +484,10 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
     if (!this.stateless) {
       saveState();
     }
+
+    if (!MMDEditor.waitForPendingSaves(30000L)) {
+      LOGGER.error("Some mind maps have not been saved before closing"); //NOI18N
+    }
     return true;
   }
 
@@ -517,8 +535,8 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
       }
       final File[] activeFiles = FileHistoryManager.getInstance().getActiveFiles();
       for (final File f : activeFiles) {
-        if (f.isFile()) {
-          openFileAsTab(f);
+        if (f.isFile() && !this.tabPane.focusToFile(f)) {
+          this.tabPane.createTab(new LazyEditor(this, f));
         }
       }
     }
@@ -559,54 +577,15 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
       if (this.tabPane.focusToFile(file)) {
         result = true;
       } else {
-        final String ext = FilenameUtils.getExtension(file.getName()).toLowerCase(Locale.ENGLISH);
-        if (ext.equals("mmd")) { //NOI18N
-          try {
-            final MMDEditor panel = new MMDEditor(this, file);
-            this.tabPane.createTab(panel);
-            result = true;
-          }
-          catch (IOException ex) {
-            LOGGER.error("Can't load mind map", ex); //NOI18N
-          }
-        } else if (PictureViewer.SUPPORTED_FORMATS.contains(ext)) {
-          try {
-            final PictureViewer panel = new PictureViewer(this, file);
-            this.tabPane.createTab(panel);
-            result = true;
-          }
-          catch (IOException ex) {
-            LOGGER.error("Can't load file as image", ex); //NOI18N
-          }
-        } else if (SourceTextEditor.SUPPORTED_EXTENSIONS.contains(ext)) {
-          try {
-            final SourceTextEditor panel = new SourceTextEditor(this, file);
-            this.tabPane.createTab(panel);
-            result = true;
-          }
-          catch (IOException ex) {
-            LOGGER.error("Can't load file as sources", ex); //NOI18N
-          }
-          finally {
-            processTabChange();
-          }
-        } else {
-          if (file.length() >= (2L * 1024L * 1024L) && !DialogProviderManager.getInstance().getDialogProvider().msgConfirmYesNo(null, "Very big file", "It is a very big file! Are you sure to open it?")) {
-            return true;
-          }
-
-          try {
-            final TextEditor panel = new TextEditor(this, file);
-            this.tabPane.createTab(panel);
-            result = true;
-          }
-          catch (IOException ex) {
-            LOGGER.error("Can't load file as text", ex); //NOI18N
-          }
-          finally {
-            processTabChange();
-          }
+        if (isOpenedAsText(file) && file.length() >= (2L * 1024L * 1024L) && !DialogProviderManager.getInstance().getDialogProvider().msgConfirmYesNo(null, "Very big file", "It is a very big file! Are you sure to open it?")) {
+          return true;
+        }
+        final AbstractEditor editor = makeEditorForFile(file);
+        if (editor != null) {
+          this.tabPane.createTab(editor);
+          result = true;
         }
+        processTabChange();
       }
     }
     if (result) {
@@ -623,6 +602,46 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
     return result;
   }
 
+  private static boolean isOpenedAsText(@Nonnull final File file) {
+    final String ext = FilenameUtils.getExtension(file.getName()).toLowerCase(Locale.ENGLISH);
+    return !ext.equals("mmd") && !PictureViewer.SUPPORTED_FORMATS.contains(ext) && !SourceTextEditor.SUPPORTED_EXTENSIONS.contains(ext); //NOI18N
+  }
+
+  @Nullable
+  private AbstractEditor makeEditorForFile(@Nonnull final File file) {
+    final String ext = FilenameUtils.getExtension(file.getName()).toLowerCase(Locale.ENGLISH);
+    try {
+      if (ext.equals("mmd")) { //NOI18N
+        return new MMDEditor(this, file);
+      } else if (PictureViewer.SUPPORTED_FORMATS.contains(ext)) {
+        return new PictureViewer(this, file);
+      } else if (SourceTextEditor.SUPPORTED_EXTENSIONS.contains(ext)) {
+        return new SourceTextEditor(this, file);
+      } else {
+        return new TextEditor(this, file);
+      }
+    }
+    catch (IOException ex) {
+      LOGGER.error("Can't load file : " + file, ex); //NOI18N
+      return null;
+    }
+  }
+
+  /**
+   * Replace placeholder of tab restored during start by real editor.
+   *
+   * @param title title of placeholder tab
+   */
+  private void materializeLazyTab(@Nonnull final TabTitle title) {
+    final File file = ((LazyEditor) title.getProvider()).getFile();
+    final AbstractEditor editor = file == null || !file.isFile() ? null : makeEditorForFile(file);
+    if (editor == null) {
+      closeTab(title);
+    } else {
+      this.tabPane.replaceTab(title, editor);
+    }
+  }
+
   @Override
   public void focusInTree(@Nonnull final TabTitle title) {
     final File file = title.getAssociatedFile();
@@ -727,11 +746,14 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
         return false;
       }
 
-      closeTab(tabsToClose.toArray(new TabTitle[tabsToClose.size()]));
-
       final NodeProject project = findProjectForFile(file);
 
       List<File> affectedFiles = project == null ? Collections.EMPTY_LIST : project.findAffectedFiles(file);
+      if (affectedFiles == null) {
+        return false;
+      }
+
+      closeTab(tabsToClose.toArray(new TabTitle[tabsToClose.size()]));
 
       final Iterator<File> iterator = affectedFiles.iterator();
       final Path removingFile = file.toPath();
@@ -1188,6 +1210,7 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
       for (final TabTitle t : this.tabPane) {
         t.getProvider().updateConfiguration();
       }
+      this.explorerTree.updateConfiguration();
     }
   }
 
@@ -1493,14 +1516,12 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
     if (projectFolder != null || initialMindMapFile != null) {
       File projectFolderToUse = projectFolder;
 
-      if (projectFolderToUse == null) {
-        final NodeProject foundProject = findProjectForFile(initialMindMapFile);
-        if (foundProject != null) {
-          projectFolderToUse = foundProject.getFolder();
-        }
+      final NodeProject foundProject = findProjectForFile(projectFolderToUse == null ? initialMindMapFile : projectFolderToUse);
+      if (projectFolderToUse == null && foundProject != null) {
+        projectFolderToUse = foundProject.getFolder();
       }
 
-      final FileLinkGraphPanel graph = new FileLinkGraphPanel(projectFolderToUse, initialMindMapFile);
+      final FileLinkGraphPanel graph = new FileLinkGraphPanel(projectFolderToUse, initialMindMapFile, foundProject == null ? null : foundProject.getLinkIndex());
 
       JOptionPane.showMessageDialog(this, graph, "Graph of Mind Map file links", JOptionPane.PLAIN_MESSAGE);
       final FileLinkGraphPanel.FileVertex selected = graph.getSelectedFile();
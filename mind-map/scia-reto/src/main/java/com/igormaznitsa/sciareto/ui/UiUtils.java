@@ -48,6 +48,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.imageio.ImageIO;
@@ -57,6 +58,7 @@ import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JWindow;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
@@ -209,6 +211,56 @@ public final class UiUtils {
     return null;
   }
 
+  /**
+   * Execute task in background thread and show modal dialog with progress
+   * until the task is completed, the dialog allows to cancel the task.
+   *
+   * @param title title of the dialog
+   * @param message message shown in the dialog
+   * @param task task to be executed, it should check interruption of its thread
+   * @return true if the task has been completed, false if it has been canceled
+   */
+  public static boolean runWithProgressDialog(@Nonnull final String title, @Nonnull final String message, @Nonnull final Runnable task) {
+    final JPanel panel = new JPanel(new BorderLayout(0, 8));
+    panel.add(new JLabel(message), BorderLayout.NORTH);
+    final JProgressBar progressBar = new JProgressBar();
+    progressBar.setIndeterminate(true);
+    panel.add(progressBar, BorderLayout.CENTER);
+
+    final Object cancel = "Cancel";
+    final JOptionPane pane = new JOptionPane(panel, JOptionPane.PLAIN_MESSAGE, JOptionPane.DEFAULT_OPTION, null, new Object[]{cancel}, cancel);
+    final JDialog dialog = pane.createDialog(Main.getApplicationFrame(), title);
+
+    final AtomicBoolean completed = new AtomicBoolean();
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          task.run();
+        } finally {
+          completed.set(!Thread.currentThread().isInterrupted());
+          SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+              dialog.setVisible(false);
+            }
+          });
+        }
+      }
+    }, "SR_PROGRESS_TASK"); //NOI18N
+    thread.setDaemon(true);
+    thread.start();
+
+    dialog.setVisible(true);
+    dialog.dispose();
+
+    if (completed.get()) {
+      return true;
+    }
+    thread.interrupt();
+    return false;
+  }
+
   public static int calculateBrightness(@Nonnull final Color color) {
     return (int) Math.sqrt(
         color.getRed() * color.getRed() * .241d
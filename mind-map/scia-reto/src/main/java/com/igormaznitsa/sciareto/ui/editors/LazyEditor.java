@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.sciareto.ui.editors;
+
+import java.awt.GridBagLayout;
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.filechooser.FileFilter;
+import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.ui.FindTextScopeProvider;
+import com.igormaznitsa.sciareto.ui.tabs.TabTitle;
+
+/**
+ * Light placeholder of tab restored during start, it keeps only file and tab
+ * title. The real editor is created when the tab is selected first time.
+ */
+public final class LazyEditor extends AbstractEditor {
+
+  private static final FileFilter ANY_FILE_FILTER = new FileFilter() {
+    @Override
+    public boolean accept(@Nonnull final File f) {
+      return true;
+    }
+
+    @Override
+    @Nonnull
+    public String getDescription() {
+      return "All files";
+    }
+  };
+
+  private final TabTitle title;
+  private final JPanel placeholder;
+
+  public LazyEditor(@Nonnull final Context context, @Nonnull final File file) {
+    super();
+    this.title = new TabTitle(context, this, file);
+    this.placeholder = new JPanel(new GridBagLayout());
+    this.placeholder.add(new JLabel("Opening " + file.getName() + "...")); //NOI18N
+  }
+
+  /**
+   * Get file to be opened in the real editor.
+   *
+   * @return the file, can be null if it has been removed from the tab
+   */
+  @Nullable
+  public File getFile() {
+    return this.title.getAssociatedFile();
+  }
+
+  @Override
+  public void focusToEditor() {
+  }
+
+  @Override
+  @Nonnull
+  public TabTitle getTabTitle() {
+    return this.title;
+  }
+
+  @Override
+  @Nonnull
+  public JComponent getMainComponent() {
+    return this.placeholder;
+  }
+
+  @Override
+  @Nonnull
+  public JComponent getContainerToShow() {
+    return this.placeholder;
+  }
+
+  /**
+   * Placeholder reports plain text to not be taken for any specific editor.
+   *
+   * @return always TEXT
+   */
+  @Override
+  @Nonnull
+  public EditorContentType getEditorContentType() {
+    return EditorContentType.TEXT;
+  }
+
+  @Override
+  @Nonnull
+  public AbstractEditor getEditor() {
+    return this;
+  }
+
+  @Override
+  public boolean saveDocument() throws IOException {
+    return true;
+  }
+
+  @Override
+  @Nonnull
+  public FileFilter getFileFilter() {
+    return ANY_FILE_FILTER;
+  }
+
+  @Override
+  public void loadContent(@Nullable final File file) throws IOException {
+    // the file will be loaded by the real editor
+  }
+
+  @Override
+  public boolean isEditable() {
+    return false;
+  }
+
+  @Override
+  public boolean isSaveable() {
+    return false;
+  }
+
+  @Override
+  public boolean isRedo() {
+    return false;
+  }
+
+  @Override
+  public boolean isUndo() {
+    return false;
+  }
+
+  @Override
+  public boolean redo() {
+    return false;
+  }
+
+  @Override
+  public boolean undo() {
+    return false;
+  }
+
+  @Override
+  public boolean doesSupportCutCopyPaste() {
+    return false;
+  }
+
+  @Override
+  public boolean isCopyAllowed() {
+    return false;
+  }
+
+  @Override
+  public boolean isPasteAllowed() {
+    return false;
+  }
+
+  @Override
+  public boolean isCutAllowed() {
+    return false;
+  }
+
+  @Override
+  public boolean doCopy() {
+    return false;
+  }
+
+  @Override
+  public boolean doCut() {
+    return false;
+  }
+
+  @Override
+  public boolean doPaste() {
+    return false;
+  }
+
+  @Override
+  public boolean findNext(@Nonnull final Pattern pattern, @Nonnull final FindTextScopeProvider provider) {
+    return false;
+  }
+
+  @Override
+  public boolean findPrev(@Nonnull final Pattern pattern, @Nonnull final FindTextScopeProvider provider) {
+    return false;
+  }
+
+  @Override
+  public boolean doesSupportPatternSearch() {
+    return false;
+  }
+}
@@ -19,9 +19,13 @@ import static com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute.*;
 import static com.igormaznitsa.mindmap.swing.panel.utils.Utils.assertSwingDispatchThread;
 import static com.igormaznitsa.sciareto.ui.UiUtils.BUNDLE;
 
+import java.awt.CardLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Toolkit;
@@ -33,6 +37,8 @@ import java.awt.dnd.DropTargetDragEvent;
 import java.awt.dnd.DropTargetDropEvent;
 import java.awt.dnd.DropTargetEvent;
 import java.awt.dnd.DropTargetListener;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.AdjustmentEvent;
 import java.awt.event.AdjustmentListener;
 import java.awt.event.KeyEvent;
@@ -40,9 +46,14 @@ import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,21 +61,31 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.prefs.Preferences;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.filechooser.FileFilter;
 
-import org.apache.commons.io.FileUtils;
-
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
-import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.mindmap.ide.commons.DnDUtils;
 import com.igormaznitsa.mindmap.ide.commons.Misc;
 import com.igormaznitsa.mindmap.model.Extra;
@@ -99,6 +120,7 @@ import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.Main;
 import com.igormaznitsa.sciareto.preferences.PreferencesManager;
+import com.igormaznitsa.sciareto.preferences.PreferencesPanel;
 import com.igormaznitsa.sciareto.ui.tree.NodeProject;
 import com.igormaznitsa.sciareto.ui.editors.mmeditors.ColorAttributePanel;
 import com.igormaznitsa.sciareto.ui.misc.ColorChooserButton;
@@ -132,9 +154,49 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
   private boolean firstLayouting = true;
   
   private final JScrollPane scrollPane;
-  
+
+  private static final String CARD_LOADING = "loading"; //NOI18N
+  private static final String CARD_MAP = "map"; //NOI18N
+
+  private final JPanel mainContainer;
+
+  private transient Future<?> loadingTask;
+  private int loadingCounter;
+
+  /**
+   * Timer to make model snapshot for undo and autosave after quiet period of
+   * changes.
+   */
+  private final Timer snapshotTimer;
+  private long firstNotSnapshottedChange = -1L;
+  private int snapshotDelay;
+  private int snapshotMaxLatency;
+  private boolean autosaveAllowed;
+
+  /**
+   * Single thread for reading and writing of mind map files, keeps order of
+   * save and load operations.
+   */
+  private static final ExecutorService IO_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR_MMD_IO"); //NOI18N
+      result.setDaemon(true);
+      return result;
+    }
+  });
+
   public void refreshConfig() {
     this.mindMapPanel.refreshConfiguration();
+    loadSnapshotConfig();
+  }
+
+  private void loadSnapshotConfig() {
+    final Preferences preferences = PreferencesManager.getInstance().getPreferences();
+    this.snapshotDelay = Math.max(0, preferences.getInt(PreferencesPanel.PREFERENCE_KEY_SNAPSHOT_DELAY, 500));
+    this.snapshotMaxLatency = Math.max(this.snapshotDelay, preferences.getInt(PreferencesPanel.PREFERENCE_KEY_SNAPSHOT_MAX_LATENCY, 3000));
+    this.autosaveAllowed = preferences.getBoolean(PreferencesPanel.PREFERENCE_KEY_AUTOSAVE_ALLOWED, true);
   }
 
   public static final FileFilter MMD_FILE_FILTER = new FileFilter() {
@@ -179,17 +241,63 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
     
     this.mindMapPanel.setDropTarget(new DropTarget(this.mindMapPanel, this));
 
-    final MindMap map;
-    if (file == null) {
-      map = new MindMap(this, true);
-    } else {
-      map = new MindMap(this, new StringReader(FileUtils.readFileToString(file, "UTF-8"))); //NOI18N
-    }
+    final JPanel loadingPanel = new JPanel(new GridBagLayout());
+    final JProgressBar loadingBar = new JProgressBar();
+    loadingBar.setIndeterminate(true);
+    final GridBagConstraints constraints = new GridBagConstraints();
+    constraints.gridx = 0;
+    constraints.insets = new Insets(4, 4, 4, 4);
+    loadingPanel.add(new JLabel("Loading " + (file == null ? "..." : file.getName())), constraints); //NOI18N
+    loadingPanel.add(loadingBar, constraints);
 
-    this.mindMapPanel.setModel(Assertions.assertNotNull(map), false);
+    this.mainContainer = new JPanel(new CardLayout());
+    this.mainContainer.add(loadingPanel, CARD_LOADING);
+    this.mainContainer.add(this.scrollPane, CARD_MAP);
 
+    this.snapshotTimer = new Timer(0, new ActionListener() {
+      @Override
+      public void actionPerformed(@Nonnull final ActionEvent e) {
+        makeModelSnapshot();
+      }
+    });
+    this.snapshotTimer.setRepeats(false);
+    loadSnapshotConfig();
+
+    this.mindMapPanel.setModel(new MindMap(this, true), false);
     loadContent(file);
-    this.currentModelState = this.mindMapPanel.getModel().packToString();
+  }
+
+  /**
+   * Wait for end of all queued save operations, must be called before exit.
+   *
+   * @param timeout max time to wait in milliseconds
+   * @return true if all operations have been completed
+   */
+  public static boolean waitForPendingSaves(final long timeout) {
+    try {
+      IO_EXECUTOR.submit(new Runnable() {
+        @Override
+        public void run() {
+        }
+      }).get(timeout, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException | TimeoutException ex) {
+      LOGGER.error("Can't wait for pending saves", ex); //NOI18N
+      return false;
+    }
+  }
+
+  /**
+   * Check that content is being loaded, the shown model is placeholder and it
+   * must not be changed till the end of loading.
+   *
+   * @return true if loading is in progress
+   */
+  public boolean isLoading() {
+    return this.loadingTask != null;
   }
 
   public void rootToCentre() {
@@ -263,7 +371,7 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
 
   @Override
   public boolean isEditable() {
-    return true;
+    return !isLoading();
   }
 
   @Override
@@ -273,36 +381,218 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
 
   @Override
   public boolean isRedo() {
-    return this.undoStorage.hasRedo();
+    return !isLoading() && this.undoStorage.hasRedo() && this.firstNotSnapshottedChange < 0L;
   }
 
   @Override
   public boolean isUndo() {
-    return this.undoStorage.hasUndo();
+    return !isLoading() && (this.undoStorage.hasUndo() || this.firstNotSnapshottedChange >= 0L);
   }
 
+  /**
+   * Load content of file. The file is read and parsed in background thread,
+   * the editor shows progress placeholder till the end of loading.
+   *
+   * @param file file to load, null means new empty map
+   * @throws IOException it is not thrown, errors are shown when loading is
+   * completed
+   */
   @Override
-  public void loadContent(@Nullable File file) throws IOException {
-    final MindMap map;
+  public void loadContent(@Nullable final File file) throws IOException {
+    if (this.loadingTask != null) {
+      this.loadingTask.cancel(true);
+      this.loadingTask = null;
+    }
+    final int loadingId = ++this.loadingCounter;
+
     if (file == null) {
-      map = new MindMap(this, true);
+      onContentLoaded(new MindMap(this, true));
+      return;
+    }
+
+    ((CardLayout) this.mainContainer.getLayout()).show(this.mainContainer, CARD_LOADING);
+    this.currentModelState = null;
+
+    this.loadingTask = IO_EXECUTOR.submit(new Runnable() {
+      @Override
+      public void run() {
+        MindMap loaded = null;
+        IOException error = null;
+        String autosaved = null;
+        try {
+          loaded = Main.MAP_CACHE.load(file, MMDEditor.this);
+          final File autosaveFile = makeAutosaveFile(file);
+          if (autosaveFile.isFile() && autosaveFile.lastModified() > file.lastModified()) {
+            autosaved = new String(Files.readAllBytes(autosaveFile.toPath()), "UTF-8"); //NOI18N
+          }
+        } catch (IOException ex) {
+          error = ex;
+        }
+
+        final MindMap map = loaded;
+        final IOException loadError = error;
+        final String recoveryText = autosaved;
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            if (loadingId != loadingCounter || mindMapPanel.isDisposed()) {
+              return;
+            }
+            loadingTask = null;
+            if (map == null) {
+              LOGGER.error("Can't load mind map " + file, loadError); //NOI18N
+              DialogProviderManager.getInstance().getDialogProvider().msgError(null, "Can't load mind map '" + file.getName() + "', see log!");
+              context.closeTab(title);
+            } else {
+              onContentLoaded(map);
+              if (recoveryText != null) {
+                offerRecovery(file, recoveryText);
+              }
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void offerRecovery(@Nonnull final File file, @Nonnull final String text) {
+    if (DialogProviderManager.getInstance().getDialogProvider().msgConfirmYesNo(null, "Restore autosaved map", "Detected autosaved non-saved changes of '" + file.getName() + "', restore them?")) {
+      try {
+        this.undoStorage.addToUndo(this.currentModelState);
+        this.mindMapPanel.setModel(new MindMap(this, new StringReader(text)), false);
+        this.currentModelState = this.mindMapPanel.getModel().packToString();
+        this.title.setChanged(true);
+        this.context.notifyUpdateRedoUndo();
+        return;
+      } catch (IOException ex) {
+        LOGGER.error("Can't parse autosaved map for " + file, ex); //NOI18N
+      }
+    }
+    deleteAutosave(file);
+  }
+
+  /**
+   * Called on every model change, schedules snapshot after quiet period but
+   * not later than max latency after the first non-processed change.
+   */
+  private void scheduleModelSnapshot() {
+    final long now = System.currentTimeMillis();
+    if (this.firstNotSnapshottedChange < 0L) {
+      this.firstNotSnapshottedChange = now;
+    }
+    final long timeLeft = this.firstNotSnapshottedChange + this.snapshotMaxLatency - now;
+    if (timeLeft <= 0L) {
+      makeModelSnapshot();
     } else {
-      map = new MindMap(this, new StringReader(FileUtils.readFileToString(file, "UTF-8"))); //NOI18N
+      this.snapshotTimer.setInitialDelay((int) Math.min(this.snapshotDelay, timeLeft));
+      this.snapshotTimer.restart();
     }
-    this.mindMapPanel.setModel(Assertions.assertNotNull(map), false);
+  }
+
+  /**
+   * Pack current model state, place previous state into undo storage and
+   * autosave the state if allowed. Does nothing if there are not changes.
+   */
+  private void makeModelSnapshot() {
+    this.snapshotTimer.stop();
+    if (this.firstNotSnapshottedChange < 0L || this.currentModelState == null) {
+      return;
+    }
+    this.firstNotSnapshottedChange = -1L;
+
+    final String newState = this.mindMapPanel.getModel().packToString();
+    if (!newState.equals(this.currentModelState)) {
+      this.undoStorage.addToUndo(this.currentModelState);
+      this.undoStorage.clearRedo();
+      this.currentModelState = newState;
+
+      final File file = this.title.getAssociatedFile();
+      if (this.autosaveAllowed && file != null && this.title.isChanged()) {
+        IO_EXECUTOR.submit(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              final File autosaveFile = makeAutosaveFile(file);
+              if (!Main.AUTOSAVE_FOLDER.isDirectory() && !Main.AUTOSAVE_FOLDER.mkdirs()) {
+                throw new IOException("Can't create folder " + Main.AUTOSAVE_FOLDER); //NOI18N
+              }
+              writeAtomically(autosaveFile, newState.getBytes("UTF-8")); //NOI18N
+            } catch (IOException ex) {
+              LOGGER.warn("Can't autosave " + file + " : " + ex.getMessage()); //NOI18N
+            }
+          }
+        });
+      }
+    }
+    this.context.notifyUpdateRedoUndo();
+  }
+
+  @Nonnull
+  private static File makeAutosaveFile(@Nonnull final File file) {
+    return new File(Main.AUTOSAVE_FOLDER, file.getName() + '_' + Integer.toHexString(file.getAbsolutePath().hashCode()) + ".mmd"); //NOI18N
+  }
+
+  private static void deleteAutosave(@Nonnull final File file) {
+    IO_EXECUTOR.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Files.deleteIfExists(makeAutosaveFile(file).toPath());
+        } catch (IOException ex) {
+          LOGGER.warn("Can't delete autosave of " + file + " : " + ex.getMessage()); //NOI18N
+        }
+      }
+    });
+  }
+
+  @Override
+  protected void doDispose() {
+    this.snapshotTimer.stop();
+    this.firstNotSnapshottedChange = -1L;
+    if (this.loadingTask != null) {
+      this.loadingTask.cancel(true);
+      this.loadingTask = null;
+    }
+    final File file = this.title.getAssociatedFile();
+    if (file != null) {
+      deleteAutosave(file);
+    }
+  }
+
+  private void onContentLoaded(@Nonnull final MindMap map) {
+    this.snapshotTimer.stop();
+    this.firstNotSnapshottedChange = -1L;
+    this.mindMapPanel.setModel(map, false);
+    this.currentModelState = map.packToString();
 
     this.undoStorage.clearRedo();
     this.undoStorage.clearUndo();
 
     this.title.setChanged(false);
+    this.firstLayouting = true;
 
+    ((CardLayout) this.mainContainer.getLayout()).show(this.mainContainer, CARD_MAP);
     this.scrollPane.revalidate();
-  }
-
+    this.context.notifyUpdateRedoUndo();
+  }
+
+  /**
+   * Save document. Text of the model is taken from the current model snapshot
+   * and written in background thread through temporary file which replaces
+   * the target one, new files are written before return to be visible in the
+   * project tree. The changed flag is cleared only when the file is written and
+   * the model has not been changed since.
+   *
+   * @return true if the document has been saved or queued for saving
+   * @throws IOException if new file can't be written
+   */
   @Override
   public boolean saveDocument() throws IOException {
     boolean result = false;
     if (this.title.isChanged()) {
+      if (isLoading()) {
+        return result;
+      }
       File file = this.title.getAssociatedFile();
       if (file == null) {
         file = DialogProviderManager.getInstance().getDialogProvider().msgSaveFileDialog(null, "mmd-editor-document", "Save Mind Map", null, true, getFileFilter(), "Save");
@@ -310,16 +600,100 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
           return result;
         }
       }
-      FileUtils.write(file, this.mindMapPanel.getModel().write(new StringWriter(16384)).toString(), "UTF-8", false); //NOI18N
-      this.title.setChanged(false);
+      makeModelSnapshot();
+      final File fileToSave = file;
+      final String text = this.currentModelState == null ? this.mindMapPanel.getModel().packToString() : this.currentModelState;
+      final MindMap savedModel = new MindMap(this.mindMapPanel.getModel(), null);
+      final NodeProject project = this.context.findProjectForFile(fileToSave);
+
+      final Future<?> saving = IO_EXECUTOR.submit(new Callable<Void>() {
+        @Override
+        @Nullable
+        public Void call() throws Exception {
+          try {
+            writeAtomically(fileToSave, text.getBytes("UTF-8")); //NOI18N
+          } catch (IOException ex) {
+            LOGGER.error("Can't save mind map " + fileToSave, ex); //NOI18N
+            SwingUtilities.invokeLater(new Runnable() {
+              @Override
+              public void run() {
+                DialogProviderManager.getInstance().getDialogProvider().msgError(null, "Can't save mind map '" + fileToSave.getName() + "', may be it is read-only! See log!");
+              }
+            });
+            throw ex;
+          }
+          SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+              onDocumentSaved(fileToSave, text);
+            }
+          });
+          Files.deleteIfExists(makeAutosaveFile(fileToSave).toPath());
+          Main.MAP_CACHE.update(fileToSave, savedModel);
+          if (project != null) {
+            project.getLinkIndex().updateMap(fileToSave, savedModel);
+          }
+          return null;
+        }
+      });
+
+      if (!fileToSave.isFile()) {
+        try {
+          saving.get();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted saving of " + fileToSave, ex); //NOI18N
+        } catch (ExecutionException ex) {
+          throw new IOException("Can't save " + fileToSave, ex.getCause()); //NOI18N
+        }
+      }
+
       result = true;
-      this.undoStorage.setFlagThatSomeStateLost();
     } else {
       result = true;
     }
     return result;
   }
 
+  private void onDocumentSaved(@Nonnull final File file, @Nonnull final String text) {
+    if (this.mindMapPanel.isDisposed() || !file.equals(this.title.getAssociatedFile())) {
+      return;
+    }
+    if (this.firstNotSnapshottedChange < 0L && text.equals(this.currentModelState)) {
+      this.title.setChanged(false);
+      this.undoStorage.setFlagThatSomeStateLost();
+    }
+  }
+
+  /**
+   * Write file through temp file in the same folder. Link is resolved to its
+   * target and permissions of the existing file are copied to the temp file,
+   * so that save doesn't change them. The temp file is created as regular new
+   * file, so that new map gets default permissions.
+   */
+  private static void writeAtomically(@Nonnull final File file, @Nonnull final byte[] data) throws IOException {
+    final Path path = file.toPath();
+    final boolean exists = Files.exists(path);
+    final Path target = exists ? path.toRealPath() : path.toAbsolutePath();
+    final Path temp = target.resolveSibling('.' + target.getFileName().toString() + '.' + Long.toHexString(System.nanoTime()) + ".tmp"); //NOI18N
+    try {
+      Files.write(temp, data, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+      if (exists) {
+        final PosixFileAttributeView posixView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (posixView != null) {
+          Files.setPosixFilePermissions(temp, posixView.readAttributes().permissions());
+        }
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
   @Override
   public void onComponentElementsLayouted(@Nonnull final MindMapPanel source, @Nonnull final Graphics2D g) {
     if (this.firstLayouting) {
@@ -394,7 +768,7 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
   @Override
   @Nonnull
   public JComponent getContainerToShow() {
-    return this.scrollPane;
+    return this.mainContainer;
   }
 
   @Override
@@ -406,9 +780,7 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
   @Override
   public void onMindMapModelChanged(@Nonnull final MindMapPanel source) {
     if (!this.preventAddUndo && this.currentModelState != null) {
-      this.undoStorage.addToUndo(this.currentModelState);
-      this.undoStorage.clearRedo();
-      this.currentModelState = source.getModel().packToString();
+      scheduleModelSnapshot();
     }
 
     try {
@@ -423,7 +795,8 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
 
   @Override
   public boolean redo() {
-    if (!this.mindMapPanel.endEdit(false)) {
+    if (!isLoading() && !this.mindMapPanel.endEdit(false)) {
+      makeModelSnapshot();
       if (this.undoStorage.hasRedo()) {
         this.undoStorage.addToUndo(this.currentModelState);
         this.currentModelState = this.undoStorage.fromRedo();
@@ -445,7 +818,8 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
 
   @Override
   public boolean undo() {
-    if (!this.mindMapPanel.endEdit(false)) {
+    if (!isLoading() && !this.mindMapPanel.endEdit(false)) {
+      makeModelSnapshot();
       if (this.undoStorage.hasUndo()) {
         this.undoStorage.addToRedo(this.currentModelState);
         this.currentModelState = this.undoStorage.fromUndo();
@@ -225,6 +225,9 @@ public final class PictureViewer extends AbstractEditor {
           throw new IOException("Can't write image", ex); //NOI18N
         }
       }
+      if (result) {
+        this.title.setChanged(false);
+      }
     }
     return result;
   }
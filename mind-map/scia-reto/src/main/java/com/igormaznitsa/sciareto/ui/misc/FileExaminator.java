@@ -20,68 +20,120 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import javax.annotation.Nonnull;
 import com.igormaznitsa.meta.common.utils.Assertions;
 
+/**
+ * Checks whether file contains data. File is read through bounded heap buffer,
+ * tail of every read chunk is kept in the buffer so that data crossing border
+ * of chunks is also found, whole file is searched.
+ */
 public class FileExaminator {
 
+  /**
+   * Max size of buffer to read file.
+   */
+  private static final int BUFFER_SIZE = 256 * 1024;
+
+  /**
+   * Byte pattern with two allowed variants for every position, allows case
+   * insensitive search. Search is made with Boyer-Moore-Horspool algorithm,
+   * shift table is made once for pattern and can be shared between threads.
+   */
+  public static final class BytePattern {
+
+    private final byte[] variant1;
+    private final byte[] variant2;
+    private final int[] shifts = new int[256];
+
+    public BytePattern(@Nonnull final byte[] variant1, @Nonnull final byte[] variant2) {
+      Assertions.assertTrue("Length must be the same", variant1.length == variant2.length);
+      this.variant1 = variant1.clone();
+      this.variant2 = variant2.clone();
+
+      final int len = variant1.length;
+      Arrays.fill(this.shifts, Math.max(1, len));
+      for (int i = 0; i < len - 1; i++) {
+        this.shifts[variant1[i] & 0xFF] = len - 1 - i;
+        this.shifts[variant2[i] & 0xFF] = len - 1 - i;
+      }
+    }
+
+    public int length() {
+      return this.variant1.length;
+    }
+
+    /**
+     * Find the pattern in buffer.
+     *
+     * @param buffer buffer to search, absolute positions are used
+     * @param from start position, inclusive
+     * @param to end position, exclusive
+     * @return position of the first found pattern or -1 if not found
+     */
+    public int find(@Nonnull final ByteBuffer buffer, final int from, final int to) {
+      final int last = this.variant1.length - 1;
+      if (last < 0) {
+        return -1;
+      }
+      int position = from;
+      while (position + last < to) {
+        int i = last;
+        while (i >= 0) {
+          final byte b = buffer.get(position + i);
+          if (b != this.variant1[i] && b != this.variant2[i]) {
+            break;
+          }
+          i--;
+        }
+        if (i < 0) {
+          return position;
+        }
+        position += this.shifts[buffer.get(position + last) & 0xFF];
+      }
+      return -1;
+    }
+  }
+
   private final File file;
+  private final int bufferSize;
 
   public FileExaminator(@Nonnull final File file) {
+    this(file, BUFFER_SIZE);
+  }
+
+  FileExaminator(@Nonnull final File file, final int bufferSize) {
     this.file = file;
+    this.bufferSize = bufferSize;
   }
 
-  public boolean doesContainData(@Nonnull final byte[] dataBuffer, @Nonnull final byte[] dataArr1, @Nonnull final byte[] dataArr2) throws IOException {
-    Assertions.assertTrue("Length must be the same", dataArr1.length == dataArr2.length);
+  public boolean doesContainData(@Nonnull final BytePattern pattern) throws IOException {
+    final int len = pattern.length();
 
     boolean result = false;
 
-    final int len = dataArr1.length;
-
     if (len != 0 && this.file.length() >= len) {
-      final ByteBuffer buffer = ByteBuffer.wrap(dataBuffer);
-      final int[] counters = new int[len];
-
       try (final FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
-        buffer.clear();
-
-        while (buffer.hasRemaining() && !Thread.currentThread().isInterrupted()) {
-          int read = channel.read(buffer);
-          if (read < 0) {
-            break;
-          }
-        }
-
-        mainLoop:
-        for (int i = 0; i < buffer.position(); i++) {
-          if (Thread.currentThread().isInterrupted()) {
-            break;
-          }
-          final byte b = buffer.get(i);
-          for (int j = 0; j < len; j++) {
-            int c = counters[j];
-            if (c == 0) {
-              continue;
-            }
-            if (b == dataArr1[c] || b == dataArr2[c]) {
-              c++;
-              if (c == len) {
-                result = true;
-                break mainLoop;
-              }
-              counters[j] = c;
-            } else {
-              counters[j] = 0;
+        final long size = channel.size();
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, Math.max(this.bufferSize, len * 2L)));
+        boolean eof = size < len;
+        while (!eof && !Thread.currentThread().isInterrupted()) {
+          while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+              eof = true;
+              break;
             }
           }
-          if (b == dataArr1[0] || b == dataArr2[0]) {
-            for (int j = 0; j < len; j++) {
-              if (counters[j] == 0) {
-                counters[j] = 1;
-                break;
-              }
-            }
+          final int filled = buffer.position();
+          if (pattern.find(buffer, 0, filled) >= 0) {
+            result = true;
+            break;
           }
+          final int tail = Math.min(len - 1, filled);
+          buffer.limit(filled);
+          buffer.position(filled - tail);
+          buffer.compact();
         }
       }
     }
@@ -19,29 +19,42 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Dimension;
+import java.awt.GridBagLayout;
 import java.awt.Paint;
 import java.awt.Rectangle;
 import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
 import java.io.File;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.swing.BorderFactory;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.SwingUtilities;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import com.google.common.base.Function;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.MMapURI;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
@@ -49,6 +62,8 @@ import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.ui.MapUtils;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 import edu.uci.ics.jung.algorithms.layout.ISOMLayout;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.algorithms.layout.StaticLayout;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.util.EdgeType;
@@ -80,6 +95,35 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
 
   private static final Icon RELAYOUT_ICON = new ImageIcon(UiUtils.loadIcon("graph16.png")); //NOI18N
 
+  private static final Dimension SCROLL_COMPONENT_SIZE = new Dimension(600, 450);
+  private static final Dimension LAYOUT_SIZE = new Dimension(2000, 2000);
+
+  /**
+   * Max number of vertexes shown in graph, linked files are grouped by folders
+   * and extra vertexes are removed for bigger graphs.
+   */
+  private static final int MAX_VERTICES = 400;
+
+  /**
+   * Number of epochs made by ISOM layout.
+   */
+  private static final int ISOM_EPOCHS = 2000;
+
+  private static final int MAX_CACHED_LAYOUTS = 16;
+
+  /**
+   * Positions of vertexes of shown graphs, allows to skip layout on repeat
+   * views.
+   */
+  private static final Map<String, Map<File, Point2D>> LAYOUT_CACHE = new LinkedHashMap<String, Map<File, Point2D>>(MAX_CACHED_LAYOUTS, 0.75f, true) {
+    private static final long serialVersionUID = 4180473155720916853L;
+
+    @Override
+    protected boolean removeEldestEntry(@Nonnull final Map.Entry<String, Map<File, Point2D>> eldest) {
+      return this.size() > MAX_CACHED_LAYOUTS;
+    }
+  };
+
   public enum FileVertexType {
     FOLDER("folder.png", "Folder"), DOCUMENT("document.png", "Document"), MINDMAP("mindmap.png", "Mind Map"), UNKNOWN("unknown.png", "Unknown"), NOTFOUND("notfound.png", "Not found"); //NOI18N
 
@@ -154,8 +198,104 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
     }
   }
 
+  /**
+   * Provider of file links of a mind map.
+   */
+  private interface LinkProvider {
+
+    /**
+     * Get file links of a mind map.
+     *
+     * @param mindMapFile mind map file
+     * @return list of links or null if the map can't be read
+     */
+    @Nullable
+    @MustNotContainNull
+    List<MMapURI> findFileLinks(@Nonnull File mindMapFile);
+  }
+
+  private static final class GraphData {
+
+    private final Graph<FileVertex, Number> graph;
+    private final String note;
+
+    private GraphData(@Nonnull final Graph<FileVertex, Number> graph, @Nullable final String note) {
+      this.graph = graph;
+      this.note = note;
+    }
+  }
+
+  @Nullable
+  @MustNotContainNull
+  private static List<MMapURI> parseFileLinks(@Nonnull final File mindMapFile) {
+    try {
+      final MindMap map = new MindMap(null, new StringReader(FileUtils.readFileToString(mindMapFile, "UTF-8"))); //NOI18N
+      return MapUtils.extractAllFileLinks(map);
+    }
+    catch (final Exception ex) {
+      LOGGER.error("Can't load mind map : " + mindMapFile, ex); //NOI18N
+      return null;
+    }
+  }
+
+  @Nonnull
+  private static LinkProvider makeLinkProvider(@Nullable final MapLinkIndex linkIndex) {
+    return new LinkProvider() {
+      @Override
+      @Nullable
+      @MustNotContainNull
+      public List<MMapURI> findFileLinks(@Nonnull final File mindMapFile) {
+        final List<MMapURI> indexed = linkIndex == null ? null : linkIndex.findFileLinks(mindMapFile);
+        return indexed == null ? parseFileLinks(mindMapFile) : indexed;
+      }
+    };
+  }
+
   @Nonnull
-  private Graph<FileVertex, Number> makeGraph(@Nullable final File projectFolder, @Nullable final File startMindMap) {
+  private static GraphData makeGraphData(@Nullable final File projectFolder, @Nullable final File startMindMap, @Nullable final MapLinkIndex linkIndex) {
+    final LinkProvider provider = makeLinkProvider(linkIndex);
+
+    Graph<FileVertex, Number> graph = makeGraph(projectFolder, startMindMap, linkIndex, provider, false);
+    String note = null;
+
+    if (graph.getVertexCount() > MAX_VERTICES) {
+      final int fullSize = graph.getVertexCount();
+      graph = makeGraph(projectFolder, startMindMap, linkIndex, provider, true);
+      note = "Linked files are grouped by folders, the full graph contains " + fullSize + " elements";
+      if (graph.getVertexCount() > MAX_VERTICES) {
+        final int clusteredSize = graph.getVertexCount();
+        final Set<FileVertex> kept = new HashSet<FileVertex>();
+        if (startMindMap != null) {
+          for (final FileVertex v : graph.getVertices()) {
+            if (v.getType() == FileVertexType.MINDMAP && startMindMap.equals(v.getFile())) {
+              kept.add(v);
+              kept.addAll(graph.getNeighbors(v));
+              break;
+            }
+          }
+        }
+        final List<FileVertex> vertices = new ArrayList<FileVertex>(graph.getVertices());
+        vertices.removeAll(kept);
+        Collections.sort(vertices, new Comparator<FileVertex>() {
+          @Override
+          public int compare(@Nonnull final FileVertex o1, @Nonnull final FileVertex o2) {
+            return o1.getFile().compareTo(o2.getFile());
+          }
+        });
+        final int rest = Math.max(0, MAX_VERTICES - kept.size());
+        if (vertices.size() > rest) {
+          for (final FileVertex v : vertices.subList(rest, vertices.size())) {
+            graph.removeVertex(v);
+          }
+        }
+        note = "Graph is too big, only " + MAX_VERTICES + " of " + clusteredSize + " elements are shown, linked files are grouped by folders";
+      }
+    }
+    return new GraphData(graph, note);
+  }
+
+  @Nonnull
+  private static Graph<FileVertex, Number> makeGraph(@Nullable final File projectFolder, @Nullable final File startMindMap, @Nullable final MapLinkIndex linkIndex, @Nonnull final LinkProvider provider, final boolean clusterFiles) {
     final DirectedSparseGraph<FileVertex, Number> result = new DirectedSparseGraph<FileVertex, Number>();
 
     final AtomicInteger edgeCounter = new AtomicInteger();
@@ -163,13 +303,17 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
     final Set<File> mapFilesInProcessing = new HashSet<File>();
 
     if (startMindMap != null) {
-      addMindMapAndFillByItsLinks(null, result, projectFolder, startMindMap, edgeCounter, mapFilesInProcessing);
+      addMindMapAndFillByItsLinks(null, result, projectFolder, startMindMap, edgeCounter, mapFilesInProcessing, provider, clusterFiles);
     } else if (projectFolder != null) {
-      final Iterator<File> iterator = FileUtils.iterateFiles(projectFolder, new String[]{"mmd"}, true); //NOI18N
-      while (iterator.hasNext()) {
-        final File mmdFile = iterator.next();
+      final Collection<File> mapFiles;
+      if (linkIndex == null) {
+        mapFiles = FileUtils.listFiles(projectFolder, new String[]{"mmd"}, true); //NOI18N
+      } else {
+        mapFiles = linkIndex.findAllMaps();
+      }
+      for (final File mmdFile : mapFiles) {
         if (mmdFile.isFile()) {
-          addMindMapAndFillByItsLinks(null, result, projectFolder, mmdFile, edgeCounter, mapFilesInProcessing);
+          addMindMapAndFillByItsLinks(null, result, projectFolder, mmdFile, edgeCounter, mapFilesInProcessing, provider, clusterFiles);
         }
       }
     }
@@ -178,19 +322,18 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
   }
 
   @Nullable
-  private static FileVertex addMindMapAndFillByItsLinks(@Nullable final FileVertex parent, @Nonnull final @Nullable Graph<FileVertex, Number> graph, @Nullable final File projectFolder, @Nonnull final File mindMapFile, @Nonnull final AtomicInteger edgeCounter, @Nonnull Set<File> mapFilesInProcessing) {
+  private static FileVertex addMindMapAndFillByItsLinks(@Nullable final FileVertex parent, @Nonnull final Graph<FileVertex, Number> graph, @Nullable final File projectFolder, @Nonnull final File mindMapFile, @Nonnull final AtomicInteger edgeCounter, @Nonnull Set<File> mapFilesInProcessing, @Nonnull final LinkProvider provider, final boolean clusterFiles) {
 
-    MindMap map;
+    final List<MMapURI> fileLinks = provider.findFileLinks(mindMapFile);
 
     FileVertex thisVertex;
 
-    try {
-
+    if (fileLinks == null) {
+      thisVertex = new FileVertex(mindMapFile, FileVertexType.UNKNOWN);
+    } else {
       thisVertex = new FileVertex(mindMapFile, FileVertexType.MINDMAP);
-      map = new MindMap(null, new StringReader(FileUtils.readFileToString(mindMapFile, "UTF-8"))); //NOI18N
-
       if (parent != null) {
-        for (final MMapURI fileUri : MapUtils.extractAllFileLinks(map)) {
+        for (final MMapURI fileUri : fileLinks) {
           if (parent.getFile().equals(fileUri.asFile(projectFolder))) {
             graph.addEdge(edgeCounter.getAndIncrement(), thisVertex, parent, EdgeType.DIRECTED);
             break;
@@ -201,19 +344,14 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
         }
       }
     }
-    catch (final Exception ex) {
-      LOGGER.error("Can't load mind map : " + mindMapFile, ex); //NOI18N
-      thisVertex = new FileVertex(mindMapFile, FileVertexType.UNKNOWN);
-      map = null;
-    }
 
     mapFilesInProcessing.add(mindMapFile);
 
     graph.addVertex(thisVertex);
 
-    if (map != null) {
-      for (final MMapURI fileUri : MapUtils.extractAllFileLinks(map)) {
-        final FileVertex that;
+    if (fileLinks != null) {
+      for (final MMapURI fileUri : fileLinks) {
+        FileVertex that;
 
         final File convertedFile = convertUriInFile(mindMapFile, projectFolder, fileUri);
 
@@ -227,7 +365,7 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
             if (convertedFile.equals(mindMapFile)) {
               that = thisVertex;
             } else {
-              that = addMindMapAndFillByItsLinks(thisVertex, graph, projectFolder, convertedFile, edgeCounter, mapFilesInProcessing);
+              that = addMindMapAndFillByItsLinks(thisVertex, graph, projectFolder, convertedFile, edgeCounter, mapFilesInProcessing, provider, clusterFiles);
             }
           } else {
             that = new FileVertex(convertedFile, FileVertexType.DOCUMENT);
@@ -237,7 +375,14 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
           that = new FileVertex(convertedFile, convertedFile.exists() ? FileVertexType.UNKNOWN : FileVertexType.NOTFOUND);
         }
 
-        if (that != null) {
+        if (clusterFiles && that != null && that.getType() != FileVertexType.MINDMAP && that.getType() != FileVertexType.FOLDER) {
+          final File folder = that.getFile().getParentFile();
+          if (folder != null) {
+            that = new FileVertex(folder, FileVertexType.FOLDER);
+          }
+        }
+
+        if (that != null && (!clusterFiles || graph.findEdge(thisVertex, that) == null)) {
           graph.addEdge(edgeCounter.getAndIncrement(), thisVertex, that, EdgeType.DIRECTED);
         }
       }
@@ -266,21 +411,185 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
     return result;
   }
 
-  public FileLinkGraphPanel(@Nullable final File projectFolder, @Nullable final File startMindMap) {
+  @Nonnull
+  private static String makeCacheKey(@Nullable final File projectFolder, @Nullable final File startMindMap) {
+    return String.valueOf(projectFolder) + File.pathSeparatorChar + String.valueOf(startMindMap);
+  }
+
+  /**
+   * Make positions of vertexes with ISOM layout.
+   *
+   * @param graph graph to be laid out
+   * @param progressBar progress bar to show progress, can be null
+   * @return positions of vertexes
+   * @throws InterruptedException if the current thread is interrupted
+   */
+  @Nonnull
+  private static Map<File, Point2D> makeLayout(@Nonnull final Graph<FileVertex, Number> graph, @Nullable final JProgressBar progressBar) throws InterruptedException {
+    final ISOMLayout<FileVertex, Number> layout = new ISOMLayout<FileVertex, Number>(graph);
+    layout.setSize(LAYOUT_SIZE);
+
+    int epoch = 0;
+    while (!layout.done()) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedException();
+      }
+      layout.step();
+      epoch++;
+      if (progressBar != null && epoch % 50 == 0) {
+        final int value = epoch;
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(value);
+          }
+        });
+      }
+    }
+
+    final Map<File, Point2D> result = new HashMap<File, Point2D>();
+    for (final FileVertex v : graph.getVertices()) {
+      result.put(v.getFile(), new Point2D.Double(layout.getX(v), layout.getY(v)));
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static Layout<FileVertex, Number> makeStaticLayout(@Nonnull final Graph<FileVertex, Number> graph, @Nonnull final Map<File, Point2D> positions) {
+    return new StaticLayout<FileVertex, Number>(graph, new Function<FileVertex, Point2D>() {
+      @Override
+      @Nonnull
+      public Point2D apply(@Nonnull final FileVertex input) {
+        final Point2D result = positions.get(input.getFile());
+        return result == null ? new Point2D.Double() : result;
+      }
+    }, LAYOUT_SIZE);
+  }
+
+  private final File projectFolder;
+  private final File startMindMap;
+  private volatile Thread workingThread;
+
+  public FileLinkGraphPanel(@Nullable final File projectFolder, @Nullable final File startMindMap, @Nullable final MapLinkIndex linkIndex) {
     initComponents();
 
-    final Dimension SCROLL_COMPONENT_SIZE = new Dimension(600, 450);
+    this.projectFolder = projectFolder;
+    this.startMindMap = startMindMap;
+
+    final MapLinkIndex usedIndex = linkIndex != null && projectFolder != null && linkIndex.getFolder().equals(projectFolder) ? linkIndex : null;
 
-    final Graph<FileVertex, Number> graph = makeGraph(projectFolder, startMindMap);
+    final JProgressBar progressBar = new JProgressBar(0, ISOM_EPOCHS);
+    progressBar.setIndeterminate(true);
+    progressBar.setStringPainted(false);
+
+    final JPanel progressPanel = new JPanel(new BorderLayout());
+    progressPanel.setBorder(BorderFactory.createEmptyBorder(16, 16, 16, 16));
+    progressPanel.add(new JLabel("Building graph of file links..."), BorderLayout.NORTH);
+    progressPanel.add(progressBar, BorderLayout.SOUTH);
+    final JPanel progressHolder = new JPanel(new GridBagLayout());
+    progressHolder.add(progressPanel);
+    progressHolder.setPreferredSize(SCROLL_COMPONENT_SIZE);
+
+    this.add(progressHolder, BorderLayout.CENTER);
+
+    UiUtils.makeOwningDialogResizable(this);
+
+    startWork(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (usedIndex != null) {
+            usedIndex.update();
+          }
+          final GraphData data = makeGraphData(projectFolder, startMindMap, usedIndex);
+
+          final String cacheKey = makeCacheKey(projectFolder, startMindMap);
+          Map<File, Point2D> positions;
+          synchronized (LAYOUT_CACHE) {
+            positions = LAYOUT_CACHE.get(cacheKey);
+          }
+
+          boolean allPositioned = positions != null;
+          if (positions != null) {
+            for (final FileVertex v : data.graph.getVertices()) {
+              if (!positions.containsKey(v.getFile())) {
+                allPositioned = false;
+                break;
+              }
+            }
+          }
+
+          if (!allPositioned && data.graph.getVertexCount() > 0) {
+            positions = makeLayout(data.graph, progressBar);
+            synchronized (LAYOUT_CACHE) {
+              LAYOUT_CACHE.put(cacheKey, positions);
+            }
+          }
+
+          final Map<File, Point2D> foundPositions = positions;
+          SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+              remove(progressHolder);
+              showGraph(data, foundPositions == null ? Collections.<File, Point2D>emptyMap() : foundPositions);
+              revalidate();
+              repaint();
+            }
+          });
+        }
+        catch (InterruptedException ex) {
+          LOGGER.info("Graph building has been interrupted"); //NOI18N
+        }
+        catch (final Exception ex) {
+          LOGGER.error("Can't build graph of file links", ex); //NOI18N
+          SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+              remove(progressHolder);
+              final JLabel errorLabel = new JLabel("Can't build graph of file links : " + ex.getMessage());
+              errorLabel.setHorizontalAlignment(JLabel.CENTER);
+              errorLabel.setPreferredSize(SCROLL_COMPONENT_SIZE);
+              add(errorLabel, BorderLayout.CENTER);
+              revalidate();
+              repaint();
+            }
+          });
+        }
+      }
+    });
+  }
+
+  private void startWork(@Nonnull final Runnable work) {
+    final Thread thread = new Thread(work, "SR_GRAPH_LAYOUT"); //NOI18N
+    thread.setDaemon(true);
+    thread.setPriority(Thread.NORM_PRIORITY - 1);
+    final Thread old = this.workingThread;
+    if (old != null) {
+      old.interrupt();
+    }
+    this.workingThread = thread;
+    thread.start();
+  }
+
+  @Override
+  public void removeNotify() {
+    final Thread thread = this.workingThread;
+    if (thread != null) {
+      thread.interrupt();
+    }
+    super.removeNotify();
+  }
+
+  private void showGraph(@Nonnull final GraphData data, @Nonnull final Map<File, Point2D> positions) {
+    final Graph<FileVertex, Number> graph = data.graph;
 
     if (graph.getVertexCount() == 0) {
-    
+
       this.add(new JLabel("There is not any Mind map in the project!"), BorderLayout.CENTER);
-    
-    } else {
-      final ISOMLayout<FileVertex, Number> graphLayout = new ISOMLayout<FileVertex, Number>(graph);
 
-      final VisualizationModel<FileVertex, Number> viewModel = new DefaultVisualizationModel<FileVertex, Number>(graphLayout, new Dimension(2000, 2000));
+    } else {
+      final VisualizationModel<FileVertex, Number> viewModel = new DefaultVisualizationModel<FileVertex, Number>(makeStaticLayout(graph, positions), LAYOUT_SIZE);
       final VisualizationViewer<FileVertex, Number> graphViewer = new VisualizationViewer<FileVertex, Number>(viewModel, new Dimension(800, 800));
 
       final DefaultModalGraphMouse graphMouse = new DefaultModalGraphMouse() {
@@ -354,8 +663,6 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
       final GraphZoomScrollPane scroll = new GraphZoomScrollPane(graphViewer);
       scroll.setPreferredSize(SCROLL_COMPONENT_SIZE);
 
-      UiUtils.makeOwningDialogResizable(this);
-
       graphViewer.scaleToLayout(new LayoutScalingControl());
 
       final JButton layoutButton = new JButton(RELAYOUT_ICON);
@@ -364,15 +671,49 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
       layoutButton.addActionListener(new ActionListener() {
         @Override
         public void actionPerformed(@Nonnull final ActionEvent e) {
-          final Rectangle visible = scroll.getVisibleRect();
-          graphViewer.getGraphLayout().reset();
-          graphViewer.getGraphLayout().setSize(new Dimension(visible.width, visible.height));
-          graphViewer.repaint();
+          layoutButton.setEnabled(false);
+          startWork(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                final Map<File, Point2D> newPositions = makeLayout(graph, null);
+                synchronized (LAYOUT_CACHE) {
+                  LAYOUT_CACHE.put(makeCacheKey(projectFolder, startMindMap), newPositions);
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                  @Override
+                  public void run() {
+                    graphViewer.getModel().setGraphLayout(makeStaticLayout(graph, newPositions));
+                    layoutButton.setEnabled(true);
+                    graphViewer.repaint();
+                  }
+                });
+              }
+              catch (InterruptedException ex) {
+                LOGGER.info("Graph layout has been interrupted"); //NOI18N
+              }
+              catch (Exception ex) {
+                LOGGER.error("Can't make graph layout", ex); //NOI18N
+                SwingUtilities.invokeLater(new Runnable() {
+                  @Override
+                  public void run() {
+                    layoutButton.setEnabled(true);
+                  }
+                });
+              }
+            }
+          });
         }
       });
 
       scroll.setCorner(layoutButton);
 
+      if (data.note != null) {
+        final JLabel noteLabel = new JLabel(data.note);
+        noteLabel.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        this.add(noteLabel, BorderLayout.NORTH);
+      }
+
       this.add(scroll, BorderLayout.CENTER);
     }
   }
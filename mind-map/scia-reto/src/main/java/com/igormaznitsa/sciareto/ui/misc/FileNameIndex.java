@@ -0,0 +1,366 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.sciareto.ui.misc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+
+/**
+ * In-memory index of names of files and folders of a project folder. The index
+ * keeps the folder tree with modification times, so that update re-lists only
+ * changed folders, searches are made over immutable flat snapshot and don't
+ * need any lock.
+ */
+public final class FileNameIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileNameIndex.class);
+
+  /**
+   * Number of processed names between checks of thread interruption.
+   */
+  private static final int CANCEL_CHECK_STEP = 1024;
+
+  private static final ExecutorService BACKGROUND_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR_FILENAME_INDEX"); //NOI18N
+      result.setDaemon(true);
+      result.setPriority(Thread.MIN_PRIORITY);
+      return result;
+    }
+  });
+
+  private static final class Folder {
+
+    private final File file;
+    private long lastModified = -1L;
+    private final TreeMap<String, Folder> subfolders = new TreeMap<>();
+    private String[] fileNames = new String[0];
+
+    private Folder(@Nonnull final File file) {
+      this.file = file;
+    }
+  }
+
+  private static final class Snapshot {
+
+    private final Folder[] parents;
+    private final String[] names;
+    private final char[][] lowerNames;
+
+    private Snapshot(@Nonnull @MustNotContainNull final Folder[] parents, @Nonnull @MustNotContainNull final String[] names) {
+      this.parents = parents;
+      this.names = names;
+      this.lowerNames = new char[names.length][];
+      for (int i = 0; i < names.length; i++) {
+        this.lowerNames[i] = toLowerCase(names[i]);
+      }
+    }
+  }
+
+  /**
+   * Found file with its score, bigger score means better match.
+   */
+  public static final class Match implements Comparable<Match> {
+
+    private final File file;
+    private final String name;
+    private final int score;
+
+    private Match(@Nonnull final File file, @Nonnull final String name, final int score) {
+      this.file = file;
+      this.name = name;
+      this.score = score;
+    }
+
+    @Nonnull
+    public File getFile() {
+      return this.file;
+    }
+
+    @Nonnull
+    public String getName() {
+      return this.name;
+    }
+
+    public int getScore() {
+      return this.score;
+    }
+
+    /**
+     * Better matches go first, matches with the same score are ordered by
+     * name.
+     */
+    @Override
+    public int compareTo(@Nonnull final Match that) {
+      final int result = Integer.compare(that.score, this.score);
+      return result == 0 ? this.name.compareTo(that.name) : result;
+    }
+  }
+
+  private final Folder root;
+  private volatile Snapshot snapshot;
+
+  public FileNameIndex(@Nonnull final File folder) {
+    this.root = new Folder(folder);
+    this.snapshot = new Snapshot(new Folder[0], new String[0]);
+  }
+
+  @Nonnull
+  public File getFolder() {
+    return this.root.file;
+  }
+
+  /**
+   * Update the index in background thread.
+   *
+   * @param onChange listener to be called in background thread if the index
+   * has been changed, can be null
+   */
+  public void updateInBackground(@Nullable final Runnable onChange) {
+    BACKGROUND_EXECUTOR.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (update() && onChange != null) {
+            onChange.run();
+          }
+        } catch (Exception ex) {
+          LOGGER.error("Can't update file name index for " + root.file, ex); //NOI18N
+        }
+      }
+    });
+  }
+
+  /**
+   * Bring the index in sync with the folder. Every known folder is checked
+   * for its modification time and only changed folders are listed.
+   *
+   * @return true if the index has been changed
+   */
+  public synchronized boolean update() {
+    final boolean changed = refresh(this.root);
+    if (changed) {
+      final List<Folder> parents = new ArrayList<>();
+      final List<String> names = new ArrayList<>();
+      flatten(this.root, parents, names);
+      this.snapshot = new Snapshot(parents.toArray(new Folder[parents.size()]), names.toArray(new String[names.size()]));
+    }
+    return changed;
+  }
+
+  private static boolean refresh(@Nonnull final Folder folder) {
+    boolean changed = false;
+    final long lastModified = folder.file.lastModified();
+    if (lastModified != folder.lastModified) {
+      folder.lastModified = lastModified;
+      changed = true;
+
+      final List<String> files = new ArrayList<>();
+      final TreeMap<String, Folder> subfolders = new TreeMap<>();
+      try (final DirectoryStream<Path> stream = Files.newDirectoryStream(folder.file.toPath())) {
+        for (final Path p : stream) {
+          final String name = p.getFileName().toString();
+          // linked folders are not followed to avoid loops
+          if (Files.isDirectory(p, LinkOption.NOFOLLOW_LINKS)) {
+            final Folder known = folder.subfolders.get(name);
+            subfolders.put(name, known == null ? new Folder(p.toFile()) : known);
+          } else {
+            files.add(name);
+          }
+        }
+      } catch (IOException | DirectoryIteratorException ex) {
+        LOGGER.warn("Can't list folder " + folder.file + " : " + ex.getMessage()); //NOI18N
+      }
+      folder.subfolders.clear();
+      folder.subfolders.putAll(subfolders);
+      folder.fileNames = files.toArray(new String[files.size()]);
+      Arrays.sort(folder.fileNames);
+    }
+
+    for (final Folder f : folder.subfolders.values()) {
+      changed |= refresh(f);
+    }
+    return changed;
+  }
+
+  private static void flatten(@Nonnull final Folder folder, @Nonnull @MustNotContainNull final List<Folder> parents, @Nonnull @MustNotContainNull final List<String> names) {
+    for (final String s : folder.subfolders.keySet()) {
+      parents.add(folder);
+      names.add(s);
+    }
+    for (final String s : folder.fileNames) {
+      parents.add(folder);
+      names.add(s);
+    }
+    for (final Folder f : folder.subfolders.values()) {
+      flatten(f, parents, names);
+    }
+  }
+
+  /**
+   * Get number of indexed names.
+   *
+   * @return number of names in the current snapshot
+   */
+  public int size() {
+    return this.snapshot.names.length;
+  }
+
+  /**
+   * Search names in the index. If wildcard pattern is provided then names
+   * matching the pattern are found, otherwise all names containing chars of
+   * the text in the same order are found and scored.
+   *
+   * @param text entered text, must not be empty
+   * @param wildcardPattern pattern made from text with wildcards, can be null
+   * @param maxResults max number of best matches to keep
+   * @param result queue to collect matches, its head is the worst kept match
+   * @throws InterruptedException if the current thread has been interrupted
+   */
+  public void search(@Nonnull final String text, @Nullable final Pattern wildcardPattern, final int maxResults, @Nonnull @MustNotContainNull final PriorityQueue<Match> result) throws InterruptedException {
+    final Snapshot current = this.snapshot;
+    final char[] query = toLowerCase(text);
+
+    for (int i = 0; i < current.names.length; i++) {
+      if (i % CANCEL_CHECK_STEP == 0 && Thread.currentThread().isInterrupted()) {
+        throw new InterruptedException();
+      }
+      final int score;
+      if (wildcardPattern == null) {
+        score = scoreName(query, current.names[i], current.lowerNames[i]);
+      } else {
+        score = wildcardPattern.matcher(current.names[i]).matches() ? 0 : -1;
+      }
+      if (score >= 0) {
+        final Match worst = result.peek();
+        if (result.size() < maxResults || (worst != null && (score > worst.score || (score == worst.score && current.names[i].compareTo(worst.name) < 0)))) {
+          result.add(new Match(new File(current.parents[i].file, current.names[i]), current.names[i], score));
+          if (result.size() > maxResults) {
+            result.poll();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Make priority queue which keeps the worst match in its head, to be used
+   * in {@link #search(String, Pattern, int, PriorityQueue)}.
+   *
+   * @return new empty queue
+   */
+  @Nonnull
+  @MustNotContainNull
+  public static PriorityQueue<Match> makeResultQueue() {
+    return new PriorityQueue<>(64, Collections.reverseOrder());
+  }
+
+  /**
+   * Sort collected matches, the best one goes first.
+   *
+   * @param matches collected matches
+   * @return sorted list
+   */
+  @Nonnull
+  @MustNotContainNull
+  public static List<Match> sortMatches(@Nonnull @MustNotContainNull final Collection<Match> matches) {
+    final List<Match> result = new ArrayList<>(matches);
+    Collections.sort(result);
+    return result;
+  }
+
+  /**
+   * Score name for sub-sequence match. Matched chars at start of name and at
+   * start of words get bonus as well as consecutive matched chars, long names
+   * get small penalty.
+   *
+   * @param query lower case query chars
+   * @param name original name
+   * @param lowerName lower case name chars
+   * @return score or -1 if the name doesn't contain all query chars in order
+   */
+  static int scoreName(@Nonnull final char[] query, @Nonnull final String name, @Nonnull final char[] lowerName) {
+    if (query.length > lowerName.length) {
+      return -1;
+    }
+    int queryIndex = 0;
+    int score = 0;
+    int lastMatched = -2;
+    int run = 0;
+    for (int i = 0; i < lowerName.length && queryIndex < query.length; i++) {
+      if (lowerName[i] == query[queryIndex]) {
+        int charScore = 1;
+        if (i == 0) {
+          charScore += 8;
+        } else if (isWordStart(name, i)) {
+          charScore += 5;
+        }
+        if (lastMatched == i - 1) {
+          run++;
+          charScore += 3 * run;
+        } else {
+          run = 0;
+        }
+        score += charScore;
+        lastMatched = i;
+        queryIndex++;
+      }
+    }
+    if (queryIndex < query.length) {
+      return -1;
+    }
+    return Math.max(0, score - (lowerName.length - query.length) / 4);
+  }
+
+  @Nonnull
+  private static char[] toLowerCase(@Nonnull final String text) {
+    // char by char to keep length of the original string
+    final char[] result = text.toCharArray();
+    for (int i = 0; i < result.length; i++) {
+      result[i] = Character.toLowerCase(result[i]);
+    }
+    return result;
+  }
+
+  private static boolean isWordStart(@Nonnull final String name, final int index) {
+    final char prev = name.charAt(index - 1);
+    final char chr = name.charAt(index);
+    return !Character.isLetterOrDigit(prev) || (Character.isUpperCase(chr) && Character.isLowerCase(prev));
+  }
+}
@@ -20,37 +20,58 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.ListModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
+import javax.swing.tree.TreePath;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.sciareto.ui.Focuser;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 import com.igormaznitsa.sciareto.ui.tree.ExplorerTree;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
+import com.igormaznitsa.sciareto.ui.tree.NodeProject;
 
-public class GoToFilePanel extends javax.swing.JPanel implements Comparator<NodeFileOrFolder> {
+public class GoToFilePanel extends javax.swing.JPanel {
 
   private static final long serialVersionUID = 6372355072139143322L;
 
+  /**
+   * Max number of shown found files.
+   */
+  private static final int MAX_RESULTS = 256;
+
+  private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR_GOTO_FILE"); //NOI18N
+      result.setDaemon(true);
+      return result;
+    }
+  });
+
   private final ExplorerTree tree;
 
   private final transient List<NodeFileOrFolder> foundNodeList = new ArrayList<>();
   private final transient List<ListDataListener> listeners = new ArrayList<>();
 
   private final Object dialogOkObject;
-  
-  @Override
-  public int compare(@Nonnull final NodeFileOrFolder o1, @Nonnull final NodeFileOrFolder o2) {
-    return o1.toString().compareTo(o2.toString());
-  }
+
+  private transient Future<?> currentSearch;
+  private int searchCounter;
 
   public GoToFilePanel(@Nonnull final ExplorerTree tree, @Nullable final Object dialogOkObject) {
     super();
@@ -107,6 +128,21 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
       }
 
     });
+
+    final Runnable repeatSearch = new Runnable() {
+      @Override
+      public void run() {
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            processEnteredPattern();
+          }
+        });
+      }
+    };
+    for (final NodeFileOrFolder p : this.tree.getCurrentGroup()) {
+      ((NodeProject) p).getNameIndex().updateInBackground(repeatSearch);
+    }
   }
 
   @Nullable
@@ -114,15 +150,87 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
     return this.listFoundFiles.getSelectedValue();
   }
 
+  @Override
+  public void removeNotify() {
+    cancelCurrentSearch();
+    super.removeNotify();
+  }
+
+  private void cancelCurrentSearch() {
+    this.searchCounter++;
+    if (this.currentSearch != null) {
+      this.currentSearch.cancel(true);
+      this.currentSearch = null;
+    }
+  }
+
   private void processEnteredPattern() {
+    cancelCurrentSearch();
+
+    final String text = this.textFieldMask.getText();
+    if (text.isEmpty()) {
+      showFoundNodes(Collections.<NodeFileOrFolder>emptyList());
+      return;
+    }
+
+    final Pattern wildcardPattern = text.indexOf('?') >= 0 || text.indexOf('*') >= 0 ? makePattern(text) : null;
+    final List<NodeProject> projects = new ArrayList<>();
+    for (final NodeFileOrFolder p : this.tree.getCurrentGroup()) {
+      projects.add((NodeProject) p);
+    }
+
+    final int searchId = this.searchCounter;
+    this.currentSearch = SEARCH_EXECUTOR.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          final PriorityQueue<FileNameIndex.Match> matches = FileNameIndex.makeResultQueue();
+          for (final NodeProject p : projects) {
+            p.getNameIndex().search(text, wildcardPattern, MAX_RESULTS, matches);
+          }
+
+          final List<FileNameIndex.Match> sorted = FileNameIndex.sortMatches(matches);
+
+          // tree nodes are loaded and changed only in the event dispatch thread
+          SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+              if (searchId == searchCounter) {
+                currentSearch = null;
+                showFoundNodes(findNodes(projects, sorted));
+              }
+            }
+          });
+        } catch (InterruptedException ex) {
+          // search has been replaced by new one
+        }
+      }
+    });
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static List<NodeFileOrFolder> findNodes(@Nonnull @MustNotContainNull final List<NodeProject> projects, @Nonnull @MustNotContainNull final List<FileNameIndex.Match> matches) {
+    final List<NodeFileOrFolder> result = new ArrayList<>();
+    for (final FileNameIndex.Match m : matches) {
+      for (final NodeProject p : projects) {
+        final TreePath path = p.findPathToFile(m.getFile());
+        if (path != null) {
+          result.add((NodeFileOrFolder) path.getLastPathComponent());
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  private void showFoundNodes(@Nonnull @MustNotContainNull final List<NodeFileOrFolder> nodes) {
     this.foundNodeList.clear();
-    this.foundNodeList.addAll(this.tree.findForNamePattern(makePattern(this.textFieldMask.getText())));
+    this.foundNodeList.addAll(nodes);
     for (final ListDataListener l : this.listeners) {
       l.contentsChanged(new ListDataEvent(this.listFoundFiles.getModel(), ListDataEvent.CONTENTS_CHANGED, 0, this.foundNodeList.size()));
     }
 
-    Collections.sort(this.foundNodeList, this);
-
     if (!this.foundNodeList.isEmpty()) {
       this.listFoundFiles.setSelectedIndex(0);
       this.listFoundFiles.ensureIndexIsVisible(0);
@@ -174,7 +282,7 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
 
     setLayout(new java.awt.GridBagLayout());
 
-    labelFilenameMask.setText("File Name prefix (wildcards: ? and *)");
+    labelFilenameMask.setText("File Name (letters in order, wildcards: ? and *)");
     gridBagConstraints = new java.awt.GridBagConstraints();
     gridBagConstraints.gridx = 0;
     gridBagConstraints.gridy = 0;
@@ -0,0 +1,580 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.sciareto.ui.misc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraFile;
+import com.igormaznitsa.mindmap.model.ExtraLink;
+import com.igormaznitsa.mindmap.model.MMapURI;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+
+/**
+ * Persistent index of links between mind maps of a project folder. It keeps
+ * outgoing file links and URI links of every map and the reverse table from
+ * linked files to maps, so that maps referring to a file can be found without
+ * parsing of all maps. Only new and changed maps are parsed during update.
+ * If changes of the folder are reported through {@link #markChanged(File)}
+ * then the index can be used without update while it is up to date.
+ */
+public final class MapLinkIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MapLinkIndex.class);
+
+  private static final int MAGIC = 0x53524C49;
+  private static final int VERSION = 2;
+
+  private static final String[] EMPTY = new String[0];
+
+  private static final ExecutorService BACKGROUND_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR_LINK_INDEX"); //NOI18N
+      result.setDaemon(true);
+      result.setPriority(Thread.MIN_PRIORITY);
+      return result;
+    }
+  });
+
+  private static final class MapRecord {
+
+    private final String path;
+    private final long lastModified;
+    private final long length;
+    private final boolean parsed;
+    private final String[] fileUris;
+    private final String[] linkedFiles;
+    private final String[] links;
+
+    private MapRecord(@Nonnull final String path, final long lastModified, final long length, final boolean parsed, @Nonnull @MustNotContainNull final String[] fileUris, @Nonnull @MustNotContainNull final String[] linkedFiles, @Nonnull @MustNotContainNull final String[] links) {
+      this.path = path;
+      this.lastModified = lastModified;
+      this.length = length;
+      this.parsed = parsed;
+      this.fileUris = fileUris;
+      this.linkedFiles = linkedFiles;
+      this.links = links;
+    }
+
+    @Nonnull
+    private MapRecord moveTo(@Nonnull final String newPath) {
+      return new MapRecord(newPath, this.lastModified, this.length, this.parsed, this.fileUris, this.linkedFiles, this.links);
+    }
+
+    @Nonnull
+    private String makeMoveKey() {
+      return new File(this.path).getName() + '|' + this.lastModified + '|' + this.length;
+    }
+  }
+
+  private final File folder;
+  private final File storeFile;
+
+  private final Map<String, MapRecord> maps = new HashMap<>();
+  private final TreeMap<String, Set<String>> referrers = new TreeMap<>();
+  private boolean loaded;
+  private boolean saveScheduled;
+
+  private final AtomicBoolean updateScheduled = new AtomicBoolean();
+  private final AtomicLong changeCounter = new AtomicLong();
+  private volatile long syncedCounter = -1L;
+  private volatile boolean changesReported;
+
+  /**
+   * Constructor.
+   *
+   * @param folder project folder, it is used as base for relative links
+   * @param storeFile file to keep the index between sessions, can be null
+   */
+  public MapLinkIndex(@Nonnull final File folder, @Nullable final File storeFile) {
+    this.folder = folder;
+    this.storeFile = storeFile;
+  }
+
+  @Nonnull
+  public File getFolder() {
+    return this.folder;
+  }
+
+  /**
+   * Schedule update of the index in background thread.
+   */
+  public void updateInBackground() {
+    if (!this.updateScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    BACKGROUND_EXECUTOR.submit(new Runnable() {
+      @Override
+      public void run() {
+        updateScheduled.set(false);
+        try {
+          update();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+          LOGGER.error("Can't update link index for " + folder, ex); //NOI18N
+        }
+      }
+    });
+  }
+
+  /**
+   * Notify the index about changed, created or deleted file or folder. If it
+   * can affect mind maps then the index is marked as outdated and update is
+   * scheduled in background.
+   *
+   * @param file changed file or folder of the indexed folder
+   */
+  public void markChanged(@Nonnull final File file) {
+    if (file.toPath().startsWith(this.folder.toPath()) && (!file.isFile() || file.getName().toLowerCase(Locale.ENGLISH).endsWith(".mmd"))) { //NOI18N
+      this.changeCounter.incrementAndGet();
+      updateInBackground();
+    }
+  }
+
+  /**
+   * Set flag that changes of the folder are reported through
+   * {@link #markChanged(File)}, if they are not reported then the index is
+   * never considered as up to date.
+   *
+   * @param flag true if changes are reported, false otherwise
+   */
+  public void setChangesReported(final boolean flag) {
+    this.changesReported = flag;
+  }
+
+  /**
+   * Check that the index has been synchronized with the folder and there are
+   * no reported changes since the synchronization.
+   *
+   * @return true if the index can be used without update, false otherwise
+   */
+  public boolean isUpToDate() {
+    return this.changesReported && this.syncedCounter == this.changeCounter.get();
+  }
+
+  /**
+   * Bring the index in sync with the folder. Only new and changed maps are
+   * parsed, moved maps with the same name, modification time and length keep
+   * their links because links are resolved against the project folder.
+   *
+   * @throws InterruptedException if the current thread is interrupted
+   */
+  public synchronized void update() throws InterruptedException {
+    final long counter = this.changeCounter.get();
+    if (!this.loaded) {
+      this.loaded = true;
+      load();
+    }
+
+    final Map<String, BasicFileAttributes> found = new HashMap<>();
+    final boolean[] interrupted = new boolean[1];
+    final Path root = this.folder.toPath();
+
+    try {
+      Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+        @Override
+        @Nonnull
+        public FileVisitResult preVisitDirectory(@Nonnull final Path dir, @Nonnull final BasicFileAttributes attrs) {
+          if (Thread.currentThread().isInterrupted()) {
+            interrupted[0] = true;
+            return FileVisitResult.TERMINATE;
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFile(@Nonnull final Path file, @Nonnull final BasicFileAttributes attrs) {
+          if (attrs.isRegularFile() && file.getFileName().toString().toLowerCase(Locale.ENGLISH).endsWith(".mmd")) { //NOI18N
+            found.put(root.relativize(file).toString(), attrs);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFileFailed(@Nonnull final Path file, @Nonnull final IOException exc) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException ex) {
+      LOGGER.error("Can't walk folder " + this.folder, ex); //NOI18N
+      return;
+    }
+
+    if (interrupted[0]) {
+      throw new InterruptedException();
+    }
+
+    boolean changed = false;
+
+    final Map<String, MapRecord> missing = new HashMap<>();
+    final Iterator<MapRecord> iterator = this.maps.values().iterator();
+    while (iterator.hasNext()) {
+      final MapRecord record = iterator.next();
+      if (!found.containsKey(record.path)) {
+        iterator.remove();
+        removeReferrers(record);
+        missing.put(record.makeMoveKey(), record);
+        changed = true;
+      }
+    }
+
+    for (final Map.Entry<String, BasicFileAttributes> e : found.entrySet()) {
+      final String path = e.getKey();
+      final long lastModified = e.getValue().lastModifiedTime().toMillis();
+      final long length = e.getValue().size();
+      final MapRecord record = this.maps.get(path);
+      if (record == null || record.lastModified != lastModified || record.length != length) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new InterruptedException();
+        }
+        if (record != null) {
+          this.maps.remove(path);
+          removeReferrers(record);
+        }
+        final MapRecord moved = missing.remove(new File(path).getName() + '|' + lastModified + '|' + length);
+        addRecord(moved == null ? parseMap(path, lastModified, length) : moved.moveTo(path));
+        changed = true;
+      }
+    }
+
+    if (changed) {
+      save();
+    }
+    this.syncedCounter = counter;
+  }
+
+  /**
+   * Update record for just saved map without its parsing.
+   *
+   * @param mapFile saved map file
+   * @param map saved map
+   */
+  public synchronized void updateMap(@Nonnull final File mapFile, @Nonnull final MindMap map) {
+    final Path root = this.folder.toPath();
+    final Path file = mapFile.toPath();
+    if (!file.startsWith(root)) {
+      return;
+    }
+    final String path = root.relativize(file).toString();
+    final MapRecord old = this.maps.remove(path);
+    if (old != null) {
+      removeReferrers(old);
+    }
+    addRecord(makeRecord(path, mapFile.lastModified(), mapFile.length(), map));
+    scheduleSave();
+  }
+
+  /**
+   * Find maps which have file links to a file or, if it is a folder, to any
+   * file inside the folder.
+   *
+   * @param file file or folder
+   * @return list of map files, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public synchronized List<File> findMapsReferringTo(@Nonnull final File file) {
+    final Path target = file.toPath().toAbsolutePath().normalize();
+    final String key = target.toString();
+
+    final Set<String> result = new LinkedHashSet<>();
+    if (file.isDirectory()) {
+      for (final Map.Entry<String, Set<String>> e : this.referrers.subMap(key, true, key + Character.MAX_VALUE, true).entrySet()) {
+        if (Paths.get(e.getKey()).startsWith(target)) {
+          result.addAll(e.getValue());
+        }
+      }
+    } else {
+      final Set<String> referring = this.referrers.get(key);
+      if (referring != null) {
+        result.addAll(referring);
+      }
+    }
+
+    final List<File> files = new ArrayList<>();
+    for (final String path : result) {
+      files.add(new File(this.folder, path));
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  /**
+   * Get all mind map files of the project known by the index.
+   *
+   * @return sorted list of map files
+   */
+  @Nonnull
+  @MustNotContainNull
+  public synchronized List<File> findAllMaps() {
+    final List<File> result = new ArrayList<>(this.maps.size());
+    for (final String path : this.maps.keySet()) {
+      result.add(new File(this.folder, path));
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  /**
+   * Get file links of a map in the same form as they are written in the map.
+   *
+   * @param mapFile map file
+   * @return file links or null if the map is unknown or it can't be parsed
+   */
+  @Nullable
+  @MustNotContainNull
+  public synchronized List<MMapURI> findFileLinks(@Nonnull final File mapFile) {
+    final MapRecord record = findRecord(mapFile);
+    if (record == null || !record.parsed) {
+      return null;
+    }
+    final List<MMapURI> result = new ArrayList<>(record.fileUris.length);
+    for (final String uri : record.fileUris) {
+      try {
+        result.add(new MMapURI(uri));
+      } catch (URISyntaxException ex) {
+        LOGGER.warn("Can't restore file link " + uri + " : " + ex.getMessage()); //NOI18N
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get URI links of a map.
+   *
+   * @param mapFile map file
+   * @return links as strings or null if the map is unknown
+   */
+  @Nullable
+  @MustNotContainNull
+  public synchronized List<String> findLinks(@Nonnull final File mapFile) {
+    final MapRecord record = findRecord(mapFile);
+    if (record == null) {
+      return null;
+    }
+    final List<String> result = new ArrayList<>(record.links.length);
+    Collections.addAll(result, record.links);
+    return result;
+  }
+
+  @Nullable
+  private MapRecord findRecord(@Nonnull final File mapFile) {
+    final Path root = this.folder.toPath();
+    final Path file = mapFile.toPath();
+    return file.startsWith(root) ? this.maps.get(root.relativize(file).toString()) : null;
+  }
+
+  @Nonnull
+  private MapRecord parseMap(@Nonnull final String path, final long lastModified, final long length) {
+    final File file = new File(this.folder, path);
+    try {
+      return makeRecord(path, lastModified, length, new MindMap(null, new StringReader(FileUtils.readFileToString(file, "UTF-8")))); //NOI18N
+    } catch (Exception ex) {
+      LOGGER.error("Can't process mind map file " + file, ex); //NOI18N
+      return new MapRecord(path, lastModified, length, false, EMPTY, EMPTY, EMPTY);
+    }
+  }
+
+  @Nonnull
+  private MapRecord makeRecord(@Nonnull final String path, final long lastModified, final long length, @Nonnull final MindMap map) {
+    final Set<String> fileUris = new LinkedHashSet<>();
+    final Set<String> linkedFiles = new LinkedHashSet<>();
+    final Set<String> links = new LinkedHashSet<>();
+    for (final Topic t : map) {
+      final ExtraFile file = (ExtraFile) t.getExtras().get(Extra.ExtraType.FILE);
+      if (file != null) {
+        fileUris.add(file.getAsURI().toString());
+        linkedFiles.add(file.getAsURI().asFile(this.folder).toPath().toAbsolutePath().normalize().toString());
+      }
+      final ExtraLink link = (ExtraLink) t.getExtras().get(Extra.ExtraType.LINK);
+      if (link != null) {
+        links.add(link.getAsString());
+      }
+    }
+    return new MapRecord(path, lastModified, length, true, fileUris.toArray(new String[fileUris.size()]), linkedFiles.toArray(new String[linkedFiles.size()]), links.toArray(new String[links.size()]));
+  }
+
+  private void addRecord(@Nonnull final MapRecord record) {
+    this.maps.put(record.path, record);
+    for (final String f : record.linkedFiles) {
+      Set<String> set = this.referrers.get(f);
+      if (set == null) {
+        set = new HashSet<>();
+        this.referrers.put(f, set);
+      }
+      set.add(record.path);
+    }
+  }
+
+  private void removeReferrers(@Nonnull final MapRecord record) {
+    for (final String f : record.linkedFiles) {
+      final Set<String> set = this.referrers.get(f);
+      if (set != null) {
+        set.remove(record.path);
+        if (set.isEmpty()) {
+          this.referrers.remove(f);
+        }
+      }
+    }
+  }
+
+  private void scheduleSave() {
+    if (!this.saveScheduled) {
+      this.saveScheduled = true;
+      BACKGROUND_EXECUTOR.submit(new Runnable() {
+        @Override
+        public void run() {
+          synchronized (MapLinkIndex.this) {
+            saveScheduled = false;
+            save();
+          }
+        }
+      });
+    }
+  }
+
+  private void load() {
+    if (this.storeFile == null || !this.storeFile.isFile()) {
+      return;
+    }
+    try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.storeFile)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || !this.folder.getAbsolutePath().equals(in.readUTF())) {
+        return;
+      }
+      final int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        final String path = in.readUTF();
+        final long lastModified = in.readLong();
+        final long length = in.readLong();
+        final boolean parsed = in.readBoolean();
+        final String[] fileUris = readStrings(in);
+        final String[] linkedFiles = readStrings(in);
+        final String[] links = readStrings(in);
+        addRecord(new MapRecord(path, lastModified, length, parsed, fileUris, linkedFiles, links));
+      }
+    } catch (IOException ex) {
+      LOGGER.warn("Can't load link index " + this.storeFile + " : " + ex.getMessage()); //NOI18N
+      this.maps.clear();
+      this.referrers.clear();
+    }
+  }
+
+  private void save() {
+    if (this.storeFile == null) {
+      return;
+    }
+    final File parent = this.storeFile.getParentFile();
+    if (!parent.isDirectory() && !parent.mkdirs()) {
+      LOGGER.warn("Can't create folder for link index " + parent); //NOI18N
+      return;
+    }
+
+    final File tempFile = new File(parent, this.storeFile.getName() + ".tmp"); //NOI18N
+    try {
+      try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile, false)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(this.folder.getAbsolutePath());
+        out.writeInt(this.maps.size());
+        for (final MapRecord r : this.maps.values()) {
+          out.writeUTF(r.path);
+          out.writeLong(r.lastModified);
+          out.writeLong(r.length);
+          out.writeBoolean(r.parsed);
+          writeStrings(out, r.fileUris);
+          writeStrings(out, r.linkedFiles);
+          writeStrings(out, r.links);
+        }
+      }
+      if ((this.storeFile.isFile() && !this.storeFile.delete()) || !tempFile.renameTo(this.storeFile)) {
+        LOGGER.warn("Can't replace link index file " + this.storeFile); //NOI18N
+        if (!tempFile.delete()) {
+          tempFile.deleteOnExit();
+        }
+      }
+    } catch (IOException ex) {
+      LOGGER.warn("Can't save link index " + this.storeFile + " : " + ex.getMessage()); //NOI18N
+      if (!tempFile.delete()) {
+        tempFile.deleteOnExit();
+      }
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static String[] readStrings(@Nonnull final DataInputStream in) throws IOException {
+    final int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Wrong number of strings : " + count);
+    }
+    final String[] result = new String[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = in.readUTF();
+    }
+    return result;
+  }
+
+  private static void writeStrings(@Nonnull final DataOutputStream out, @Nonnull @MustNotContainNull final String[] strings) throws IOException {
+    out.writeInt(strings.length);
+    for (final String s : strings) {
+      out.writeUTF(s);
+    }
+  }
+}
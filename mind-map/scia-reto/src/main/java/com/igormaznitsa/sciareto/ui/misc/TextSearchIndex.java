@@ -0,0 +1,622 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.sciareto.ui.misc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+
+/**
+ * Persistent inverted index of byte trigrams for files of a project folder.
+ * Trigrams are made from raw bytes with folded case of ASCII letters, so that
+ * the index doesn't depend on selected charset. The index is updated
+ * incrementally by modification time and length of files, it gives list of
+ * candidate files which must be verified by {@link FileExaminator}. The whole
+ * folder is walked only during the first update and periodically if changes
+ * are reported, between them only paths reported through
+ * {@link #markChanged(File)} are checked. Files containing zero byte are
+ * considered as binary ones and they are never returned as candidates.
+ */
+public final class TextSearchIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TextSearchIndex.class);
+
+  private static final int MAGIC = 0x53525449;
+  private static final int VERSION = 2;
+
+  /**
+   * Files bigger than the size are not indexed and always verified directly.
+   */
+  private static final long MAX_INDEXED_SIZE = 256L * 1024L * 1024L;
+
+  /**
+   * Size of chunk to read file for indexing.
+   */
+  private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * Marker of binary file, such files are not candidates for text search.
+   */
+  private static final int[] BINARY = new int[0];
+
+  private static final int TRIGRAMS_UNKNOWN = -1;
+  private static final int TRIGRAMS_BINARY = -2;
+
+  /**
+   * Period of full walk of the folder, it catches changes which have not been
+   * reported.
+   */
+  private static final long FULL_SYNC_PERIOD = 10L * 60L * 1000L;
+
+  private static final ExecutorService BACKGROUND_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR_TEXT_INDEX"); //NOI18N
+      result.setDaemon(true);
+      result.setPriority(Thread.MIN_PRIORITY);
+      return result;
+    }
+  });
+
+  private static final class IntList {
+
+    private int[] data = new int[4];
+    private int size;
+
+    void add(final int value) {
+      if (this.size == this.data.length) {
+        this.data = Arrays.copyOf(this.data, this.size << 1);
+      }
+      this.data[this.size++] = value;
+    }
+
+    void remove(final int value) {
+      final int index = Arrays.binarySearch(this.data, 0, this.size, value);
+      if (index >= 0) {
+        System.arraycopy(this.data, index + 1, this.data, index, this.size - index - 1);
+        this.size--;
+      }
+    }
+  }
+
+  private static final class FileRecord {
+
+    private final int id;
+    private final String path;
+    private final long lastModified;
+    private final long length;
+    private final int[] trigrams;
+
+    private FileRecord(final int id, @Nonnull final String path, final long lastModified, final long length, @Nullable final int[] trigrams) {
+      this.id = id;
+      this.path = path;
+      this.lastModified = lastModified;
+      this.length = length;
+      this.trigrams = trigrams;
+    }
+  }
+
+  private final File folder;
+  private final File storeFile;
+
+  private final Map<String, FileRecord> records = new HashMap<>();
+  private final Map<Integer, FileRecord> recordsById = new HashMap<>();
+  private final Set<FileRecord> notIndexed = new HashSet<>();
+  private final Map<Integer, IntList> postings = new HashMap<>();
+  private final Set<String> changedPaths = new HashSet<>();
+  private int nextId;
+  private boolean loaded;
+  private volatile long lastFullSync;
+  private volatile boolean changesReported;
+
+  /**
+   * Constructor.
+   *
+   * @param folder indexed folder
+   * @param storeFile file to keep the index between sessions, can be null
+   */
+  public TextSearchIndex(@Nonnull final File folder, @Nullable final File storeFile) {
+    this.folder = folder;
+    this.storeFile = storeFile;
+  }
+
+  @Nonnull
+  public File getFolder() {
+    return this.folder;
+  }
+
+  /**
+   * Schedule update of the index in background thread.
+   */
+  public void updateInBackground() {
+    BACKGROUND_EXECUTOR.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          update();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+          LOGGER.error("Can't update text index for " + folder, ex); //NOI18N
+        }
+      }
+    });
+  }
+
+  /**
+   * Notify the index about changed, created or deleted file or folder, it will
+   * be checked during the next update.
+   *
+   * @param file changed file or folder of the indexed folder
+   */
+  public void markChanged(@Nonnull final File file) {
+    final Path root = this.folder.toPath();
+    final Path path = file.toPath();
+    if (path.startsWith(root)) {
+      synchronized (this.changedPaths) {
+        this.changedPaths.add(root.relativize(path).toString());
+      }
+    }
+  }
+
+  /**
+   * Set flag that changes of the folder are reported through
+   * {@link #markChanged(File)}, if they are not reported then the whole folder
+   * is walked during every update.
+   *
+   * @param flag true if changes are reported, false otherwise
+   */
+  public void setChangesReported(final boolean flag) {
+    this.changesReported = flag;
+    if (!flag) {
+      this.lastFullSync = 0L;
+    }
+  }
+
+  /**
+   * Bring the index in sync with the folder, only new and changed files are
+   * read. Only reported paths are checked if the folder has been walked
+   * recently.
+   *
+   * @throws InterruptedException if the current thread is interrupted
+   */
+  public synchronized void update() throws InterruptedException {
+    if (!this.loaded) {
+      this.loaded = true;
+      load();
+    }
+
+    final List<String> paths;
+    synchronized (this.changedPaths) {
+      paths = new ArrayList<>(this.changedPaths);
+      this.changedPaths.clear();
+    }
+
+    final long now = System.currentTimeMillis();
+    boolean changed = false;
+    try {
+      if (!this.changesReported || now - this.lastFullSync >= FULL_SYNC_PERIOD) {
+        changed = sync(""); //NOI18N
+        this.lastFullSync = now;
+      } else {
+        for (final String path : paths) {
+          changed |= sync(path);
+        }
+      }
+    } catch (InterruptedException ex) {
+      synchronized (this.changedPaths) {
+        this.changedPaths.addAll(paths);
+      }
+      throw ex;
+    } finally {
+      if (changed) {
+        save();
+      }
+    }
+  }
+
+  /**
+   * Sync records of file or folder subtree with file system.
+   *
+   * @param relativePath path relative to the indexed folder, empty for the
+   * whole folder
+   * @return true if the index has been changed
+   * @throws InterruptedException if the current thread is interrupted
+   */
+  private boolean sync(@Nonnull final String relativePath) throws InterruptedException {
+    final Set<String> found = new HashSet<>();
+    final boolean[] changed = new boolean[1];
+    final boolean[] interrupted = new boolean[1];
+    final Path root = this.folder.toPath();
+    final Path start = relativePath.isEmpty() ? root : root.resolve(relativePath);
+
+    try {
+      Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+        @Override
+        @Nonnull
+        public FileVisitResult preVisitDirectory(@Nonnull final Path dir, @Nonnull final BasicFileAttributes attrs) {
+          if (Thread.currentThread().isInterrupted()) {
+            interrupted[0] = true;
+            return FileVisitResult.TERMINATE;
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFile(@Nonnull final Path file, @Nonnull final BasicFileAttributes attrs) {
+          if (attrs.isRegularFile()) {
+            final String path = root.relativize(file).toString();
+            found.add(path);
+            final long lastModified = attrs.lastModifiedTime().toMillis();
+            final FileRecord record = records.get(path);
+            if (record == null || record.lastModified != lastModified || record.length != attrs.size()) {
+              if (record != null) {
+                removeRecord(record);
+              }
+              addRecord(new FileRecord(nextId++, path, lastModified, attrs.size(), attrs.size() > MAX_INDEXED_SIZE ? null : readTrigrams(file)));
+              changed[0] = true;
+            }
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFileFailed(@Nonnull final Path file, @Nonnull final IOException exc) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException ex) {
+      LOGGER.error("Can't walk folder " + start, ex); //NOI18N
+      return changed[0];
+    }
+
+    if (interrupted[0]) {
+      throw new InterruptedException();
+    }
+
+    final String prefix = relativePath.isEmpty() ? relativePath : relativePath + File.separatorChar;
+    final Iterator<Map.Entry<String, FileRecord>> iterator = this.records.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final FileRecord record = iterator.next().getValue();
+      if ((record.path.equals(relativePath) || record.path.startsWith(prefix)) && !found.contains(record.path)) {
+        iterator.remove();
+        removePostings(record);
+        changed[0] = true;
+      }
+    }
+
+    return changed[0];
+  }
+
+  /**
+   * Find files which can contain data. Every position of data is compared with
+   * two variants so that case insensitive search is possible.
+   *
+   * @param dataVariant1 the first variant of data
+   * @param dataVariant2 the second variant of data, must have the same length
+   * @return list of candidate files, must be verified
+   */
+  @Nonnull
+  @MustNotContainNull
+  public synchronized List<File> findCandidates(@Nonnull final byte[] dataVariant1, @Nonnull final byte[] dataVariant2) {
+    final List<IntList> required = new ArrayList<>();
+    boolean noIndexedHits = false;
+
+    if (dataVariant1.length == dataVariant2.length) {
+      for (int i = 0; i + 3 <= dataVariant1.length; i++) {
+        if (fold(dataVariant1[i]) == fold(dataVariant2[i])
+            && fold(dataVariant1[i + 1]) == fold(dataVariant2[i + 1])
+            && fold(dataVariant1[i + 2]) == fold(dataVariant2[i + 2])) {
+          final IntList posting = this.postings.get(makeTrigram(dataVariant1[i], dataVariant1[i + 1], dataVariant1[i + 2]));
+          if (posting == null) {
+            noIndexedHits = true;
+            break;
+          }
+          required.add(posting);
+        }
+      }
+    }
+
+    final List<File> result = new ArrayList<>();
+    if (!noIndexedHits) {
+      if (required.isEmpty()) {
+        for (final FileRecord r : this.records.values()) {
+          if (r.trigrams != null && r.trigrams != BINARY) {
+            result.add(new File(this.folder, r.path));
+          }
+        }
+      } else {
+        Collections.sort(required, new Comparator<IntList>() {
+          @Override
+          public int compare(@Nonnull final IntList o1, @Nonnull final IntList o2) {
+            return Integer.compare(o1.size, o2.size);
+          }
+        });
+
+        int[] ids = Arrays.copyOf(required.get(0).data, required.get(0).size);
+        for (int i = 1; i < required.size() && ids.length > 0; i++) {
+          ids = intersect(ids, required.get(i));
+        }
+
+        for (final int id : ids) {
+          result.add(new File(this.folder, this.recordsById.get(id).path));
+        }
+      }
+    }
+
+    for (final FileRecord r : this.notIndexed) {
+      result.add(new File(this.folder, r.path));
+    }
+
+    return result;
+  }
+
+  @Nonnull
+  private static int[] intersect(@Nonnull final int[] ids, @Nonnull final IntList list) {
+    final int[] result = new int[Math.min(ids.length, list.size)];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < ids.length && j < list.size) {
+      final int a = ids[i];
+      final int b = list.data[j];
+      if (a == b) {
+        result[count++] = a;
+        i++;
+        j++;
+      } else if (a < b) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  private static int fold(final byte value) {
+    return value >= 'A' && value <= 'Z' ? value + ('a' - 'A') : value & 0xFF;
+  }
+
+  private static int makeTrigram(final byte b1, final byte b2, final byte b3) {
+    return (fold(b1) << 16) | (fold(b2) << 8) | fold(b3);
+  }
+
+  /**
+   * Read sorted unique trigrams of file, the file is read by chunks so that
+   * big files don't need much memory.
+   *
+   * @param file file to be read
+   * @return trigrams, {@link #BINARY} if the file contains zero byte, or null
+   * if the file can't be read
+   */
+  @Nullable
+  static int[] readTrigrams(@Nonnull final Path file) {
+    final BitSet found = new BitSet();
+    final byte[] buffer = new byte[READ_CHUNK_SIZE];
+    int prev2 = -1;
+    int prev1 = -1;
+    try (final InputStream in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        for (int i = 0; i < read; i++) {
+          final int b = buffer[i] & 0xFF;
+          if (b == 0) {
+            return BINARY;
+          }
+          if (prev2 >= 0) {
+            found.set(makeTrigram((byte) prev2, (byte) prev1, (byte) b));
+          }
+          prev2 = prev1;
+          prev1 = b;
+        }
+      }
+    } catch (IOException ex) {
+      LOGGER.warn("Can't read file for index " + file + " : " + ex.getMessage()); //NOI18N
+      return null;
+    }
+
+    final int[] trigrams = new int[found.cardinality()];
+    int index = 0;
+    for (int t = found.nextSetBit(0); t >= 0; t = found.nextSetBit(t + 1)) {
+      trigrams[index++] = t;
+    }
+    return trigrams;
+  }
+
+  private void addRecord(@Nonnull final FileRecord record) {
+    this.records.put(record.path, record);
+    this.recordsById.put(record.id, record);
+    if (record.trigrams == null) {
+      this.notIndexed.add(record);
+    } else if (record.trigrams != BINARY) {
+      for (final int t : record.trigrams) {
+        IntList posting = this.postings.get(t);
+        if (posting == null) {
+          posting = new IntList();
+          this.postings.put(t, posting);
+        }
+        posting.add(record.id);
+      }
+    }
+  }
+
+  private void removeRecord(@Nonnull final FileRecord record) {
+    this.records.remove(record.path);
+    removePostings(record);
+  }
+
+  private void removePostings(@Nonnull final FileRecord record) {
+    this.recordsById.remove(record.id);
+    if (record.trigrams == null) {
+      this.notIndexed.remove(record);
+    } else if (record.trigrams != BINARY) {
+      for (final int t : record.trigrams) {
+        final IntList posting = this.postings.get(t);
+        if (posting != null) {
+          posting.remove(record.id);
+          if (posting.size == 0) {
+            this.postings.remove(t);
+          }
+        }
+      }
+    }
+  }
+
+  private void load() {
+    if (this.storeFile == null || !this.storeFile.isFile()) {
+      return;
+    }
+    try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.storeFile)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || !this.folder.getAbsolutePath().equals(in.readUTF())) {
+        return;
+      }
+      final int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        final String path = in.readUTF();
+        final long lastModified = in.readLong();
+        final long length = in.readLong();
+        final int trigramNumber = in.readInt();
+        int[] trigrams = null;
+        if (trigramNumber == TRIGRAMS_BINARY) {
+          trigrams = BINARY;
+        } else if (trigramNumber >= 0) {
+          trigrams = new int[trigramNumber];
+          int last = 0;
+          for (int t = 0; t < trigramNumber; t++) {
+            last += readVarInt(in);
+            trigrams[t] = last;
+          }
+        }
+        addRecord(new FileRecord(this.nextId++, path, lastModified, length, trigrams));
+      }
+    } catch (IOException ex) {
+      LOGGER.warn("Can't load text index " + this.storeFile + " : " + ex.getMessage()); //NOI18N
+      this.records.clear();
+      this.recordsById.clear();
+      this.notIndexed.clear();
+      this.postings.clear();
+    }
+  }
+
+  private void save() {
+    if (this.storeFile == null) {
+      return;
+    }
+    final File parent = this.storeFile.getParentFile();
+    if (!parent.isDirectory() && !parent.mkdirs()) {
+      LOGGER.warn("Can't create folder for text index " + parent); //NOI18N
+      return;
+    }
+
+    final File tempFile = new File(parent, this.storeFile.getName() + ".tmp"); //NOI18N
+    try {
+      try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile, false)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(this.folder.getAbsolutePath());
+        out.writeInt(this.records.size());
+        for (final FileRecord r : this.records.values()) {
+          out.writeUTF(r.path);
+          out.writeLong(r.lastModified);
+          out.writeLong(r.length);
+          if (r.trigrams == null) {
+            out.writeInt(TRIGRAMS_UNKNOWN);
+          } else if (r.trigrams == BINARY) {
+            out.writeInt(TRIGRAMS_BINARY);
+          } else {
+            out.writeInt(r.trigrams.length);
+            int last = 0;
+            for (final int t : r.trigrams) {
+              writeVarInt(out, t - last);
+              last = t;
+            }
+          }
+        }
+      }
+      if ((this.storeFile.isFile() && !this.storeFile.delete()) || !tempFile.renameTo(this.storeFile)) {
+        LOGGER.warn("Can't replace text index file " + this.storeFile); //NOI18N
+        if (!tempFile.delete()) {
+          tempFile.deleteOnExit();
+        }
+      }
+    } catch (IOException ex) {
+      LOGGER.warn("Can't save text index " + this.storeFile + " : " + ex.getMessage()); //NOI18N
+      if (!tempFile.delete()) {
+        tempFile.deleteOnExit();
+      }
+    }
+  }
+
+  private static void writeVarInt(@Nonnull final DataOutputStream out, final int value) throws IOException {
+    int v = value;
+    while ((v & ~0x7F) != 0) {
+      out.writeByte((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    out.writeByte(v);
+  }
+
+  private static int readVarInt(@Nonnull final DataInputStream in) throws IOException {
+    int result = 0;
+    int shift = 0;
+    while (true) {
+      final int b = in.readUnsignedByte();
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+      shift += 7;
+      if (shift > 28) {
+        throw new IOException("Wrong varint");
+      }
+    }
+  }
+}
@@ -293,6 +293,33 @@ public class EditorTabPane extends JTabbedPane implements Iterable<TabTitle> {
     this.setToolTipTextAt(count, tabTitle.getToolTipText());
   }
 
+  /**
+   * Replace editor of existing tab, old editor is disposed.
+   *
+   * @param oldTitle title of the tab to be replaced
+   * @param panel new editor for the tab
+   * @return true if the tab has been found and replaced
+   */
+  public boolean replaceTab(@Nonnull final TabTitle oldTitle, @Nonnull final TabProvider panel) {
+    for (int i = 0; i < this.getTabCount(); i++) {
+      if (this.getTabComponentAt(i) == oldTitle) {
+        final TabTitle tabTitle = panel.getTabTitle();
+        this.setComponentAt(i, panel.getEditor().getContainerToShow());
+        this.setTabComponentAt(i, tabTitle);
+        this.setToolTipTextAt(i, tabTitle.getToolTipText());
+        oldTitle.disposeEditor();
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            panel.getMainComponent().requestFocus();
+          }
+        });
+        return true;
+      }
+    }
+    return false;
+  }
+
   public boolean focusToFile(@Nonnull final File file) {
     for (int i = 0; i < this.getTabCount(); i++) {
       final TabTitle title = (TabTitle) this.getTabComponentAt(i);
@@ -155,7 +155,6 @@ public final class TabTitle extends JPanel {
     boolean result = false;
     if (this.parent.saveDocument()) {
       result = true;
-      this.changed = false;
       updateView();
     }
     return result;
@@ -229,6 +228,7 @@ public final class TabTitle extends JPanel {
     if (compo instanceof Disposable) {
       ((Disposable) compo).dispose();
     }
+    this.parent.getEditor().dispose();
   }
 
   public boolean reload(final boolean askUserConfirmationIfChanged) {
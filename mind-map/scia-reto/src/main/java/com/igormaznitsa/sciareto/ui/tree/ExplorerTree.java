@@ -55,9 +55,12 @@ import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
+import com.igormaznitsa.mindmap.swing.services.MindMapThumbnailService;
 import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.Main;
+import com.igormaznitsa.sciareto.preferences.PreferencesManager;
 import com.igormaznitsa.sciareto.ui.DialogProviderManager;
 import com.igormaznitsa.sciareto.ui.FindFilesForTextPanel;
 import com.igormaznitsa.sciareto.ui.FindUsagesPanel;
@@ -73,6 +76,7 @@ public final class ExplorerTree extends JScrollPane {
 
   private final DnDTree projectTree;
   private final Context context;
+  private final MindMapThumbnailService thumbnails;
 
   public ExplorerTree(@Nonnull final Context context) {
     super();
@@ -85,7 +89,11 @@ public final class ExplorerTree extends JScrollPane {
 
     ToolTipManager.sharedInstance().registerComponent(this.projectTree);
 
-    this.projectTree.setCellRenderer(new TreeCellRenderer());
+    final MindMapPanelConfig thumbnailConfig = new MindMapPanelConfig();
+    thumbnailConfig.loadFrom(PreferencesManager.getInstance().getPreferences());
+    this.thumbnails = new MindMapThumbnailService(Main.THUMBNAIL_FOLDER, thumbnailConfig, MindMapThumbnailService.DEFAULT_SIZE, MindMapThumbnailService.DEFAULT_CPU_BUDGET);
+
+    this.projectTree.setCellRenderer(new TreeCellRenderer(this.thumbnails));
     this.projectTree.setModel(new NodeProjectGroup(context, ".")); //NOI18N
     this.projectTree.setRootVisible(false);
     this.setViewportView(this.projectTree);
@@ -205,6 +213,24 @@ public final class ExplorerTree extends JScrollPane {
     this.context.onCloseProject(tree);
   }
 
+  /**
+   * Release resources of the tree, it stops rendering of thumbnails.
+   */
+  public void dispose() {
+    this.thumbnails.dispose();
+  }
+
+  /**
+   * Reload configuration from preferences, thumbnails are rendered again if
+   * the configuration has been changed.
+   */
+  public void updateConfiguration() {
+    final MindMapPanelConfig thumbnailConfig = new MindMapPanelConfig();
+    thumbnailConfig.loadFrom(PreferencesManager.getInstance().getPreferences());
+    this.thumbnails.setConfig(thumbnailConfig);
+    this.projectTree.repaint();
+  }
+
   public void focusToFirstElement() {
     this.projectTree.focusToFirstElement();
   }
@@ -430,11 +456,13 @@ public final class ExplorerTree extends JScrollPane {
 
     final TabTitle editingTab = this.context.getFocusedTab();
     if (editingTab != null && editingTab.getType() == EditorContentType.MINDMAP) {
+      final MMDEditor editor = (MMDEditor) editingTab.getProvider().getEditor();
       final JMenuItem addIntoMap = new JMenuItem("Add File as topic");
+      addIntoMap.setEnabled(!editor.isLoading());
       addIntoMap.addActionListener(new ActionListener() {
         @Override
         public void actionPerformed(@Nonnull final ActionEvent e) {
-          addTreeAsTopic(context.findProjectForFile(editingTab.getAssociatedFile()), node, ((MMDEditor) editingTab.getProvider().getEditor()));
+          addTreeAsTopic(context.findProjectForFile(editingTab.getAssociatedFile()), node, editor);
         }
       });
       optional.add(addIntoMap);
@@ -451,6 +479,9 @@ public final class ExplorerTree extends JScrollPane {
   }
 
   private void addTreeAsTopic(@Nullable final NodeProject project, @Nonnull final NodeFileOrFolder node, @Nonnull final MMDEditor editor) {
+    if (editor.isLoading()) {
+      return;
+    }
 
     final File projectFolder = project == null ? null : project.getFolder();
 
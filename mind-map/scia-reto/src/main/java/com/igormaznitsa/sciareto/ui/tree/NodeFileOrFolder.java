@@ -16,6 +16,9 @@
 package com.igormaznitsa.sciareto.ui.tree;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -23,6 +26,10 @@ import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -35,10 +42,27 @@ import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.annotation.ReturnsOriginal;
 import com.igormaznitsa.meta.common.utils.ArrayUtils;
 import com.igormaznitsa.meta.common.utils.Assertions;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.Context;
 
 public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>, Iterable<NodeFileOrFolder> {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(NodeFileOrFolder.class);
+
+  private static final ExecutorService PREFETCH_EXECUTOR = Executors.newFixedThreadPool(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), new ThreadFactory() {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR_TREE_PREFETCH_" + counter.incrementAndGet()); //NOI18N
+      result.setDaemon(true);
+      result.setPriority(Thread.MIN_PRIORITY);
+      return result;
+    }
+  });
+
   protected final NodeFileOrFolder parent;
 
   protected final List<NodeFileOrFolder> children;
@@ -46,28 +70,66 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
 
   protected volatile String name;
 
-  private final boolean readonly;
+  private volatile Boolean readonly;
+
+  /**
+   * Flag shows that children of the folder are listed. Folders are listed
+   * lazily, by the first access to their children.
+   */
+  private volatile boolean loaded;
+
+  /**
+   * Children listed by background prefetch but still not adopted by the
+   * folder.
+   */
+  private volatile List<NodeFileOrFolder> prefetched;
+
+  /**
+   * Modification time of the folder when it was prefetched, if the folder is
+   * changed then prefetched data is ignored.
+   */
+  private volatile long prefetchedStamp;
+
+  private volatile boolean detached;
 
   public NodeFileOrFolder(@Nullable final NodeFileOrFolder parent, final boolean folder, @Nullable final String name, final boolean readOnly) {
+    this(parent, folder, name);
+    this.readonly = readOnly;
+  }
+
+  /**
+   * Create node, its read only flag will be detected by the first request.
+   *
+   * @param parent parent node, can be null
+   * @param folder true if the node is folder
+   * @param name name of the node
+   */
+  public NodeFileOrFolder(@Nullable final NodeFileOrFolder parent, final boolean folder, @Nullable final String name) {
     this.parent = parent;
     this.name = name;
 
     if (folder) {
       this.children = new ArrayList<>();
       this.folderFlag = true;
-      reloadSubtree();
+      // children of root are managed explicitly
+      this.loaded = parent == null;
     } else {
       this.children = Collections.EMPTY_LIST;
       this.folderFlag = false;
+      this.loaded = true;
     }
-
-    this.readonly = readOnly;
   }
 
+  /**
+   * Get number of nodes in the subtree, only already listed folders are
+   * counted without listing of the rest ones.
+   *
+   * @return number of nodes including the node itself
+   */
   public int size() {
     if (this.folderFlag) {
       int counter = 1;
-      for (final NodeFileOrFolder f : this.children) {
+      for (final NodeFileOrFolder f : getChildrenIfLoaded()) {
         counter += f.size();
       }
       return counter;
@@ -77,7 +139,212 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   }
 
   public boolean isReadOnly() {
-    return this.readonly;
+    Boolean result = this.readonly;
+    if (result == null) {
+      final File file = makeFileForNode();
+      result = file != null && !Files.isWritable(file.toPath());
+      this.readonly = result;
+    }
+    return result;
+  }
+
+  /**
+   * Check that children of the folder are already listed.
+   *
+   * @return true if children are listed or the node is not folder
+   */
+  public boolean isLoaded() {
+    return this.loaded;
+  }
+
+  /**
+   * Start background listing of not listed folders of the subtree in parallel
+   * threads. Listed children are adopted by folders only during the first
+   * access to them.
+   */
+  public void prefetchSubtree() {
+    if (this.folderFlag && !isDetached()) {
+      if (this.loaded) {
+        final List<NodeFileOrFolder> loadedChildren;
+        synchronized (this) {
+          loadedChildren = new ArrayList<>(this.children);
+        }
+        for (final NodeFileOrFolder c : loadedChildren) {
+          c.prefetchSubtree();
+        }
+      } else if (this.prefetched == null) {
+        final File folder = makeFileForNode();
+        if (folder != null) {
+          PREFETCH_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+              prefetch(folder.toPath());
+            }
+          });
+        }
+      }
+    }
+  }
+
+  private void prefetch(@Nonnull final java.nio.file.Path folder) {
+    if (this.loaded || isDetached()) {
+      return;
+    }
+
+    final long stamp = folder.toFile().lastModified();
+    final List<NodeFileOrFolder> listed = new ArrayList<>();
+    try (final DirectoryStream<java.nio.file.Path> stream = Files.newDirectoryStream(folder)) {
+      for (final java.nio.file.Path p : stream) {
+        listed.add(new NodeFileOrFolder(this, Files.isDirectory(p), p.getFileName().toString()));
+      }
+    }
+    catch (IOException | DirectoryIteratorException ex) {
+      LOGGER.warn("Can't prefetch folder " + folder + " : " + ex.getMessage()); //NOI18N
+      return;
+    }
+    Collections.sort(listed, this);
+    synchronized (this) {
+      if (this.loaded) {
+        return;
+      }
+      this.prefetchedStamp = stamp;
+      this.prefetched = listed;
+    }
+
+    for (final NodeFileOrFolder n : listed) {
+      if (n.folderFlag) {
+        final java.nio.file.Path subfolder = folder.resolve(n.name);
+        PREFETCH_EXECUTOR.execute(new Runnable() {
+          @Override
+          public void run() {
+            n.prefetch(subfolder);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Check that the node or one of its ancestors has been removed from tree or
+   * replaced by reloading.
+   *
+   * @return true if the node is not reachable from its root anymore
+   */
+  boolean isDetached() {
+    NodeFileOrFolder node = this;
+    while (node != null) {
+      if (node.detached) {
+        return true;
+      }
+      node = node.parent;
+    }
+    return false;
+  }
+
+  /**
+   * Mark the node as removed from tree, it stops background prefetch of its
+   * subtree.
+   */
+  protected void markDetached() {
+    this.detached = true;
+  }
+
+  /**
+   * Get children of the folder, list them if they are not listed yet.
+   *
+   * @return list of children
+   */
+  @Nonnull
+  @MustNotContainNull
+  protected List<NodeFileOrFolder> getLoadedChildren() {
+    if (!this.loaded) {
+      boolean filled = false;
+      synchronized (this) {
+        if (!this.loaded) {
+          final List<NodeFileOrFolder> ready = this.prefetched;
+          final File folder = makeFileForNode();
+          if (ready == null || folder == null || folder.lastModified() != this.prefetchedStamp) {
+            setChildren(listChildren());
+          } else {
+            setChildren(ready);
+          }
+          filled = true;
+        }
+      }
+      if (filled) {
+        notifyFolderLoaded();
+      }
+    }
+    return this.children;
+  }
+
+  /**
+   * Get copy of already listed children, folder is not listed if it is not
+   * listed yet.
+   *
+   * @return copy of listed children or empty list
+   */
+  @Nonnull
+  @MustNotContainNull
+  protected List<NodeFileOrFolder> getChildrenIfLoaded() {
+    if (this.folderFlag && this.loaded) {
+      synchronized (this) {
+        return new ArrayList<>(this.children);
+      }
+    } else {
+      return Collections.emptyList();
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private List<NodeFileOrFolder> listChildren() {
+    final List<NodeFileOrFolder> result = new ArrayList<>();
+    final File generatedFile = makeFileForNode();
+    if (generatedFile != null && generatedFile.isDirectory()) {
+      final File[] files = generatedFile.listFiles();
+      if (files != null) {
+        for (final File f : files) {
+          result.add(new NodeFileOrFolder(this, f.isDirectory(), f.getName()));
+        }
+        Collections.sort(result, this);
+      }
+    }
+    return result;
+  }
+
+  private void fillChildren(@Nonnull @MustNotContainNull final List<NodeFileOrFolder> newChildren) {
+    synchronized (this) {
+      setChildren(newChildren);
+    }
+    notifyFolderLoaded();
+  }
+
+  private void setChildren(@Nonnull @MustNotContainNull final List<NodeFileOrFolder> newChildren) {
+    final List<NodeFileOrFolder> notAdopted = this.prefetched;
+    if (notAdopted != null && notAdopted != newChildren) {
+      for (final NodeFileOrFolder n : notAdopted) {
+        n.markDetached();
+      }
+    }
+    for (final NodeFileOrFolder n : this.children) {
+      n.markDetached();
+    }
+    this.children.clear();
+    this.children.addAll(newChildren);
+    this.prefetched = null;
+    this.loaded = true;
+  }
+
+  /**
+   * Notify project about listed folder, must not be called under the node
+   * monitor because the project registers the folder in its watcher.
+   */
+  private void notifyFolderLoaded() {
+    final NodeProject project = findProject();
+    if (project != null) {
+      project.onFolderLoaded(this);
+    }
   }
 
   public boolean isProjectKnowledgeFolder() {
@@ -118,9 +385,12 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   @Nonnull
   public NodeFileOrFolder addFile(@Nonnull final File file) {
     Assertions.assertTrue("Unexpected state!", this.folderFlag && file.getParentFile().equals(this.makeFileForNode())); //NOI18N
-    final NodeFileOrFolder result = new NodeFileOrFolder(this, file.isDirectory(), file.getName(), !Files.isWritable(file.toPath()));
-    this.children.add(0, result);
-    Collections.sort(this.children, this);
+    final NodeFileOrFolder result = new NodeFileOrFolder(this, file.isDirectory(), file.getName());
+    final List<NodeFileOrFolder> loadedChildren = getLoadedChildren();
+    synchronized (this) {
+      final int index = Collections.binarySearch(loadedChildren, result, this);
+      loadedChildren.add(index < 0 ? -(index + 1) : index, result);
+    }
     return result;
   }
 
@@ -129,16 +399,12 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     reloadSubtree();
   }
 
+  /**
+   * Reload list of children of the folder, subfolders will be listed lazily.
+   */
   public void reloadSubtree() {
     if (this.folderFlag) {
-      this.children.clear();
-      final File generatedFile = makeFileForNode();
-      if (generatedFile != null && generatedFile.isDirectory()) {
-        for (final File f : generatedFile.listFiles()) {
-          this.children.add(new NodeFileOrFolder(this, f.isDirectory(), f.getName(), !Files.isWritable(f.toPath())));
-        }
-        Collections.sort(this.children, this);
-      }
+      fillChildren(listChildren());
     }
   }
 
@@ -152,7 +418,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   }
 
   void fireNotifySubtreeChanged(@Nonnull TreeModel model, @Nonnull @MustNotContainNull final List<TreeModelListener> listeners) {
-    if (this.parent != null && this.folderFlag) {
+    if (this.parent != null && this.folderFlag && this.loaded) {
       final Object[] childrenObject = new Object[children.size()];
       final int[] indexes = new int[children.size()];
       for (int i = 0; i < this.children.size(); i++) {
@@ -168,6 +434,14 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     }
   }
 
+  /**
+   * Find nodes of the file and its subtree among already listed nodes, not
+   * listed folders are not listed by the call.
+   *
+   * @param file file or folder
+   * @param list list to collect found nodes
+   * @return the same list
+   */
   @Nonnull
   @MustNotContainNull
   @ReturnsOriginal
@@ -176,7 +450,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     if (theFile != null) {
       if (file.equals(theFile) || theFile.toPath().startsWith(file.toPath())) {
         list.add(this);
-        for (final NodeFileOrFolder f : this.children) {
+        for (final NodeFileOrFolder f : getChildrenIfLoaded()) {
           f.findRelatedNodes(file, list);
         }
       }
@@ -193,12 +467,12 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   @Override
   @Nonnull
   public TreeNode getChildAt(final int childIndex) {
-    return this.children.get(childIndex);
+    return getLoadedChildren().get(childIndex);
   }
 
   @Override
   public int getChildCount() {
-    return this.children.size();
+    return getLoadedChildren().size();
   }
 
   @Nullable
@@ -214,7 +488,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
 
   @Override
   public int getIndex(@Nonnull final TreeNode node) {
-    return this.children.indexOf(node);
+    return getLoadedChildren().indexOf(node);
   }
 
   @Override
@@ -230,7 +504,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   @Override
   @Nonnull
   public Enumeration children() {
-    final Iterator<NodeFileOrFolder> iterator = this.children.iterator();
+    final Iterator<NodeFileOrFolder> iterator = getLoadedChildren().iterator();
     return new Enumeration() {
 
       @Override
@@ -271,8 +545,8 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     if (file.equals(generatedFile)) {
       return new TreePath(new Object[]{this});
     }
-    if (!this.isLeaf()) {
-      for (final NodeFileOrFolder c : this.children) {
+    if (!this.isLeaf() && (generatedFile == null || file.toPath().startsWith(generatedFile.toPath()))) {
+      for (final NodeFileOrFolder c : getLoadedChildren()) {
         final TreePath result = c.findPathToFile(file);
         if (result != null) {
           return new TreePath(ArrayUtils.joinArrays(new Object[]{this}, result.getPath()));
@@ -284,15 +558,26 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   }
 
   boolean deleteChild(@Nonnull final NodeFileOrFolder child) {
-    return this.children.remove(child);
+    final List<NodeFileOrFolder> loadedChildren = getLoadedChildren();
+    synchronized (this) {
+      child.markDetached();
+      return loadedChildren.remove(child);
+    }
   }
 
+  /**
+   * Collect already listed nodes which names match pattern, not listed folders
+   * are not listed by the call.
+   *
+   * @param namePattern pattern for names
+   * @param resultList list to collect found nodes
+   */
   protected void fillAllMatchNamePattern(@Nonnull final Pattern namePattern, @Nonnull @MustNotContainNull final List<NodeFileOrFolder> resultList) {
     if (namePattern.matcher(this.name).matches()) {
       resultList.add(this);
     }
     if (!this.isLeaf()) {
-      for (final NodeFileOrFolder c : this.children) {
+      for (final NodeFileOrFolder c : getChildrenIfLoaded()) {
         c.fillAllMatchNamePattern(namePattern, resultList);
       }
     }
@@ -305,7 +590,11 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   @Override
   @Nonnull
   public Iterator<NodeFileOrFolder> iterator() {
-    final List<NodeFileOrFolder> projects = new ArrayList<>(this.children);
+    final List<NodeFileOrFolder> loadedChildren = getLoadedChildren();
+    final List<NodeFileOrFolder> projects;
+    synchronized (this) {
+      projects = new ArrayList<>(loadedChildren);
+    }
     final Iterator<NodeFileOrFolder> result = projects.iterator();
     return new Iterator<NodeFileOrFolder>() {
       @Override
@@ -21,9 +21,12 @@ import java.io.StringReader;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import javax.annotation.Nullable;
+import javax.swing.tree.TreePath;
 import org.apache.commons.io.FileUtils;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.MMapURI;
@@ -31,8 +34,12 @@ import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.Context;
-import com.igormaznitsa.sciareto.ui.MapUtils;
+import com.igormaznitsa.sciareto.Main;
 import com.igormaznitsa.sciareto.ui.SystemUtils;
+import com.igormaznitsa.sciareto.ui.UiUtils;
+import com.igormaznitsa.sciareto.ui.misc.FileNameIndex;
+import com.igormaznitsa.sciareto.ui.misc.MapLinkIndex;
+import com.igormaznitsa.sciareto.ui.misc.TextSearchIndex;
 
 public class NodeProject extends NodeFileOrFolder {
 
@@ -40,12 +47,15 @@ public class NodeProject extends NodeFileOrFolder {
 
   private volatile File folder = null;
   private volatile boolean knowledgeFolderPresented;
+  private volatile ProjectFolderWatcher watcher;
+  private volatile TextSearchIndex textIndex;
+  private volatile MapLinkIndex linkIndex;
+  private volatile FileNameIndex nameIndex;
   
   public NodeProject(@Nonnull final NodeProjectGroup group, @Nonnull final File folder) {
     super(group, true, folder.getName(), !Files.isWritable(folder.toPath()));
     this.folder = folder;
     this.knowledgeFolderPresented = new File(folder,Context.KNOWLEDGE_FOLDER).isDirectory();
-    reloadSubtree();
   }
 
   public boolean hasKnowledgeFolder(){
@@ -56,7 +66,7 @@ public class NodeProject extends NodeFileOrFolder {
   public void setName(@Nonnull final String name) {
     this.name = name;
     this.folder = new File(folder.getParentFile(), name);
-    reloadSubtree();
+    restartWatching();
   }
 
   @Override
@@ -73,7 +83,181 @@ public class NodeProject extends NodeFileOrFolder {
   public void setFolder(@Nonnull final File folder) {
     Assertions.assertTrue("Must be directory", folder.isDirectory()); //NOI18N
     this.folder = folder;
+    restartWatching();
+  }
+
+  /**
+   * Start watching of the project folder for changes made outside, loaded
+   * folders will be kept in sync with file system.
+   */
+  public synchronized void startWatching() {
+    if (this.watcher == null) {
+      try {
+        final ProjectFolderWatcher newWatcher = new ProjectFolderWatcher(this);
+        this.watcher = newWatcher;
+        registerLoadedFolders(this, newWatcher);
+        newWatcher.start();
+        final TextSearchIndex index = this.textIndex;
+        if (index != null) {
+          index.setChangesReported(true);
+        }
+        final MapLinkIndex links = this.linkIndex;
+        if (links != null) {
+          links.setChangesReported(true);
+        }
+      } catch (IOException ex) {
+        LOGGER.error("Can't start watching of project folder " + this.folder, ex); //NOI18N
+      }
+    }
+  }
+
+  public synchronized void stopWatching() {
+    final ProjectFolderWatcher current = this.watcher;
+    this.watcher = null;
+    if (current != null) {
+      current.stop();
+    }
+    final TextSearchIndex index = this.textIndex;
+    if (index != null) {
+      index.setChangesReported(false);
+    }
+    final MapLinkIndex links = this.linkIndex;
+    if (links != null) {
+      links.setChangesReported(false);
+    }
+  }
+
+  /**
+   * Get full-text search index of the project.
+   *
+   * @return the index, must not be null
+   */
+  @Nonnull
+  public synchronized TextSearchIndex getTextIndex() {
+    TextSearchIndex result = this.textIndex;
+    if (result == null || !result.getFolder().equals(this.folder)) {
+      final String storeName = this.folder.getName() + '_' + Integer.toHexString(this.folder.getAbsolutePath().hashCode()) + ".idx"; //NOI18N
+      result = new TextSearchIndex(this.folder, new File(Main.TEXT_INDEX_FOLDER, storeName));
+      result.setChangesReported(this.watcher != null);
+      this.textIndex = result;
+    }
+    return result;
+  }
+
+  /**
+   * Get index of links between mind maps of the project.
+   *
+   * @return the index, must not be null
+   */
+  @Nonnull
+  public synchronized MapLinkIndex getLinkIndex() {
+    MapLinkIndex result = this.linkIndex;
+    if (result == null || !result.getFolder().equals(this.folder)) {
+      final String storeName = this.folder.getName() + '_' + Integer.toHexString(this.folder.getAbsolutePath().hashCode()) + ".idx"; //NOI18N
+      result = new MapLinkIndex(this.folder, new File(Main.LINK_INDEX_FOLDER, storeName));
+      result.setChangesReported(this.watcher != null);
+      this.linkIndex = result;
+    }
+    return result;
+  }
+
+  /**
+   * Get index of names of files and folders of the project.
+   *
+   * @return the index, must not be null
+   */
+  @Nonnull
+  public synchronized FileNameIndex getNameIndex() {
+    FileNameIndex result = this.nameIndex;
+    if (result == null || !result.getFolder().equals(this.folder)) {
+      result = new FileNameIndex(this.folder);
+      this.nameIndex = result;
+    }
+    return result;
+  }
+
+  private void restartWatching() {
+    final boolean watching = this.watcher != null;
+    stopWatching();
     reloadSubtree();
+    if (watching) {
+      startWatching();
+    }
+  }
+
+  /**
+   * Get number of nodes of the project, if the file name index is built then
+   * it is used for not listed folders.
+   *
+   * @return number of nodes including the project node
+   */
+  @Override
+  public int size() {
+    final FileNameIndex index = this.nameIndex;
+    return Math.max(super.size(), index == null ? 0 : index.size() + 1);
+  }
+
+  /**
+   * Collect nodes which names match pattern, if the file name index is built
+   * then it is used to find matches in not listed folders and only folders on
+   * paths to found files are listed.
+   *
+   * @param namePattern pattern for names
+   * @param resultList list to collect found nodes
+   */
+  @Override
+  protected void fillAllMatchNamePattern(@Nonnull final Pattern namePattern, @Nonnull @MustNotContainNull final List<NodeFileOrFolder> resultList) {
+    final FileNameIndex index = this.nameIndex;
+    if (index == null || index.size() == 0) {
+      super.fillAllMatchNamePattern(namePattern, resultList);
+      return;
+    }
+
+    if (namePattern.matcher(this.name).matches()) {
+      resultList.add(this);
+    }
+    final PriorityQueue<FileNameIndex.Match> matches = FileNameIndex.makeResultQueue();
+    try {
+      index.search(namePattern.pattern(), namePattern, Integer.MAX_VALUE, matches);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    for (final FileNameIndex.Match m : FileNameIndex.sortMatches(matches)) {
+      final TreePath path = findPathToFile(m.getFile());
+      if (path != null) {
+        resultList.add((NodeFileOrFolder) path.getLastPathComponent());
+      }
+    }
+  }
+
+  private static void registerLoadedFolders(@Nonnull final NodeFileOrFolder folder, @Nonnull final ProjectFolderWatcher watcher) {
+    if (folder.isLoaded()) {
+      watcher.register(folder);
+      for (final NodeFileOrFolder c : folder) {
+        if (!c.isLeaf()) {
+          registerLoadedFolders(c, watcher);
+        }
+      }
+    }
+  }
+
+  void onFolderLoaded(@Nonnull final NodeFileOrFolder folder) {
+    final ProjectFolderWatcher current = this.watcher;
+    if (current != null && !folder.isDetached()) {
+      current.register(folder);
+    }
+  }
+
+  void onFileChanged(@Nonnull final File file) {
+    final TextSearchIndex index = this.textIndex;
+    if (index != null) {
+      index.markChanged(file);
+    }
+    final MapLinkIndex links = this.linkIndex;
+    if (links != null) {
+      links.markChanged(file);
+    }
   }
 
   @Nonnull
@@ -81,24 +265,34 @@ public class NodeProject extends NodeFileOrFolder {
     return (NodeProjectGroup) this.parent;
   }
 
-  @Nonnull
+  /**
+   * Find maps which refer to a file. The link index is used as is if it is up
+   * to date, otherwise it is updated in background while modal progress
+   * dialog is shown.
+   *
+   * @param changedFile file or folder
+   * @return list of maps or null if the search has been canceled by user
+   */
+  @Nullable
   @MustNotContainNull
   public List<File> findAffectedFiles(@Nonnull final File changedFile) {
-    final File baseFolder = makeFileForNode();
-    final boolean folder = changedFile.isDirectory();
-    
-    final List<File> result = new ArrayList<>();
-    for (final File mindMapFile : FileUtils.listFiles(baseFolder, new String[]{"mmd", "MMD"}, true)) { //NOI18N
-      try {
-        final MindMap map = new MindMap(null, new StringReader(FileUtils.readFileToString(mindMapFile, "UTF-8"))); //NOI18N
-        if (!MapUtils.findTopicsRelatedToFile(baseFolder, changedFile, map).isEmpty()) {
-          result.add(mindMapFile);
+    final MapLinkIndex index = getLinkIndex();
+    if (!index.isUpToDate()) {
+      final boolean completed = UiUtils.runWithProgressDialog("Searching links", "Looking for mind maps which refer to " + changedFile.getName(), new Runnable() {
+        @Override
+        public void run() {
+          try {
+            index.update();
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
         }
-      } catch (IOException ex) {
-        LOGGER.error("Can't process mind map file", ex); //NOI18N
+      });
+      if (!completed) {
+        return null;
       }
     }
-    return result;
+    return index.findMapsReferringTo(changedFile);
   }
 
   @Nonnull
@@ -115,6 +309,7 @@ public class NodeProject extends NodeFileOrFolder {
           final MindMap map = new MindMap(null, new StringReader(FileUtils.readFileToString(file, "UTF-8"))); //NOI18N
           if (map.deleteAllLinksToFile(baseFolder, fileURI)) {
             SystemUtils.saveUTFText(file, map.packToString());
+            getLinkIndex().updateMap(file, map);
             affectedFiles.add(file);
           }
         } catch (IOException ex) {
@@ -147,6 +342,7 @@ public class NodeProject extends NodeFileOrFolder {
           final MindMap map = new MindMap(null, new StringReader(FileUtils.readFileToString(file, "UTF-8"))); //NOI18N
           if (map.replaceAllLinksToFile(baseFolder, oldFileURI, newFileURI)) {
             SystemUtils.saveUTFText(file, map.packToString());
+            getLinkIndex().updateMap(file, map);
             affectedFiles.add(file);
           }
         } catch (IOException ex) {
@@ -19,7 +19,11 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
@@ -36,6 +40,8 @@ import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.model.nio.Path;
 import com.igormaznitsa.mindmap.model.nio.Paths;
 import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.preferences.PreferencesManager;
+import com.igormaznitsa.sciareto.preferences.PreferencesPanel;
 import com.igormaznitsa.sciareto.ui.DialogProviderManager;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 
@@ -75,6 +81,8 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
   public void removeProject(@Nonnull final NodeProject project) {
     int index = this.children.indexOf(project);
     if (index >= 0 && this.children.remove(project)) {
+      project.stopWatching();
+      project.markDetached();
       final TreeModelEvent event = new TreeModelEvent(this, new Object[]{this}, new int[]{index}, new Object[]{project});
       for (final TreeModelListener l : this.listeners) {
         l.treeNodesRemoved(event);
@@ -95,6 +103,14 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
       for (final TreeModelListener l : this.listeners) {
         l.treeNodesInserted(event);
       }
+
+      if (isPrefetchAllowed()) {
+        newProject.prefetchSubtree();
+      }
+      newProject.startWatching();
+      newProject.getTextIndex().updateInBackground();
+      newProject.getLinkIndex().updateInBackground();
+      newProject.getNameIndex().updateInBackground(null);
     }
     return newProject;
   }
@@ -159,7 +175,9 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
               final NodeProject project = editedNode.findProject();
               if (project != null) {
                 affectedFiles = project.findAffectedFiles(origFile);
-                if (!affectedFiles.isEmpty()) {
+                if (affectedFiles == null) {
+                  doIt = false;
+                } else if (!affectedFiles.isEmpty()) {
                   affectedFiles = UiUtils.showSelectAffectedFiles(affectedFiles);
                   if (affectedFiles == null) {
                     doIt = false;
@@ -232,11 +250,18 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
     return path;
   }
 
+  private static boolean isPrefetchAllowed() {
+    return PreferencesManager.getInstance().getPreferences().getBoolean(PreferencesPanel.PREFERENCE_KEY_PREFETCH_PROJECT_FOLDERS, true);
+  }
+
   public void refreshProjectFolder(@Nonnull final NodeProject nodeProject) {
     final int index = this.getIndex(nodeProject);
     if (index >= 0) {
       nodeProject.reloadSubtree();
       nodeProject.fireNotifySubtreeChanged(this, this.listeners);
+      if (isPrefetchAllowed()) {
+        nodeProject.prefetchSubtree();
+      }
     }
   }
 
@@ -262,6 +287,74 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
     }
   }
 
+  /**
+   * Synchronize children of loaded folder with its actual content, only
+   * removed and added children are changed in the tree.
+   *
+   * @param folder folder node to be synchronized
+   * @param content map of child names to directory flags
+   */
+  void syncFolderContent(@Nonnull final NodeFileOrFolder folder, @Nonnull final Map<String, Boolean> content) {
+    if (!folder.isLoaded() || folder.isDetached()) {
+      return;
+    }
+    final File folderFile = folder.makeFileForNode();
+    if (folderFile == null) {
+      return;
+    }
+
+    final Set<String> presented = new HashSet<>();
+    final List<Integer> removedIndexes = new ArrayList<>();
+    final List<NodeFileOrFolder> removedNodes = new ArrayList<>();
+    for (int i = 0; i < folder.getChildCount(); i++) {
+      final NodeFileOrFolder child = (NodeFileOrFolder) folder.getChildAt(i);
+      final Boolean directory = content.get(child.name);
+      if (directory == null || directory == child.isLeaf()) {
+        removedIndexes.add(i);
+        removedNodes.add(child);
+      } else {
+        presented.add(child.name);
+      }
+    }
+
+    if (!removedNodes.isEmpty()) {
+      for (final NodeFileOrFolder n : removedNodes) {
+        folder.deleteChild(n);
+      }
+      final int[] indexes = new int[removedIndexes.size()];
+      for (int i = 0; i < indexes.length; i++) {
+        indexes[i] = removedIndexes.get(i);
+      }
+      final TreeModelEvent event = new TreeModelEvent(this, folder.makeTreePath(), indexes, removedNodes.toArray());
+      for (final TreeModelListener l : this.listeners) {
+        l.treeNodesRemoved(event);
+      }
+    }
+
+    final List<NodeFileOrFolder> addedNodes = new ArrayList<>();
+    for (final String name : content.keySet()) {
+      if (!presented.contains(name)) {
+        addedNodes.add(folder.addFile(new File(folderFile, name)));
+      }
+    }
+
+    if (!addedNodes.isEmpty()) {
+      final int[] indexes = new int[addedNodes.size()];
+      for (int i = 0; i < indexes.length; i++) {
+        indexes[i] = addedNodes.get(i).getIndexAtParent();
+      }
+      Arrays.sort(indexes);
+      final Object[] nodes = new Object[indexes.length];
+      for (int i = 0; i < indexes.length; i++) {
+        nodes[i] = folder.getChildAt(indexes[i]);
+      }
+      final TreeModelEvent event = new TreeModelEvent(this, folder.makeTreePath(), indexes, nodes);
+      for (final TreeModelListener l : this.listeners) {
+        l.treeNodesInserted(event);
+      }
+    }
+  }
+
   @Nonnull
   @MustNotContainNull
   public List<NodeFileOrFolder> findForNamePattern(@Nullable final Pattern namePattern) {
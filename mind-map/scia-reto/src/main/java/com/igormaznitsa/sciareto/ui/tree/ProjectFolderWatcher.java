@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.sciareto.ui.tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.swing.SwingUtilities;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+
+/**
+ * Watcher of file system changes in project folder. Only folders which
+ * children have been loaded into the tree are registered, events are collected
+ * during short period and then every changed folder is synchronized with the
+ * tree through minimal set of insert and remove operations. All changed paths
+ * are also reported to the project to keep its text index in sync.
+ */
+final class ProjectFolderWatcher implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProjectFolderWatcher.class);
+
+  /**
+   * Time to wait for next event before applying collected changes.
+   */
+  private static final long DEBOUNCE_DELAY = 300L;
+
+  /**
+   * Max time to collect events in one batch during permanent changes.
+   */
+  private static final long MAX_BATCH_TIME = 2000L;
+
+  private final NodeProject project;
+  private final WatchService watchService;
+  private final Map<WatchKey, NodeFileOrFolder> registered = new ConcurrentHashMap<>();
+  private final Thread thread;
+
+  ProjectFolderWatcher(@Nonnull final NodeProject project) throws IOException {
+    this.project = project;
+    this.watchService = project.getFolder().toPath().getFileSystem().newWatchService();
+    this.thread = new Thread(this, "SR_PROJECT_WATCHER_" + project.getFolder().getName()); //NOI18N
+    this.thread.setDaemon(true);
+    this.thread.setPriority(Thread.MIN_PRIORITY);
+  }
+
+  void start() {
+    this.thread.start();
+  }
+
+  void stop() {
+    this.thread.interrupt();
+    try {
+      this.watchService.close();
+    } catch (IOException ex) {
+      LOGGER.warn("Can't close watch service : " + ex.getMessage()); //NOI18N
+    }
+    this.registered.clear();
+  }
+
+  /**
+   * Start watching of folder which children have been loaded.
+   *
+   * @param folder loaded folder node
+   */
+  void register(@Nonnull final NodeFileOrFolder folder) {
+    final File file = folder.makeFileForNode();
+    if (file != null) {
+      try {
+        final WatchKey key = file.toPath().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.registered.put(key, folder);
+      } catch (ClosedWatchServiceException ex) {
+        // the watcher has been stopped
+      } catch (IOException ex) {
+        LOGGER.warn("Can't watch folder " + file + " : " + ex.getMessage()); //NOI18N
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        final Set<NodeFileOrFolder> changed = new LinkedHashSet<>();
+        collect(this.watchService.take(), changed);
+
+        final long batchEnd = System.currentTimeMillis() + MAX_BATCH_TIME;
+        WatchKey next;
+        while (System.currentTimeMillis() < batchEnd && (next = this.watchService.poll(DEBOUNCE_DELAY, TimeUnit.MILLISECONDS)) != null) {
+          collect(next, changed);
+        }
+
+        final Map<NodeFileOrFolder, Map<String, Boolean>> contents = new LinkedHashMap<>();
+        for (final NodeFileOrFolder folder : changed) {
+          if (folder.isLoaded() && !folder.isDetached()) {
+            final Map<String, Boolean> content = listFolder(folder);
+            if (content != null) {
+              contents.put(folder, content);
+            }
+          }
+        }
+
+        if (!contents.isEmpty()) {
+          SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+              final NodeProjectGroup group = project.getGroup();
+              for (final Map.Entry<NodeFileOrFolder, Map<String, Boolean>> e : contents.entrySet()) {
+                group.syncFolderContent(e.getKey(), e.getValue());
+              }
+            }
+          });
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException ex) {
+      // the watcher has been stopped
+    }
+  }
+
+  private void collect(@Nonnull final WatchKey key, @Nonnull final Set<NodeFileOrFolder> changed) {
+    final NodeFileOrFolder folder = this.registered.get(key);
+    final List<WatchEvent<?>> events = key.pollEvents();
+    if (folder == null || folder.isDetached()) {
+      key.cancel();
+      this.registered.remove(key);
+    } else {
+      final File folderFile = folder.makeFileForNode();
+      boolean structureChanged = false;
+      for (final WatchEvent<?> e : events) {
+        final Object context = e.context();
+        if (e.kind() == StandardWatchEventKinds.OVERFLOW || !(context instanceof Path)) {
+          structureChanged = true;
+          if (folderFile != null) {
+            this.project.onFileChanged(folderFile);
+          }
+        } else {
+          structureChanged |= e.kind() != StandardWatchEventKinds.ENTRY_MODIFY;
+          if (folderFile != null) {
+            this.project.onFileChanged(new File(folderFile, context.toString()));
+          }
+        }
+      }
+      if (structureChanged) {
+        changed.add(folder);
+      }
+      if (!key.reset()) {
+        this.registered.remove(key);
+      }
+    }
+  }
+
+  @Nullable
+  private static Map<String, Boolean> listFolder(@Nonnull final NodeFileOrFolder folder) {
+    final File file = folder.makeFileForNode();
+    if (file == null || !file.isDirectory()) {
+      return null;
+    }
+    final Map<String, Boolean> result = new LinkedHashMap<>();
+    try (final DirectoryStream<Path> stream = Files.newDirectoryStream(file.toPath())) {
+      for (final Path p : stream) {
+        result.put(p.getFileName().toString(), Files.isDirectory(p));
+      }
+    } catch (IOException | DirectoryIteratorException ex) {
+      LOGGER.warn("Can't list folder " + file + " : " + ex.getMessage()); //NOI18N
+      return null;
+    }
+    return result;
+  }
+}
@@ -17,6 +17,8 @@ package com.igormaznitsa.sciareto.ui.tree;
 
 import java.awt.Component;
 import java.awt.Image;
+import java.awt.event.MouseEvent;
+import java.io.File;
 import java.util.Locale;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,6 +29,7 @@ import javax.swing.UIManager;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import org.apache.commons.io.FilenameUtils;
 import com.igormaznitsa.meta.common.utils.GetUtils;
+import com.igormaznitsa.mindmap.swing.services.MindMapThumbnailService;
 import com.igormaznitsa.sciareto.ui.Icons;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 import com.igormaznitsa.sciareto.ui.editors.PictureViewer;
@@ -73,9 +76,35 @@ public class TreeCellRenderer extends DefaultTreeCellRenderer {
   private Icon LEAF_MINDMAP;
   private Icon LEAF_MINDMAP_RO;
 
+  private final MindMapThumbnailService thumbnails;
+  private transient NodeFileOrFolder mindMapNode;
+
   public TreeCellRenderer() {
+    this(null);
+  }
+
+  public TreeCellRenderer(@Nullable final MindMapThumbnailService thumbnails) {
     super();
+    this.thumbnails = thumbnails;
+  }
 
+  /**
+   * Tooltip of mind map contains its thumbnail if it is ready, otherwise
+   * rendering of the thumbnail is just scheduled and the tooltip will be shown
+   * after next mouse move.
+   */
+  @Override
+  @Nullable
+  public String getToolTipText(@Nonnull final MouseEvent event) {
+    final NodeFileOrFolder node = this.mindMapNode;
+    if (this.thumbnails != null && node != null) {
+      final File file = node.makeFileForNode();
+      final File thumbnail = file == null ? null : this.thumbnails.getThumbnailFile(file, null);
+      if (thumbnail != null) {
+        return "<html><img src=\"" + thumbnail.toURI() + "\"></html>"; //NOI18N
+      }
+    }
+    return super.getToolTipText(event);
   }
 
   private void ensureIcons(@Nonnull final JTree tree) {
@@ -125,6 +154,7 @@ public class TreeCellRenderer extends DefaultTreeCellRenderer {
   public Component getTreeCellRendererComponent(@Nonnull final JTree tree, @Nullable final Object value, final boolean selected, final boolean expanded, final boolean leaf, final int row, final boolean hasFocus) {
     ensureIcons(tree);
     super.getTreeCellRendererComponent(tree, value, selected, expanded, leaf, row, hasFocus);
+    this.mindMapNode = null;
     if (value != null) {
       if (value instanceof NodeFileOrFolder) {
         final NodeFileOrFolder node = (NodeFileOrFolder) value;
@@ -138,6 +168,7 @@ public class TreeCellRenderer extends DefaultTreeCellRenderer {
           final String ext = FilenameUtils.getExtension(node.toString()).toLowerCase(Locale.ENGLISH);
           if (ext.equals("mmd")) { //NOI18N
             this.setIcon(node.isReadOnly() ? LEAF_MINDMAP_RO : LEAF_MINDMAP);
+            this.mindMapNode = node;
           } else if (PictureViewer.SUPPORTED_FORMATS.contains(ext)) {
             this.setIcon(node.isReadOnly() ? ICON_IMAGE_RO : ICON_IMAGE);
           } else {
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.sciareto.ui.misc;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileExaminatorTest {
+
+  private static final int BUFFER_SIZE = 16;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static FileExaminator.BytePattern pattern(final String text) throws Exception {
+    return new FileExaminator.BytePattern(text.toLowerCase().getBytes("UTF-8"), text.toUpperCase().getBytes("UTF-8"));
+  }
+
+  private static byte[] makeData(final int length, final int position, final String text) throws Exception {
+    final byte[] data = new byte[length];
+    Arrays.fill(data, (byte) '.');
+    final byte[] bytes = text.getBytes("UTF-8");
+    System.arraycopy(bytes, 0, data, position, bytes.length);
+    return data;
+  }
+
+  @Test
+  public void testBytePatternFind_IgnoreCase() throws Exception {
+    final ByteBuffer buffer = ByteBuffer.wrap("some Text here".getBytes("UTF-8"));
+    assertEquals(5, pattern("text").find(buffer, 0, buffer.capacity()));
+    assertEquals(-1, pattern("texts").find(buffer, 0, buffer.capacity()));
+  }
+
+  @Test
+  public void testBytePatternFind_Range() throws Exception {
+    final ByteBuffer buffer = ByteBuffer.wrap("abcTEXTabc".getBytes("UTF-8"));
+    final FileExaminator.BytePattern pattern = pattern("text");
+    assertEquals(3, pattern.find(buffer, 3, 7));
+    assertEquals(-1, pattern.find(buffer, 0, 6));
+    assertEquals(-1, pattern.find(buffer, 4, 10));
+  }
+
+  @Test
+  public void testDoesContainData_PatternCrossesBufferBorder() throws Exception {
+    final File file = this.tempFolder.newFile("data.bin");
+    final String text = "hello";
+    for (int position = 0; position <= 3 * BUFFER_SIZE - text.length(); position++) {
+      FileUtils.writeByteArrayToFile(file, makeData(3 * BUFFER_SIZE, position, text));
+      assertTrue("Must be found at " + position, new FileExaminator(file, BUFFER_SIZE).doesContainData(pattern(text)));
+      assertFalse("Must not be found at " + position, new FileExaminator(file, BUFFER_SIZE).doesContainData(pattern("hellox")));
+    }
+  }
+
+  @Test
+  public void testDoesContainData_SmallFile() throws Exception {
+    final File file = this.tempFolder.newFile("data.txt");
+    FileUtils.writeByteArrayToFile(file, "HeLLo".getBytes("UTF-8"));
+    assertTrue(new FileExaminator(file).doesContainData(pattern("hello")));
+    assertFalse(new FileExaminator(file).doesContainData(pattern("hello!")));
+    assertFalse(new FileExaminator(file).doesContainData(pattern("")));
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.sciareto.ui.misc;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileNameIndexTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static int score(final String query, final String name) {
+    return FileNameIndex.scoreName(query.toLowerCase().toCharArray(), name, name.toLowerCase().toCharArray());
+  }
+
+  @Test
+  public void testScoreName_NotInOrder() {
+    assertEquals(-1, score("cba", "abc"));
+    assertEquals(-1, score("abcd", "abc"));
+    assertEquals(-1, score("z", "abc"));
+    assertTrue(score("ac", "abc") >= 0);
+  }
+
+  @Test
+  public void testScoreName_WordStartBonus() {
+    assertTrue(score("fb", "foo_bar") > score("fb", "fooxbar"));
+    assertTrue(score("fb", "fooBar") > score("fb", "fooxbar"));
+  }
+
+  @Test
+  public void testScoreName_ConsecutiveBonus() {
+    assertTrue(score("ab", "abxxx") > score("ab", "axbxx"));
+    assertTrue(score("abc", "abcxx") > score("abc", "abxcx"));
+  }
+
+  @Test
+  public void testSearch_Wildcard() throws Exception {
+    this.tempFolder.newFile("first.mmd");
+    this.tempFolder.newFile("second.txt");
+    this.tempFolder.newFolder("sub");
+    this.tempFolder.newFile("sub" + File.separator + "third.mmd");
+
+    final FileNameIndex index = new FileNameIndex(this.tempFolder.getRoot());
+    assertTrue(index.update());
+    assertFalse(index.update());
+    assertEquals(4, index.size());
+
+    final PriorityQueue<FileNameIndex.Match> queue = FileNameIndex.makeResultQueue();
+    index.search("*.mmd", Pattern.compile(".*\\.mmd"), 10, queue);
+    final List<FileNameIndex.Match> found = FileNameIndex.sortMatches(queue);
+
+    assertEquals(2, found.size());
+    assertEquals("first.mmd", found.get(0).getName());
+    assertEquals("third.mmd", found.get(1).getName());
+    assertEquals(new File(new File(this.tempFolder.getRoot(), "sub"), "third.mmd"), found.get(1).getFile());
+  }
+
+  @Test
+  public void testSearch_MaxResults() throws Exception {
+    for (final String name : new String[]{"e.txt", "c.txt", "a.txt", "d.txt", "b.txt"}) {
+      this.tempFolder.newFile(name);
+    }
+    this.tempFolder.newFile("long_name.txt");
+
+    final FileNameIndex index = new FileNameIndex(this.tempFolder.getRoot());
+    index.update();
+
+    final PriorityQueue<FileNameIndex.Match> queue = FileNameIndex.makeResultQueue();
+    index.search("txt", null, 2, queue);
+    final List<FileNameIndex.Match> found = FileNameIndex.sortMatches(queue);
+
+    assertEquals(2, found.size());
+    assertEquals("a.txt", found.get(0).getName());
+    assertEquals("b.txt", found.get(1).getName());
+    assertTrue(found.get(0).getScore() > 0);
+  }
+}
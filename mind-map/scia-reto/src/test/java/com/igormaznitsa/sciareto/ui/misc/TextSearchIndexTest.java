@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.sciareto.ui.misc;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TextSearchIndexTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static boolean contains(final TextSearchIndex index, final File file, final String text) throws Exception {
+    final byte[] data = text.getBytes("UTF-8");
+    return index.findCandidates(data, data).contains(file);
+  }
+
+  @Test
+  public void testUpdateOnlyReportedPaths() throws Exception {
+    final File folder = this.tempFolder.newFolder("project");
+    final File first = new File(folder, "first.txt");
+    FileUtils.write(first, "some hello text", "UTF-8");
+
+    final TextSearchIndex index = new TextSearchIndex(folder, null);
+    index.setChangesReported(true);
+    index.update();
+    assertTrue(contains(index, first, "hello"));
+
+    final File sub = new File(folder, "sub");
+    final File second = new File(sub, "second.txt");
+    FileUtils.write(second, "another world text", "UTF-8");
+
+    index.update();
+    assertFalse("Not reported file must not be read", contains(index, second, "world"));
+
+    index.markChanged(sub);
+    index.update();
+    assertTrue(contains(index, second, "world"));
+
+    assertTrue(first.delete());
+    index.markChanged(first);
+    index.update();
+    assertFalse(contains(index, first, "hello"));
+  }
+
+  @Test
+  public void testWalkFolderIfChangesNotReported() throws Exception {
+    final File folder = this.tempFolder.newFolder("project");
+    final TextSearchIndex index = new TextSearchIndex(folder, null);
+    index.update();
+    assertEquals(Collections.emptyList(), index.findCandidates("hello".getBytes("UTF-8"), "HELLO".getBytes("UTF-8")));
+
+    final File file = new File(folder, "file.txt");
+    FileUtils.write(file, "Hello", "UTF-8");
+    index.update();
+    assertTrue(contains(index, file, "hello"));
+  }
+
+  @Test
+  public void testBinaryAndBigFiles() throws Exception {
+    final File folder = this.tempFolder.newFolder("project");
+
+    final File binary = new File(folder, "image.bin");
+    FileUtils.writeByteArrayToFile(binary, new byte[]{'h', 'e', 'l', 'l', 'o', 0, 1, 2});
+
+    final byte[] big = new byte[200 * 1024];
+    Arrays.fill(big, (byte) 'x');
+    final byte[] text = "hello".getBytes("UTF-8");
+    System.arraycopy(text, 0, big, 64 * 1024 - 2, text.length);
+    final File bigFile = new File(folder, "big.txt");
+    FileUtils.writeByteArrayToFile(bigFile, big);
+
+    final TextSearchIndex index = new TextSearchIndex(folder, null);
+    index.update();
+
+    assertFalse("Binary file must not be candidate", contains(index, binary, "hello"));
+    assertFalse("Binary file must not be candidate", contains(index, binary, "he"));
+    assertTrue("Trigrams crossing read chunks must be indexed", contains(index, bigFile, "hello"));
+    assertFalse(contains(index, bigFile, "world"));
+  }
+}